@@ -126,7 +126,10 @@ import org.bukkit.inventory.meta.SkullMeta;
 import org.bukkit.map.MapCursor;
 import org.bukkit.map.MapView;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
@@ -349,6 +352,18 @@ public class V1_21_4 extends NMSWrapper {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public ValuePairs<byte[], List<MapCursor>> renderMap(MapView mapView, Player player) {
+        try {
+            CraftMapView craftMapView = (CraftMapView) mapView;
+            RenderData renderData = craftMapView.render((CraftPlayer) player);
+            return new ValuePairs<>(renderData.buffer, (List<MapCursor>) renderDataCursorsField.get(renderData));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public List<MapIcon> toNMSMapIconList(List<MapCursor> mapCursors) {
         return mapCursors.stream().map(c -> {
@@ -382,6 +397,36 @@ public class V1_21_4 extends NMSWrapper {
         return nbt.toString();
     }
 
+    @Override
+    public ItemStack getItemFromNBTBytes(byte[] bytes) {
+        try {
+            IRegistryCustom registryAccess = ((CraftWorld) Bukkit.getWorlds().get(0)).getHandle().K_();
+            NBTTagCompound nbtTagCompound = NBTCompressedStreamTools.a((DataInput) new DataInputStream(new ByteArrayInputStream(bytes)));
+            net.minecraft.world.item.ItemStack itemStack = net.minecraft.world.item.ItemStack.a(registryAccess, nbtTagCompound);
+            return toBukkitCopy(itemStack);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public byte[] getNMSItemStackBytes(ItemStack itemStack) {
+        if (itemStack.getType().isAir()) {
+            return new byte[0];
+        }
+        IRegistryCustom registryAccess = ((CraftWorld) Bukkit.getWorlds().get(0)).getHandle().K_();
+        NBTTagCompound nbtTagCompound = new NBTTagCompound();
+        net.minecraft.world.item.ItemStack nmsItemStack = toNMSCopy(itemStack);
+        NBTBase nbt = nmsItemStack.b(registryAccess, nbtTagCompound);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            NBTCompressedStreamTools.c(nbt, new DataOutputStream(out));
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @SuppressWarnings({"PatternValidation", "unchecked", "rawtypes"})
     @Override
     public Map<Key, DataComponentValue> getNMSItemStackDataComponents(ItemStack itemStack) {
@@ -762,6 +807,14 @@ public class V1_21_4 extends NMSWrapper {
         ((CraftPlayer) player).getHandle().f.sendPacket(packet);
     }
 
+    @Override
+    public void sendFakeMapUpdate(Player player, int mapId, List<MapCursor> mapCursors, byte[] colors, int x, int y, int width, int height) {
+        Optional<List<MapIcon>> mapIcons = mapCursors == null ? Optional.empty() : Optional.of(toNMSMapIconList(mapCursors));
+        Optional<WorldMap.c> c = colors == null ? Optional.empty() : Optional.of(new WorldMap.c(x, y, width, height, colors));
+        PacketPlayOutMap packet = new PacketPlayOutMap(new MapId(mapId), (byte) 0, false, mapIcons, c);
+        ((CraftPlayer) player).getHandle().f.sendPacket(packet);
+    }
+
     @Override
     public InternalOfflinePlayerInfo loadOfflinePlayer(UUID uuid, Inventory inventory, Inventory enderchest) {
         MinecraftServer server = ((CraftServer) Bukkit.getServer()).getServer();
@@ -25,6 +25,7 @@ import com.loohp.interactivechat.objectholders.CommandSuggestion;
 import com.loohp.interactivechat.objectholders.CustomTabCompletionAction;
 import com.loohp.interactivechat.objectholders.IICPlayer;
 import com.loohp.interactivechat.objectholders.InternalOfflinePlayerInfo;
+import com.loohp.interactivechat.objectholders.ValuePairs;
 import com.loohp.interactivechat.utils.ComponentFlattening;
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
@@ -138,12 +139,18 @@ public abstract class NMSWrapper {
 
     public abstract List<MapCursor> getCursors(MapView mapView, Player player);
 
+    public abstract ValuePairs<byte[], List<MapCursor>> renderMap(MapView mapView, Player player);
+
     public abstract List<?> toNMSMapIconList(List<MapCursor> mapCursors);
 
     public abstract ItemStack getItemFromNBTJson(String json);
 
     public abstract String getNMSItemStackJson(ItemStack itemStack);
 
+    public abstract ItemStack getItemFromNBTBytes(byte[] bytes);
+
+    public abstract byte[] getNMSItemStackBytes(ItemStack itemStack);
+
     public abstract Map<Key, DataComponentValue> getNMSItemStackDataComponents(ItemStack itemStack);
 
     public abstract ItemStack getItemStackFromDataComponents(ItemStack itemStack, Map<Key, DataComponentValue> dataComponents);
@@ -206,6 +213,8 @@ public abstract class NMSWrapper {
 
     public abstract void sendFakeMapUpdate(Player player, int mapId, List<MapCursor> mapCursors, byte[] colors);
 
+    public abstract void sendFakeMapUpdate(Player player, int mapId, List<MapCursor> mapCursors, byte[] colors, int x, int y, int width, int height);
+
     public abstract InternalOfflinePlayerInfo loadOfflinePlayer(UUID uuid, Inventory inventory, Inventory enderchest);
 
 }
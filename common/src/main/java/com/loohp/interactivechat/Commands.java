@@ -40,6 +40,8 @@ import com.loohp.interactivechat.updater.Updater;
 import com.loohp.interactivechat.updater.Updater.UpdaterResponse;
 import com.loohp.interactivechat.utils.ChatColorUtils;
 import com.loohp.interactivechat.utils.ComponentFont;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.JobStatistics;
 import com.loohp.interactivechat.utils.InteractiveChatComponentSerializer;
 import com.loohp.interactivechat.utils.InventoryUtils;
 import com.loohp.interactivechat.utils.ItemNBTUtils;
@@ -62,6 +64,7 @@ import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -441,6 +444,22 @@ public class Commands implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        if (args[0].equalsIgnoreCase("jobs")) {
+            if (sender.hasPermission("interactivechat.jobs")) {
+                sender.sendMessage(ChatColor.AQUA + "[InteractiveChat] Housekeeping jobs (runs | avg ms | max ms | overruns):");
+                HousekeepingScheduler.getStatistics().values().stream().sorted(Comparator.comparingLong(JobStatistics::getTotalNanos).reversed()).forEachOrdered(statistics -> {
+                    long runs = statistics.getRuns();
+                    double average = runs == 0 ? 0 : statistics.getTotalNanos() / (double) runs / 1000000.0;
+                    double max = statistics.getMaxNanos() / 1000000.0;
+                    ChatColor color = statistics.getOverruns() > 0 ? ChatColor.RED : ChatColor.GRAY;
+                    sender.sendMessage(color + statistics.getName() + ": " + runs + " | " + String.format("%.3f", average) + " | " + String.format("%.3f", max) + " | " + statistics.getOverruns());
+                });
+            } else {
+                sender.sendMessage(InteractiveChat.noPermissionMessage);
+            }
+            return true;
+        }
+
         if (sender instanceof Player && args.length > 1) {
             Player player = (Player) sender;
             switch (args[0].toLowerCase()) {
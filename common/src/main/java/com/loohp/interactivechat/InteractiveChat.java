@@ -65,6 +65,8 @@ import com.loohp.interactivechat.placeholderapi.Placeholders;
 import com.loohp.interactivechat.platform.ProtocolPlatform;
 import com.loohp.interactivechat.platform.protocollib.ProtocolLibPlatform;
 import com.loohp.interactivechat.updater.Updater;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import com.loohp.interactivechat.utils.InteractiveChatComponentSerializer;
 import com.loohp.interactivechat.utils.InventoryUtils;
 import com.loohp.interactivechat.utils.MCVersion;
@@ -129,6 +131,7 @@ public class InteractiveChat extends JavaPlugin {
 
     public static int extraProxiedPacketProcessingDelay;
     public static boolean pluginMessagePacketVerbose;
+    public static int pluginMessageDedupeRate = 100;
     public static int asyncChatThreadPoolExecutorCoreSize;
     public static int asyncChatThreadPoolExecutorMaxSize;
 
@@ -460,7 +463,7 @@ public class InteractiveChat extends JavaPlugin {
 
             protocolPlatform.onBungeecordModeEnabled();
 
-            FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+            HousekeepingScheduler.schedule("player-name-placeholder-warmer", Execution.BLOCKING, 0, 100, () -> {
                 if (parsePAPIOnMainThread) {
                     for (Player player : Bukkit.getOnlinePlayers()) {
                         FoliaUtil.scheduler.runTask(player, () -> {
@@ -474,9 +477,9 @@ public class InteractiveChat extends JavaPlugin {
                         PlaceholderParser.parse(ICPlayerFactory.getICPlayer(player), usePlayerNameClickValue);
                     }
                 }
-            }, 0, 100);
+            });
 
-            FoliaUtil.scheduler.runTaskTimer(() -> {
+            HousekeepingScheduler.schedule("vanish-state-forwarder", Execution.GLOBAL, 0, 40, () -> {
                 Map<UUID, Boolean> vanishStates = new HashMap<>();
                 for (ICPlayer player : ICPlayerFactory.getOnlineICPlayers()) {
                     if (player.isLocal()) {
@@ -485,12 +488,12 @@ public class InteractiveChat extends JavaPlugin {
                 }
                 FoliaUtil.scheduler.runTaskAsynchronously(() -> {
                     try {
-                        BungeeMessageSender.updatePlayersVanished(System.currentTimeMillis(), vanishStates);
+                        BungeeMessageSender.forwardVanishChanges(System.currentTimeMillis(), vanishStates);
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
                 });
-            }, 0, 40);
+            });
         }
 
         BiConsumer<String, Inventory> inventoryRemovalListener = (hash, inv) -> {
@@ -672,7 +675,7 @@ public class InteractiveChat extends JavaPlugin {
 
         getServer().getConsoleSender().sendMessage(ChatColor.GREEN + "[InteractiveChat] InteractiveChat has been Enabled!");
 
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("remote-placeholder-list-update", Execution.ASYNC, 0, 100, () -> {
             if (queueRemoteUpdate && !Bukkit.getOnlinePlayers().isEmpty()) {
                 try {
                     if (BungeeMessageSender.resetAndForwardPlaceholderList(System.currentTimeMillis(), InteractiveChat.placeholderList.values())) {
@@ -682,7 +685,7 @@ public class InteractiveChat extends JavaPlugin {
                     e.printStackTrace();
                 }
             }
-        }, 0, 100);
+        });
 
         try {
             Logger logger = LogManager.getRootLogger();
@@ -706,18 +709,25 @@ public class InteractiveChat extends JavaPlugin {
             MessagePacketHandler.getAsyncChatSendingExecutor().close();
         } catch (Exception ignored) {
         }
+        if (database != null) {
+            database.close();
+        }
+        if (bungeeMessageListener != null) {
+            bungeeMessageListener.close();
+        }
+        HousekeepingScheduler.shutdown();
         getServer().getConsoleSender().sendMessage(ChatColor.RED + "[InteractiveChat] InteractiveChat has been Disabled!");
     }
 
     private void gc() {
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("display-cache-sweep", Execution.ASYNC, 0, 1200, () -> {
             itemDisplay.cleanUp();
             inventoryDisplay.cleanUp();
             inventoryDisplay1Upper.cleanUp();
             inventoryDisplay1Lower.cleanUp();
             enderDisplay.cleanUp();
             mapDisplay.cleanUp();
-        }, 0, 1200);
+        });
     }
 
 }
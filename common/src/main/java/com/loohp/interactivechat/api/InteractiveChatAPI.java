@@ -624,6 +624,18 @@ public class InteractiveChatAPI {
         return ICPlayerFactory.getOfflineICPlayer(uuid);
     }
 
+    /**
+     * Get {@link OfflineICPlayer} from a {@link UUID} without blocking the calling thread.
+     * Concurrent requests for the same player share a single load.
+     * If the offline player has never joined the server, the future may complete with null.
+     *
+     * @param uuid
+     * @return A future of an OfflineICPlayer or null if not found
+     */
+    public static CompletableFuture<OfflineICPlayer> getOfflineICPlayerAsync(UUID uuid) {
+        return ICPlayerFactory.getOfflineICPlayerAsync(uuid);
+    }
+
     /**
      * Get {@link OfflineICPlayer} from the given username
      * This method may involve a blocking web request to get the UUID for the given name.
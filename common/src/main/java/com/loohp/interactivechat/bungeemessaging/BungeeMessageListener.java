@@ -20,48 +20,70 @@
 
 package com.loohp.interactivechat.bungeemessaging;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.io.ByteArrayDataInput;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.loohp.interactivechat.InteractiveChat;
 import com.loohp.interactivechat.api.InteractiveChatAPI;
 import com.loohp.interactivechat.api.InteractiveChatAPI.SharedType;
 import com.loohp.interactivechat.api.events.ProxyCustomDataRecievedEvent;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay.RemoteDataType;
 import com.loohp.interactivechat.data.PlayerDataManager.PlayerData;
 import com.loohp.interactivechat.modules.ProcessExternalMessage;
 import com.loohp.interactivechat.objectholders.*;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.*;
+import com.loohp.interactivechat.objectholders.ICPlayerFactory.RemotePlayerCreateResult;
 import com.loohp.interactivechat.utils.*;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils.FrameHeader;
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 
-public class BungeeMessageListener implements PluginMessageListener {
+public class BungeeMessageListener implements PluginMessageListener, AutoCloseable {
+
+    public static final String PROXY_SOURCE = "proxy";
+    public static final int INBOUND_QUEUE_LIMIT = 8192;
+
+    /**
+     * Packets that may take long to handle and do not depend on the order of anything else, so they skip the serial lane.
+     */
+    private static final Set<Integer> UNORDERED_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(0x08)));
+    /**
+     * Whole packets that only carry the latest state of one player, a newer one makes a pending one redundant.
+     * They are merged by player while queued and are the first to be evicted when the lane is full.
+     */
+    private static final Set<Integer> IDEMPOTENT_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(0x11, 0x16)));
+    /**
+     * Sequenced deltas, when the lane is full they are dropped and the state they belong to is resynced instead.
+     */
+    private static final Set<Integer> SEQUENCED_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(0x19, 0x1C, 0x1E)));
 
     private final InteractiveChat plugin;
-    private final Map<Integer, byte[][]> incoming;
+    private final PluginMessageReassembler reassembler = new PluginMessageReassembler();
+    private final PartitionedMessageExecutor inboundExecutor = new PartitionedMessageExecutor(1, INBOUND_QUEUE_LIMIT, new ThreadFactoryBuilder().setNameFormat("InteractiveChat Inbound PluginMessage Thread #%d").setDaemon(true).build(), source -> {
+        Bukkit.getConsoleSender().sendMessage(ChatColor.YELLOW + "[InteractiveChat] Inbound plugin messages from the " + source + " are arriving faster than they can be handled, some updates are being merged or resynced");
+    });
     private final Map<UUID, CompletableFuture<?>> toComplete = new ConcurrentHashMap<>();
+    private final SyncedPlayerList playerList = new SyncedPlayerList();
+    private boolean playerListSynced = false;
+    private long lastPlayerListResync = 0;
+    private final Map<UUID, Long> lastPlaceholderKeyframeRequests = new ConcurrentHashMap<>();
 
     public BungeeMessageListener(InteractiveChat instance) {
         plugin = instance;
-        Cache<Integer, byte[][]> incomingCache = CacheBuilder.newBuilder()
-                                                             .expireAfterAccess(10, TimeUnit.SECONDS)
-                                                             .build();
-        incoming = incomingCache.asMap();
     }
 
     public void addToComplete(UUID uuid, CompletableFuture<?> future) {
@@ -81,443 +103,724 @@ public class BungeeMessageListener implements PluginMessageListener {
             return;
         }
 
-        FoliaUtil.scheduler.runTaskAsynchronously(() -> {
-            try {
-                ByteArrayDataInput in = ByteStreams.newDataInput(bytes);
-
-                int packetNumber = in.readInt();
-                int packetChunkIndex = in.readInt();
-                int packetChunkSize = in.readInt();
-                int packetId = in.readShort();
-                byte[] data = new byte[bytes.length - 14];
-                in.readFully(data);
-
-                byte[][] chunks = incoming.remove(packetNumber);
-                if (chunks == null) {
-                    chunks = new byte[packetChunkSize][];
-                }
-                if (chunks.length != packetChunkSize) {
-                    byte[][] adjusted = new byte[packetChunkSize][];
-                    System.arraycopy(chunks, 0, adjusted, 0, adjusted.length);
-                    chunks = adjusted;
-                }
-                if (packetChunkIndex >= 0 && packetChunkIndex < chunks.length) {
-                    chunks[packetChunkIndex] = data;
-                }
-                if (CustomArrayUtils.anyNull(chunks)) {
-                    incoming.put(packetNumber, chunks);
-                    return;
-                }
-                data = new byte[Arrays.stream(chunks).mapToInt(a -> a.length).sum()];
-                for (int i = 0, pos = 0; i < chunks.length; i++) {
-                    byte[] chunk = chunks[i];
-                    System.arraycopy(chunk, 0, data, pos, chunk.length);
-                    pos += chunk.length;
-                }
+        receiveFrame(bytes, pluginMessagingPlayer.getName());
+    }
 
+    /**
+     * Accepts an inbound interchat:main frame, either from a player connection or from a {@link PluginMessageTransport}.
+     * Chunks are reassembled as they arrive, so only whole packets are queued. Packets from the proxy are handled one at
+     * a time in the order they arrived, so sequenced updates are never applied out of order. Only {@link #UNORDERED_PACKETS}
+     * run in parallel.
+     * <p>
+     * Packets are never dropped, except when the lane is full: {@link #IDEMPOTENT_PACKETS} are then merged or evicted, and
+     * {@link #SEQUENCED_PACKETS} are dropped in favour of a resync request.
+     */
+    public void receiveFrame(byte[] bytes, String via) {
+        int packetId;
+        PluginMessagePayload payload;
+        Object mergeKey = null;
+        try {
+            FrameHeader header = PluginMessageFrameUtils.readHeader(ByteStreams.newDataInput(bytes));
+            packetId = header.getPacketId();
+            payload = reassembler.accept("", header, bytes);
+            if (payload == null) {
+                return;
+            }
+            if (IDEMPOTENT_PACKETS.contains(packetId)) {
+                payload = payload.decode();
+                mergeKey = getMergeKey(packetId, payload);
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            return;
+        }
+        PluginMessagePayload finalPayload = payload;
+        Runnable task = () -> {
+            try {
                 if (InteractiveChat.pluginMessagePacketVerbose) {
                     Bukkit.getConsoleSender()
-                          .sendMessage("IC Inbound - ID " + packetId + " via " + pluginMessagingPlayer.getName());
+                          .sendMessage("IC Inbound - ID " + packetId + " via " + via);
                 }
-                ByteArrayDataInput input = ByteStreams.newDataInput(data);
+                handlePacket(packetId, finalPayload.decode());
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        };
+        if (UNORDERED_PACKETS.contains(packetId)) {
+            FoliaUtil.scheduler.runTaskAsynchronously(task);
+        } else if (IDEMPOTENT_PACKETS.contains(packetId)) {
+            inboundExecutor.submit(PROXY_SOURCE, mergeKey, task, true);
+        } else if (SEQUENCED_PACKETS.contains(packetId)) {
+            if (!inboundExecutor.submit(PROXY_SOURCE, null, task, true)) {
+                resyncDropped(packetId, payload);
+            }
+        } else {
+            inboundExecutor.submit(PROXY_SOURCE, null, task, false);
+        }
+    }
 
-                switch (packetId) {
-                    case 0x00:
-                        int playerAmount = input.readInt();
-                        Set<UUID> localUUID = Bukkit.getOnlinePlayers()
-                                                    .stream()
-                                                    .map(each -> each.getUniqueId())
-                                                    .collect(Collectors.toSet());
-                        Set<UUID> current = new HashSet<>(ICPlayerFactory.getRemoteUUIDs());
-                        Set<UUID> newSet = new HashSet<>();
-                        for (int i = 0; i < playerAmount; i++) {
-                            String server = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                            UUID uuid = DataTypeIO.readUUID(input);
-                            String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                            ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
-                            if (player != null) {
-                                if (!player.getRemoteServer().equals(server)) {
-                                    player.setRemoteServer(server);
-                                }
-                            }
-                            if (!localUUID.contains(uuid) && !ICPlayerFactory.getRemoteUUIDs().contains(uuid)) {
-                                ICPlayerFactory.createOrUpdateRemoteICPlayer(
-                                        server,
-                                        name,
-                                        uuid,
-                                        true,
-                                        0,
-                                        0,
-                                        Bukkit.createInventory(ICInventoryHolder.INSTANCE, 45),
-                                        Bukkit.createInventory(
-                                                ICInventoryHolder.INSTANCE,
-                                                InventoryUtils.getDefaultEnderChestSize()
-                                        ),
-                                        false
-                                );
+    private static Object getMergeKey(int packetId, PluginMessagePayload payload) throws IOException {
+        ByteArrayDataInput input = payload.newDataInput();
+        UUID uuid = DataTypeIO.readUUID(input);
+        if (packetId == 0x16) {
+            return Arrays.asList(packetId, uuid, input.readByte());
+        }
+        return Arrays.asList(packetId, uuid);
+    }
+
+    /**
+     * Queues a resync of the state a dropped sequenced packet belonged to. Resyncs are never dropped,
+     * and the ones for the same state are merged while they wait.
+     */
+    private void resyncDropped(int packetId, PluginMessagePayload payload) {
+        try {
+            UUID uuid = null;
+            RemoteDataType type = null;
+            if (packetId != 0x19) {
+                ByteArrayDataInput input = payload.decode().newDataInput();
+                uuid = DataTypeIO.readUUID(input);
+                if (packetId == 0x1E && (type = RemoteDataType.fromValue(input.readByte())) == null) {
+                    return;
+                }
+            }
+            UUID finalUuid = uuid;
+            RemoteDataType finalType = type;
+            inboundExecutor.submit(PROXY_SOURCE, Arrays.asList(packetId, uuid, type), () -> {
+                try {
+                    switch (packetId) {
+                        case 0x19:
+                            synchronized (playerList) {
+                                playerListSynced = false;
                             }
-                            newSet.add(uuid);
-                        }
-                        current.removeAll(newSet);
-                        for (UUID uuid : current) {
-                            ICPlayerFactory.removeRemoteICPlayer(uuid);
-                        }
-                        for (UUID uuid : localUUID) {
-                            ICPlayerFactory.removeRemoteICPlayer(uuid);
-                        }
-                        break;
-                    case 0x01:
-                        int delay = input.readInt();
-                        short itemStackScheme = input.readShort();
-                        short inventoryScheme = input.readShort();
-                        InteractiveChat.remoteDelay = delay;
-                        BungeeMessageSender.itemStackScheme = itemStackScheme;
-                        BungeeMessageSender.inventoryScheme = inventoryScheme;
-                        break;
-                    case 0x02:
-                        UUID sender = DataTypeIO.readUUID(input);
-                        UUID receiver = DataTypeIO.readUUID(input);
-                        InteractiveChat.mentionPair.add(new MentionPair(sender, receiver));
-                        break;
-                    case 0x03:
-                        UUID uuid = DataTypeIO.readUUID(input);
-                        ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
-                        if (player == null) {
-                            break;
-                        }
-                        boolean rightHanded = input.readBoolean();
-                        player.setRemoteRightHanded(rightHanded);
-                        int selectedSlot = input.readByte();
-                        player.setRemoteSelectedSlot(selectedSlot);
-                        int level = input.readInt();
-                        player.setRemoteExperienceLevel(level);
-                        int size = input.readByte();
-                        ItemStack[] equipment = new ItemStack[size];
-                        for (int i = 0; i < equipment.length; i++) {
-                            equipment[i] = DataTypeIO.readItemStack(input, StandardCharsets.UTF_8);
-                        }
-                        player.getEquipment().setHelmet(equipment[0]);
-                        player.getEquipment().setChestplate(equipment[1]);
-                        player.getEquipment().setLeggings(equipment[2]);
-                        player.getEquipment().setBoots(equipment[3]);
-                        if (InteractiveChat.version.isOld()) {
-                            player.getEquipment().setItemInHand(equipment[4]);
-                        } else {
-                            player.getEquipment().setItemInMainHand(equipment[4]);
-                            player.getEquipment().setItemInOffHand(equipment[5]);
-                        }
-                        break;
-                    case 0x04:
-                        UUID uuid1 = DataTypeIO.readUUID(input);
-                        ICPlayer player1 = ICPlayerFactory.getICPlayer(uuid1);
-                        if (player1 == null) {
+                            lastPlayerListResync = 0;
+                            requestPlayerListResync();
                             break;
-                        }
-                        boolean rightHanded1 = input.readBoolean();
-                        player1.setRemoteRightHanded(rightHanded1);
-                        int selectedSlot1 = input.readByte();
-                        player1.setRemoteSelectedSlot(selectedSlot1);
-                        int level1 = input.readInt();
-                        player1.setRemoteExperienceLevel(level1);
-                        int type = input.readByte();
-                        if (type == 0) {
-                            player1.setRemoteInventory(DataTypeIO.readInventory(input, StandardCharsets.UTF_8, null));
-                        } else {
-                            player1.setRemoteEnderChest(DataTypeIO.readInventory(input, StandardCharsets.UTF_8, null));
-                        }
-                        break;
-                    case 0x05:
-                        UUID uuid2 = DataTypeIO.readUUID(input);
-                        ICPlayer player2 = ICPlayerFactory.getICPlayer(uuid2);
-                        if (player2 == null) {
+                        case 0x1C:
+                            lastPlaceholderKeyframeRequests.remove(finalUuid);
+                            requestPlaceholderKeyframe(finalUuid);
                             break;
-                        }
-                        int size1 = input.readInt();
-                        for (int i = 0; i < size1; i++) {
-                            String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                            String text = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                            player2.getRemotePlaceholdersMapping().put(placeholder, text);
-                        }
-                        break;
-                    case 0x06:
-                        String message = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        UUID uuid3 = DataTypeIO.readUUID(input);
-                        ICPlayer player3 = ICPlayerFactory.getICPlayer(uuid3);
-                        if (player3 == null) {
+                        case 0x1E:
+                            RemoteDataRelay.resync(finalUuid, finalType);
                             break;
-                        }
-                        InteractiveChat.messages.put(message, uuid3);
-                        FoliaUtil.scheduler
-                              .runTaskLater( () -> InteractiveChat.messages.remove(message), 60);
-                        break;
-                    case 0x07:
-                        int cooldownType = input.readByte();
-                        switch (cooldownType) {
-                            case 0:
-                                UUID uuid4 = DataTypeIO.readUUID(input);
-                                long time = input.readLong();
-                                InteractiveChat.placeholderCooldownManager.setPlayerUniversalLastTimestampRaw(
-                                        uuid4,
-                                        time
-                                );
-                                break;
-                            case 1:
-                                uuid4 = DataTypeIO.readUUID(input);
-                                UUID internalId = DataTypeIO.readUUID(input);
-                                time = input.readLong();
-                                Optional<ICPlaceholder> optPlaceholder = InteractiveChat.placeholderList.values()
-                                                                                                        .stream()
-                                                                                                        .filter(each -> each.getInternalId()
-                                                                                                                            .equals(internalId))
-                                                                                                        .findFirst();
-                                if (optPlaceholder.isPresent()) {
-                                    InteractiveChat.placeholderCooldownManager.setPlayerPlaceholderLastTimestampRaw(
-                                            uuid4,
-                                            optPlaceholder.get(),
-                                            time
-                                    );
-                                }
-                                break;
-                        }
-                        break;
-                    case 0x08:
-                        UUID messageId = DataTypeIO.readUUID(input);
-                        UUID uuid5 = DataTypeIO.readUUID(input);
-                        Player bukkitplayer1 = Bukkit.getPlayer(uuid5);
-                        if (bukkitplayer1 == null) {
-                            break;
-                        }
-                        String component = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        boolean preview = input.readBoolean();
-                        String processed = ProcessExternalMessage.processAndRespond(bukkitplayer1, component, preview);
-                        BungeeMessageSender.respondProcessedMessage(System.currentTimeMillis(), processed, messageId);
-                        break;
-                    case 0x09:
-                        String server = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        int size2 = input.readInt();
-                        List<ICPlaceholder> list = new ArrayList<>(size2);
-                        for (int i = 0; i < size2; i++) {
-                            boolean isBuiltIn = input.readBoolean();
-                            if (isBuiltIn) {
-                                String keyword = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                long cooldown = input.readLong();
-                                list.add(new BuiltInPlaceholder(
-                                        Pattern.compile(keyword),
-                                        name,
-                                        description,
-                                        permission,
-                                        cooldown
-                                ));
-                            } else {
-                                String key = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                ParsePlayer parseplayer = ParsePlayer.fromOrder(input.readByte());
-                                String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                boolean parseKeyword = input.readBoolean();
-                                long cooldown = input.readLong();
-                                boolean hoverEnabled = input.readBoolean();
-                                String hoverText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                boolean clickEnabled = input.readBoolean();
-                                String clickAction = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                String clickValue = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                boolean replaceEnabled = input.readBoolean();
-                                String replaceText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                    }
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            }, false);
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
 
-                                list.add(new CustomPlaceholder(
-                                        key,
-                                        parseplayer,
-                                        Pattern.compile(placeholder),
-                                        parseKeyword,
-                                        cooldown,
-                                        new CustomPlaceholderHoverEvent(hoverEnabled, hoverText),
-                                        new CustomPlaceholderClickEvent(
-                                                clickEnabled,
-                                                clickEnabled ? ClickEventAction.valueOf(clickAction) : null,
-                                                clickValue
-                                        ),
-                                        new CustomPlaceholderReplaceText(replaceEnabled, replaceText),
-                                        name,
-                                        description
-                                ));
-                            }
+    @Override
+    public void close() {
+        inboundExecutor.close();
+    }
+
+    @SuppressWarnings("deprecation")
+    private void handlePacket(int packetId, PluginMessagePayload payload) throws Exception {
+        ByteArrayDataInput input = payload.newDataInput();
+
+        switch (packetId) {
+            case 0x00:
+                int playerAmount = input.readInt();
+                Set<UUID> localUUID = Bukkit.getOnlinePlayers()
+                                            .stream()
+                                            .map(each -> each.getUniqueId())
+                                            .collect(Collectors.toSet());
+                Set<UUID> current = new HashSet<>(ICPlayerFactory.getRemoteUUIDs());
+                Set<UUID> newSet = new HashSet<>();
+                for (int i = 0; i < playerAmount; i++) {
+                    String server = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                    UUID uuid = DataTypeIO.readUUID(input);
+                    String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                    ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
+                    if (player != null) {
+                        if (!player.getRemoteServer().equals(server)) {
+                            player.setRemoteServer(server);
                         }
-                        InteractiveChat.remotePlaceholderList.put(server, list);
-                        break;
-                    case 0x0A:
-                        BungeeMessageSender.resetAndForwardPlaceholderList(
-                                System.currentTimeMillis(),
-                                InteractiveChat.placeholderList.values()
-                        );
-                        break;
-                    case 0x0B:
-                        int id = input.readInt();
-                        UUID playerUUID = DataTypeIO.readUUID(input);
-                        String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        Player player5 = Bukkit.getPlayer(playerUUID);
-                        BungeeMessageSender.permissionCheckResponse(
-                                System.currentTimeMillis(),
-                                id,
-                                player5 != null && player5.hasPermission(permission)
+                    }
+                    if (!localUUID.contains(uuid) && !current.contains(uuid)) {
+                        RemotePlayerCreateResult result = ICPlayerFactory.createOrUpdateRemoteICPlayer(
+                                server,
+                                name,
+                                uuid,
+                                true,
+                                0,
+                                0,
+                                Bukkit.createInventory(ICInventoryHolder.INSTANCE, 45),
+                                Bukkit.createInventory(
+                                        ICInventoryHolder.INSTANCE,
+                                        InventoryUtils.getDefaultEnderChestSize()
+                                ),
+                                false
                         );
-                        break;
-                    case 0x0D:
-                        UUID playerUUID1 = DataTypeIO.readUUID(input);
-                        PlayerData pd = InteractiveChat.playerDataManager.getPlayerData(playerUUID1);
-                        if (pd != null) {
-                            pd.reload();
-                        }
-                        break;
-                    case 0x0E:
-                        SharedType sharedType = SharedType.fromValue(input.readByte());
-                        String sha1 = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        Inventory inventory = DataTypeIO.readInventory(input, StandardCharsets.UTF_8, null);
-                        InteractiveChatAPI.addInventoryToItemShareList(sharedType, sha1, inventory);
-                        break;
-                    case 0x0F:
-                        int requestType = input.readByte();
-                        UUID playerUUID2 = DataTypeIO.readUUID(input);
-                        Player player6 = Bukkit.getPlayer(playerUUID2);
-                        if (player6 != null) {
-                            ICPlayer player7 = ICPlayerFactory.getICPlayer(player6);
-                            switch (requestType) {
-                                case 0:
-                                    BungeeMessageSender.forwardInventory(
-                                            System.currentTimeMillis(),
-                                            player7.getUniqueId(),
-                                            player7.isRightHanded(),
-                                            player7.getSelectedSlot(),
-                                            player7.getExperienceLevel(),
-                                            null,
-                                            player7.getInventory()
-                                    );
-                                    break;
-                                case 1:
-                                    BungeeMessageSender.forwardEnderchest(
-                                            System.currentTimeMillis(),
-                                            player7.getUniqueId(),
-                                            player7.isRightHanded(),
-                                            player7.getSelectedSlot(),
-                                            player7.getExperienceLevel(),
-                                            null,
-                                            player7.getEnderChest()
-                                    );
-                                    break;
-                            }
-                        }
-                        break;
-                    case 0x10:
-                        UUID requestUUID = DataTypeIO.readUUID(input);
-                        int requestType2 = input.readByte();
-                        //noinspection SwitchStatementWithTooFewBranches
-                        switch (requestType2) {
-                            case 0:
-                                List<ValueTrios<UUID, String, Integer>> playerlist = new ArrayList<>();
-                                int playerListSize = input.readInt();
-                                for (int i = 0; i < playerListSize; i++) {
-                                    playerlist.add(new ValueTrios<>(
-                                            DataTypeIO.readUUID(input),
-                                            DataTypeIO.readString(input, StandardCharsets.UTF_8),
-                                            input.readInt()
-                                    ));
-                                }
-                                @SuppressWarnings("unchecked")
-                                CompletableFuture<List<ValueTrios<UUID, String, Integer>>> future = (CompletableFuture<List<ValueTrios<UUID, String, Integer>>>) toComplete.remove(
-                                        requestUUID);
-                                if (future != null) {
-                                    future.complete(playerlist);
-                                }
-                                break;
-                            default:
-                                break;
+                        if (result.isNewlyCreated()) {
+                            requestPlaceholderKeyframe(uuid);
                         }
+                    }
+                    newSet.add(uuid);
+                }
+                current.removeAll(newSet);
+                for (UUID uuid : current) {
+                    ICPlayerFactory.removeRemoteICPlayer(uuid);
+                    RemoteDataRelay.clear(uuid);
+                }
+                for (UUID uuid : localUUID) {
+                    ICPlayerFactory.removeRemoteICPlayer(uuid);
+                }
+                break;
+            case 0x01:
+                int delay = input.readInt();
+                short itemStackScheme = input.readShort();
+                short inventoryScheme = input.readShort();
+                InteractiveChat.remoteDelay = delay;
+                BungeeMessageSender.itemStackScheme = itemStackScheme;
+                BungeeMessageSender.inventoryScheme = inventoryScheme;
+                BungeeMessageSender.payloadCompression = payload.length() > 8 && input.readBoolean();
+                BungeeMessageSender.demandRelay = payload.length() > 9 && input.readBoolean();
+                BungeeMessageSender.playerListDelta = payload.length() > 10 && input.readBoolean();
+                BungeeMessageSender.batching = payload.length() > 11 && input.readBoolean();
+                BungeeMessageSender.placeholderDelta = payload.length() > 12 && input.readBoolean();
+                BungeeMessageSender.inventoryDelta = payload.length() > 13 && input.readBoolean();
+                break;
+            case 0x02:
+                UUID sender = DataTypeIO.readUUID(input);
+                UUID receiver = DataTypeIO.readUUID(input);
+                InteractiveChat.mentionPair.add(new MentionPair(sender, receiver));
+                break;
+            case 0x03:
+                UUID uuid = DataTypeIO.readUUID(input);
+                ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
+                if (player == null) {
+                    break;
+                }
+                RemoteDataRelay.apply(player, RemoteDataType.EQUIPMENT, input);
+                break;
+            case 0x04:
+                UUID uuid1 = DataTypeIO.readUUID(input);
+                ICPlayer player1 = ICPlayerFactory.getICPlayer(uuid1);
+                if (player1 == null) {
+                    break;
+                }
+                RemoteDataRelay.apply(player1, RemoteDataType.INVENTORY, input);
+                break;
+            case 0x05:
+                UUID uuid2 = DataTypeIO.readUUID(input);
+                ICPlayer player2 = ICPlayerFactory.getICPlayer(uuid2);
+                if (player2 == null) {
+                    break;
+                }
+                int size1 = input.readInt();
+                for (int i = 0; i < size1; i++) {
+                    String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                    String text = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                    player2.getRemotePlaceholdersMapping().put(placeholder, text);
+                }
+                break;
+            case 0x06:
+                String message = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                UUID uuid3 = DataTypeIO.readUUID(input);
+                ICPlayer player3 = ICPlayerFactory.getICPlayer(uuid3);
+                if (player3 == null) {
+                    break;
+                }
+                InteractiveChat.messages.put(message, uuid3);
+                FoliaUtil.scheduler
+                      .runTaskLater( () -> InteractiveChat.messages.remove(message), 60);
+                break;
+            case 0x07:
+                int cooldownType = input.readByte();
+                switch (cooldownType) {
+                    case 0:
+                        UUID uuid4 = DataTypeIO.readUUID(input);
+                        long time = input.readLong();
+                        InteractiveChat.placeholderCooldownManager.setPlayerUniversalLastTimestampRaw(
+                                uuid4,
+                                time
+                        );
                         break;
-                    case 0x11:
-                        UUID playerUUID3 = DataTypeIO.readUUID(input);
-                        int nicknameSize = input.readInt();
-                        Set<String> remoteNicknames = new HashSet<>();
-                        for (int i = 0; i < nicknameSize; i++) {
-                            remoteNicknames.add(DataTypeIO.readString(input, StandardCharsets.UTF_8));
-                        }
-                        ICPlayer icPlayer = ICPlayerFactory.getICPlayer(playerUUID3);
-                        if (icPlayer != null) {
-                            icPlayer.setRemoteNicknames(remoteNicknames);
+                    case 1:
+                        uuid4 = DataTypeIO.readUUID(input);
+                        UUID internalId = DataTypeIO.readUUID(input);
+                        time = input.readLong();
+                        Optional<ICPlaceholder> optPlaceholder = InteractiveChat.placeholderList.values()
+                                                                                                .stream()
+                                                                                                .filter(each -> each.getInternalId()
+                                                                                                                    .equals(internalId))
+                                                                                                .findFirst();
+                        if (optPlaceholder.isPresent()) {
+                            InteractiveChat.placeholderCooldownManager.setPlayerPlaceholderLastTimestampRaw(
+                                    uuid4,
+                                    optPlaceholder.get(),
+                                    time
+                            );
                         }
                         break;
-                    case 0x12:
-                        UUID playerUUID4 = DataTypeIO.readUUID(input);
-                        String placeholders = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        ICPlayer icPlayer1 = ICPlayerFactory.getICPlayer(playerUUID4);
-                        if (icPlayer1 != null && icPlayer1.isLocal()) {
-                            PlaceholderParser.parse(icPlayer1, placeholders);
-                        }
+                }
+                break;
+            case 0x08:
+                UUID messageId = DataTypeIO.readUUID(input);
+                UUID uuid5 = DataTypeIO.readUUID(input);
+                Player bukkitplayer1 = Bukkit.getPlayer(uuid5);
+                if (bukkitplayer1 == null) {
+                    break;
+                }
+                String component = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                boolean preview = input.readBoolean();
+                String processed = ProcessExternalMessage.processAndRespond(bukkitplayer1, component, preview);
+                BungeeMessageSender.respondProcessedMessage(System.currentTimeMillis(), processed, messageId);
+                break;
+            case 0x09:
+                String server = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                int size2 = input.readInt();
+                List<ICPlaceholder> list = new ArrayList<>(size2);
+                for (int i = 0; i < size2; i++) {
+                    boolean isBuiltIn = input.readBoolean();
+                    if (isBuiltIn) {
+                        String keyword = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        long cooldown = input.readLong();
+                        list.add(new BuiltInPlaceholder(
+                                Pattern.compile(keyword),
+                                name,
+                                description,
+                                permission,
+                                cooldown
+                        ));
+                    } else {
+                        String key = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        ParsePlayer parseplayer = ParsePlayer.fromOrder(input.readByte());
+                        String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean parseKeyword = input.readBoolean();
+                        long cooldown = input.readLong();
+                        boolean hoverEnabled = input.readBoolean();
+                        String hoverText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean clickEnabled = input.readBoolean();
+                        String clickAction = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String clickValue = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean replaceEnabled = input.readBoolean();
+                        String replaceText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+
+                        list.add(new CustomPlaceholder(
+                                key,
+                                parseplayer,
+                                Pattern.compile(placeholder),
+                                parseKeyword,
+                                cooldown,
+                                new CustomPlaceholderHoverEvent(hoverEnabled, hoverText),
+                                new CustomPlaceholderClickEvent(
+                                        clickEnabled,
+                                        clickEnabled ? ClickEventAction.valueOf(clickAction) : null,
+                                        clickValue
+                                ),
+                                new CustomPlaceholderReplaceText(replaceEnabled, replaceText),
+                                name,
+                                description
+                        ));
+                    }
+                }
+                InteractiveChat.remotePlaceholderList.put(server, list);
+                break;
+            case 0x0A:
+                BungeeMessageSender.resetAndForwardPlaceholderList(
+                        System.currentTimeMillis(),
+                        InteractiveChat.placeholderList.values()
+                );
+                break;
+            case 0x0B:
+                int id = input.readInt();
+                UUID playerUUID = DataTypeIO.readUUID(input);
+                String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                Player player5 = Bukkit.getPlayer(playerUUID);
+                BungeeMessageSender.permissionCheckResponse(
+                        System.currentTimeMillis(),
+                        id,
+                        player5 != null && player5.hasPermission(permission)
+                );
+                break;
+            case 0x0D:
+                UUID playerUUID1 = DataTypeIO.readUUID(input);
+                PlayerData pd = InteractiveChat.playerDataManager.getPlayerData(playerUUID1);
+                if (pd != null) {
+                    pd.reload();
+                }
+                break;
+            case 0x0E:
+                SharedType sharedType = SharedType.fromValue(input.readByte());
+                String sha1 = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                Inventory inventory = DataTypeIO.readInventory(input, StandardCharsets.UTF_8, null);
+                InteractiveChatAPI.addInventoryToItemShareList(sharedType, sha1, inventory);
+                break;
+            case 0x0F:
+                int requestType = input.readByte();
+                UUID playerUUID2 = DataTypeIO.readUUID(input);
+                Player player6 = Bukkit.getPlayer(playerUUID2);
+                if (player6 != null) {
+                    ICPlayer player7 = ICPlayerFactory.getICPlayer(player6);
+                    if (BungeeMessageSender.isInventoryDelta() && !BungeeMessageSender.isDemandRelay()) {
+                        BungeeMessageSender.sendRemoteDataKeyframe(System.currentTimeMillis(), player7, requestType == 0 ? RemoteDataType.INVENTORY : RemoteDataType.ENDERCHEST);
                         break;
-                    case 0x13:
-                        UUID senderUUID = DataTypeIO.readUUID(input);
-                        String originalMessage = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        String modifiedMessage = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        long time = input.readLong();
-                        ICPlayer senderPlayer = ICPlayerFactory.getICPlayer(senderUUID);
-                        if (senderPlayer != null && senderPlayer.isLocal()) {
-                            List<SignedMessageModificationData> modData = InteractiveChat.signedMessageModificationData.get(
-                                    senderUUID);
-                            if (modData == null) {
-                                InteractiveChat.signedMessageModificationData.putIfAbsent(
-                                        senderUUID,
-                                        Collections.synchronizedList(new LinkedList<>())
-                                );
-                                modData = InteractiveChat.signedMessageModificationData.get(senderUUID);
-                            }
-                            modData.add(new SignedMessageModificationData(
-                                    senderUUID,
-                                    time,
-                                    originalMessage,
-                                    modifiedMessage
+                    }
+                    switch (requestType) {
+                        case 0:
+                            BungeeMessageSender.forwardInventory(
+                                    System.currentTimeMillis(),
+                                    player7.getUniqueId(),
+                                    player7.isRightHanded(),
+                                    player7.getSelectedSlot(),
+                                    player7.getExperienceLevel(),
+                                    null,
+                                    player7.getInventory()
+                            );
+                            break;
+                        case 1:
+                            BungeeMessageSender.forwardEnderchest(
+                                    System.currentTimeMillis(),
+                                    player7.getUniqueId(),
+                                    player7.isRightHanded(),
+                                    player7.getSelectedSlot(),
+                                    player7.getExperienceLevel(),
+                                    null,
+                                    player7.getEnderChest()
+                            );
+                            break;
+                    }
+                }
+                break;
+            case 0x10:
+                UUID requestUUID = DataTypeIO.readUUID(input);
+                int requestType2 = input.readByte();
+                //noinspection SwitchStatementWithTooFewBranches
+                switch (requestType2) {
+                    case 0:
+                        List<ValueTrios<UUID, String, Integer>> playerlist = new ArrayList<>();
+                        int playerListSize = input.readInt();
+                        for (int i = 0; i < playerListSize; i++) {
+                            playerlist.add(new ValueTrios<>(
+                                    DataTypeIO.readUUID(input),
+                                    DataTypeIO.readString(input, StandardCharsets.UTF_8),
+                                    input.readInt()
                             ));
                         }
-                        break;
-                    case 0x14:
-                        int size3 = input.readInt();
-                        for (int i = 0; i < size3; i++) {
-                            UUID player4 = DataTypeIO.readUUID(input);
-                            boolean vanished = input.readBoolean();
-                            ICPlayer icPlayer2 = ICPlayerFactory.getICPlayer(player4);
-                            if (icPlayer2 != null) {
-                                icPlayer2.setRemoteVanished(vanished);
-                            }
+                        @SuppressWarnings("unchecked")
+                        CompletableFuture<List<ValueTrios<UUID, String, Integer>>> future = (CompletableFuture<List<ValueTrios<UUID, String, Integer>>>) toComplete.remove(
+                                requestUUID);
+                        if (future != null) {
+                            future.complete(playerlist);
                         }
                         break;
-                    case 0x15:
-                        UUID playerUUID5 = DataTypeIO.readUUID(input);
-                        String command = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        Player player4 = Bukkit.getPlayer(playerUUID5);
-                        if (player4 != null) {
-                            FoliaUtil.scheduler
-                                  .runTask(
-                                          player4,
-                                          () -> PlayerUtils.dispatchCommandAsPlayer(player4, command)
-                                  );
-                        }
+                    default:
                         break;
-                    case 0xFF:
-                        String customChannel = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                        int dataLength = input.readInt();
-                        byte[] customData = new byte[dataLength];
-                        input.readFully(customData);
-                        ProxyCustomDataRecievedEvent dataEvent = new ProxyCustomDataRecievedEvent(
-                                customChannel,
-                                customData
+                }
+                break;
+            case 0x11:
+                UUID playerUUID3 = DataTypeIO.readUUID(input);
+                int nicknameSize = input.readInt();
+                Set<String> remoteNicknames = new HashSet<>();
+                for (int i = 0; i < nicknameSize; i++) {
+                    remoteNicknames.add(DataTypeIO.readString(input, StandardCharsets.UTF_8));
+                }
+                ICPlayer icPlayer = ICPlayerFactory.getICPlayer(playerUUID3);
+                if (icPlayer != null) {
+                    icPlayer.setRemoteNicknames(remoteNicknames);
+                }
+                break;
+            case 0x12:
+                UUID playerUUID4 = DataTypeIO.readUUID(input);
+                String placeholders = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                ICPlayer icPlayer1 = ICPlayerFactory.getICPlayer(playerUUID4);
+                if (icPlayer1 != null && icPlayer1.isLocal()) {
+                    PlaceholderParser.parse(icPlayer1, placeholders);
+                }
+                break;
+            case 0x13:
+                UUID senderUUID = DataTypeIO.readUUID(input);
+                String originalMessage = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                String modifiedMessage = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                long time = input.readLong();
+                ICPlayer senderPlayer = ICPlayerFactory.getICPlayer(senderUUID);
+                if (senderPlayer != null && senderPlayer.isLocal()) {
+                    List<SignedMessageModificationData> modData = InteractiveChat.signedMessageModificationData.get(
+                            senderUUID);
+                    if (modData == null) {
+                        InteractiveChat.signedMessageModificationData.putIfAbsent(
+                                senderUUID,
+                                Collections.synchronizedList(new LinkedList<>())
                         );
-                        Bukkit.getPluginManager().callEvent(dataEvent);
-                        break;
+                        modData = InteractiveChat.signedMessageModificationData.get(senderUUID);
+                    }
+                    modData.add(new SignedMessageModificationData(
+                            senderUUID,
+                            time,
+                            originalMessage,
+                            modifiedMessage
+                    ));
                 }
-            } catch (Throwable e) {
-                e.printStackTrace();
+                break;
+            case 0x14:
+                int size3 = input.readInt();
+                for (int i = 0; i < size3; i++) {
+                    UUID player4 = DataTypeIO.readUUID(input);
+                    boolean vanished = input.readBoolean();
+                    ICPlayer icPlayer2 = ICPlayerFactory.getICPlayer(player4);
+                    if (icPlayer2 != null) {
+                        icPlayer2.setRemoteVanished(vanished);
+                    }
+                }
+                break;
+            case 0x15:
+                UUID playerUUID5 = DataTypeIO.readUUID(input);
+                String command = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                Player player4 = Bukkit.getPlayer(playerUUID5);
+                if (player4 != null) {
+                    FoliaUtil.scheduler
+                          .runTask(
+                                  player4,
+                                  () -> PlayerUtils.dispatchCommandAsPlayer(player4, command)
+                          );
+                }
+                break;
+            case 0x16:
+                UUID playerUUID6 = DataTypeIO.readUUID(input);
+                RemoteDataType announcedType = RemoteDataType.fromValue(input.readByte());
+                int announcedVersion = input.readInt();
+                if (announcedType != null) {
+                    RemoteDataRelay.handleAnnouncement(playerUUID6, announcedType, announcedVersion);
+                }
+                break;
+            case 0x17:
+                UUID playerUUID7 = DataTypeIO.readUUID(input);
+                RemoteDataType requestedType = RemoteDataType.fromValue(input.readByte());
+                if (requestedType != null) {
+                    RemoteDataRelay.handleFetchRequest(playerUUID7, requestedType);
+                }
+                break;
+            case 0x18:
+                UUID playerUUID8 = DataTypeIO.readUUID(input);
+                RemoteDataType receivedType = RemoteDataType.fromValue(input.readByte());
+                int receivedVersion = input.readInt();
+                byte[] remotePayload = new byte[input.readInt()];
+                input.readFully(remotePayload);
+                if (receivedType != null) {
+                    RemoteDataRelay.handleData(playerUUID8, receivedType, receivedVersion, remotePayload);
+                }
+                break;
+            case 0x20:
+                UUID missedPlayer = DataTypeIO.readUUID(input);
+                RemoteDataType missedType = RemoteDataType.fromValue(input.readByte());
+                if (missedType != null) {
+                    RemoteDataRelay.handleMiss(missedPlayer, missedType);
+                }
+                break;
+            case 0x19:
+                handlePlayerListSync(input);
+                break;
+            case 0x1C:
+                handlePlaceholderDelta(input);
+                break;
+            case 0x1D:
+                UUID keyframePlayer = DataTypeIO.readUUID(input);
+                if (Bukkit.getPlayer(keyframePlayer) != null) {
+                    BungeeMessageSender.sendPlaceholderKeyframe(System.currentTimeMillis(), keyframePlayer);
+                }
+                break;
+            case 0x1E:
+                RemoteDataRelay.handleDelta(input);
+                break;
+            case 0x1F:
+                UUID keyframeOwner = DataTypeIO.readUUID(input);
+                RemoteDataType keyframeType = RemoteDataType.fromValue(input.readByte());
+                Player keyframeOwnerPlayer = Bukkit.getPlayer(keyframeOwner);
+                if (keyframeType != null && keyframeOwnerPlayer != null) {
+                    BungeeMessageSender.sendRemoteDataKeyframe(System.currentTimeMillis(), ICPlayerFactory.getICPlayer(keyframeOwnerPlayer), keyframeType);
+                }
+                break;
+            case 0x1B:
+                for (ValuePairs<Integer, byte[]> record : PluginMessageFrameUtils.readBatch(input)) {
+                    handlePacket(record.getFirst(), PluginMessagePayload.wrap(record.getSecond()));
+                }
+                break;
+            case 0xFF:
+                String customChannel = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                int dataLength = input.readInt();
+                byte[] customData = new byte[dataLength];
+                input.readFully(customData);
+                ProxyCustomDataRecievedEvent dataEvent = new ProxyCustomDataRecievedEvent(
+                        customChannel,
+                        customData
+                );
+                Bukkit.getPluginManager().callEvent(dataEvent);
+                break;
+        }
+    }
+
+    private void handlePlayerListSync(ByteArrayDataInput input) throws Exception {
+        int mode = input.readByte();
+        int sequence = input.readInt();
+        int size = input.readInt();
+        synchronized (playerList) {
+            if (mode == SyncedPlayerList.MODE_SNAPSHOT) {
+                playerList.clear();
+                for (int i = 0; i < size; i++) {
+                    UUID uuid = DataTypeIO.readUUID(input);
+                    String server = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                    String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                    boolean vanished = input.readBoolean();
+                    playerList.put(uuid, new SyncedPlayerList.Entry(server, name, vanished));
+                }
+                long checksum = input.readLong();
+                playerList.setSequence(sequence);
+                playerListSynced = playerList.getChecksum() == checksum;
+
+                Map<UUID, SyncedPlayerList.Entry> entries = playerList.getEntries();
+                for (UUID uuid : ICPlayerFactory.getRemoteUUIDs()) {
+                    if (!entries.containsKey(uuid)) {
+                        ICPlayerFactory.removeRemoteICPlayer(uuid);
+                        RemoteDataRelay.clear(uuid);
+                    }
+                }
+                for (Map.Entry<UUID, SyncedPlayerList.Entry> entry : entries.entrySet()) {
+                    applyPlayerListEntry(entry.getKey(), entry.getValue());
+                }
+            } else {
+                List<SyncedPlayerList.Change> changes = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    int operation = input.readByte();
+                    UUID uuid = DataTypeIO.readUUID(input);
+                    switch (operation) {
+                        case SyncedPlayerList.OP_UPSERT:
+                            String server = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                            String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                            changes.add(SyncedPlayerList.Change.upsert(uuid, server, name));
+                            break;
+                        case SyncedPlayerList.OP_REMOVE:
+                            changes.add(SyncedPlayerList.Change.remove(uuid));
+                            break;
+                        case SyncedPlayerList.OP_VANISH:
+                            changes.add(SyncedPlayerList.Change.vanish(uuid, input.readBoolean()));
+                            break;
+                    }
+                }
+                long checksum = input.readLong();
+                int expected = changes.isEmpty() ? playerList.getSequence() : playerList.getSequence() + 1;
+                if (!playerListSynced || sequence != expected) {
+                    if (!playerListSynced || sequence - expected > 0) {
+                        requestPlayerListResync();
+                    }
+                    return;
+                }
+                for (SyncedPlayerList.Change change : changes) {
+                    playerList.apply(change);
+                    if (change.getOperation() == SyncedPlayerList.OP_REMOVE) {
+                        ICPlayerFactory.removeRemoteICPlayer(change.getUniqueId());
+                        RemoteDataRelay.clear(change.getUniqueId());
+                    } else {
+                        SyncedPlayerList.Entry entry = playerList.get(change.getUniqueId());
+                        if (entry != null) {
+                            applyPlayerListEntry(change.getUniqueId(), entry);
+                        }
+                    }
+                }
+                playerList.setSequence(sequence);
+                if (playerList.getChecksum() != checksum) {
+                    playerListSynced = false;
+                    requestPlayerListResync();
+                    return;
+                }
+            }
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            SyncedPlayerList.Entry entry = playerList.get(player.getUniqueId());
+            if (entry != null && entry.isVanished() != ICPlayerFactory.getICPlayer(player).isVanished()) {
+                BungeeMessageSender.invalidateVanishState(player.getUniqueId());
             }
-        });
+        }
+    }
+
+    private void applyPlayerListEntry(UUID uuid, SyncedPlayerList.Entry entry) throws Exception {
+        if (Bukkit.getPlayer(uuid) != null) {
+            ICPlayerFactory.removeRemoteICPlayer(uuid);
+            return;
+        }
+        ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
+        if (player == null) {
+            RemotePlayerCreateResult result = ICPlayerFactory.createOrUpdateRemoteICPlayer(
+                    entry.getServer(),
+                    entry.getName(),
+                    uuid,
+                    true,
+                    0,
+                    0,
+                    Bukkit.createInventory(ICInventoryHolder.INSTANCE, 45),
+                    Bukkit.createInventory(
+                            ICInventoryHolder.INSTANCE,
+                            InventoryUtils.getDefaultEnderChestSize()
+                    ),
+                    entry.isVanished()
+            );
+            if (result.isNewlyCreated()) {
+                requestPlaceholderKeyframe(uuid);
+            }
+        } else {
+            if (!player.getRemoteServer().equals(entry.getServer())) {
+                player.setRemoteServer(entry.getServer());
+            }
+            player.setRemoteVanished(entry.isVanished());
+        }
+    }
+
+    private void handlePlaceholderDelta(ByteArrayDataInput input) throws Exception {
+        UUID uuid = DataTypeIO.readUUID(input);
+        int version = input.readInt();
+        boolean keyframe = input.readBoolean();
+        int size = input.readInt();
+        Map<String, String> values = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+            String text = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+            values.put(placeholder, text);
+        }
+        ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
+        if (player == null || player.isLocal()) {
+            return;
+        }
+        int current = player.getRemotePlaceholdersVersion();
+        if (!keyframe && version <= current) {
+            return;
+        }
+        player.getRemotePlaceholdersMapping().putAll(values);
+        player.setRemotePlaceholdersVersion(version);
+        if (keyframe) {
+            lastPlaceholderKeyframeRequests.remove(uuid);
+        } else if (version != current + 1) {
+            requestPlaceholderKeyframe(uuid);
+        }
+    }
+
+    private void requestPlaceholderKeyframe(UUID uuid) throws Exception {
+        if (!BungeeMessageSender.isPlaceholderDelta()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Long last = lastPlaceholderKeyframeRequests.get(uuid);
+        if (last == null || now - last >= 1000) {
+            lastPlaceholderKeyframeRequests.put(uuid, now);
+            BungeeMessageSender.requestPlaceholderKeyframe(now, uuid);
+        }
+    }
+
+    private void requestPlayerListResync() throws Exception {
+        long now = System.currentTimeMillis();
+        if (now - lastPlayerListResync < 1000) {
+            return;
+        }
+        lastPlayerListResync = now;
+        BungeeMessageSender.requestPlayerListResync(now);
     }
 
 }
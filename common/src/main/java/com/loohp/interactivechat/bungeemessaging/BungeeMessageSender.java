@@ -20,48 +20,128 @@
 
 package com.loohp.interactivechat.bungeemessaging;
 
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
 import com.loohp.interactivechat.InteractiveChat;
 import com.loohp.interactivechat.api.InteractiveChatAPI.SharedType;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay.RemoteDataType;
+import com.loohp.interactivechat.objectholders.ConcurrentDedupeRing;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderClickEvent;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderHoverEvent;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderReplaceText;
 import com.loohp.interactivechat.objectholders.ICPlaceholder;
+import com.loohp.interactivechat.objectholders.ICPlayer;
+import com.loohp.interactivechat.objectholders.PlaceholderValueTable;
+import com.loohp.interactivechat.objectholders.RemoteInventorySnapshot;
 import com.loohp.interactivechat.objectholders.ValuePairs;
 import com.loohp.interactivechat.objectholders.ValueTrios;
-import com.loohp.interactivechat.utils.CustomArrayUtils;
 import com.loohp.interactivechat.utils.DataTypeIO;
-import com.loohp.interactivechat.utils.HashUtils;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
-import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 public class BungeeMessageSender {
 
     public static final Pattern VALID_CUSTOM_CHANNEL = Pattern.compile("[a-z]+:[a-z0-9_]+");
-    private static final Random random = new Random();
-    private static final ConcurrentSkipListMap<Long, Set<String>> sent = new ConcurrentSkipListMap<>();
+    public static final int DEDUPE_WINDOW_SECONDS = 60;
+    private static volatile ConcurrentDedupeRing sent = ConcurrentDedupeRing.forRate(InteractiveChat.pluginMessageDedupeRate, DEDUPE_WINDOW_SECONDS);
+    private static volatile int sentRate = InteractiveChat.pluginMessageDedupeRate;
+    private static final AtomicBoolean sentEvictionWarned = new AtomicBoolean(false);
+    private static final AtomicInteger carrierIndex = new AtomicInteger();
+    private static volatile Player[] carriers = new Player[0];
+    private static volatile Player sequencedCarrier = null;
+    private static volatile PluginMessageTransport transport = null;
     protected static short itemStackScheme = 0;
     protected static short inventoryScheme = 0;
+    protected static boolean payloadCompression = false;
+    protected static boolean demandRelay = false;
+    protected static boolean playerListDelta = false;
+    protected static boolean batching = false;
+    protected static boolean placeholderDelta = false;
+    protected static boolean inventoryDelta = false;
+    private static final Map<UUID, Boolean> sentVanishStates = new ConcurrentHashMap<>();
+    private static final Map<UUID, PlaceholderValueTable> placeholderTables = new ConcurrentHashMap<>();
+    private static final Map<UUID, Map<String, String>> pendingPlaceholders = new ConcurrentHashMap<>();
+    private static final AtomicBoolean placeholderFlushScheduled = new AtomicBoolean();
+    private static final Map<UUID, Map<RemoteDataType, RemoteInventorySnapshot>> inventorySnapshots = new ConcurrentHashMap<>();
+
+    public static final int BATCH_BYTE_BUDGET = 16384;
+    private static final int BATCH_RECORD_OVERHEAD = 6;
+    private static final Set<Integer> BATCHED_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(0x02, 0x05, 0x06, 0x07, 0x0B, 0x11, 0x14, 0x1C)));
+    /**
+     * Request/response and one-off packets that carry no ordering relative to each other,
+     * these are spread across all carriers. Everything else sticks to {@link #sequencedCarrier}
+     * so the proxy receives it in the order it was sent.
+     */
+    private static final Set<Integer> UNORDERED_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(0x02, 0x08, 0x09, 0x0B, 0x0D, 0x10, 0x12, 0x15, 0x17, 0x18, 0x1A, 0x1D, 0x1F)));
+    private static final Queue<ValuePairs<Integer, byte[]>> batchQueue = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger batchSize = new AtomicInteger();
+    private static final AtomicBoolean batchFlushScheduled = new AtomicBoolean();
 
     static {
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
-            int size = sent.size();
-            for (int i = size; i > 500; i--) {
-                sent.remove(sent.firstKey());
+        Bukkit.getPluginManager().registerEvents(new Listener() {
+            @EventHandler(priority = EventPriority.MONITOR)
+            public void onJoin(PlayerJoinEvent event) {
+                updateCarriers(null);
             }
-        }, 1200, 1200);
+
+            @EventHandler(priority = EventPriority.MONITOR)
+            public void onLeave(PlayerQuitEvent event) {
+                updateCarriers(event.getPlayer());
+                placeholderTables.remove(event.getPlayer().getUniqueId());
+                pendingPlaceholders.remove(event.getPlayer().getUniqueId());
+                inventorySnapshots.remove(event.getPlayer().getUniqueId());
+            }
+        }, InteractiveChat.plugin);
+        updateCarriers(null);
+    }
+
+    private static synchronized void updateCarriers(Player leaving) {
+        carriers = Bukkit.getOnlinePlayers().stream().filter(each -> !each.equals(leaving)).toArray(Player[]::new);
+        if (sequencedCarrier != null && sequencedCarrier.equals(leaving)) {
+            sequencedCarrier = null;
+        }
+    }
+
+    private static Player nextCarrier(int packetId) {
+        Player[] carriers = BungeeMessageSender.carriers;
+        if (carriers.length == 0) {
+            return null;
+        }
+        if (UNORDERED_PACKETS.contains(packetId)) {
+            return carriers[Math.floorMod(carrierIndex.getAndIncrement(), carriers.length)];
+        }
+        Player carrier = sequencedCarrier;
+        if (carrier != null) {
+            return carrier;
+        }
+        synchronized (BungeeMessageSender.class) {
+            if (sequencedCarrier == null) {
+                sequencedCarrier = BungeeMessageSender.carriers.length == 0 ? null : BungeeMessageSender.carriers[0];
+            }
+            return sequencedCarrier;
+        }
     }
 
     public static int getItemStackScheme() {
@@ -72,53 +152,126 @@ public class BungeeMessageSender {
         return inventoryScheme;
     }
 
-    public static boolean forwardData(long time, int packetId, byte[] data) throws Exception {
-        long index = (time << 16) + packetId;
-        String hash = HashUtils.createSha1String(new ByteArrayInputStream(data));
+    public static boolean isPayloadCompression() {
+        return payloadCompression;
+    }
+
+    public static boolean isDemandRelay() {
+        return demandRelay;
+    }
+
+    public static boolean isPlayerListDelta() {
+        return playerListDelta;
+    }
+
+    public static boolean isInventoryDelta() {
+        return inventoryDelta;
+    }
+
+    public static boolean isBatching() {
+        return batching;
+    }
+
+    public static boolean isPlaceholderDelta() {
+        return placeholderDelta;
+    }
+
+    public static PluginMessageTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Replaces the player connection path for outbound frames, or restores it when given null.
+     */
+    public static void setTransport(PluginMessageTransport transport) {
+        BungeeMessageSender.transport = transport;
+    }
+
+    /**
+     * Recent outbound keys, the ring is rebuilt when {@link InteractiveChat#pluginMessageDedupeRate} changed on reload.
+     */
+    public static ConcurrentDedupeRing getDedupeRing() {
+        int rate = InteractiveChat.pluginMessageDedupeRate;
+        if (rate != sentRate) {
+            synchronized (BungeeMessageSender.class) {
+                if (rate != sentRate) {
+                    sent = ConcurrentDedupeRing.forRate(rate, DEDUPE_WINDOW_SECONDS);
+                    sentRate = rate;
+                    sentEvictionWarned.set(false);
+                }
+            }
+        }
+        return sent;
+    }
 
-        Collection<? extends Player> players = Bukkit.getOnlinePlayers();
-        if (players.size() == 0) {
+    public static boolean forwardData(long time, int packetId, byte[] data) throws Exception {
+        PluginMessageTransport transport = BungeeMessageSender.transport;
+        if (transport == null ? carriers.length == 0 : !transport.isAvailable()) {
             return false;
         }
-        Player player = players.stream().skip(random.nextInt(players.size())).findAny().orElse(null);
-        if (player == null) {
+
+        long key = Hashing.murmur3_128().newHasher(data.length + 12).putLong(time).putInt(packetId).putBytes(data).hash().asLong();
+        ConcurrentDedupeRing sent = getDedupeRing();
+        if (!sent.add(key)) {
             return false;
         }
+        if (sent.getLiveEvictions() > 0 && sentEvictionWarned.compareAndSet(false, true)) {
+            Bukkit.getConsoleSender().sendMessage(ChatColor.YELLOW + "[InteractiveChat] Plugin messages are being sent faster than Options.PluginMessageDedupeRate, duplicates may no longer be recognised for the full " + DEDUPE_WINDOW_SECONDS + " seconds");
+        }
 
-        synchronized (sent) {
-            Set<String> cacheData = sent.get(index);
-            if (cacheData != null && cacheData.contains(hash)) {
-                return false;
+        if (batching && BATCHED_PACKETS.contains(packetId) && data.length < BATCH_BYTE_BUDGET) {
+            batchQueue.add(new ValuePairs<>(packetId, data));
+            if (batchSize.addAndGet(data.length + BATCH_RECORD_OVERHEAD) >= BATCH_BYTE_BUDGET) {
+                flushBatch();
+            } else if (batchFlushScheduled.compareAndSet(false, true)) {
+                FoliaUtil.scheduler.runTaskLaterAsynchronously(() -> flushBatch(), 1);
             }
+            return true;
+        }
+
+        flushBatch();
+        return sendData(packetId, data);
+    }
 
-            if (cacheData != null) {
-                cacheData.add(hash);
+    public static void flushBatch() {
+        batchFlushScheduled.set(false);
+        List<ValuePairs<Integer, byte[]>> records = new ArrayList<>();
+        synchronized (batchQueue) {
+            ValuePairs<Integer, byte[]> record;
+            while ((record = batchQueue.poll()) != null) {
+                records.add(record);
+                batchSize.addAndGet(-(record.getSecond().length + BATCH_RECORD_OVERHEAD));
+            }
+            if (records.isEmpty()) {
+                return;
+            }
+            if (records.size() == 1) {
+                sendData(records.get(0).getFirst(), records.get(0).getSecond());
             } else {
-                Set<String> newSet = new HashSet<>();
-                newSet.add(hash);
-                sent.put(index, newSet);
+                sendData(PluginMessageFrameUtils.BATCH_PACKET_ID, PluginMessageFrameUtils.createBatch(records));
             }
         }
+    }
+
+    private static boolean sendData(int packetId, byte[] data) {
+        PluginMessageTransport transport = BungeeMessageSender.transport;
+        Player player = transport == null ? nextCarrier(packetId) : null;
+        if (transport == null ? player == null : !transport.isAvailable()) {
+            return false;
+        }
 
         if (InteractiveChat.pluginMessagePacketVerbose) {
-            Bukkit.getConsoleSender().sendMessage("IC Outbound - ID " + packetId + " via " + player.getName());
+            Bukkit.getConsoleSender().sendMessage("IC Outbound - ID " + packetId + " via " + (transport == null ? player.getName() : transport.getName()));
         }
 
-        int packetNumber = random.nextInt();
+        int packetNumber = ThreadLocalRandom.current().nextInt();
         try {
-            byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-            for (int i = 0; i < dataArray.length; i++) {
-                byte[] chunk = dataArray[i];
-
-                ByteArrayDataOutput out = ByteStreams.newDataOutput();
-                out.writeInt(packetNumber); //random packet number
-                out.writeInt(i); //packet chunk index
-                out.writeInt(dataArray.length); //packet total chunks
-                out.writeShort(packetId); //packet id
-
-                out.write(chunk);
-                player.sendPluginMessage(InteractiveChat.plugin, "interchat:main", out.toByteArray());
+            for (byte[] frame : PluginMessageFrameUtils.createFrames(packetNumber, packetId, data, payloadCompression)) {
+                if (transport == null) {
+                    player.sendPluginMessage(InteractiveChat.plugin, "interchat:main", frame);
+                } else {
+                    transport.send(frame);
+                }
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -145,38 +298,121 @@ public class BungeeMessageSender {
     }
 
     public static boolean forwardEquipment(long time, UUID player, boolean rightHanded, int selectedSlot, int level, ItemStack... equipment) throws Exception {
+        if (inventoryDelta && !demandRelay) {
+            return forwardRemoteDataDelta(time, player, RemoteDataType.EQUIPMENT, rightHanded, selectedSlot, level, null, equipment, false);
+        }
+        byte[] payload = RemoteDataRelay.createEquipmentPayload(rightHanded, selectedSlot, level, equipment);
+        if (demandRelay) {
+            return RemoteDataRelay.publish(time, player, RemoteDataType.EQUIPMENT, payload);
+        }
         ByteArrayDataOutput out = ByteStreams.newDataOutput();
         DataTypeIO.writeUUID(out, player);
-        out.writeBoolean(rightHanded);
-        out.writeByte(selectedSlot);
-        out.writeInt(level);
-        out.writeByte(equipment.length);
-        for (ItemStack itemStack : equipment) {
-            DataTypeIO.writeItemStack(out, itemStackScheme, itemStack, StandardCharsets.UTF_8);
-        }
+        out.write(payload);
         return forwardData(time, 0x03, out.toByteArray());
     }
 
     public static boolean forwardInventory(long time, UUID player, boolean rightHanded, int selectedSlot, int level, String title, Inventory inventory) throws Exception {
+        if (inventoryDelta && !demandRelay) {
+            return forwardRemoteDataDelta(time, player, RemoteDataType.INVENTORY, rightHanded, selectedSlot, level, title, inventory.getContents(), false);
+        }
+        return forwardInventory(time, player, RemoteDataType.INVENTORY, RemoteDataRelay.createInventoryPayload(rightHanded, selectedSlot, level, RemoteDataType.INVENTORY, title, inventory));
+    }
+
+    public static boolean forwardEnderchest(long time, UUID player, boolean rightHanded, int selectedSlot, int level, String title, Inventory enderchest) throws Exception {
+        if (inventoryDelta && !demandRelay) {
+            return forwardRemoteDataDelta(time, player, RemoteDataType.ENDERCHEST, rightHanded, selectedSlot, level, title, enderchest.getContents(), false);
+        }
+        return forwardInventory(time, player, RemoteDataType.ENDERCHEST, RemoteDataRelay.createInventoryPayload(rightHanded, selectedSlot, level, RemoteDataType.ENDERCHEST, title, enderchest));
+    }
+
+    private static boolean forwardInventory(long time, UUID player, RemoteDataType type, byte[] payload) throws Exception {
+        if (demandRelay) {
+            return RemoteDataRelay.publish(time, player, type, payload);
+        }
         ByteArrayDataOutput out = ByteStreams.newDataOutput();
         DataTypeIO.writeUUID(out, player);
-        out.writeBoolean(rightHanded);
-        out.writeByte(selectedSlot);
-        out.writeInt(level);
-        out.writeByte(0);
-        DataTypeIO.writeInventory(out, inventoryScheme, title, inventory, StandardCharsets.UTF_8);
+        out.write(payload);
         return forwardData(time, 0x04, out.toByteArray());
     }
 
-    public static boolean forwardEnderchest(long time, UUID player, boolean rightHanded, int selectedSlot, int level, String title, Inventory enderchest) throws Exception {
+    /**
+     * Sends only the slots that changed since the last forward of this player and data kind.
+     * The first forward after joining, a forced one, or one with a new title is sent as a keyframe carrying every slot and the title.
+     * A forced keyframe ignores the given title and resends the last recorded one.
+     */
+    public static boolean forwardRemoteDataDelta(long time, UUID player, RemoteDataType type, boolean rightHanded, int selectedSlot, int level, String title, ItemStack[] contents, boolean forceKeyframe) throws Exception {
+        RemoteInventorySnapshot snapshot = inventorySnapshots.computeIfAbsent(player, k -> new ConcurrentHashMap<>()).computeIfAbsent(type, k -> new RemoteInventorySnapshot());
+        synchronized (snapshot) {
+            boolean titleChanged = !forceKeyframe && snapshot.updateTitle(title);
+            SortedMap<Integer, ItemStack> changes = snapshot.update(rightHanded, selectedSlot, level, contents);
+            int generation = snapshot.getGeneration();
+            boolean keyframe = forceKeyframe || titleChanged || generation == 1;
+            if (keyframe) {
+                changes = snapshot.snapshot();
+            } else if (changes == null) {
+                return false;
+            }
+            ByteArrayDataOutput out = ByteStreams.newDataOutput();
+            DataTypeIO.writeUUID(out, player);
+            out.writeByte(type.getValue());
+            out.writeInt(generation);
+            out.writeBoolean(keyframe);
+            out.writeBoolean(rightHanded);
+            out.writeByte(selectedSlot);
+            out.writeInt(level);
+            out.writeInt(contents.length);
+            if (keyframe) {
+                changes.values().removeIf(each -> each == null);
+                String snapshotTitle = snapshot.getTitle();
+                out.writeBoolean(snapshotTitle != null);
+                if (snapshotTitle != null) {
+                    DataTypeIO.writeString(out, snapshotTitle, StandardCharsets.UTF_8);
+                }
+            }
+            DataTypeIO.writeVarInt(out, changes.size());
+            for (Map.Entry<Integer, ItemStack> entry : changes.entrySet()) {
+                DataTypeIO.writeVarInt(out, entry.getKey());
+                DataTypeIO.writeItemStack(out, itemStackScheme, entry.getValue(), StandardCharsets.UTF_8);
+            }
+            return forwardData(time, 0x1E, out.toByteArray());
+        }
+    }
+
+    public static boolean sendRemoteDataKeyframe(long time, ICPlayer player, RemoteDataType type) throws Exception {
+        return forwardRemoteDataDelta(time, player.getUniqueId(), type, player.isRightHanded(), player.getSelectedSlot(), player.getExperienceLevel(), null, RemoteDataRelay.collectContents(player, type), true);
+    }
+
+    public static boolean requestRemoteDataKeyframe(long time, UUID player, RemoteDataType type) throws Exception {
         ByteArrayDataOutput out = ByteStreams.newDataOutput();
         DataTypeIO.writeUUID(out, player);
-        out.writeBoolean(rightHanded);
-        out.writeByte(selectedSlot);
-        out.writeInt(level);
-        out.writeByte(1);
-        DataTypeIO.writeInventory(out, inventoryScheme, title, enderchest, StandardCharsets.UTF_8);
-        return forwardData(time, 0x04, out.toByteArray());
+        out.writeByte(type.getValue());
+        return forwardData(time, 0x1F, out.toByteArray());
+    }
+
+    public static boolean announceRemoteData(long time, UUID player, RemoteDataType type, int version) throws Exception {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        out.writeByte(type.getValue());
+        out.writeInt(version);
+        return forwardData(time, 0x16, out.toByteArray());
+    }
+
+    public static boolean requestRemoteData(long time, UUID player, RemoteDataType type, int version) throws Exception {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        out.writeByte(type.getValue());
+        out.writeInt(version);
+        return forwardData(time, 0x17, out.toByteArray());
+    }
+
+    public static boolean respondRemoteData(long time, UUID player, RemoteDataType type, int version, byte[] payload) throws Exception {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        out.writeByte(type.getValue());
+        out.writeInt(version);
+        out.writeInt(payload.length);
+        out.write(payload);
+        return forwardData(time, 0x18, out.toByteArray());
     }
 
     public static boolean forwardPlaceholders(long time, UUID player, List<ValuePairs<String, String>> pairs) throws Exception {
@@ -190,6 +426,79 @@ public class BungeeMessageSender {
         return forwardData(time, 0x05, out.toByteArray());
     }
 
+    public static void queuePlaceholders(UUID player, Map<String, String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        pendingPlaceholders.merge(player, new HashMap<>(values), (pending, added) -> {
+            pending.putAll(added);
+            return pending;
+        });
+        if (placeholderFlushScheduled.compareAndSet(false, true)) {
+            FoliaUtil.scheduler.runTaskLaterAsynchronously(() -> flushPlaceholders(), 1);
+        }
+    }
+
+    public static void flushPlaceholders() {
+        placeholderFlushScheduled.set(false);
+        long time = System.currentTimeMillis();
+        for (UUID player : new ArrayList<>(pendingPlaceholders.keySet())) {
+            Map<String, String> values = pendingPlaceholders.remove(player);
+            if (values == null) {
+                continue;
+            }
+            try {
+                if (!placeholderDelta) {
+                    List<ValuePairs<String, String>> pairs = new ArrayList<>(values.size());
+                    for (Map.Entry<String, String> entry : values.entrySet()) {
+                        pairs.add(new ValuePairs<>(entry.getKey(), entry.getValue()));
+                    }
+                    forwardPlaceholders(time, player, pairs);
+                    continue;
+                }
+                PlaceholderValueTable table = placeholderTables.computeIfAbsent(player, k -> new PlaceholderValueTable());
+                synchronized (table) {
+                    Map<String, String> changes = table.update(values);
+                    if (!changes.isEmpty()) {
+                        int version = table.getVersion();
+                        forwardPlaceholderDelta(time, player, version, version == 1, changes);
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public static boolean sendPlaceholderKeyframe(long time, UUID player) throws Exception {
+        PlaceholderValueTable table = placeholderTables.get(player);
+        if (table == null) {
+            return false;
+        }
+        synchronized (table) {
+            return forwardPlaceholderDelta(time, player, table.getVersion(), true, table.snapshot());
+        }
+    }
+
+    public static boolean forwardPlaceholderDelta(long time, UUID player, int version, boolean keyframe, Map<String, String> values) throws Exception {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        out.writeInt(version);
+        out.writeBoolean(keyframe);
+        out.writeInt(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            DataTypeIO.writeString(out, entry.getKey(), StandardCharsets.UTF_8);
+            DataTypeIO.writeString(out, entry.getValue(), StandardCharsets.UTF_8);
+        }
+        return forwardData(time, 0x1C, out.toByteArray());
+    }
+
+    public static boolean requestPlaceholderKeyframe(long time, UUID player) throws Exception {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        return forwardData(time, 0x1D, out.toByteArray());
+    }
+
     public static boolean addMessage(long time, String message, UUID player) throws Exception {
         ByteArrayDataOutput out = ByteStreams.newDataOutput();
         DataTypeIO.writeString(out, message, StandardCharsets.UTF_8);
@@ -331,6 +640,32 @@ public class BungeeMessageSender {
         return forwardData(time, 0x12, out.toByteArray());
     }
 
+    public static boolean forwardVanishChanges(long time, Map<UUID, Boolean> vanishStates) throws Exception {
+        sentVanishStates.keySet().retainAll(vanishStates.keySet());
+        if (!playerListDelta) {
+            sentVanishStates.putAll(vanishStates);
+            return updatePlayersVanished(time, vanishStates);
+        }
+        Map<UUID, Boolean> changes = new HashMap<>();
+        for (Map.Entry<UUID, Boolean> entry : vanishStates.entrySet()) {
+            if (!entry.getValue().equals(sentVanishStates.put(entry.getKey(), entry.getValue()))) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (changes.isEmpty()) {
+            return false;
+        }
+        return updatePlayersVanished(time, changes);
+    }
+
+    public static void invalidateVanishState(UUID player) {
+        sentVanishStates.remove(player);
+    }
+
+    public static boolean requestPlayerListResync(long time) throws Exception {
+        return forwardData(time, 0x1A, new byte[0]);
+    }
+
     public static boolean updatePlayersVanished(long time, Map<UUID, Boolean> data) throws Exception {
         ByteArrayDataOutput out = ByteStreams.newDataOutput();
         out.writeInt(data.size());
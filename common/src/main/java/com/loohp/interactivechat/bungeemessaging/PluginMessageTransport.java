@@ -0,0 +1,39 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.bungeemessaging;
+
+/**
+ * Carries outbound interchat:main frames over one connection between a backend and the proxy.
+ * <p>
+ * By default a backend writes its frames through the connection of an online player, and the proxy writes them through
+ * the connection to each backend server. Installing a transport through {@link BungeeMessageSender#setTransport(PluginMessageTransport)}
+ * on a backend, or through {@code setTransport(String, PluginMessageTransport)} on a proxy for one backend server,
+ * replaces that path, for example with an in-JVM loopback.
+ */
+public interface PluginMessageTransport {
+
+    boolean isAvailable();
+
+    String getName();
+
+    void send(byte[] frame);
+
+}
@@ -0,0 +1,515 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.bungeemessaging;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.loohp.interactivechat.InteractiveChat;
+import com.loohp.interactivechat.objectholders.ICInventoryHolder;
+import com.loohp.interactivechat.objectholders.ICPlayer;
+import com.loohp.interactivechat.objectholders.ICPlayerFactory;
+import com.loohp.interactivechat.utils.DataTypeIO;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
+import com.loohp.interactivechat.utils.InventoryUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.EntityEquipment;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pull based relay of player equipment, inventories and ender chests between backends.
+ * <p>
+ * Instead of broadcasting the full contents through the proxy, the owning backend keeps the
+ * encoded payload and only announces a new version number (0x16). Peers fetch the payload
+ * through the proxy (0x17 / 0x18) when they actually need to render it, or receive an explicit
+ * miss (0x20) when the owner is unavailable. Rendering waits for a fetch at most as long as the
+ * proxy already holds messages back for ({@code remoteDelay}), and only falls back to the copy at
+ * hand when the fetch takes longer.
+ * <p>
+ * Without demand relay, owners push slot level deltas (0x1E) instead, peers patch their copy
+ * in place and ask for a keyframe (0x1F) when they notice a skipped generation.
+ */
+public class RemoteDataRelay {
+
+    public static final int FETCH_TIMEOUT = 1000;
+
+    private static final CompletableFuture<Void> CURRENT = CompletableFuture.completedFuture(null);
+
+    private static final Object PUBLISH_LOCK = new Object();
+    private static final Cache<DataKey, byte[]> published = CacheBuilder.newBuilder().maximumSize(1024).expireAfterAccess(10, TimeUnit.MINUTES).build();
+    private static final Map<DataKey, Integer> publishedVersions = new ConcurrentHashMap<>();
+    private static final Map<DataKey, Integer> announcedVersions = new ConcurrentHashMap<>();
+    private static final Map<DataKey, Integer> appliedVersions = new ConcurrentHashMap<>();
+    private static final Map<DataKey, CompletableFuture<Void>> pendingFetches = new ConcurrentHashMap<>();
+    private static final Map<DataKey, Integer> appliedGenerations = new ConcurrentHashMap<>();
+    private static final Map<DataKey, Long> lastKeyframeRequests = new ConcurrentHashMap<>();
+
+    public static boolean publish(long time, UUID uuid, RemoteDataType type, byte[] payload) throws Exception {
+        DataKey key = new DataKey(uuid, type);
+        int version;
+        synchronized (PUBLISH_LOCK) {
+            byte[] previous = published.getIfPresent(key);
+            if (previous != null && Arrays.equals(previous, payload)) {
+                return false;
+            }
+            version = nextVersion(key);
+            published.put(key, payload);
+        }
+        return BungeeMessageSender.announceRemoteData(time, uuid, type, version);
+    }
+
+    /**
+     * Versions are kept apart from the evictable payload cache, so a payload rebuilt after eviction is served under
+     * the version peers were last told about instead of one they have never seen.
+     */
+    private static int nextVersion(DataKey key) {
+        return publishedVersions.compute(key, (k, v) -> v == null ? ThreadLocalRandom.current().nextInt() : v + 1);
+    }
+
+    public static void handleAnnouncement(UUID uuid, RemoteDataType type, int version) {
+        if (Bukkit.getPlayer(uuid) != null) {
+            return;
+        }
+        announcedVersions.put(new DataKey(uuid, type), version);
+    }
+
+    public static void handleFetchRequest(UUID uuid, RemoteDataType type) throws Exception {
+        ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
+        if (player == null || !player.isLocal()) {
+            return;
+        }
+        DataKey key = new DataKey(uuid, type);
+        byte[] payload;
+        Integer version;
+        boolean minted = false;
+        synchronized (PUBLISH_LOCK) {
+            payload = published.getIfPresent(key);
+            version = publishedVersions.get(key);
+            if (payload == null) {
+                payload = createPayload(player, type);
+                published.put(key, payload);
+            }
+            if (version == null) {
+                version = nextVersion(key);
+                minted = true;
+            }
+        }
+        long now = System.currentTimeMillis();
+        if (minted) {
+            BungeeMessageSender.announceRemoteData(now, uuid, type, version);
+        }
+        BungeeMessageSender.respondRemoteData(now, uuid, type, version, payload);
+    }
+
+    public static void handleData(UUID uuid, RemoteDataType type, int version, byte[] payload) {
+        DataKey key = new DataKey(uuid, type);
+        try {
+            ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
+            if (player != null && !player.isLocal()) {
+                apply(player, type, ByteStreams.newDataInput(payload));
+                appliedVersions.put(key, version);
+                announcedVersions.putIfAbsent(key, version);
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+        } finally {
+            CompletableFuture<Void> future = pendingFetches.remove(key);
+            if (future != null) {
+                future.complete(null);
+            }
+        }
+    }
+
+    public static void handleMiss(UUID uuid, RemoteDataType type) {
+        CompletableFuture<Void> future = pendingFetches.remove(new DataKey(uuid, type));
+        if (future != null) {
+            future.completeExceptionally(new IllegalStateException("Remote data of " + uuid + " is unavailable"));
+        }
+    }
+
+    /**
+     * Starts fetching the announced version of a remote player's data if the copy at hand is older, without waiting for it.
+     * Callers that may wait for the fetch use {@link #awaitLatest(ICPlayer, RemoteDataType)} instead.
+     *
+     * @return a completed future if the copy at hand is already current, otherwise one that completes when the fetched data has been applied,
+     * or completes exceptionally if the fetch fails or takes longer than {@link #FETCH_TIMEOUT} milliseconds
+     */
+    public static CompletableFuture<Void> requestLatest(ICPlayer player, RemoteDataType type) {
+        if (!InteractiveChat.bungeecordMode || player.isLocal()) {
+            return CURRENT;
+        }
+        UUID uuid = player.getUniqueId();
+        DataKey key = new DataKey(uuid, type);
+        Integer announced = announcedVersions.get(key);
+        if (announced == null || announced.equals(appliedVersions.get(key))) {
+            return CURRENT;
+        }
+        boolean[] created = new boolean[1];
+        CompletableFuture<Void> future = pendingFetches.computeIfAbsent(key, k -> {
+            created[0] = true;
+            return new CompletableFuture<>();
+        });
+        if (created[0]) {
+            HousekeepingScheduler.schedule("remote-data-fetch-timeout", Execution.ASYNC, FETCH_TIMEOUT / HousekeepingScheduler.TICK_MILLIS, () -> {
+                if (pendingFetches.remove(key, future)) {
+                    future.completeExceptionally(new TimeoutException("Timed out fetching remote data of " + uuid));
+                }
+            });
+            try {
+                BungeeMessageSender.requestRemoteData(System.currentTimeMillis(), uuid, type, announced);
+            } catch (Exception e) {
+                e.printStackTrace();
+                if (pendingFetches.remove(key, future)) {
+                    future.completeExceptionally(e);
+                }
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Fetches the announced version of a remote player's data if the copy at hand is older, and waits for it for up to
+     * {@link InteractiveChat#remoteDelay} milliseconds, the time the proxy already delays messages from other servers by.
+     * The copy at hand is used as it is when the fetch fails or takes longer, and the server thread never waits.
+     *
+     * @return the fetch, which may still complete later if waiting for it timed out
+     */
+    public static CompletableFuture<Void> awaitLatest(ICPlayer player, RemoteDataType type) {
+        CompletableFuture<Void> future = requestLatest(player, type);
+        if (future.isDone() || Bukkit.isPrimaryThread()) {
+            return future;
+        }
+        try {
+            future.get(InteractiveChat.remoteDelay, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignore) {
+        }
+        return future;
+    }
+
+    public static void clear(UUID uuid) {
+        for (RemoteDataType type : RemoteDataType.values()) {
+            DataKey key = new DataKey(uuid, type);
+            published.invalidate(key);
+            publishedVersions.remove(key);
+            announcedVersions.remove(key);
+            appliedVersions.remove(key);
+            appliedGenerations.remove(key);
+            lastKeyframeRequests.remove(key);
+        }
+    }
+
+    /**
+     * Patches the remote copy of a player's equipment, inventory or ender chest in place with the slots of a 0x1E delta.
+     * A skipped generation, or a delta that does not fit the copy, leaves the copy as it is and asks the owning server for a keyframe instead.
+     * Keyframes rebuild inventories with their title and the {@link ICInventoryHolder}.
+     */
+    public static void handleDelta(ByteArrayDataInput input) throws Exception {
+        UUID uuid = DataTypeIO.readUUID(input);
+        RemoteDataType type = RemoteDataType.fromValue(input.readByte());
+        int generation = input.readInt();
+        boolean keyframe = input.readBoolean();
+        boolean rightHanded = input.readBoolean();
+        int selectedSlot = input.readByte();
+        int level = input.readInt();
+        int size = input.readInt();
+        String title = keyframe && input.readBoolean() ? DataTypeIO.readString(input, StandardCharsets.UTF_8) : null;
+        int count = DataTypeIO.readVarInt(input);
+        ICPlayer player = ICPlayerFactory.getICPlayer(uuid);
+        if (type == null || player == null || player.isLocal()) {
+            return;
+        }
+        DataKey key = new DataKey(uuid, type);
+        Integer applied = appliedGenerations.get(key);
+        if (!keyframe && (applied == null || generation != applied + 1)) {
+            requestKeyframe(key);
+            return;
+        }
+        Inventory inventory = null;
+        if (!type.equals(RemoteDataType.EQUIPMENT)) {
+            int inventorySize = InventoryUtils.toMultipleOf9(size);
+            if (keyframe) {
+                inventory = title == null ? Bukkit.createInventory(ICInventoryHolder.INSTANCE, inventorySize) : Bukkit.createInventory(ICInventoryHolder.INSTANCE, inventorySize, title);
+            } else {
+                inventory = type.equals(RemoteDataType.INVENTORY) ? player.getInventory() : player.getEnderChest();
+                if (inventory == null || inventory.getSize() != inventorySize) {
+                    requestKeyframe(key);
+                    return;
+                }
+            }
+        }
+        player.setRemoteRightHanded(rightHanded);
+        player.setRemoteSelectedSlot(selectedSlot);
+        player.setRemoteExperienceLevel(level);
+        if (type.equals(RemoteDataType.EQUIPMENT)) {
+            EntityEquipment equipment = player.getEquipment();
+            if (keyframe) {
+                for (int i = 0; i < size; i++) {
+                    setEquipmentSlot(equipment, i, null);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                setEquipmentSlot(equipment, DataTypeIO.readVarInt(input), DataTypeIO.readItemStack(input, StandardCharsets.UTF_8));
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                int slot = DataTypeIO.readVarInt(input);
+                ItemStack itemStack = DataTypeIO.readItemStack(input, StandardCharsets.UTF_8);
+                if (slot < inventory.getSize()) {
+                    inventory.setItem(slot, itemStack);
+                }
+            }
+            if (keyframe) {
+                if (type.equals(RemoteDataType.INVENTORY)) {
+                    player.setRemoteInventory(inventory);
+                } else {
+                    player.setRemoteEnderChest(inventory);
+                }
+            }
+        }
+        appliedGenerations.put(key, generation);
+        if (keyframe) {
+            lastKeyframeRequests.remove(key);
+        }
+    }
+
+    /**
+     * Asks the owning server for a keyframe right away, after a delta for this copy had to be dropped.
+     */
+    static void resync(UUID uuid, RemoteDataType type) throws Exception {
+        DataKey key = new DataKey(uuid, type);
+        appliedGenerations.remove(key);
+        lastKeyframeRequests.remove(key);
+        requestKeyframe(key);
+    }
+
+    private static void requestKeyframe(DataKey key) throws Exception {
+        long now = System.currentTimeMillis();
+        Long last = lastKeyframeRequests.get(key);
+        if (last == null || now - last >= 1000) {
+            lastKeyframeRequests.put(key, now);
+            BungeeMessageSender.requestRemoteDataKeyframe(now, key.uuid, key.type);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void setEquipmentSlot(EntityEquipment equipment, int slot, ItemStack itemStack) {
+        switch (slot) {
+            case 0:
+                equipment.setHelmet(itemStack);
+                break;
+            case 1:
+                equipment.setChestplate(itemStack);
+                break;
+            case 2:
+                equipment.setLeggings(itemStack);
+                break;
+            case 3:
+                equipment.setBoots(itemStack);
+                break;
+            case 4:
+                if (InteractiveChat.version.isOld()) {
+                    equipment.setItemInHand(itemStack);
+                } else {
+                    equipment.setItemInMainHand(itemStack);
+                }
+                break;
+            case 5:
+                if (!InteractiveChat.version.isOld()) {
+                    equipment.setItemInOffHand(itemStack);
+                }
+                break;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    public static void apply(ICPlayer player, RemoteDataType type, ByteArrayDataInput input) throws Exception {
+        player.setRemoteRightHanded(input.readBoolean());
+        player.setRemoteSelectedSlot(input.readByte());
+        player.setRemoteExperienceLevel(input.readInt());
+        if (type.equals(RemoteDataType.EQUIPMENT)) {
+            int size = input.readByte();
+            ItemStack[] equipment = new ItemStack[size];
+            for (int i = 0; i < equipment.length; i++) {
+                equipment[i] = DataTypeIO.readItemStack(input, StandardCharsets.UTF_8);
+            }
+            player.getEquipment().setHelmet(equipment[0]);
+            player.getEquipment().setChestplate(equipment[1]);
+            player.getEquipment().setLeggings(equipment[2]);
+            player.getEquipment().setBoots(equipment[3]);
+            if (InteractiveChat.version.isOld()) {
+                player.getEquipment().setItemInHand(equipment[4]);
+            } else {
+                player.getEquipment().setItemInMainHand(equipment[4]);
+                player.getEquipment().setItemInOffHand(equipment[5]);
+            }
+        } else {
+            int inventoryType = input.readByte();
+            if (inventoryType == 0) {
+                player.setRemoteInventory(DataTypeIO.readInventory(input, StandardCharsets.UTF_8, null));
+            } else {
+                player.setRemoteEnderChest(DataTypeIO.readInventory(input, StandardCharsets.UTF_8, null));
+            }
+        }
+    }
+
+    public static byte[] createEquipmentPayload(boolean rightHanded, int selectedSlot, int level, ItemStack... equipment) throws Exception {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeBoolean(rightHanded);
+        out.writeByte(selectedSlot);
+        out.writeInt(level);
+        out.writeByte(equipment.length);
+        for (ItemStack itemStack : equipment) {
+            DataTypeIO.writeItemStack(out, BungeeMessageSender.itemStackScheme, itemStack, StandardCharsets.UTF_8);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] createInventoryPayload(boolean rightHanded, int selectedSlot, int level, RemoteDataType type, String title, Inventory inventory) throws Exception {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeBoolean(rightHanded);
+        out.writeByte(selectedSlot);
+        out.writeInt(level);
+        out.writeByte(type.equals(RemoteDataType.ENDERCHEST) ? 1 : 0);
+        DataTypeIO.writeInventory(out, BungeeMessageSender.inventoryScheme, title, inventory, StandardCharsets.UTF_8);
+        return out.toByteArray();
+    }
+
+    private static byte[] createPayload(ICPlayer player, RemoteDataType type) throws Exception {
+        ItemStack[] contents = collectContents(player, type);
+        switch (type) {
+            case EQUIPMENT:
+                return createEquipmentPayload(player.isRightHanded(), player.getSelectedSlot(), player.getExperienceLevel(), contents);
+            case INVENTORY:
+                Inventory inventory = Bukkit.createInventory(ICInventoryHolder.INSTANCE, 45);
+                inventory.setContents(contents);
+                return createInventoryPayload(player.isRightHanded(), player.getSelectedSlot(), player.getExperienceLevel(), type, null, inventory);
+            case ENDERCHEST:
+                return createInventoryPayload(player.isRightHanded(), player.getSelectedSlot(), player.getExperienceLevel(), type, null, player.getEnderChest());
+            default:
+                throw new IllegalArgumentException("Unknown remote data type " + type);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    public static ItemStack[] collectContents(ICPlayer player, RemoteDataType type) {
+        switch (type) {
+            case EQUIPMENT:
+                if (InteractiveChat.version.isOld()) {
+                    return new ItemStack[] {player.getEquipment().getHelmet(), player.getEquipment().getChestplate(), player.getEquipment().getLeggings(), player.getEquipment().getBoots(), player.getEquipment().getItemInHand()};
+                } else {
+                    return new ItemStack[] {player.getEquipment().getHelmet(), player.getEquipment().getChestplate(), player.getEquipment().getLeggings(), player.getEquipment().getBoots(), player.getEquipment().getItemInMainHand(), player.getEquipment().getItemInOffHand()};
+                }
+            case INVENTORY:
+                ItemStack[] contents = new ItemStack[45];
+                for (int i = 0; i < Math.min(player.getInventory().getSize(), 45); i++) {
+                    ItemStack item = player.getInventory().getItem(i);
+                    if (item != null && !item.getType().equals(Material.AIR)) {
+                        contents[i] = item.clone();
+                    }
+                }
+                return contents;
+            case ENDERCHEST:
+                return player.getEnderChest().getContents();
+            default:
+                throw new IllegalArgumentException("Unknown remote data type " + type);
+        }
+    }
+
+    public enum RemoteDataType {
+
+        EQUIPMENT(0),
+        INVENTORY(1),
+        ENDERCHEST(2);
+
+        private static final Map<Integer, RemoteDataType> MAPPINGS = new HashMap<>();
+
+        static {
+            for (RemoteDataType type : values()) {
+                MAPPINGS.put(type.getValue(), type);
+            }
+        }
+
+        public static RemoteDataType fromValue(int value) {
+            return MAPPINGS.get(value);
+        }
+
+        private final int value;
+
+        RemoteDataType(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+    }
+
+    private static class DataKey {
+
+        private final UUID uuid;
+        private final RemoteDataType type;
+
+        private DataKey(UUID uuid, RemoteDataType type) {
+            this.uuid = uuid;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DataKey dataKey = (DataKey) o;
+            return uuid.equals(dataKey.uuid) && type == dataKey.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(uuid, type);
+        }
+
+    }
+
+}
@@ -28,8 +28,9 @@ import com.comphenix.protocol.wrappers.WrappedServerPing;
 import com.loohp.interactivechat.InteractiveChat;
 import com.loohp.interactivechat.platform.protocollib.ProtocolLibPlatform;
 import com.loohp.interactivechat.registry.Registry;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import org.bukkit.Bukkit;
-import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
 import static com.loohp.interactivechat.bungeemessaging.ServerPingListenerUtils.*;
 
@@ -59,9 +60,9 @@ public class ServerPingListener {
             }
         });
 
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("server-ping-request-expiry", Execution.ASYNC, 0, 20, () -> {
             REQUESTS.entrySet().removeIf(entry -> System.currentTimeMillis() > entry.getValue());
-        }, 0, 20);
+        });
     }
 
 }
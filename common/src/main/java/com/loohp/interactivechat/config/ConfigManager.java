@@ -93,6 +93,7 @@ public class ConfigManager {
     public static void loadConfig() {
         InteractiveChat.extraProxiedPacketProcessingDelay = getConfig().getInt("Options.ExtraProxiedPacketProcessingDelay");
         InteractiveChat.pluginMessagePacketVerbose = getConfig().getBoolean("Options.PluginMessagePacketVerbose");
+        InteractiveChat.pluginMessageDedupeRate = Math.max(1, getConfig().getInt("Options.PluginMessageDedupeRate"));
         InteractiveChat.asyncChatThreadPoolExecutorCoreSize = getConfig().getInt("Options.AsyncChatThreadPoolExecutorCoreSize");
         InteractiveChat.asyncChatThreadPoolExecutorMaxSize = getConfig().getInt("Options.AsyncChatThreadPoolExecutorMaxSize");
 
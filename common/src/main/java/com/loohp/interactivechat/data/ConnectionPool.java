@@ -0,0 +1,184 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small fixed size JDBC connection pool.
+ * <p>
+ * Connections are opened lazily up to the maximum size and kept open between operations, each one caching
+ * the prepared statements created on it. Connections idle for longer than the validation interval are
+ * checked before being handed out and replaced if they are no longer valid.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    public static final long VALIDATION_INTERVAL = 30000;
+    public static final long BORROW_TIMEOUT = 30000;
+
+    private final ConnectionFactory factory;
+    private final int maximumSize;
+    private final BlockingQueue<PooledConnection> idle;
+    private final AtomicInteger size;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, int maximumSize) {
+        this.factory = factory;
+        this.maximumSize = maximumSize;
+        this.idle = new LinkedBlockingQueue<>();
+        this.size = new AtomicInteger();
+        this.closed = false;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public int getSize() {
+        return size.get();
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        while (true) {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            PooledConnection connection = idle.poll();
+            if (connection == null) {
+                int current = size.get();
+                if (current < maximumSize && size.compareAndSet(current, current + 1)) {
+                    try {
+                        return new PooledConnection(factory.create());
+                    } catch (SQLException e) {
+                        size.decrementAndGet();
+                        throw e;
+                    }
+                }
+                try {
+                    connection = idle.poll(BORROW_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", e);
+                }
+                if (connection == null) {
+                    throw new SQLException("Timed out waiting for a database connection");
+                }
+            }
+            if (System.currentTimeMillis() - connection.lastUsed < VALIDATION_INTERVAL || isValid(connection)) {
+                return connection;
+            }
+            discard(connection);
+        }
+    }
+
+    public void release(PooledConnection connection) {
+        if (closed) {
+            discard(connection);
+            return;
+        }
+        connection.lastUsed = System.currentTimeMillis();
+        idle.add(connection);
+    }
+
+    public void discard(PooledConnection connection) {
+        size.decrementAndGet();
+        connection.close();
+    }
+
+    private boolean isValid(PooledConnection connection) {
+        try {
+            return connection.getConnection().isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        Connection create() throws SQLException;
+
+    }
+
+    public static class PooledConnection {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+        private long lastUsed;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statements = new HashMap<>();
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Returns the prepared statement for the given sql, preparing it only the first time on this connection.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+            }
+            return statement;
+        }
+
+        private void close() {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException ignore) {
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException ignore) {
+            }
+        }
+
+    }
+
+}
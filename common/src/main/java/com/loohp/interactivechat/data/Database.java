@@ -20,11 +20,16 @@
 
 package com.loohp.interactivechat.data;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.loohp.interactivechat.InteractiveChat;
+import com.loohp.interactivechat.data.ConnectionPool.PooledConnection;
 import com.loohp.interactivechat.data.PlayerDataManager.PlayerData;
 import net.md_5.bungee.api.ChatColor;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -32,14 +37,24 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Database {
 
+    public static final int MYSQL_POOL_SIZE = 4;
+    public static final long WRITE_BEHIND_DELAY = 1000;
+    public static final int LOAD_BATCH_SIZE = 64;
+
     private static final Map<String, String> COLUMNS = new HashMap<>();
 
     static {
@@ -59,7 +74,15 @@ public class Database {
     private final String table = "InteractiveChat_USER_PERFERENCES";
     private final int port;
     public boolean isMYSQL = false;
-    private Connection connection;
+    public boolean isLocal = false;
+    private ConnectionPool pool;
+    private LocalPreferenceStore localStore;
+    private SchemaMigrator schemaMigrator;
+
+    private final Map<UUID, PlayerData> pendingSaves;
+    private final AtomicBoolean flushScheduled;
+    private final ScheduledExecutorService writeBehindExecutor;
+    private final Object flushLock;
 
     public Database(boolean bungee, File dataFolder, String storageType, String host, String database, String username, String password, int port) {
         this.bungee = bungee;
@@ -70,6 +93,10 @@ public class Database {
         this.username = username;
         this.password = password;
         this.port = port;
+        this.pendingSaves = new ConcurrentHashMap<>();
+        this.flushScheduled = new AtomicBoolean();
+        this.writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("InteractiveChat Database Write-Behind").setDaemon(true).build());
+        this.flushLock = new Object();
     }
 
     private void consoleMessage(String str) {
@@ -82,74 +109,120 @@ public class Database {
 
     public void setup() {
         isMYSQL = storageType.equalsIgnoreCase("MYSQL");
-        synchronized (this) {
-            if (isMYSQL) {
-                mysqlSetup(true);
-                createTable();
-                checkColumns();
-                try {
-                    connection.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                sqliteSetup(true);
-                try {
-                    connection.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+        isLocal = storageType.equalsIgnoreCase("LOCAL");
+        schemaMigrator = new SchemaMigrator(table, isMYSQL);
+        if (isLocal) {
+            localStore = new LocalPreferenceStore(new File(dataFolder, "preferences.log"));
+            try {
+                localStore.open();
+                if (new File(dataFolder, "database.db").exists()) {
+                    importSqlite();
                 }
+                consoleMessage(ChatColor.GREEN + "[InteractiveChat] Opened local preference store successfully");
+            } catch (IOException e) {
+                consoleMessage(ChatColor.RED + "[InteractiveChat] Unable to open local preference store!!!");
+                e.printStackTrace();
             }
-        }
-    }
-
-    private void open() {
-        if (isMYSQL) {
-            mysqlSetup(false);
+        } else if (isMYSQL) {
+            pool = new ConnectionPool(() -> mysqlConnect(), MYSQL_POOL_SIZE);
+            try {
+                withConnection(connection -> {
+                    consoleMessage(ChatColor.GREEN + "[InteractiveChat] MYSQL CONNECTED");
+                    return null;
+                });
+            } catch (SQLException e) {
+                consoleMessage(ChatColor.RED + "[InteractiveChat] MYSQL Failed to connect! (SQLException)");
+                e.printStackTrace();
+            }
+            createTable();
+            checkColumns();
+            migrateSchema();
         } else {
-            sqliteSetup(false);
+            pool = new ConnectionPool(() -> sqliteConnect(), 1);
+            try {
+                withConnection(connection -> {
+                    sqliteSetup(connection);
+                    consoleMessage(ChatColor.GREEN + "[InteractiveChat] Opened Sqlite database successfully");
+                    return null;
+                });
+            } catch (Exception e) {
+                consoleMessage(ChatColor.RED + "[InteractiveChat] Unable to connect to sqlite database!!!");
+                e.printStackTrace();
+            }
         }
     }
 
-    private void mysqlSetup(boolean echo) {
+    private Connection mysqlConnect() throws SQLException {
         try {
-            if (getConnection() != null && !getConnection().isClosed()) {
-                return;
-            }
-
             Class.forName("com.mysql.jdbc.Driver");
-            setConnection(DriverManager.getConnection("jdbc:mysql://" + host + ":" + port + "/" + database, username, password));
-
-            if (echo) {
-                consoleMessage(ChatColor.GREEN + "[InteractiveChat] MYSQL CONNECTED");
-            }
-        } catch (SQLException e) {
-            consoleMessage(ChatColor.RED + "[InteractiveChat] MYSQL Failed to connect! (SQLException)");
-            e.printStackTrace();
         } catch (ClassNotFoundException e) {
             consoleMessage(ChatColor.RED + "[InteractiveChat] MYSQL Failed to connect! (ClassNotFoundException)");
-            e.printStackTrace();
+            throw new SQLException(e);
         }
+        return DriverManager.getConnection("jdbc:mysql://" + host + ":" + port + "/" + database, username, password);
     }
 
-    private void sqliteSetup(boolean echo) {
+    private Connection sqliteConnect() throws SQLException {
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:plugins/" + dataFolder.getName() + "/database.db");
-            if (echo) {
-                consoleMessage(ChatColor.GREEN + "[InteractiveChat] Opened Sqlite database successfully");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException(e);
+        }
+        return DriverManager.getConnection("jdbc:sqlite:plugins/" + dataFolder.getName() + "/database.db");
+    }
+
+    /**
+     * Copies every player from the SQLite database into the local preference store, run once when the store is created.
+     * The SQLite database itself is left untouched.
+     */
+    /**
+     * Copies the players of database.db into the local store, keeping any player the store already has.
+     * database.db is renamed to database.db.imported once the import is durable, so an import that failed
+     * part way is simply retried on the next start.
+     */
+    private void importSqlite() throws IOException {
+        Map<UUID, LocalPreferenceStore.Preferences> imported = new HashMap<>();
+        try (Connection connection = sqliteConnect(); Statement statement = connection.createStatement(); ResultSet results = statement.executeQuery("SELECT UUID, NAME, DISABLED_MENTION, INV_DISPLAY_LAYOUT FROM " + table)) {
+            while (results.next()) {
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(results.getString("UUID"));
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    continue;
+                }
+                if (localStore.contains(uuid)) {
+                    continue;
+                }
+                PlayerData data = new PlayerData(this, uuid, "", false, InteractiveChat.invDisplayLayout);
+                applyRow(results, data);
+                imported.put(uuid, toPreferences(data));
             }
+        } catch (SQLException e) {
+            consoleMessage(ChatColor.RED + "[InteractiveChat] Unable to import from the sqlite database!!!");
+            e.printStackTrace();
+            return;
+        }
+        localStore.write(imported);
+        Files.move(new File(dataFolder, "database.db").toPath(), new File(dataFolder, "database.db.imported").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        consoleMessage(ChatColor.GREEN + "[InteractiveChat] Imported " + imported.size() + " players from the sqlite database");
+    }
 
-            Statement stmt = connection.createStatement();
-            String sql = "CREATE TABLE IF NOT EXISTS " + table + " " +
-                    "(UUID TEXT PRIMARY KEY, " +
-                    "NAME TEXT NOT NULL, " +
-                    "DISABLED_MENTION BOOLEAN);";
-            stmt.executeUpdate(sql);
+    private static LocalPreferenceStore.Preferences toPreferences(PlayerData data) {
+        return new LocalPreferenceStore.Preferences(data.getPlayerName(), data.isMentionDisabled(), data.getInventoryDisplayLayout());
+    }
+
+    private static void applyPreferences(LocalPreferenceStore.Preferences preferences, PlayerData data) {
+        data.setPlayerName(preferences.getPlayerName());
+        data.setMentionDisabled(preferences.isMentionDisabled());
+        data.setInventoryDisplayLayout(preferences.getInventoryDisplayLayout());
+    }
+
+    private void sqliteSetup(PooledConnection connection) throws SQLException {
+        try (Statement stmt = connection.getConnection().createStatement()) {
+            stmt.executeUpdate(schemaMigrator.getCreateTableStatement(table));
 
-            Statement statement = connection.createStatement();
             String query = "PRAGMA table_info(" + table + ");";
-            ResultSet result = statement.executeQuery(query);
+            ResultSet result = stmt.executeQuery(query);
             List<String> columns = new ArrayList<>();
             while (result.next()) {
                 columns.add(result.getString("name"));
@@ -158,165 +231,390 @@ public class Database {
                 String name = entry.getKey();
                 String type = entry.getValue();
                 if (!columns.contains(name)) {
-                    PreparedStatement alter = getConnection().prepareStatement("ALTER TABLE " + table + " ADD " + name + " " + type);
-                    alter.execute();
+                    stmt.execute("ALTER TABLE " + table + " ADD " + name + " " + type);
                 }
             }
+        }
+        schemaMigrator.migrate(connection.getConnection());
+    }
+
+    /**
+     * Runs the given function with a connection borrowed from the pool.
+     * A connection that failed with an SQLException is discarded instead of returned to the pool.
+     */
+    private <T> T withConnection(SQLFunction<T> function) throws SQLException {
+        PooledConnection connection = pool.borrow();
+        boolean failed = true;
+        try {
+            T result = function.apply(connection);
+            failed = false;
+            return result;
+        } finally {
+            if (failed) {
+                pool.discard(connection);
+            } else {
+                pool.release(connection);
+            }
+        }
+    }
 
-            stmt.close();
-        } catch (Exception e) {
-            consoleMessage(ChatColor.RED + "[InteractiveChat] Unable to connect to sqlite database!!!");
+    public void createTable() {
+        try {
+            withConnection(connection -> connection.prepare(schemaMigrator.getCreateTableStatement(table)).execute());
+        } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    public Connection getConnection() {
-        return connection;
+    public void checkColumns() {
+        try {
+            withConnection(connection -> {
+                try (Statement stmt = connection.getConnection().createStatement()) {
+                    for (Entry<String, String> entry : COLUMNS.entrySet()) {
+                        String name = entry.getKey();
+                        String type = entry.getValue();
+                        boolean exists;
+                        try (ResultSet results = stmt.executeQuery("SHOW COLUMNS FROM " + table + " LIKE '" + name + "'")) {
+                            exists = results.next();
+                        }
+                        if (!exists) {
+                            stmt.execute("ALTER TABLE " + table + " ADD " + name + " " + type);
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
-    public void setConnection(Connection connection) {
-        this.connection = connection;
+    public void migrateSchema() {
+        try {
+            withConnection(connection -> {
+                int from = schemaMigrator.migrate(connection.getConnection());
+                if (from < SchemaMigrator.LATEST_VERSION) {
+                    consoleMessage(ChatColor.GREEN + "[InteractiveChat] Migrated database schema from version " + from + " to " + SchemaMigrator.LATEST_VERSION);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
-    public void createTable() {
-        synchronized (this) {
-            open();
-            try {
-                PreparedStatement statement = getConnection().prepareStatement("CREATE TABLE IF NOT EXISTS " + table + " (UUID Text, NAME Text, DISABLED_MENTION Boolean, INV_DISPLAY_LAYOUT int)");
+    public boolean playerExists(UUID uuid) {
+        if (isLocal) {
+            return localStore.contains(uuid);
+        }
+        try {
+            return withConnection(connection -> {
+                PreparedStatement statement = connection.prepare("SELECT UUID FROM " + table + " WHERE UUID=?");
+                statement.setString(1, uuid.toString());
+                try (ResultSet results = statement.executeQuery()) {
+                    return results.next();
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
 
-                statement.execute();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+    public void createPlayer(UUID uuid, String name) {
+        if (isLocal) {
+            loadPlayer(uuid, name);
+            return;
+        }
+        try {
+            withConnection(connection -> insertPlayer(connection, uuid, name));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int insertPlayer(PooledConnection connection, UUID uuid, String name) throws SQLException {
+        PreparedStatement insert = prepareInsert(connection);
+        bindInsert(insert, uuid, name);
+        return insert.executeUpdate();
+    }
+
+    private PreparedStatement prepareInsert(PooledConnection connection) throws SQLException {
+        if (isMYSQL) {
+            return connection.prepare("INSERT INTO " + table + " (UUID,NAME,DISABLED_MENTION,INV_DISPLAY_LAYOUT) VALUES (?,?,?,?) ON DUPLICATE KEY UPDATE UUID=UUID");
+        } else {
+            return connection.prepare("INSERT OR IGNORE INTO " + table + " (UUID,NAME,DISABLED_MENTION,INV_DISPLAY_LAYOUT) VALUES (?,?,?,?)");
+        }
+    }
+
+    private void bindInsert(PreparedStatement insert, UUID uuid, String name) throws SQLException {
+        insert.setString(1, uuid.toString());
+        insert.setString(2, name);
+        insert.setBoolean(3, false);
+        insert.setInt(4, InteractiveChat.invDisplayLayout);
+    }
+
+    /**
+     * Loads the stored preferences of a player, creating the row with the defaults if there is none yet.
+     * A returning player costs a single lookup on one pooled connection.
+     */
+    public PlayerData loadPlayer(UUID uuid, String name) {
+        PlayerData data = loadPlayers(Collections.singletonMap(uuid, name)).get(uuid);
+        return data == null ? new PlayerData(this, uuid, name, false, InteractiveChat.invDisplayLayout) : data;
+    }
+
+    /**
+     * Loads the stored preferences of several players at once, creating the missing rows with the defaults.
+     * Lookups are combined into WHERE UUID IN (...) queries of up to {@link #LOAD_BATCH_SIZE} players, and the
+     * missing rows are inserted in one batch.
+     *
+     * Loads hold the flush lock, so a flush that has already taken a player's save off the queue is always
+     * written before that player is read back.
+     *
+     * @param players the names of the players to load, by uuid
+     * @return the loaded player data by uuid, players that failed to load are absent
+     */
+    public Map<UUID, PlayerData> loadPlayers(Map<UUID, String> players) {
+        if (players.isEmpty()) {
+            return new HashMap<>();
+        }
+        synchronized (flushLock) {
+            if (players.keySet().stream().anyMatch(uuid -> pendingSaves.containsKey(uuid))) {
+                flush();
             }
+            return readOrCreatePlayers(players);
         }
     }
 
-    public void checkColumns() {
-        synchronized (this) {
-            open();
-            try {
-                for (Entry<String, String> entry : COLUMNS.entrySet()) {
-                    String name = entry.getKey();
-                    String type = entry.getValue();
-                    PreparedStatement statement = getConnection().prepareStatement("SHOW COLUMNS FROM " + table + " LIKE '" + name + "'");
-                    ResultSet results = statement.executeQuery();
-                    if (!results.next()) {
-                        PreparedStatement alter = getConnection().prepareStatement("ALTER TABLE " + table + " ADD " + name + " " + type);
-                        alter.execute();
-                    }
+    private Map<UUID, PlayerData> readOrCreatePlayers(Map<UUID, String> players) {
+        Map<UUID, PlayerData> loaded = new HashMap<>();
+        List<UUID> uuids = new ArrayList<>(players.keySet());
+        if (isLocal) {
+            Map<UUID, LocalPreferenceStore.Preferences> missing = new HashMap<>();
+            for (UUID uuid : uuids) {
+                PlayerData data = new PlayerData(this, uuid, players.get(uuid), false, InteractiveChat.invDisplayLayout);
+                LocalPreferenceStore.Preferences preferences = localStore.get(uuid);
+                if (preferences == null) {
+                    missing.put(uuid, toPreferences(data));
+                } else {
+                    applyPreferences(preferences, data);
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
+                loaded.put(uuid, data);
             }
             try {
-                connection.close();
-            } catch (SQLException e) {
+                localStore.write(missing);
+            } catch (IOException e) {
                 e.printStackTrace();
             }
+            return loaded;
+        }
+        try {
+            withConnection(connection -> {
+                Map<UUID, PlayerData> found = new HashMap<>();
+                for (int i = 0; i < uuids.size(); i += LOAD_BATCH_SIZE) {
+                    readPlayers(connection, uuids.subList(i, Math.min(uuids.size(), i + LOAD_BATCH_SIZE)), players, found);
+                }
+                List<UUID> missing = new ArrayList<>();
+                for (UUID uuid : uuids) {
+                    if (!found.containsKey(uuid)) {
+                        missing.add(uuid);
+                    }
+                }
+                if (!missing.isEmpty()) {
+                    PreparedStatement insert = prepareInsert(connection);
+                    for (UUID uuid : missing) {
+                        bindInsert(insert, uuid, players.get(uuid));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    for (UUID uuid : missing) {
+                        found.put(uuid, new PlayerData(this, uuid, players.get(uuid), false, InteractiveChat.invDisplayLayout));
+                    }
+                }
+                loaded.putAll(found);
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
+        return loaded;
     }
 
-    public boolean playerExists(UUID uuid) {
-        synchronized (this) {
-            boolean exist = false;
-            open();
-            try {
-                PreparedStatement statement = getConnection().prepareStatement("SELECT * FROM " + table + " WHERE UUID=?");
-                statement.setString(1, uuid.toString());
-
-                ResultSet results = statement.executeQuery();
-                if (results.next()) {
-                    exist = true;
+    private void readPlayers(PooledConnection connection, List<UUID> uuids, Map<UUID, String> players, Map<UUID, PlayerData> found) throws SQLException {
+        //Placeholder counts are rounded up to a power of two so only a handful of statements end up cached
+        int slots = uuids.size() <= 1 ? 1 : Integer.highestOneBit(uuids.size() - 1) << 1;
+        PreparedStatement statement = connection.prepare("SELECT UUID, NAME, DISABLED_MENTION, INV_DISPLAY_LAYOUT FROM " + table + " WHERE UUID IN (" + String.join(",", Collections.nCopies(slots, "?")) + ")");
+        for (int i = 0; i < slots; i++) {
+            statement.setString(i + 1, uuids.get(Math.min(i, uuids.size() - 1)).toString());
+        }
+        try (ResultSet results = statement.executeQuery()) {
+            while (results.next()) {
+                UUID uuid = UUID.fromString(results.getString("UUID"));
+                if (players.containsKey(uuid) && !found.containsKey(uuid)) {
+                    PlayerData data = new PlayerData(this, uuid, players.get(uuid), false, InteractiveChat.invDisplayLayout);
+                    applyRow(results, data);
+                    found.put(uuid, data);
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
             }
+        }
+    }
+
+    /**
+     * Queues the player data to be written, repeated saves of the same player before the next flush are coalesced.
+     * <p>
+     * Reads on this server always see queued saves, but the write only reaches the database up to
+     * {@link #WRITE_BEHIND_DELAY} milliseconds later. Other servers sharing a MySQL database may therefore load
+     * the previous preferences of a player who changed them and switched servers within that window.
+     */
+    public void save(PlayerData data) {
+        pendingSaves.put(data.getUniqueId(), data);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
             try {
-                connection.close();
-            } catch (SQLException e) {
-                e.printStackTrace();
+                writeBehindExecutor.schedule(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                }, WRITE_BEHIND_DELAY, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                flushScheduled.set(false);
+                flush();
             }
-            return exist;
         }
     }
 
-    public void createPlayer(UUID uuid, String name) {
-        synchronized (this) {
-            open();
-            try {
-                PreparedStatement insert = getConnection().prepareStatement("INSERT INTO " + table + " (UUID,NAME,DISABLED_MENTION,INV_DISPLAY_LAYOUT) VALUES (?,?,?,?)");
-                insert.setString(1, uuid.toString());
-                insert.setString(2, name);
-                insert.setBoolean(3, false);
-                insert.setInt(4, InteractiveChat.invDisplayLayout);
-                insert.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
+    private void flushIfPending(UUID uuid) {
+        if (pendingSaves.containsKey(uuid)) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes every queued save in a single JDBC batch.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<PlayerData> batch = new ArrayList<>();
+            for (UUID uuid : new ArrayList<>(pendingSaves.keySet())) {
+                PlayerData data = pendingSaves.remove(uuid);
+                if (data != null) {
+                    batch.add(data);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
             }
             try {
-                connection.close();
-            } catch (SQLException e) {
+                if (isLocal) {
+                    Map<UUID, LocalPreferenceStore.Preferences> entries = new HashMap<>();
+                    for (PlayerData data : batch) {
+                        entries.put(data.getUniqueId(), toPreferences(data));
+                    }
+                    localStore.write(entries);
+                    return;
+                }
+                withConnection(connection -> {
+                    Connection jdbcConnection = connection.getConnection();
+                    boolean autoCommit = jdbcConnection.getAutoCommit();
+                    jdbcConnection.setAutoCommit(false);
+                    try {
+                        PreparedStatement statement = connection.prepare("UPDATE " + table + " SET NAME=?, DISABLED_MENTION=?, INV_DISPLAY_LAYOUT=? WHERE UUID=?");
+                        for (PlayerData data : batch) {
+                            statement.setString(1, data.getPlayerName());
+                            statement.setBoolean(2, data.isMentionDisabled());
+                            statement.setInt(3, data.getInventoryDisplayLayout());
+                            statement.setString(4, data.getUniqueId().toString());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                        jdbcConnection.commit();
+                    } catch (SQLException e) {
+                        jdbcConnection.rollback();
+                        throw e;
+                    } finally {
+                        jdbcConnection.setAutoCommit(autoCommit);
+                    }
+                    return null;
+                });
+            } catch (SQLException | IOException e) {
                 e.printStackTrace();
+                for (PlayerData data : batch) {
+                    pendingSaves.putIfAbsent(data.getUniqueId(), data);
+                }
+                if (!writeBehindExecutor.isShutdown()) {
+                    scheduleFlush();
+                }
             }
         }
     }
 
-    public void save(PlayerData data) {
-        synchronized (this) {
-            open();
-            try {
-                PreparedStatement statement = getConnection().prepareStatement("UPDATE " + table + " SET NAME=?, DISABLED_MENTION=?, INV_DISPLAY_LAYOUT=? WHERE UUID=?");
-                statement.setString(1, data.getPlayerName());
-                statement.setBoolean(2, data.isMentionDisabled());
-                statement.setInt(3, data.getInventoryDisplayLayout());
-                statement.setString(4, data.getUniqueId().toString());
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
+    public PlayerData getPlayerInfo(PlayerData data) {
+        synchronized (flushLock) {
+            flushIfPending(data.getUniqueId());
+            if (isLocal) {
+                LocalPreferenceStore.Preferences preferences = localStore.get(data.getUniqueId());
+                if (preferences != null) {
+                    applyPreferences(preferences, data);
+                }
+                return data;
             }
             try {
-                connection.close();
+                withConnection(connection -> readPlayer(connection, data));
             } catch (SQLException e) {
                 e.printStackTrace();
             }
+            return data;
         }
     }
 
-    public PlayerData getPlayerInfo(PlayerData data) {
-        synchronized (this) {
-            open();
-            try {
-                PreparedStatement statement = getConnection().prepareStatement("SELECT * FROM " + table + " WHERE UUID=?");
-                statement.setString(1, data.getUniqueId().toString());
-                ResultSet results = statement.executeQuery();
-                results.next();
-
-                String displayName = results.getString("NAME");
-                Boolean disableMention = results.getBoolean("DISABLED_MENTION");
-                Integer invDisplayLayout = results.getInt("INV_DISPLAY_LAYOUT");
-
-                data.setPlayerName(displayName == null ? "" : displayName);
-                data.setMentionDisabled(disableMention != null && disableMention);
-                data.setInventoryDisplayLayout(invDisplayLayout == null ? InteractiveChat.invDisplayLayout : invDisplayLayout);
-            } catch (SQLException e) {
-                e.printStackTrace();
+    private boolean readPlayer(PooledConnection connection, PlayerData data) throws SQLException {
+        PreparedStatement statement = connection.prepare("SELECT NAME, DISABLED_MENTION, INV_DISPLAY_LAYOUT FROM " + table + " WHERE UUID=?");
+        statement.setString(1, data.getUniqueId().toString());
+        try (ResultSet results = statement.executeQuery()) {
+            if (!results.next()) {
+                return false;
             }
+            applyRow(results, data);
+            return true;
+        }
+    }
+
+    private void applyRow(ResultSet results, PlayerData data) throws SQLException {
+        String displayName = results.getString("NAME");
+        boolean disableMention = results.getBoolean("DISABLED_MENTION");
+        int invDisplayLayout = results.getInt("INV_DISPLAY_LAYOUT");
+
+        data.setPlayerName(displayName == null ? "" : displayName);
+        data.setMentionDisabled(disableMention);
+        data.setInventoryDisplayLayout(results.wasNull() ? InteractiveChat.invDisplayLayout : invDisplayLayout);
+    }
+
+    public PlayerData getPlayerInfo(UUID uuid) {
+        return getPlayerInfo(new PlayerData(this, uuid, "", false, 0));
+    }
+
+    public void close() {
+        writeBehindExecutor.shutdown();
+        flush();
+        if (pool != null) {
+            pool.close();
+        }
+        if (localStore != null) {
             try {
-                connection.close();
-            } catch (SQLException e) {
+                localStore.close();
+            } catch (IOException e) {
                 e.printStackTrace();
             }
         }
-        return data;
     }
 
-    public PlayerData getPlayerInfo(UUID uuid) {
-        return getPlayerInfo(new PlayerData(this, uuid, "", false, 0));
+    @FunctionalInterface
+    private interface SQLFunction<T> {
+
+        T apply(PooledConnection connection) throws SQLException;
+
     }
 
 }
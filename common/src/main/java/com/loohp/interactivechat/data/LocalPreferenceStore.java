@@ -0,0 +1,281 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.data;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps player preferences in memory, persisted as an append-only log of checksummed records.
+ * A record replaces any earlier record of the same player, and the log is rewritten with only the latest records
+ * once it holds {@link #COMPACTION_RATIO} times as many records as there are players.
+ * A record that was only partially written when the server stopped is dropped on the next open.
+ */
+public class LocalPreferenceStore implements AutoCloseable {
+
+    public static final int MAGIC = 0x49435046;
+    public static final int FORMAT_VERSION = 1;
+    public static final int COMPACTION_MINIMUM_RECORDS = 1024;
+    public static final int COMPACTION_RATIO = 4;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAXIMUM_RECORD_SIZE = 65536;
+
+    private final File file;
+    private final Map<UUID, Preferences> preferences;
+    private FileChannel channel;
+    private int records;
+    private boolean created;
+
+    public LocalPreferenceStore(File file) {
+        this.file = file;
+        this.preferences = new ConcurrentHashMap<>();
+        this.records = 0;
+        this.created = false;
+    }
+
+    public synchronized void open() throws IOException {
+        created = !file.exists();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            channel.truncate(0);
+            writeFully(channel, header());
+            channel.force(false);
+        } else {
+            load();
+        }
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    private void load() throws IOException {
+        long validEnd = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file.getName() + " is not an InteractiveChat preference store");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(file.getName() + " has unsupported format version " + version);
+            }
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAXIMUM_RECORD_SIZE) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                ByteArrayDataInput input = ByteStreams.newDataInput(payload);
+                UUID uuid = new UUID(input.readLong(), input.readLong());
+                preferences.put(uuid, Preferences.read(input));
+                records++;
+                validEnd += 8 + payload.length;
+            }
+        }
+        if (validEnd < channel.size()) {
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+    }
+
+    /**
+     * Whether the store file did not exist before it was opened.
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    public int size() {
+        return preferences.size();
+    }
+
+    public boolean contains(UUID uuid) {
+        return preferences.containsKey(uuid);
+    }
+
+    public Preferences get(UUID uuid) {
+        return preferences.get(uuid);
+    }
+
+    /**
+     * Appends the given preferences with a single write and sync, and makes them visible once they are durable.
+     * If the write fails, the log is truncated back to where it ended before, so no partial batch is left behind.
+     */
+    public synchronized void write(Map<UUID, Preferences> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (channel == null || !channel.isOpen()) {
+            throw new IOException(file.getName() + " is not open");
+        }
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        for (Entry<UUID, Preferences> entry : entries.entrySet()) {
+            writeRecord(out, entry.getKey(), entry.getValue());
+        }
+        long position = channel.position();
+        try {
+            writeFully(channel, out.toByteArray());
+            channel.force(false);
+        } catch (IOException e) {
+            try {
+                channel.truncate(position);
+                channel.position(position);
+            } catch (IOException truncateException) {
+                e.addSuppressed(truncateException);
+            }
+            throw e;
+        }
+        preferences.putAll(entries);
+        records += entries.size();
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    private boolean needsCompaction() {
+        return records >= COMPACTION_MINIMUM_RECORDS && records >= preferences.size() * COMPACTION_RATIO;
+    }
+
+    /**
+     * Rewrites the log with only the latest record of each player, replacing the old log atomically.
+     */
+    public synchronized void compact() throws IOException {
+        File compacting = new File(file.getParentFile(), file.getName() + ".compact");
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.write(header());
+        for (Entry<UUID, Preferences> entry : preferences.entrySet()) {
+            writeRecord(out, entry.getKey(), entry.getValue());
+        }
+        try (FileChannel compacted = FileChannel.open(compacting.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(compacted, out.toByteArray());
+            compacted.force(true);
+        }
+        channel.close();
+        Files.move(compacting.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = preferences.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    private static byte[] header() {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput(HEADER_SIZE);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        return out.toByteArray();
+    }
+
+    private static void writeRecord(ByteArrayDataOutput out, UUID uuid, Preferences preferences) {
+        ByteArrayDataOutput payload = ByteStreams.newDataOutput();
+        payload.writeLong(uuid.getMostSignificantBits());
+        payload.writeLong(uuid.getLeastSignificantBits());
+        preferences.write(payload);
+        byte[] bytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public static class Preferences {
+
+        private static Preferences read(ByteArrayDataInput input) {
+            String playerName = input.readUTF();
+            boolean mentionDisabled = input.readBoolean();
+            int inventoryDisplayLayout = input.readInt();
+            return new Preferences(playerName, mentionDisabled, inventoryDisplayLayout);
+        }
+
+        private final String playerName;
+        private final boolean mentionDisabled;
+        private final int inventoryDisplayLayout;
+
+        public Preferences(String playerName, boolean mentionDisabled, int inventoryDisplayLayout) {
+            this.playerName = playerName;
+            this.mentionDisabled = mentionDisabled;
+            this.inventoryDisplayLayout = inventoryDisplayLayout;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public boolean isMentionDisabled() {
+            return mentionDisabled;
+        }
+
+        public int getInventoryDisplayLayout() {
+            return inventoryDisplayLayout;
+        }
+
+        private void write(ByteArrayDataOutput out) {
+            out.writeUTF(playerName);
+            out.writeBoolean(mentionDisabled);
+            out.writeInt(inventoryDisplayLayout);
+        }
+
+    }
+
+}
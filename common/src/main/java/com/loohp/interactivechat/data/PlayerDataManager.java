@@ -24,20 +24,33 @@ import com.loohp.interactivechat.InteractiveChat;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class PlayerDataManager implements Listener {
 
+    public static final long PREFETCH_BATCH_DELAY = 1;
+    public static final long STAGING_EXPIRY = 600;
+
     private final InteractiveChat plugin;
     private final Database database;
     private final Map<UUID, PlayerData> data = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<PlayerData>> staged = new ConcurrentHashMap<>();
+    private final Map<UUID, String> prefetchQueue = new ConcurrentHashMap<>();
+    private final AtomicBoolean prefetchScheduled = new AtomicBoolean();
 
     public PlayerDataManager(InteractiveChat plugin, Database database) {
         this.plugin = plugin;
@@ -63,27 +76,90 @@ public class PlayerDataManager implements Listener {
         }
     }
 
+    /**
+     * Starts loading the data of a player into the staging cache, where it is picked up when the player joins.
+     * Prefetches requested within {@link #PREFETCH_BATCH_DELAY} ticks of each other are loaded in one batch,
+     * and staged data that is not picked up is dropped after {@link #STAGING_EXPIRY} ticks.
+     */
+    public CompletableFuture<PlayerData> prefetch(UUID uuid, String name) {
+        CompletableFuture<PlayerData> future = new CompletableFuture<>();
+        CompletableFuture<PlayerData> existing = staged.putIfAbsent(uuid, future);
+        if (existing != null) {
+            return existing;
+        }
+        prefetchQueue.put(uuid, name);
+        if (prefetchScheduled.compareAndSet(false, true)) {
+            FoliaUtil.scheduler.runTaskLaterAsynchronously(() -> loadPrefetchQueue(), PREFETCH_BATCH_DELAY);
+        }
+        FoliaUtil.scheduler.runTaskLaterAsynchronously(() -> staged.remove(uuid, future), STAGING_EXPIRY);
+        return future;
+    }
+
+    private void loadPrefetchQueue() {
+        prefetchScheduled.set(false);
+        Map<UUID, String> batch = new HashMap<>();
+        for (UUID uuid : new ArrayList<>(prefetchQueue.keySet())) {
+            String name = prefetchQueue.remove(uuid);
+            if (name != null) {
+                batch.put(uuid, name);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<UUID, PlayerData> loaded;
+        try {
+            loaded = database.loadPlayers(batch);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            loaded = Collections.emptyMap();
+        }
+        for (UUID uuid : batch.keySet()) {
+            CompletableFuture<PlayerData> future = staged.get(uuid);
+            if (future != null) {
+                future.complete(loaded.get(uuid));
+            }
+        }
+    }
+
     //===============
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult().equals(AsyncPlayerPreLoginEvent.Result.ALLOWED)) {
+            prefetch(event.getUniqueId(), event.getName());
+        }
+    }
+
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         UUID playerUUID = player.getUniqueId();
 
-        FoliaUtil.scheduler.runTaskAsynchronously(() -> {
-            if (!database.playerExists(playerUUID)) {
-                database.createPlayer(playerUUID, player.getName());
+        CompletableFuture<PlayerData> future = prefetch(playerUUID, player.getName());
+        future.thenAccept(pd -> {
+            staged.remove(playerUUID, future);
+            if (pd != null) {
+                if (player.isOnline()) {
+                    data.put(playerUUID, pd);
+                }
+            } else {
+                FoliaUtil.scheduler.runTaskAsynchronously(() -> {
+                    PlayerData loaded = database.loadPlayer(playerUUID, player.getName());
+                    if (player.isOnline()) {
+                        data.put(playerUUID, loaded);
+                    }
+                });
             }
-            PlayerData pd = database.getPlayerInfo(playerUUID);
-            data.put(playerUUID, pd);
         });
     }
 
     @EventHandler
     public void onLeave(PlayerQuitEvent event) {
+        staged.remove(event.getPlayer().getUniqueId());
         PlayerData pd = data.remove(event.getPlayer().getUniqueId());
         if (pd != null) {
-            FoliaUtil.scheduler.runTaskAsynchronously(() -> pd.save());
+            pd.save();
         }
     }
 
@@ -0,0 +1,224 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Brings the user preferences table up to the latest schema version.
+ * The version of each table is recorded in a separate table, and every migration step is written so that
+ * re-running it against an already migrated table does nothing. On MySQL, servers sharing the database
+ * migrate one at a time under a named lock and re-check the version once they hold it.
+ */
+public class SchemaMigrator {
+
+    public static final String VERSION_TABLE = "InteractiveChat_SCHEMA_VERSION";
+    public static final int LATEST_VERSION = 1;
+    public static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private final String table;
+    private final boolean mysql;
+
+    public SchemaMigrator(String table, boolean mysql) {
+        this.table = table;
+        this.mysql = mysql;
+    }
+
+    public String getNameIndex() {
+        return "IDX_" + table + "_NAME";
+    }
+
+    /**
+     * The statement creating the table at the latest schema version.
+     */
+    public String getCreateTableStatement(String table) {
+        if (mysql) {
+            return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                    "UUID CHAR(36) NOT NULL, " +
+                    "NAME VARCHAR(64) NOT NULL DEFAULT '', " +
+                    "DISABLED_MENTION BOOLEAN, " +
+                    "INV_DISPLAY_LAYOUT INT, " +
+                    "PRIMARY KEY (UUID), " +
+                    "INDEX " + getNameIndex() + " (NAME))";
+        } else {
+            return "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                    "UUID TEXT NOT NULL PRIMARY KEY, " +
+                    "NAME TEXT NOT NULL DEFAULT '', " +
+                    "DISABLED_MENTION BOOLEAN, " +
+                    "INV_DISPLAY_LAYOUT int)";
+        }
+    }
+
+    /**
+     * Migrates the table to {@link #LATEST_VERSION}.
+     *
+     * @return the version the table was at before migrating
+     */
+    public int migrate(Connection connection) throws SQLException {
+        int version = getVersion(connection);
+        if (version >= LATEST_VERSION) {
+            return version;
+        }
+        if (!mysql) {
+            migrateFrom(connection, version);
+            return version;
+        }
+        acquireLock(connection);
+        try {
+            migrateFrom(connection, getVersion(connection));
+        } finally {
+            releaseLock(connection);
+        }
+        return version;
+    }
+
+    private void migrateFrom(Connection connection, int version) throws SQLException {
+        if (version < 1) {
+            migrateToKeyedTable(connection);
+            setVersion(connection, 1);
+        }
+    }
+
+    private String getLockName() {
+        return "InteractiveChat_MIGRATE_" + table;
+    }
+
+    private void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, getLockName());
+            statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet results = statement.executeQuery()) {
+                if (!results.next() || results.getInt(1) != 1) {
+                    throw new SQLException("Unable to acquire the schema migration lock for " + table + " within " + LOCK_TIMEOUT_SECONDS + " seconds");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, getLockName());
+            statement.executeQuery().close();
+        }
+    }
+
+    private int getVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE + " (TABLE_NAME VARCHAR(64) NOT NULL PRIMARY KEY, VERSION INT NOT NULL)");
+        }
+        try (PreparedStatement statement = connection.prepareStatement("SELECT VERSION FROM " + VERSION_TABLE + " WHERE TABLE_NAME=?")) {
+            statement.setString(1, table);
+            try (ResultSet results = statement.executeQuery()) {
+                return results.next() ? results.getInt("VERSION") : 0;
+            }
+        }
+    }
+
+    private void setVersion(Connection connection, int version) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("REPLACE INTO " + VERSION_TABLE + " (TABLE_NAME, VERSION) VALUES (?, ?)")) {
+            statement.setString(1, table);
+            statement.setInt(2, version);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Version 1: UUID becomes the primary key and NAME is indexed.
+     * Tables without a primary key are copied into a keyed table, which is then swapped in under the original name.
+     * Rows sharing a UUID collapse into the first one found.
+     */
+    private void migrateToKeyedTable(Connection connection) throws SQLException {
+        if (!hasUuidPrimaryKey(connection)) {
+            String migrating = table + "_MIGRATING";
+            String columns = "UUID, NAME, DISABLED_MENTION, INV_DISPLAY_LAYOUT";
+            String select = "SELECT UUID, COALESCE(NAME, ''), DISABLED_MENTION, INV_DISPLAY_LAYOUT FROM " + table + " WHERE UUID IS NOT NULL";
+            boolean autoCommit = connection.getAutoCommit();
+            try (Statement statement = connection.createStatement()) {
+                if (mysql) {
+                    statement.execute("DROP TABLE IF EXISTS " + migrating);
+                    statement.execute(getCreateTableStatement(migrating).replace(getNameIndex(), "IDX_" + migrating + "_NAME"));
+                    statement.execute("INSERT IGNORE INTO " + migrating + " (" + columns + ") " + select);
+                    statement.execute("RENAME TABLE " + table + " TO " + table + "_LEGACY, " + migrating + " TO " + table);
+                    statement.execute("DROP TABLE " + table + "_LEGACY");
+                } else {
+                    connection.setAutoCommit(false);
+                    try {
+                        statement.execute("DROP TABLE IF EXISTS " + migrating);
+                        statement.execute(getCreateTableStatement(migrating));
+                        statement.execute("INSERT OR IGNORE INTO " + migrating + " (" + columns + ") " + select);
+                        statement.execute("DROP TABLE " + table);
+                        statement.execute("ALTER TABLE " + migrating + " RENAME TO " + table);
+                        connection.commit();
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        createNameIndex(connection);
+    }
+
+    private boolean hasUuidPrimaryKey(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (mysql) {
+                try (ResultSet results = statement.executeQuery("SHOW KEYS FROM " + table + " WHERE Key_name = 'PRIMARY'")) {
+                    while (results.next()) {
+                        if (results.getString("Column_name").equalsIgnoreCase("UUID")) {
+                            return true;
+                        }
+                    }
+                }
+            } else {
+                try (ResultSet results = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+                    while (results.next()) {
+                        if (results.getString("name").equalsIgnoreCase("UUID") && results.getInt("pk") > 0) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void createNameIndex(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (mysql) {
+                try (ResultSet results = statement.executeQuery("SHOW INDEX FROM " + table + " WHERE Column_name = 'NAME'")) {
+                    if (results.next()) {
+                        return;
+                    }
+                }
+                statement.execute("CREATE INDEX " + getNameIndex() + " ON " + table + " (NAME(32))");
+            } else {
+                statement.execute("CREATE INDEX IF NOT EXISTS " + getNameIndex() + " ON " + table + " (NAME)");
+            }
+        }
+    }
+
+}
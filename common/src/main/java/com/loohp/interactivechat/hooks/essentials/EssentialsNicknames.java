@@ -65,13 +65,24 @@ public class EssentialsNicknames implements Listener {
     }
 
     public static void loadNicks(Player player) {
-        if (essen.getUser(player.getUniqueId()).getNickname() != null && !essen.getUser(player.getUniqueId())
-                                                                               .getNickname()
-                                                                               .equals("")) {
-            String essentialsNick = essen.getUser(player.getUniqueId()).getNickname();
+        String essentialsNick = essen.getUser(player.getUniqueId()).getNickname();
+        setNick(player.getUniqueId(), essentialsNick);
+    }
+
+    private static void setNick(UUID uuid, String essentialsNick) {
+        if (essentialsNick == null || essentialsNick.isEmpty()) {
+            if (ESSENTIALS_NICK.remove(uuid) == null) {
+                return;
+            }
+        } else {
             List<String> names = new ArrayList<>();
             names.add(prefix + essentialsNick);
-            ESSENTIALS_NICK.put(player.getUniqueId(), names);
+            if (names.equals(ESSENTIALS_NICK.put(uuid, names))) {
+                return;
+            }
+        }
+        if (InteractiveChat.nicknameManager != null) {
+            InteractiveChat.nicknameManager.refresh(uuid);
         }
     }
 
@@ -89,9 +100,7 @@ public class EssentialsNicknames implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onEssentialsNickChange(NickChangeEvent event) {
         try {
-            List<String> names = new ArrayList<>();
-            names.add(prefix + event.getValue());
-            ESSENTIALS_NICK.put(event.getController().getBase().getUniqueId(), names);
+            setNick(event.getAffected().getBase().getUniqueId(), event.getValue());
         } catch (Exception ignore) {
         }
     }
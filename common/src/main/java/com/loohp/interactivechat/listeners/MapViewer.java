@@ -22,7 +22,10 @@ package com.loohp.interactivechat.listeners;
 
 import com.loohp.interactivechat.InteractiveChat;
 import com.loohp.interactivechat.nms.NMS;
+import com.loohp.interactivechat.objectholders.ValuePairs;
 import com.loohp.interactivechat.utils.FilledMapUtils;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import org.bukkit.GameMode;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
@@ -42,9 +45,10 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.map.MapCursor;
 import org.bukkit.map.MapView;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
-import org.tjdev.util.tjpluginutil.spigot.scheduler.universalscheduler.UniversalRunnable;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -53,7 +57,12 @@ public class MapViewer implements Listener {
 
     public static final Map<Player, ItemStack> MAP_VIEWERS = new ConcurrentHashMap<>();
 
-    @SuppressWarnings("deprecation")
+    public static final int STATIC_MAP_FRAMES = 20;
+    public static final int STATIC_MAP_REFRESH_INTERVAL = 10;
+
+    private static final int MAP_SIZE = 128;
+    private static final Map<Integer, MapRenderSession> RENDER_SESSIONS = new ConcurrentHashMap<>();
+
     public static void showMap(Player player, ItemStack item) {
         if (!FilledMapUtils.isFilledMap(item)) {
             throw new IllegalArgumentException("ItemStack is not a filled map");
@@ -67,29 +76,9 @@ public class MapViewer implements Listener {
 
             MAP_VIEWERS.put(player, item);
 
-            new UniversalRunnable() {
-                @Override
-                public void run() {
-                    ItemStack itemStack = MAP_VIEWERS.get(player);
-                    if (itemStack != null && itemStack.equals(item)) {
-                        if (!player.getInventory().containsAtLeast(itemStack, 1)) {
-                            byte[] colors = FilledMapUtils.getColors(mapView, player);
-                            List<MapCursor> mapCursors = FilledMapUtils.getCursors(mapView, player);
-                            Iterator<MapCursor> itr = mapCursors.iterator();
-                            while (itr.hasNext()) {
-                                MapCursor mapCursor = itr.next();
-                                int type = mapCursor.getRawType();
-                                if (type == 0 || type == 6 || type == 7) {
-                                    itr.remove();
-                                }
-                            }
-                            NMS.getInstance().sendFakeMapUpdate(player, mapId, mapCursors, colors);
-                        }
-                    } else {
-                        this.cancel();
-                    }
-                }
-            }.runTaskTimer(InteractiveChat.plugin, 0, 1);
+            while (!RENDER_SESSIONS.computeIfAbsent(mapId, k -> new MapRenderSession(mapId, mapView)).addViewer(player, item)) {
+                Thread.yield();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -217,4 +206,185 @@ public class MapViewer implements Listener {
         MAP_VIEWERS.remove(event.getPlayer());
     }
 
+    /**
+     * Renders one map for everyone previewing it.
+     * A non-contextual map is rendered once per tick and shared by all of its viewers, every viewer is only sent the
+     * rectangle that changed since the last frame they received, and maps that stay unchanged are refreshed less often.
+     */
+    private static class MapRenderSession {
+
+        private final int mapId;
+        private final MapView mapView;
+        private final Map<Player, MapViewerState> viewers;
+        private int unchangedFrames;
+        private int ticksUntilRender;
+        private boolean closed;
+
+        public MapRenderSession(int mapId, MapView mapView) {
+            this.mapId = mapId;
+            this.mapView = mapView;
+            this.viewers = new LinkedHashMap<>();
+            this.unchangedFrames = 0;
+            this.ticksUntilRender = 0;
+            this.closed = false;
+
+            HousekeepingScheduler.schedule("map-preview-render", Execution.GLOBAL, 1, 1, job -> {
+                if (!tick()) {
+                    job.cancel();
+                }
+            });
+        }
+
+        public synchronized boolean addViewer(Player player, ItemStack item) {
+            if (closed) {
+                return false;
+            }
+            viewers.put(player, new MapViewerState(item));
+            unchangedFrames = 0;
+            ticksUntilRender = 0;
+            return true;
+        }
+
+        @SuppressWarnings("deprecation")
+        private synchronized boolean tick() {
+            viewers.entrySet().removeIf(entry -> {
+                ItemStack itemStack = MAP_VIEWERS.get(entry.getKey());
+                return itemStack == null || !itemStack.equals(entry.getValue().getItem());
+            });
+            if (viewers.isEmpty()) {
+                closed = true;
+                RENDER_SESSIONS.remove(mapId, this);
+                return false;
+            }
+            if (ticksUntilRender > 0) {
+                ticksUntilRender--;
+                return true;
+            }
+            boolean contextual = NMS.getInstance().isContextual(mapView);
+            boolean changed = false;
+            MapFrame sharedFrame = null;
+            for (Map.Entry<Player, MapViewerState> entry : viewers.entrySet()) {
+                Player player = entry.getKey();
+                MapViewerState state = entry.getValue();
+                if (player.getInventory().containsAtLeast(state.getItem(), 1)) {
+                    continue;
+                }
+                MapFrame frame;
+                if (contextual) {
+                    frame = MapFrame.render(mapView, player);
+                } else {
+                    if (sharedFrame == null) {
+                        sharedFrame = MapFrame.render(mapView, player);
+                    }
+                    frame = sharedFrame;
+                }
+                changed |= state.update(player, mapId, frame);
+            }
+            if (changed) {
+                unchangedFrames = 0;
+            } else if (++unchangedFrames >= STATIC_MAP_FRAMES) {
+                ticksUntilRender = STATIC_MAP_REFRESH_INTERVAL - 1;
+            }
+            return true;
+        }
+
+    }
+
+    private static class MapFrame {
+
+        @SuppressWarnings("deprecation")
+        public static MapFrame render(MapView mapView, Player player) {
+            ValuePairs<byte[], List<MapCursor>> rendered = NMS.getInstance().renderMap(mapView, player);
+            List<MapCursor> cursors = new ArrayList<>();
+            List<List<Object>> cursorKeys = new ArrayList<>();
+            for (MapCursor mapCursor : rendered.getSecond()) {
+                int type = mapCursor.getRawType();
+                if (type != 0 && type != 6 && type != 7) {
+                    cursors.add(mapCursor);
+                    cursorKeys.add(Arrays.asList(mapCursor.getX(), mapCursor.getY(), mapCursor.getDirection(), type, mapCursor.isVisible(), mapCursor.getCaption()));
+                }
+            }
+            return new MapFrame(rendered.getFirst().clone(), cursors, cursorKeys);
+        }
+
+        private final byte[] colors;
+        private final List<MapCursor> cursors;
+        private final List<List<Object>> cursorKeys;
+
+        private MapFrame(byte[] colors, List<MapCursor> cursors, List<List<Object>> cursorKeys) {
+            this.colors = colors;
+            this.cursors = cursors;
+            this.cursorKeys = cursorKeys;
+        }
+
+    }
+
+    private static class MapViewerState {
+
+        private final ItemStack item;
+        private byte[] lastColors;
+        private List<List<Object>> lastCursorKeys;
+
+        public MapViewerState(ItemStack item) {
+            this.item = item;
+            this.lastColors = null;
+            this.lastCursorKeys = null;
+        }
+
+        public ItemStack getItem() {
+            return item;
+        }
+
+        /**
+         * Sends the part of the frame that differs from the last frame this viewer received.
+         *
+         * @return whether anything was sent
+         */
+        public boolean update(Player player, int mapId, MapFrame frame) {
+            byte[] colors = frame.colors;
+            int minX = MAP_SIZE;
+            int minY = MAP_SIZE;
+            int maxX = -1;
+            int maxY = -1;
+            if (lastColors == null || lastColors.length != colors.length) {
+                minX = 0;
+                minY = 0;
+                maxX = MAP_SIZE - 1;
+                maxY = MAP_SIZE - 1;
+            } else if (lastColors != colors) {
+                for (int y = 0; y < MAP_SIZE; y++) {
+                    int row = y * MAP_SIZE;
+                    for (int x = 0; x < MAP_SIZE; x++) {
+                        if (colors[row + x] != lastColors[row + x]) {
+                            minX = Math.min(minX, x);
+                            maxX = Math.max(maxX, x);
+                            minY = Math.min(minY, y);
+                            maxY = y;
+                        }
+                    }
+                }
+            }
+            boolean cursorsChanged = !frame.cursorKeys.equals(lastCursorKeys);
+            if (maxX < 0 && !cursorsChanged) {
+                return false;
+            }
+            byte[] patch = null;
+            int width = 0;
+            int height = 0;
+            if (maxX >= 0) {
+                width = maxX - minX + 1;
+                height = maxY - minY + 1;
+                patch = new byte[width * height];
+                for (int row = 0; row < height; row++) {
+                    System.arraycopy(colors, (minY + row) * MAP_SIZE + minX, patch, row * width, width);
+                }
+            }
+            NMS.getInstance().sendFakeMapUpdate(player, mapId, cursorsChanged ? frame.cursors : null, patch, minX, minY, width, height);
+            lastColors = colors;
+            lastCursorKeys = frame.cursorKeys;
+            return true;
+        }
+
+    }
+
 }
@@ -21,7 +21,10 @@
 package com.loohp.interactivechat.listeners;
 
 import com.loohp.interactivechat.InteractiveChat;
+import com.loohp.interactivechat.api.events.ICPlayerJoinEvent;
+import com.loohp.interactivechat.api.events.ICPlayerQuitEvent;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 
@@ -32,4 +35,18 @@ public class PlayerEvents implements Listener {
         InteractiveChat.signedMessageModificationData.remove(event.getPlayer().getUniqueId());
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onICPlayerJoin(ICPlayerJoinEvent event) {
+        if (!event.isRemote() && InteractiveChat.nicknameManager != null) {
+            InteractiveChat.nicknameManager.refresh(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onICPlayerQuit(ICPlayerQuitEvent event) {
+        if (!event.isRemote() && InteractiveChat.nicknameManager != null) {
+            InteractiveChat.nicknameManager.forget(event.getPlayer().getUniqueId());
+        }
+    }
+
 }
@@ -6,6 +6,8 @@ import com.loohp.interactivechat.objectholders.ICPlayer;
 import com.loohp.interactivechat.objectholders.ICPlayerFactory;
 import com.loohp.interactivechat.utils.ChatColorUtils;
 import com.loohp.interactivechat.utils.ComponentStyling;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import com.loohp.interactivechat.utils.PlaceholderParser;
 import com.loohp.interactivechat.utils.PlayerUtils;
 import net.kyori.adventure.text.Component;
@@ -17,6 +19,7 @@ import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
@@ -30,7 +33,7 @@ public class OutTabCompletePacketHandler {
     }
 
     private static void schedulePlayerNamesUpdate() {
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("tab-complete-name-index", Execution.ASYNC, 0, 100, () -> {
             if (InteractiveChat.useTooltipOnTab) {
                 Map<String, UUID> names = new HashMap<>();
                 for (ICPlayer player : ICPlayerFactory.getOnlineICPlayers()) {
@@ -38,27 +41,23 @@ public class OutTabCompletePacketHandler {
                 }
                 FoliaUtil.scheduler.runTask(() -> playerNames.set(names));
             }
-        }, 0, 100);
+        });
     }
 
     private static void addPlayerNames(Map<String, UUID> playernames, ICPlayer player) {
-        playernames.put(ChatColorUtils.stripColor(player.getName()), player.getUniqueId());
+        playernames.put(ChatColorUtils.stripColor(player.getName()).toLowerCase(Locale.ROOT), player.getUniqueId());
         if (!player.getName().equals(player.getDisplayName())) {
-            playernames.put(ChatColorUtils.stripColor(player.getDisplayName()), player.getUniqueId());
+            playernames.put(ChatColorUtils.stripColor(player.getDisplayName()).toLowerCase(Locale.ROOT), player.getUniqueId());
         }
         List<String> names = InteractiveChatAPI.getNicknames(player.getUniqueId());
         for (String name : names) {
-            playernames.put(ChatColorUtils.stripColor(name), player.getUniqueId());
+            playernames.put(ChatColorUtils.stripColor(name).toLowerCase(Locale.ROOT), player.getUniqueId());
         }
     }
 
     public static ICPlayer findICPlayer(String text) {
-        for (Map.Entry<String, UUID> entry : playerNames.get().entrySet()) {
-            if (entry.getKey().equalsIgnoreCase(text)) {
-                return ICPlayerFactory.getICPlayer(entry.getValue());
-            }
-        }
-        return null;
+        UUID uuid = playerNames.get().get(text.toLowerCase(Locale.ROOT));
+        return uuid == null ? null : ICPlayerFactory.getICPlayer(uuid);
     }
 
     public static Component createComponent(ICPlayer icplayer, Player tabCompleter) {
@@ -26,6 +26,8 @@ import com.loohp.interactivechat.api.InteractiveChatAPI.SharedType;
 import com.loohp.interactivechat.api.events.InventoryPlaceholderEvent;
 import com.loohp.interactivechat.api.events.InventoryPlaceholderEvent.InventoryPlaceholderType;
 import com.loohp.interactivechat.bungeemessaging.BungeeMessageSender;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay.RemoteDataType;
 import com.loohp.interactivechat.config.ConfigManager;
 import com.loohp.interactivechat.objectholders.ICInventoryHolder;
 import com.loohp.interactivechat.objectholders.ICPlayer;
@@ -45,10 +47,12 @@ import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
+import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class EnderchestDisplay {
 
@@ -58,6 +62,7 @@ public class EnderchestDisplay {
             String regex = InteractiveChat.enderPlaceholder.getKeyword().pattern();
             if (optplayer.isPresent()) {
                 ICPlayer player = optplayer.get();
+                CompletableFuture<Void> latest = RemoteDataRelay.awaitLatest(player, RemoteDataType.ENDERCHEST);
                 if (PlayerUtils.hasPermission(player.getUniqueId(), "interactivechat.module.enderchest", true, 5)) {
 
                     String replaceText = InteractiveChat.enderReplaceText;
@@ -66,6 +71,16 @@ public class EnderchestDisplay {
 
                     if (!preview && !InteractiveChat.enderDisplay.containsKey(sha1)) {
                         layout(player, sha1, title, reciever, component, unix);
+                        if (!latest.isDone()) {
+                            Component finalComponent = component;
+                            latest.thenRun(() -> FoliaUtil.scheduler.runTaskAsynchronously(() -> {
+                                try {
+                                    layout(player, sha1, title, reciever, finalComponent, unix);
+                                } catch (Exception e) {
+                                    e.printStackTrace();
+                                }
+                            }));
+                        }
                     }
 
                     String componentText = ChatColorUtils.translateAlternateColorCodes('&', PlaceholderParser.parse(player, replaceText));
@@ -27,6 +27,8 @@ import com.loohp.interactivechat.api.InteractiveChatAPI.SharedType;
 import com.loohp.interactivechat.api.events.InventoryPlaceholderEvent;
 import com.loohp.interactivechat.api.events.InventoryPlaceholderEvent.InventoryPlaceholderType;
 import com.loohp.interactivechat.bungeemessaging.BungeeMessageSender;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay.RemoteDataType;
 import com.loohp.interactivechat.config.ConfigManager;
 import com.loohp.interactivechat.nms.NMS;
 import com.loohp.interactivechat.objectholders.ICInventoryHolder;
@@ -50,6 +52,7 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -65,6 +68,7 @@ public class InventoryDisplay {
             String regex = InteractiveChat.invPlaceholder.getKeyword().pattern();
             if (optplayer.isPresent()) {
                 ICPlayer player = optplayer.get();
+                CompletableFuture<Void> latest = RemoteDataRelay.awaitLatest(player, RemoteDataType.INVENTORY);
                 if (PlayerUtils.hasPermission(player.getUniqueId(), "interactivechat.module.inventory", true, 5)) {
 
                     String replaceText = InteractiveChat.invReplaceText;
@@ -83,6 +87,17 @@ public class InventoryDisplay {
                     if (!preview && !InteractiveChat.inventoryDisplay.containsKey(sha1)) {
                         layout0(player, sha1, title, reciever, component, unix);
                         layout1(player, sha1, title, reciever, component, unix);
+                        if (!latest.isDone()) {
+                            Component finalComponent = component;
+                            latest.thenRun(() -> FoliaUtil.scheduler.runTaskAsynchronously(() -> {
+                                try {
+                                    layout0(player, sha1, title, reciever, finalComponent, unix);
+                                    layout1(player, sha1, title, reciever, finalComponent, unix);
+                                } catch (Exception e) {
+                                    e.printStackTrace();
+                                }
+                            }));
+                        }
                     }
 
                     String componentText = ChatColorUtils.translateAlternateColorCodes(
@@ -25,6 +25,8 @@ import com.loohp.interactivechat.api.InteractiveChatAPI;
 import com.loohp.interactivechat.api.InteractiveChatAPI.SharedType;
 import com.loohp.interactivechat.api.events.ItemPlaceholderEvent;
 import com.loohp.interactivechat.bungeemessaging.BungeeMessageSender;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay;
+import com.loohp.interactivechat.bungeemessaging.RemoteDataRelay.RemoteDataType;
 import com.loohp.interactivechat.nms.NMS;
 import com.loohp.interactivechat.objectholders.ICInventoryHolder;
 import com.loohp.interactivechat.objectholders.ICPlayer;
@@ -92,6 +94,7 @@ public class ItemDisplay {
 
             if (optplayer.isPresent()) {
                 ICPlayer player = optplayer.get();
+                RemoteDataRelay.awaitLatest(player, RemoteDataType.EQUIPMENT);
                 if (PlayerUtils.hasPermission(player.getUniqueId(), "interactivechat.module.item", true, 5)) {
                     Component alternativeHover = null;
                     if (!InteractiveChat.itemHover && !InteractiveChat.itemAlternativeHoverMessage.isEmpty()) {
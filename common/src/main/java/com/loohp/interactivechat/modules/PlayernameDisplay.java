@@ -25,6 +25,8 @@ import com.loohp.interactivechat.objectholders.ICPlayer;
 import com.loohp.interactivechat.objectholders.ICPlayerFactory;
 import com.loohp.interactivechat.objectholders.ReplaceTextBundle;
 import com.loohp.interactivechat.utils.*;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.ComponentLike;
 import net.kyori.adventure.text.TranslatableComponent;
@@ -52,7 +54,7 @@ public class PlayernameDisplay implements Listener {
 
     public static void setup() {
         Bukkit.getPluginManager().registerEvents(new PlayernameDisplay(), InteractiveChat.plugin);
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("player-name-display-refresh", Execution.ASYNC, 0, 100, () -> {
             int valid = flag.get();
             Collection<ReplaceTextBundle> names = getNames();
             FoliaUtil.scheduler.runTask(() -> {
@@ -60,7 +62,7 @@ public class PlayernameDisplay implements Listener {
                     PlayernameDisplay.names = names;
                 }
             });
-        }, 0, 100);
+        });
     }
 
     public static Component process(Component component, Optional<ICPlayer> sender, Player receiver, long unix) {
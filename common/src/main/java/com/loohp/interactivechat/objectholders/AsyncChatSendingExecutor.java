@@ -22,13 +22,12 @@ package com.loohp.interactivechat.objectholders;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.loohp.interactivechat.InteractiveChat;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.tjdev.util.tjpluginutil.spigot.scheduler.universalscheduler.scheduling.tasks.MyScheduledTask;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -52,14 +51,14 @@ public abstract class AsyncChatSendingExecutor implements AutoCloseable {
 
     private final ReentrantLock executeLock;
     public final Map<UUID, Queue<MessageOrderInfo>> messagesOrder;
-    public final Queue<OutboundPacket> sendingQueue;
     private final ThreadPoolExecutor executor;
     private final Map<Future<?>, ExecutingTaskData> executingTasks;
     public final Map<UUID, Map<UUID, OutboundPacket>> waitingPackets;
     private final Map<UUID, Long> lastSuccessfulCheck;
 
-    private final List<MyScheduledTask> taskIds;
     private final AtomicBoolean isValid;
+    private final HousekeepingScheduler.Job packetOrderJob;
+    private final HousekeepingScheduler.Job monitorJob;
 
     public AsyncChatSendingExecutor(LongSupplier executionWaitTime, long killThreadAfter) {
         ThreadFactory factory = new ThreadFactoryBuilder().setNameFormat("InteractiveChat Async ChatMessage Processing Thread #%d").build();
@@ -70,16 +69,13 @@ public abstract class AsyncChatSendingExecutor implements AutoCloseable {
         this.executionWaitTime = executionWaitTime;
         this.killThreadAfter = killThreadAfter;
         this.executingTasks = new ConcurrentHashMap<>();
-        this.sendingQueue = new ConcurrentLinkedQueue<>();
         this.messagesOrder = new ConcurrentHashMap<>();
-        this.taskIds = new ArrayList<>();
         this.isValid = new AtomicBoolean(true);
         this.waitingPackets = new ConcurrentHashMap<>();
         this.lastSuccessfulCheck = new ConcurrentHashMap<>();
 
-        taskIds.add(packetSender());
-        packetOrderSender();
-        monitor();
+        this.packetOrderJob = packetOrderSender();
+        this.monitorJob = monitor();
     }
 
     public void execute(Runnable runnable, Player player, UUID id) {
@@ -101,21 +97,16 @@ public abstract class AsyncChatSendingExecutor implements AutoCloseable {
     }
 
     public void send(Object packet, Player player, UUID id) {
-        // No need to cast to PacketContainer. packetSender() will cast to PacketContainer later, and this method's packet variable will always be a PacketContainer.
+        // No need to cast to PacketContainer. deliver() will cast to PacketContainer later, and this method's packet variable will always be a PacketContainer.
         // If someone is supplying something that *isn't* a PacketContainer, then it's layer 8.
         OutboundPacket outboundPacket = new OutboundPacket(player, packet);
 
         Queue<MessageOrderInfo> queue = messagesOrder.get(player.getUniqueId());
-        if (queue == null) {
-            sendingQueue.add(outboundPacket);
+        if (queue != null && queue.stream().anyMatch(each -> each.getId().equals(id))) {
+            waitingPackets.computeIfAbsent(player.getUniqueId(), k -> new ConcurrentHashMap<>()).put(id, outboundPacket);
+            release(player.getUniqueId());
         } else {
-            if (queue.stream().anyMatch(each -> each.getId().equals(id))) {
-                waitingPackets.putIfAbsent(player.getUniqueId(), new ConcurrentHashMap<>());
-                Map<UUID, OutboundPacket> waitingMap = waitingPackets.get(player.getUniqueId());
-                waitingMap.put(id, outboundPacket);
-            } else {
-                sendingQueue.add(outboundPacket);
-            }
+            deliver(outboundPacket);
         }
     }
 
@@ -123,15 +114,63 @@ public abstract class AsyncChatSendingExecutor implements AutoCloseable {
         Queue<MessageOrderInfo> queue = messagesOrder.get(player);
         if (queue != null) {
             queue.removeIf(each -> each.getId().equals(id));
+            release(player);
+        }
+    }
+
+    /**
+     * Delivers every waiting packet of the player that is no longer held back by an earlier message,
+     * on the calling thread and in order.
+     * The head of the player's order is skipped once nothing has been released for longer than the execution wait time.
+     */
+    private void release(UUID playerUUID) {
+        Queue<MessageOrderInfo> orderingQueue = messagesOrder.get(playerUUID);
+        Map<UUID, OutboundPacket> playerWaitingPackets = waitingPackets.get(playerUUID);
+        if (orderingQueue == null || playerWaitingPackets == null) {
+            return;
+        }
+        synchronized (orderingQueue) {
+            long time = System.currentTimeMillis();
+            while (true) {
+                MessageOrderInfo messageOrderInfo = orderingQueue.peek();
+                if (messageOrderInfo == null) {
+                    Iterator<Entry<UUID, OutboundPacket>> itr = playerWaitingPackets.entrySet().iterator();
+                    while (itr.hasNext()) {
+                        deliver(itr.next().getValue());
+                        itr.remove();
+                    }
+                    return;
+                }
+                OutboundPacket outboundPacket = playerWaitingPackets.remove(messageOrderInfo.getId());
+                if (outboundPacket != null) {
+                    deliver(outboundPacket);
+                    orderingQueue.remove(messageOrderInfo);
+                    lastSuccessfulCheck.put(playerUUID, time);
+                    continue;
+                }
+                if (playerWaitingPackets.isEmpty()) {
+                    lastSuccessfulCheck.put(playerUUID, time);
+                    return;
+                }
+                Long lastSuccessful = lastSuccessfulCheck.get(playerUUID);
+                if (lastSuccessful == null) {
+                    lastSuccessfulCheck.put(playerUUID, time);
+                    return;
+                }
+                if ((lastSuccessful + executionWaitTime.getAsLong()) >= time) {
+                    return;
+                }
+                orderingQueue.poll();
+                lastSuccessfulCheck.put(playerUUID, time);
+            }
         }
     }
 
     @Override
     public synchronized void close() throws Exception {
         isValid.set(false);
-        for (MyScheduledTask id : taskIds) {
-            if(id != null) id.cancel();
-        }
+        packetOrderJob.cancel();
+        monitorJob.cancel();
         executor.shutdown();
     }
 
@@ -139,112 +178,55 @@ public abstract class AsyncChatSendingExecutor implements AutoCloseable {
         return isValid.get();
     }
 
-    private void packetOrderSender() {
-        new Thread(() -> {
-            while (true) {
-                Iterator<Entry<UUID, Map<UUID, OutboundPacket>>> itr = waitingPackets.entrySet().iterator();
-                while (itr.hasNext()) {
-                    Entry<UUID, Map<UUID, OutboundPacket>> entry = itr.next();
-                    long time = System.currentTimeMillis();
-                    UUID playerUUID = entry.getKey();
-                    if (Bukkit.getPlayer(playerUUID) == null) {
-                        itr.remove();
-                        continue;
-                    }
-                    Queue<MessageOrderInfo> orderingQueue = messagesOrder.get(playerUUID);
-                    Map<UUID, OutboundPacket> playerWaitingPackets = entry.getValue();
-                    MessageOrderInfo messageOrderInfo;
-                    if (orderingQueue != null) {
-                        if ((messageOrderInfo = orderingQueue.peek()) == null) {
-                            Iterator<Entry<UUID, OutboundPacket>> itr0 = playerWaitingPackets.entrySet().iterator();
-                            while (itr0.hasNext()) {
-                                sendingQueue.add(itr0.next().getValue());
-                                itr0.remove();
-                            }
-                        } else {
-                            UUID id = messageOrderInfo.getId();
-                            OutboundPacket outboundPacket = playerWaitingPackets.get(id);
-                            if (outboundPacket != null) {
-                                sendingQueue.add(outboundPacket);
-                                playerWaitingPackets.remove(id);
-                                orderingQueue.remove(messageOrderInfo);
-                                lastSuccessfulCheck.put(playerUUID, time);
-                            } else {
-                                if (playerWaitingPackets.isEmpty()) {
-                                    lastSuccessfulCheck.put(playerUUID, time);
-                                } else {
-                                    Long lastSuccessful = lastSuccessfulCheck.get(playerUUID);
-                                    if (lastSuccessful == null) {
-                                        lastSuccessfulCheck.put(playerUUID, time);
-                                    } else if ((lastSuccessful + executionWaitTime.getAsLong()) < time) {
-                                        orderingQueue.poll();
-                                        lastSuccessfulCheck.put(playerUUID, time);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (!isValid()) {
-                    break;
-                }
-                try {
-                    TimeUnit.NANOSECONDS.sleep(5000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    break;
+    private HousekeepingScheduler.Job packetOrderSender() {
+        return HousekeepingScheduler.schedule("chat-packet-order-release", Execution.ASYNC, 1, 1, () -> {
+            Iterator<UUID> itr = waitingPackets.keySet().iterator();
+            while (itr.hasNext()) {
+                UUID playerUUID = itr.next();
+                if (Bukkit.getPlayer(playerUUID) == null) {
+                    itr.remove();
+                    continue;
                 }
+                release(playerUUID);
             }
-        }, "InteractiveChat Async ChatPacket Ordered Sending Thread").start();
+        });
     }
 
-    public abstract MyScheduledTask packetSender();
-
-    private void monitor() {
-        new Thread(() -> {
-            while (true) {
-                long time = System.currentTimeMillis();
-                Iterator<Entry<Future<?>, ExecutingTaskData>> itr = executingTasks.entrySet().iterator();
-                while (itr.hasNext()) {
-                    Entry<Future<?>, ExecutingTaskData> entry = itr.next();
-                    Future<?> future = entry.getKey();
-                    ExecutingTaskData data = entry.getValue();
-                    if (future.isDone()) {
-                        itr.remove();
-                    } else if (data.getStartTime() + killThreadAfter < time) {
-                        future.cancel(true);
-                        itr.remove();
-                        Queue<MessageOrderInfo> queue = messagesOrder.get(data.getPlayer());
-                        if (queue != null) {
-                            queue.removeIf(each -> each.getId().equals(data.getId()));
-                        }
-                    }
-                }
-
-                Iterator<Entry<UUID, Queue<MessageOrderInfo>>> itr1 = messagesOrder.entrySet().iterator();
-                while (itr1.hasNext()) {
-                    Entry<UUID, Queue<MessageOrderInfo>> entry = itr1.next();
-                    if (Bukkit.getPlayer(entry.getKey()) == null) {
-                        itr1.remove();
-                    } else {
-                        entry.getValue().removeIf(each -> (each.getTime() + executionWaitTime.getAsLong()) < time);
-                    }
+    /**
+     * Writes a finished packet to its receiver, called on whichever thread released the packet.
+     */
+    protected abstract void deliver(OutboundPacket outboundPacket);
+
+    private HousekeepingScheduler.Job monitor() {
+        return HousekeepingScheduler.schedule("chat-processing-monitor", Execution.ASYNC, 20, 20, () -> {
+            long time = System.currentTimeMillis();
+            Iterator<Entry<Future<?>, ExecutingTaskData>> itr = executingTasks.entrySet().iterator();
+            while (itr.hasNext()) {
+                Entry<Future<?>, ExecutingTaskData> entry = itr.next();
+                Future<?> future = entry.getKey();
+                ExecutingTaskData data = entry.getValue();
+                if (future.isDone()) {
+                    itr.remove();
+                } else if (data.getStartTime() + killThreadAfter < time) {
+                    future.cancel(true);
+                    itr.remove();
+                    discard(data.getPlayer(), data.getId());
                 }
+            }
 
-                waitingPackets.entrySet().removeIf(entry -> Bukkit.getPlayer(entry.getKey()) == null);
-                lastSuccessfulCheck.entrySet().removeIf(entry -> Bukkit.getPlayer(entry.getKey()) == null);
-                if (!isValid()) {
-                    break;
-                }
-                try {
-                    TimeUnit.SECONDS.sleep(1);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    break;
+            Iterator<Entry<UUID, Queue<MessageOrderInfo>>> itr1 = messagesOrder.entrySet().iterator();
+            while (itr1.hasNext()) {
+                Entry<UUID, Queue<MessageOrderInfo>> entry = itr1.next();
+                if (Bukkit.getPlayer(entry.getKey()) == null) {
+                    itr1.remove();
+                } else {
+                    entry.getValue().removeIf(each -> (each.getTime() + executionWaitTime.getAsLong()) < time);
                 }
             }
-        }, "InteractiveChat Async Monitor Thread").start();
+
+            waitingPackets.entrySet().removeIf(entry -> Bukkit.getPlayer(entry.getKey()) == null);
+            lastSuccessfulCheck.entrySet().removeIf(entry -> Bukkit.getPlayer(entry.getKey()) == null);
+        });
     }
 
     public static class ExecutingTaskData {
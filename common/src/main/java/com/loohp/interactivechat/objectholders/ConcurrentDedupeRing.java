@@ -0,0 +1,135 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock-free set of recently seen 64-bit keys.
+ * <p>
+ * Each slot packs the upper 48 bits of a key together with a 16-bit second bucket of when it was
+ * recorded, so a slot can be claimed with a single CAS. Every probed slot is checked for the key
+ * before anything is written, entries older than the expiry window are treated as empty, and when
+ * every probed slot is still fresh the oldest one is overwritten. Such overwrites forget a key before
+ * its window ends and are counted by {@link #getLiveEvictions()}.
+ */
+public class ConcurrentDedupeRing {
+
+    /**
+     * Headroom over the number of keys expected within one window, so a probe rarely finds every slot fresh.
+     */
+    public static final int LOAD_HEADROOM = 4;
+
+    private static final int PROBES = 4;
+    private static final long BUCKET_MASK = 0xFFFFL;
+    private static final long TAG_MASK = ~BUCKET_MASK;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final int expirySeconds;
+    private final AtomicLong liveEvictions;
+
+    /**
+     * Sizes the ring to hold every key of a window at the expected rate, with {@link #LOAD_HEADROOM}.
+     */
+    public static ConcurrentDedupeRing forRate(int keysPerSecond, int expirySeconds) {
+        long capacity = (long) Math.max(1, keysPerSecond) * Math.max(1, expirySeconds) * LOAD_HEADROOM;
+        return new ConcurrentDedupeRing((int) Math.min(capacity, 1 << 24), expirySeconds);
+    }
+
+    public ConcurrentDedupeRing(int capacity, int expirySeconds) {
+        int size = Integer.highestOneBit(Math.max(PROBES, capacity - 1) << 1);
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.expirySeconds = expirySeconds;
+        this.liveEvictions = new AtomicLong();
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public int getExpirySeconds() {
+        return expirySeconds;
+    }
+
+    /**
+     * @return how many keys were overwritten while still inside the expiry window
+     */
+    public long getLiveEvictions() {
+        return liveEvictions.get();
+    }
+
+    /**
+     * @return true if the key was not seen within the expiry window and has now been recorded
+     */
+    public boolean add(long key) {
+        return add(key, System.currentTimeMillis());
+    }
+
+    public boolean add(long key, long now) {
+        long tag = key & TAG_MASK;
+        if (tag == 0) {
+            tag = BUCKET_MASK + 1;
+        }
+        long bucket = (now / 1000) & BUCKET_MASK;
+        long entry = tag | bucket;
+        int start = (int) (key ^ (key >>> 32)) & mask;
+        while (true) {
+            int claimIndex = -1;
+            long claimEntry = 0;
+            long claimAge = -1;
+            boolean claimExpired = false;
+            for (int i = 0; i < PROBES; i++) {
+                int index = (start + i) & mask;
+                long current = slots.get(index);
+                long age = current == 0 ? Long.MAX_VALUE : (bucket - (current & BUCKET_MASK)) & BUCKET_MASK;
+                boolean expired = current == 0 || age >= expirySeconds;
+                if (!expired && (current & TAG_MASK) == tag) {
+                    return false;
+                }
+                if (claimExpired) {
+                    continue;
+                }
+                if (expired || age > claimAge) {
+                    claimIndex = index;
+                    claimEntry = current;
+                    claimAge = age;
+                    claimExpired = expired;
+                }
+            }
+            if (slots.compareAndSet(claimIndex, claimEntry, entry)) {
+                if (!claimExpired) {
+                    liveEvictions.incrementAndGet();
+                }
+                return true;
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0);
+        }
+    }
+
+}
@@ -45,6 +45,7 @@ public class ICPlayer extends OfflineICPlayer implements IICPlayer {
     private boolean rightHanded;
     private Set<String> remoteNicknames;
     private Map<String, String> remotePlaceholders;
+    private int remotePlaceholdersVersion;
     private boolean remoteVanished;
 
     protected ICPlayer(String server, String name, UUID uuid, boolean rightHanded, int selectedSlot, int experienceLevel, Inventory inventory, Inventory enderchest, boolean remoteVanished) {
@@ -226,6 +227,14 @@ public class ICPlayer extends OfflineICPlayer implements IICPlayer {
         return remotePlaceholders;
     }
 
+    public int getRemotePlaceholdersVersion() {
+        return remotePlaceholdersVersion;
+    }
+
+    public void setRemotePlaceholdersVersion(int remotePlaceholdersVersion) {
+        this.remotePlaceholdersVersion = remotePlaceholdersVersion;
+    }
+
     @Override
     public ICPlayer getPlayer() {
         return this;
@@ -20,19 +20,27 @@
 
 package com.loohp.interactivechat.objectholders;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.loohp.interactivechat.InteractiveChat;
 import com.loohp.interactivechat.api.events.ICPlayerJoinEvent;
 import com.loohp.interactivechat.api.events.ICPlayerQuitEvent;
 import com.loohp.interactivechat.api.events.OfflineICPlayerCreationEvent;
 import com.loohp.interactivechat.api.events.OfflineICPlayerUpdateEvent;
 import com.loohp.interactivechat.nms.NMS;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import com.loohp.interactivechat.utils.InventoryUtils;
+import com.loohp.interactivechat.utils.ItemNBTUtils;
+import com.loohp.interactivechat.utils.PlayerDataNBTReader;
+import com.loohp.interactivechat.utils.PlayerDataNBTReader.PlayerDataNBT;
 import net.craftersland.data.bridge.PD;
 import net.craftersland.data.bridge.objects.DatabaseEnderchestData;
 import net.craftersland.data.bridge.objects.DatabaseExperienceData;
 import net.craftersland.data.bridge.objects.DatabaseInventoryData;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -44,6 +52,7 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
+import java.io.File;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -51,10 +60,16 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
 
 public class ICPlayerFactory {
 
@@ -62,7 +77,12 @@ public class ICPlayerFactory {
     private static final Set<UUID> REMOTE_UUID = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private static final Map<UUID, ICPlayer> ICPLAYERS = new ConcurrentHashMap<>();
     private static final Map<UUID, ICPlayer> LOGGING_IN = new ConcurrentHashMap<>();
+    private static final Map<String, UUID> NAMES = new ConcurrentHashMap<>();
+    private static final ConcurrentSkipListMap<String, UUID> NAME_PREFIXES = new ConcurrentSkipListMap<>();
+    private static final Map<UUID, String> INDEXED_NAMES = new ConcurrentHashMap<>();
     private static final Map<UUID, WeakReference<OfflineICPlayer>> REFERENCED_OFFLINE_PLAYERS = new ConcurrentHashMap<>();
+    private static final Cache<UUID, OfflinePlayerSnapshot> OFFLINE_SNAPSHOTS = CacheBuilder.newBuilder().maximumSize(256).expireAfterWrite(1, TimeUnit.MINUTES).build();
+    private static final Map<UUID, CompletableFuture<OfflinePlayerSnapshot>> LOADING_OFFLINE_SNAPSHOTS = new ConcurrentHashMap<>();
     private static final Unsafe UNSAFE = new Unsafe();
 
     static {
@@ -76,6 +96,7 @@ public class ICPlayerFactory {
                         ICPLAYERS.put(icplayer.getUniqueId(), icplayer);
                         LOGGING_IN.put(icplayer.getUniqueId(), icplayer);
                     }
+                    indexName(player.getUniqueId(), player.getName());
                 }
             }
 
@@ -94,8 +115,10 @@ public class ICPlayerFactory {
             public void onLeave(PlayerQuitEvent event) {
                 synchronized (LOCK) {
                     UUID uuid = event.getPlayer().getUniqueId();
+                    OFFLINE_SNAPSHOTS.invalidate(uuid);
                     if (!REMOTE_UUID.contains(uuid)) {
                         ICPlayer icplayer = ICPLAYERS.remove(uuid);
+                        unindexName(uuid);
                         if (icplayer != null && LOGGING_IN.remove(uuid) == null) {
                             Bukkit.getPluginManager().callEvent(new ICPlayerQuitEvent(icplayer, false));
                         }
@@ -104,7 +127,7 @@ public class ICPlayerFactory {
             }
         }, InteractiveChat.plugin);
 
-        FoliaUtil.scheduler.runTaskTimerAsynchronously( () -> REFERENCED_OFFLINE_PLAYERS.values().removeIf(each -> each.get() == null), 12000, 12000);
+        HousekeepingScheduler.schedule("offline-player-reference-sweep", Execution.ASYNC, 12000, 12000, () -> REFERENCED_OFFLINE_PLAYERS.values().removeIf(each -> each.get() == null));
     }
 
     public static RemotePlayerCreateResult createOrUpdateRemoteICPlayer(String server, String name, UUID uuid, boolean rightHanded, int selectedSlot, int experienceLevel, Inventory inventory, Inventory enderchest, boolean vanished) {
@@ -114,11 +137,13 @@ public class ICPlayerFactory {
             if (icplayer == null) {
                 icplayer = new ICPlayer(server, name, uuid, rightHanded, selectedSlot, experienceLevel, inventory, enderchest, vanished);
                 ICPLAYERS.put(uuid, icplayer);
+                indexName(uuid, icplayer.getName());
                 newlyCreated = true;
                 Bukkit.getPluginManager().callEvent(new ICPlayerJoinEvent(icplayer, true));
             } else {
                 icplayer.setRemoteServer(server);
                 icplayer.setRemoteName(name);
+                indexName(uuid, icplayer.getName());
                 icplayer.setRemoteRightHanded(rightHanded);
                 icplayer.setRemoteSelectedSlot(selectedSlot);
                 icplayer.setRemoteExperienceLevel(experienceLevel);
@@ -144,6 +169,7 @@ public class ICPlayerFactory {
             boolean keptDueToLocallyOnline = true;
             if (!icplayer.isLocal()) {
                 ICPLAYERS.remove(uuid);
+                unindexName(uuid);
                 Bukkit.getPluginManager().callEvent(new ICPlayerQuitEvent(icplayer, true));
                 keptDueToLocallyOnline = false;
             }
@@ -184,9 +210,25 @@ public class ICPlayerFactory {
     }
 
     public static ICPlayer getICPlayer(String name) {
-        for (ICPlayer player : ICPLAYERS.values()) {
-            if (player.getName().toLowerCase().startsWith(name.toLowerCase())) {
-                return player;
+        String folded = foldName(name);
+        ICPlayer icplayer = getIndexed(NAMES.get(folded));
+        if (icplayer != null) {
+            return icplayer;
+        }
+        String shortest = null;
+        for (Map.Entry<String, UUID> entry : NAME_PREFIXES.tailMap(folded, true).entrySet()) {
+            String indexed = entry.getKey();
+            if (!indexed.startsWith(folded)) {
+                break;
+            }
+            if ((shortest == null || indexed.length() < shortest.length()) && ICPLAYERS.containsKey(entry.getValue())) {
+                shortest = indexed;
+            }
+        }
+        if (shortest != null) {
+            icplayer = getIndexed(NAME_PREFIXES.get(shortest));
+            if (icplayer != null) {
+                return icplayer;
             }
         }
         Player player = Bukkit.getPlayer(name);
@@ -197,10 +239,9 @@ public class ICPlayerFactory {
     }
 
     public static ICPlayer getICPlayerExact(String name) {
-        for (ICPlayer player : ICPLAYERS.values()) {
-            if (player.getName().equalsIgnoreCase(name)) {
-                return player;
-            }
+        ICPlayer icplayer = getIndexed(NAMES.get(foldName(name)));
+        if (icplayer != null) {
+            return icplayer;
         }
         Player player = Bukkit.getPlayerExact(name);
         if (player != null) {
@@ -209,6 +250,36 @@ public class ICPlayerFactory {
         return null;
     }
 
+    private static ICPlayer getIndexed(UUID uuid) {
+        return uuid == null ? null : ICPLAYERS.get(uuid);
+    }
+
+    private static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static void indexName(UUID uuid, String name) {
+        if (name == null) {
+            return;
+        }
+        String folded = foldName(name);
+        String previous = INDEXED_NAMES.put(uuid, folded);
+        if (previous != null && !previous.equals(folded)) {
+            NAMES.remove(previous, uuid);
+            NAME_PREFIXES.remove(previous, uuid);
+        }
+        NAMES.put(folded, uuid);
+        NAME_PREFIXES.put(folded, uuid);
+    }
+
+    private static void unindexName(UUID uuid) {
+        String previous = INDEXED_NAMES.remove(uuid);
+        if (previous != null) {
+            NAMES.remove(previous, uuid);
+            NAME_PREFIXES.remove(previous, uuid);
+        }
+    }
+
     public static OfflineICPlayer getOfflineICPlayer(OfflinePlayer offlinePlayer) {
         if (offlinePlayer.isOnline()) {
             return getICPlayer(offlinePlayer.getPlayer());
@@ -221,6 +292,81 @@ public class ICPlayerFactory {
         if (icplayer != null) {
             return icplayer;
         }
+        OfflinePlayerSnapshot snapshot;
+        try {
+            snapshot = loadOfflineSnapshot(uuid, false).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+            return null;
+        }
+        return snapshot == null ? null : applyOfflineSnapshot(uuid, snapshot);
+    }
+
+    /**
+     * Loads an offline player off the calling thread.
+     * Concurrent loads of the same player share a single read, and recent unchanged snapshots are reused.
+     */
+    public static CompletableFuture<OfflineICPlayer> getOfflineICPlayerAsync(UUID uuid) {
+        ICPlayer icplayer = getICPlayer(uuid);
+        if (icplayer != null) {
+            return CompletableFuture.completedFuture(icplayer);
+        }
+        return loadOfflineSnapshot(uuid, true).thenApply(snapshot -> snapshot == null ? null : applyOfflineSnapshot(uuid, snapshot));
+    }
+
+    private static CompletableFuture<OfflinePlayerSnapshot> loadOfflineSnapshot(UUID uuid, boolean async) {
+        OfflinePlayerSnapshot cached = OFFLINE_SNAPSHOTS.getIfPresent(uuid);
+        if (cached != null && cached.isValid(getPlayerDataFile(uuid))) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<OfflinePlayerSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<OfflinePlayerSnapshot> existing = LOADING_OFFLINE_SNAPSHOTS.putIfAbsent(uuid, future);
+        if (existing != null) {
+            return existing;
+        }
+        Runnable load = () -> {
+            try {
+                OfflinePlayerSnapshot snapshot = createOfflineSnapshot(uuid);
+                if (snapshot == null) {
+                    OFFLINE_SNAPSHOTS.invalidate(uuid);
+                } else {
+                    OFFLINE_SNAPSHOTS.put(uuid, snapshot);
+                }
+                LOADING_OFFLINE_SNAPSHOTS.remove(uuid, future);
+                future.complete(snapshot);
+            } catch (Throwable e) {
+                LOADING_OFFLINE_SNAPSHOTS.remove(uuid, future);
+                future.completeExceptionally(e);
+            }
+        };
+        if (async) {
+            FoliaUtil.scheduler.runTaskAsynchronously(load);
+        } else {
+            load.run();
+        }
+        return future;
+    }
+
+    private static File getPlayerDataFile(UUID uuid) {
+        List<World> worlds = Bukkit.getWorlds();
+        if (worlds.isEmpty()) {
+            return null;
+        }
+        return new File(worlds.get(0).getWorldFolder(), "playerdata/" + uuid + ".dat");
+    }
+
+    private static int getInventoryIndex(int nbtSlot) {
+        if (nbtSlot >= 0 && nbtSlot < 36) {
+            return nbtSlot;
+        } else if (nbtSlot >= 100 && nbtSlot < 104) {
+            return nbtSlot - 64;
+        } else if (nbtSlot == -106) {
+            return 40;
+        }
+        return -1;
+    }
+
+    private static OfflinePlayerSnapshot createOfflineSnapshot(UUID uuid) throws IllegalAccessException, InvocationTargetException {
         boolean mysqlPDBInventorySync = false;
         boolean mysqlPDBArmorSync = false;
         boolean mysqlPDBEnderChestSync = false;
@@ -246,72 +392,113 @@ public class ICPlayerFactory {
                 mysqlPDBExpSync = false;
             }
         }
-        try {
-            int selectedSlot = 0;
-            boolean rightHanded = true;
-            int xpLevel = 0;
-            Inventory inventory = Bukkit.createInventory(ICInventoryHolder.INSTANCE, 45);
-            Inventory enderchest = Bukkit.createInventory(ICInventoryHolder.INSTANCE, InventoryUtils.getDefaultEnderChestSize());
-
-            InternalOfflinePlayerInfo info = NMS.getInstance().loadOfflinePlayer(uuid, inventory, enderchest);
+        File dataFile = getPlayerDataFile(uuid);
+        long dataFileModified = dataFile == null ? 0 : dataFile.lastModified();
+
+        int selectedSlot = 0;
+        boolean rightHanded = true;
+        int xpLevel = 0;
+        ItemStack[] inventory = null;
+        ItemStack[] enderchest = null;
+
+        if (dataFileModified != 0) {
+            try {
+                PlayerDataNBT nbt = PlayerDataNBTReader.read(dataFile);
+                //Files from another data version still need the server's data fixers, which only the full load applies
+                if (nbt.getDataVersion() == Bukkit.getUnsafe().getDataVersion()) {
+                    ItemStack[] nbtInventory = new ItemStack[45];
+                    for (Map.Entry<Integer, byte[]> entry : nbt.getInventory().entrySet()) {
+                        int index = getInventoryIndex(entry.getKey());
+                        if (index >= 0) {
+                            nbtInventory[index] = ItemNBTUtils.getItemFromNBTBytes(entry.getValue());
+                        }
+                    }
+                    ItemStack[] nbtEnderchest = new ItemStack[InventoryUtils.getDefaultEnderChestSize()];
+                    for (Map.Entry<Integer, byte[]> entry : nbt.getEnderItems().entrySet()) {
+                        int index = entry.getKey();
+                        if (index >= 0 && index < nbtEnderchest.length) {
+                            nbtEnderchest[index] = ItemNBTUtils.getItemFromNBTBytes(entry.getValue());
+                        }
+                    }
+                    selectedSlot = nbt.getSelectedSlot();
+                    xpLevel = nbt.getXpLevel();
+                    inventory = nbtInventory;
+                    enderchest = nbtEnderchest;
+                }
+            } catch (Throwable ignore) {
+            }
+        }
+        if (inventory == null) {
+            Inventory loadedInventory = Bukkit.createInventory(ICInventoryHolder.INSTANCE, 45);
+            Inventory loadedEnderchest = Bukkit.createInventory(ICInventoryHolder.INSTANCE, InventoryUtils.getDefaultEnderChestSize());
+            InternalOfflinePlayerInfo info = NMS.getInstance().loadOfflinePlayer(uuid, loadedInventory, loadedEnderchest);
             if (info != null) {
                 selectedSlot = info.getSelectedSlot();
                 rightHanded = info.isRightHanded();
                 xpLevel = info.getXpLevel();
-                inventory = info.getInventory();
-                enderchest = info.getEnderchest();
+                loadedInventory = info.getInventory();
+                loadedEnderchest = info.getEnderchest();
             }
+            inventory = loadedInventory.getContents();
+            enderchest = loadedEnderchest.getContents();
+        }
 
-            if (mysqlPDBInventorySync || mysqlPDBArmorSync) {
-                DatabaseInventoryData invData = PD.instance.getInventoryStorageHandler().getData(dummyPlayer);
-                if (mysqlPDBInventorySync) {
-                    ItemStack[] items = PD.instance.getItemStackSerializer().fromBase64(invData.getRawInventory());
-                    for (int i = 0; i < items.length && i < inventory.getSize(); i++) {
-                        inventory.setItem(i, items[i]);
-                    }
-                    selectedSlot = invData.getHotBarSlot();
-                }
-                if (mysqlPDBArmorSync) {
-                    ItemStack[] items = PD.instance.getItemStackSerializer().fromBase64(invData.getRawArmor());
-                    for (int i = 0; i < items.length && i < 4; i++) {
-                        inventory.setItem(i + 36, items[i]);
-                    }
+        if (mysqlPDBInventorySync || mysqlPDBArmorSync) {
+            DatabaseInventoryData invData = PD.instance.getInventoryStorageHandler().getData(dummyPlayer);
+            if (mysqlPDBInventorySync) {
+                ItemStack[] items = PD.instance.getItemStackSerializer().fromBase64(invData.getRawInventory());
+                for (int i = 0; i < items.length && i < inventory.length; i++) {
+                    inventory[i] = items[i];
                 }
+                selectedSlot = invData.getHotBarSlot();
             }
-            if (mysqlPDBEnderChestSync) {
-                DatabaseEnderchestData enderData = PD.instance.getEnderchestStorageHandler().getData(dummyPlayer);
-                ItemStack[] items = PD.instance.getItemStackSerializer().fromBase64(enderData.getRawEnderchest());
-                for (int i = 0; i < items.length && i < enderchest.getSize(); i++) {
-                    enderchest.setItem(i, items[i]);
+            if (mysqlPDBArmorSync) {
+                ItemStack[] items = PD.instance.getItemStackSerializer().fromBase64(invData.getRawArmor());
+                for (int i = 0; i < items.length && i < 4; i++) {
+                    inventory[i + 36] = items[i];
                 }
             }
-            if (mysqlPDBExpSync) {
-                DatabaseExperienceData expData = PD.instance.getExperienceStorageHandler().getData(dummyPlayer);
-                if (expData.getLevel() != null) {
-                    xpLevel = expData.getLevel();
-                }
+        }
+        if (mysqlPDBEnderChestSync) {
+            DatabaseEnderchestData enderData = PD.instance.getEnderchestStorageHandler().getData(dummyPlayer);
+            ItemStack[] items = PD.instance.getItemStackSerializer().fromBase64(enderData.getRawEnderchest());
+            for (int i = 0; i < items.length && i < enderchest.length; i++) {
+                enderchest[i] = items[i];
             }
-            OfflineICPlayer offlineICPlayer = getReferenced(uuid);
-            if (offlineICPlayer == null) {
-                offlineICPlayer = new OfflineICPlayer(uuid, playerName, selectedSlot, rightHanded, xpLevel, inventory, enderchest);
-                OfflineICPlayerCreationEvent event = new OfflineICPlayerCreationEvent(offlineICPlayer);
-                Bukkit.getPluginManager().callEvent(event);
-                REFERENCED_OFFLINE_PLAYERS.put(uuid, new WeakReference<>(offlineICPlayer));
-            } else {
-                offlineICPlayer.setName(playerName);
-                offlineICPlayer.setSelectedSlot(selectedSlot);
-                offlineICPlayer.setRightHanded(rightHanded);
-                offlineICPlayer.setExperienceLevel(xpLevel);
-                offlineICPlayer.setInventory(inventory);
-                offlineICPlayer.setEnderchest(enderchest);
-                OfflineICPlayerUpdateEvent event = new OfflineICPlayerUpdateEvent(offlineICPlayer);
-                Bukkit.getPluginManager().callEvent(event);
+        }
+        if (mysqlPDBExpSync) {
+            DatabaseExperienceData expData = PD.instance.getExperienceStorageHandler().getData(dummyPlayer);
+            if (expData.getLevel() != null) {
+                xpLevel = expData.getLevel();
             }
-            return offlineICPlayer;
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-            e.printStackTrace();
-            return null;
         }
+        return new OfflinePlayerSnapshot(playerName, selectedSlot, rightHanded, xpLevel, inventory, enderchest, dataFileModified);
+    }
+
+    private static OfflineICPlayer applyOfflineSnapshot(UUID uuid, OfflinePlayerSnapshot snapshot) {
+        String playerName = snapshot.getName();
+        int selectedSlot = snapshot.getSelectedSlot();
+        boolean rightHanded = snapshot.isRightHanded();
+        int xpLevel = snapshot.getExperienceLevel();
+        Inventory inventory = snapshot.createInventory();
+        Inventory enderchest = snapshot.createEnderChest();
+        OfflineICPlayer offlineICPlayer = getReferenced(uuid);
+        if (offlineICPlayer == null) {
+            offlineICPlayer = new OfflineICPlayer(uuid, playerName, selectedSlot, rightHanded, xpLevel, inventory, enderchest);
+            OfflineICPlayerCreationEvent event = new OfflineICPlayerCreationEvent(offlineICPlayer);
+            Bukkit.getPluginManager().callEvent(event);
+            REFERENCED_OFFLINE_PLAYERS.put(uuid, new WeakReference<>(offlineICPlayer));
+        } else {
+            offlineICPlayer.setName(playerName);
+            offlineICPlayer.setSelectedSlot(selectedSlot);
+            offlineICPlayer.setRightHanded(rightHanded);
+            offlineICPlayer.setExperienceLevel(xpLevel);
+            offlineICPlayer.setInventory(inventory);
+            offlineICPlayer.setEnderchest(enderchest);
+            OfflineICPlayerUpdateEvent event = new OfflineICPlayerUpdateEvent(offlineICPlayer);
+            Bukkit.getPluginManager().callEvent(event);
+        }
+        return offlineICPlayer;
     }
 
     @Deprecated
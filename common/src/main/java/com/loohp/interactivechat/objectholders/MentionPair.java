@@ -21,8 +21,8 @@
 package com.loohp.interactivechat.objectholders;
 
 import com.loohp.interactivechat.InteractiveChat;
-import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
-import org.tjdev.util.tjpluginutil.spigot.scheduler.universalscheduler.scheduling.tasks.MyScheduledTask;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 
 import java.util.UUID;
 
@@ -31,7 +31,7 @@ public class MentionPair {
     private final UUID sender;
     private final UUID receiver;
     private final long timestamp;
-    private final MyScheduledTask taskid;
+    private final HousekeepingScheduler.Job taskid;
 
     public MentionPair(UUID sender, UUID reciever) {
         this.sender = sender;
@@ -53,13 +53,8 @@ public class MentionPair {
         InteractiveChat.mentionPair.remove(this);
     }
 
-    private MyScheduledTask run() {
-        return FoliaUtil.scheduler.runTaskTimer(() -> {
-            if ((System.currentTimeMillis() - timestamp) > 3000) {
-                taskid.cancel();
-                InteractiveChat.mentionPair.remove(this);
-            }
-        }, 0, 5);
+    private HousekeepingScheduler.Job run() {
+        return HousekeepingScheduler.schedule("mention-pair-expiry", Execution.ASYNC, 60, () -> InteractiveChat.mentionPair.remove(this));
     }
 
     @Override
@@ -20,84 +20,268 @@
 
 package com.loohp.interactivechat.objectholders;
 
-import com.google.common.collect.Sets;
 import com.loohp.interactivechat.InteractiveChat;
 import com.loohp.interactivechat.api.InteractiveChatAPI;
+import com.loohp.interactivechat.api.events.ICPlayerJoinEvent;
+import com.loohp.interactivechat.api.events.ICPlayerQuitEvent;
 import com.loohp.interactivechat.nms.NMS;
 import com.loohp.interactivechat.utils.ChatColorUtils;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandSendEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 
+/**
+ * Keeps the custom chat completions of every player in sync with a shared catalogue.
+ * The catalogue holds the mention completions contributed by each ICPlayer and, per tab completer, the placeholder
+ * names they have permission for. Only catalogue changes are pushed, and only to the players they affect.
+ * Joins and quits update the catalogue as they happen, while vanish, display name and nickname changes are picked up
+ * by a sweep that compares each ICPlayer's own completions with what it last contributed.
+ */
 public class ModernChatCompletionTask implements Listener {
 
+    public static final long SWEEP_INTERVAL = 10;
+    public static final int PERMISSION_RECHECK_SWEEPS = 60;
+
     public static boolean isSupported() {
         return NMS.getInstance().isCustomTabCompletionSupported();
     }
 
-    private final Map<Player, Set<String>> registered;
+    private final Map<UUID, Set<String>> contributions;
+    private final Map<String, Set<UUID>> owners;
+    private final Map<UUID, Set<String>> placeholderCompletions;
+    private final Map<UUID, Set<String>> registered;
+    private List<List<Object>> placeholderSignature;
+    private int sweepsSincePermissionRecheck;
 
     public ModernChatCompletionTask() {
         if (!isSupported()) {
             throw new IllegalStateException("ModernChatCompletion is not supported on this server");
         }
-        this.registered = new ConcurrentHashMap<>();
+        this.contributions = new HashMap<>();
+        this.owners = new HashMap<>();
+        this.placeholderCompletions = new HashMap<>();
+        this.registered = new HashMap<>();
+        this.placeholderSignature = Collections.emptyList();
+        this.sweepsSincePermissionRecheck = 0;
         run();
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(ICPlayerJoinEvent event) {
+        FoliaUtil.scheduler.runTaskAsynchronously(() -> {
+            if (InteractiveChat.chatTabCompletionsEnabled) {
+                synchronized (this) {
+                    updateContribution(event.getPlayer().getUniqueId(), computeContribution(event.getPlayer()));
+                }
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(ICPlayerQuitEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        FoliaUtil.scheduler.runTaskAsynchronously(() -> {
+            synchronized (this) {
+                if (ICPlayerFactory.getICPlayer(uuid) == null) {
+                    updateContribution(uuid, Collections.emptySet());
+                }
+            }
+        });
+    }
+
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
-        registered.remove(event.getPlayer());
+        UUID uuid = event.getPlayer().getUniqueId();
+        synchronized (this) {
+            registered.remove(uuid);
+            placeholderCompletions.remove(uuid);
+        }
+    }
+
+    /**
+     * Permission plugins resend the command tree when a player's permissions change, which is used here as the signal
+     * to recheck that player's placeholder permissions.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onCommandSend(PlayerCommandSendEvent event) {
+        Player player = event.getPlayer();
+        FoliaUtil.scheduler.runTaskAsynchronously(() -> {
+            if (InteractiveChat.chatTabCompletionsEnabled && player.isOnline()) {
+                synchronized (this) {
+                    updatePlaceholderCompletions(player);
+                }
+            }
+        });
     }
 
     private void run() {
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("chat-completion-sweep", Execution.ASYNC, 0, SWEEP_INTERVAL, () -> {
             if (InteractiveChat.chatTabCompletionsEnabled) {
-                for (Player tabCompleter : Bukkit.getOnlinePlayers()) {
-                    Set<String> tab = ConcurrentHashMap.newKeySet();
-
-                    for (ICPlaceholder placeholder : InteractiveChat.placeholderList.values()) {
-                        if (tabCompleter.hasPermission(placeholder.getPermission()) || (!placeholder.isBuildIn() && !InteractiveChat.useCustomPlaceholderPermissions)) {
-                            tab.add(ChatColorUtils.stripColor(placeholder.getName()));
-                        }
-                    }
-                    for (ICPlayer player : ICPlayerFactory.getOnlineICPlayers()) {
-                        if (!player.isVanished() && !player.getUniqueId().equals(tabCompleter.getUniqueId())) {
-                            tab.add(ChatColorUtils.stripColor(InteractiveChat.mentionPrefix + player.getName()));
-                            tab.add(ChatColorUtils.stripColor(InteractiveChat.mentionPrefix + player.getDisplayName()));
-                            for (String nickname : InteractiveChatAPI.getNicknames(player.getUniqueId())) {
-                                tab.add(ChatColorUtils.stripColor(InteractiveChat.mentionPrefix + nickname));
-                            }
-                        }
-                    }
-
-                    Set<String> oldList = registered.computeIfAbsent(tabCompleter, k -> ConcurrentHashMap.newKeySet());
-
-                    List<String> add = new ArrayList<>(Sets.difference(tab, oldList));
-                    List<String> remove = new ArrayList<>(Sets.difference(oldList, tab));
-
-                    if (!add.isEmpty()) {
-                        InteractiveChat.protocolPlatform.sendTabCompletionPacket(tabCompleter, CustomTabCompletionAction.ADD, add);
-                    }
-
-                    if (!remove.isEmpty()) {
-                        InteractiveChat.protocolPlatform.sendTabCompletionPacket(tabCompleter, CustomTabCompletionAction.REMOVE, remove);
-                    }
-
-                    remove.forEach(oldList::remove);
-                    oldList.addAll(add);
+                synchronized (this) {
+                    sweep();
+                }
+            }
+        });
+    }
+
+    private void sweep() {
+        Set<UUID> present = new HashSet<>();
+        for (ICPlayer icplayer : ICPlayerFactory.getOnlineICPlayers()) {
+            present.add(icplayer.getUniqueId());
+            updateContribution(icplayer.getUniqueId(), computeContribution(icplayer));
+        }
+        for (UUID uuid : new ArrayList<>(contributions.keySet())) {
+            if (!present.contains(uuid)) {
+                updateContribution(uuid, Collections.emptySet());
+            }
+        }
+
+        List<List<Object>> signature = computePlaceholderSignature();
+        boolean recheckPermissions = !signature.equals(placeholderSignature) || ++sweepsSincePermissionRecheck >= PERMISSION_RECHECK_SWEEPS;
+        placeholderSignature = signature;
+        for (Player tabCompleter : Bukkit.getOnlinePlayers()) {
+            if (recheckPermissions || !placeholderCompletions.containsKey(tabCompleter.getUniqueId())) {
+                updatePlaceholderCompletions(tabCompleter);
+            }
+        }
+        if (recheckPermissions) {
+            sweepsSincePermissionRecheck = 0;
+        }
+    }
+
+    private Set<String> computeContribution(ICPlayer icplayer) {
+        if (icplayer.isVanished()) {
+            return Collections.emptySet();
+        }
+        Set<String> contribution = new LinkedHashSet<>();
+        contribution.add(ChatColorUtils.stripColor(InteractiveChat.mentionPrefix + icplayer.getName()));
+        contribution.add(ChatColorUtils.stripColor(InteractiveChat.mentionPrefix + icplayer.getDisplayName()));
+        for (String nickname : InteractiveChatAPI.getNicknames(icplayer.getUniqueId())) {
+            contribution.add(ChatColorUtils.stripColor(InteractiveChat.mentionPrefix + nickname));
+        }
+        return contribution;
+    }
+
+    private List<List<Object>> computePlaceholderSignature() {
+        List<List<Object>> signature = new ArrayList<>();
+        signature.add(Collections.singletonList(InteractiveChat.useCustomPlaceholderPermissions));
+        for (ICPlaceholder placeholder : InteractiveChat.placeholderList.values()) {
+            signature.add(Arrays.asList(placeholder.getName(), placeholder.getPermission(), placeholder.isBuildIn()));
+        }
+        return signature;
+    }
+
+    private void updateContribution(UUID uuid, Set<String> contribution) {
+        Set<String> previous = contributions.getOrDefault(uuid, Collections.emptySet());
+        if (previous.equals(contribution)) {
+            return;
+        }
+        Set<String> changed = new HashSet<>();
+        for (String completion : previous) {
+            if (!contribution.contains(completion)) {
+                Set<UUID> completionOwners = owners.get(completion);
+                if (completionOwners != null && completionOwners.remove(uuid) && completionOwners.isEmpty()) {
+                    owners.remove(completion);
                 }
+                changed.add(completion);
+            }
+        }
+        for (String completion : contribution) {
+            if (!previous.contains(completion)) {
+                owners.computeIfAbsent(completion, k -> new HashSet<>()).add(uuid);
+                changed.add(completion);
             }
-        }, 0, 10);
+        }
+        if (contribution.isEmpty()) {
+            contributions.remove(uuid);
+        } else {
+            contributions.put(uuid, contribution);
+        }
+        for (Player tabCompleter : Bukkit.getOnlinePlayers()) {
+            if (registered.containsKey(tabCompleter.getUniqueId())) {
+                reconcile(tabCompleter, changed);
+            }
+        }
+    }
+
+    private void updatePlaceholderCompletions(Player tabCompleter) {
+        Set<String> completions = new HashSet<>();
+        for (ICPlaceholder placeholder : InteractiveChat.placeholderList.values()) {
+            if (tabCompleter.hasPermission(placeholder.getPermission()) || (!placeholder.isBuildIn() && !InteractiveChat.useCustomPlaceholderPermissions)) {
+                completions.add(ChatColorUtils.stripColor(placeholder.getName()));
+            }
+        }
+        UUID uuid = tabCompleter.getUniqueId();
+        Set<String> previous = placeholderCompletions.put(uuid, completions);
+        if (!registered.containsKey(uuid)) {
+            Set<String> candidates = new HashSet<>(completions);
+            candidates.addAll(owners.keySet());
+            reconcile(tabCompleter, candidates);
+        } else if (previous == null || !previous.equals(completions)) {
+            Set<String> candidates = new HashSet<>(completions);
+            if (previous != null) {
+                candidates.addAll(previous);
+            }
+            reconcile(tabCompleter, candidates);
+        }
+    }
+
+    private boolean shouldHave(UUID tabCompleter, String completion) {
+        Set<String> placeholders = placeholderCompletions.get(tabCompleter);
+        if (placeholders != null && placeholders.contains(completion)) {
+            return true;
+        }
+        Set<UUID> completionOwners = owners.get(completion);
+        if (completionOwners == null) {
+            return false;
+        }
+        return completionOwners.size() > 1 || !completionOwners.contains(tabCompleter);
+    }
+
+    private void reconcile(Player tabCompleter, Collection<String> candidates) {
+        UUID uuid = tabCompleter.getUniqueId();
+        Set<String> registeredCompletions = registered.computeIfAbsent(uuid, k -> new HashSet<>());
+        List<String> add = new ArrayList<>();
+        List<String> remove = new ArrayList<>();
+        for (String completion : candidates) {
+            boolean wanted = shouldHave(uuid, completion);
+            boolean present = registeredCompletions.contains(completion);
+            if (wanted && !present) {
+                add.add(completion);
+            } else if (!wanted && present) {
+                remove.add(completion);
+            }
+        }
+
+        if (!add.isEmpty()) {
+            InteractiveChat.protocolPlatform.sendTabCompletionPacket(tabCompleter, CustomTabCompletionAction.ADD, add);
+        }
+
+        if (!remove.isEmpty()) {
+            InteractiveChat.protocolPlatform.sendTabCompletionPacket(tabCompleter, CustomTabCompletionAction.REMOVE, remove);
+        }
+
+        registeredCompletions.removeAll(remove);
+        registeredCompletions.addAll(add);
     }
 
 }
@@ -20,93 +20,130 @@
 
 package com.loohp.interactivechat.objectholders;
 
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+/**
+ * Tracks the nicknames of local players and notifies listeners when they change.
+ * Nicknames are stored as immutable snapshots, so reads never take a lock.
+ * Every player is polled once per update period, spread over the ticks of the period by a rotating cursor so the
+ * work of one tick stays at about a period's share of the online players. Joining players and push-based sources call {@link #refresh(UUID)}
+ * to publish a change without waiting for the next poll, and {@link #forget(UUID)} drops a player that has left.
+ */
 public class NicknameManager implements AutoCloseable {
 
-    private Map<UUID, Set<String>> nicknames;
-    private Function<UUID, Collection<String>> nicknameFunction;
-    private Supplier<Set<UUID>> uuidSupplier;
-    private long updatePeriod;
-    private BiConsumer<UUID, Set<String>>[] changeListeners;
+    private final Map<UUID, Set<String>> nicknames;
+    private final Function<UUID, Collection<String>> nicknameFunction;
+    private final Supplier<Set<UUID>> uuidSupplier;
+    private final BiConsumer<UUID, Set<String>>[] changeListeners;
+
+    private final long periodTicks;
+    private final HousekeepingScheduler.Job task;
+    private final AtomicBoolean isValid;
 
-    private TimerTask timerTask;
-    private AtomicBoolean isValid;
-    private ReentrantLock lock;
+    private List<UUID> pollOrder;
+    private int pollCursor;
 
     @SafeVarargs
     public NicknameManager(Function<UUID, Collection<String>> nicknameFunction, Supplier<Set<UUID>> uuidSupplier, long updatePeriod, BiConsumer<UUID, Set<String>>... changeListeners) {
         this.nicknames = new ConcurrentHashMap<>();
         this.nicknameFunction = nicknameFunction;
         this.uuidSupplier = uuidSupplier;
-        this.updatePeriod = updatePeriod;
         this.changeListeners = changeListeners;
 
         this.isValid = new AtomicBoolean(true);
-        this.lock = new ReentrantLock();
-        run();
+        this.periodTicks = Math.max(1, updatePeriod / 50);
+        this.pollOrder = Collections.emptyList();
+        this.pollCursor = 0;
+        this.task = HousekeepingScheduler.schedule("nickname-poll", Execution.ASYNC, 1, 1, () -> poll());
     }
 
-    private void run() {
-        timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                Set<UUID> uuids = uuidSupplier.get();
-                nicknames.entrySet().removeIf(entry -> !uuids.contains(entry.getKey()));
-                for (UUID uuid : uuids) {
-                    Collection<String> newNicknames = new HashSet<>(nicknameFunction.apply(uuid));
-                    Set<String> oldNicknames = nicknames.get(uuid);
-                    if (oldNicknames == null) {
-                        Set<String> addedNicknames = new HashSet<>(newNicknames);
-                        nicknames.put(uuid, addedNicknames);
-                        fireListeners(uuid, addedNicknames);
-                    } else {
-                        lock.lock();
-                        oldNicknames.clear();
-                        oldNicknames.addAll(newNicknames);
-                        lock.unlock();
-                        fireListeners(uuid, oldNicknames);
-                    }
-                }
+    /**
+     * Polls the next ceil(n / periodTicks) players, the online players are read again once the cursor has gone round.
+     */
+    private synchronized void poll() {
+        if (pollCursor >= pollOrder.size()) {
+            Set<UUID> uuids = uuidSupplier.get();
+            nicknames.keySet().retainAll(uuids);
+            pollOrder = new ArrayList<>(uuids);
+            pollCursor = 0;
+        }
+        int batch = (int) ((pollOrder.size() + periodTicks - 1) / periodTicks);
+        int end = Math.min(pollOrder.size(), pollCursor + batch);
+        for (; pollCursor < end; pollCursor++) {
+            UUID uuid = pollOrder.get(pollCursor);
+            if (Bukkit.getPlayer(uuid) != null) {
+                update(uuid);
             }
-        };
-        new Timer().schedule(timerTask, updatePeriod, updatePeriod);
+        }
+    }
+
+    private void update(UUID uuid) {
+        Collection<String> result = nicknameFunction.apply(uuid);
+        Set<String> newNicknames = result == null || result.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(result));
+        Set<String> oldNicknames = nicknames.put(uuid, newNicknames);
+        if (oldNicknames == null || !oldNicknames.equals(newNicknames)) {
+            fireListeners(uuid, newNicknames);
+        }
     }
 
     private void fireListeners(UUID uuid, Set<String> names) {
         for (BiConsumer<UUID, Set<String>> listener : changeListeners) {
-            listener.accept(uuid, names);
+            try {
+                listener.accept(uuid, names);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
         }
     }
 
+    /**
+     * Re-reads the nicknames of a player right away, for sources that know when a nickname has changed.
+     */
+    public void refresh(UUID uuid) {
+        if (!isValid.get()) {
+            return;
+        }
+        HousekeepingScheduler.schedule("nickname-refresh", Execution.ASYNC, 0, () -> {
+            synchronized (this) {
+                if (isValid.get() && Bukkit.getPlayer(uuid) != null) {
+                    update(uuid);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the nicknames of a player that has left, so nothing is held until the next poll.
+     */
+    public void forget(UUID uuid) {
+        nicknames.remove(uuid);
+    }
+
     public Set<String> getNicknames(UUID uuid) {
         Set<String> names = nicknames.get(uuid);
-        if (names == null) {
-            return Collections.emptySet();
-        }
-        lock.lock();
-        names = new HashSet<>(names);
-        lock.unlock();
-        return names;
+        return names == null ? Collections.emptySet() : names;
     }
 
     @Override
-    public synchronized void close() {
+    public void close() {
         if (isValid.getAndSet(false)) {
-            timerTask.cancel();
+            task.cancel();
         }
     }
 
@@ -0,0 +1,96 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+
+/**
+ * An immutable copy of what is needed to build an {@link OfflineICPlayer}, cached between lookups.
+ * A snapshot is only reused while the modification time of the playerdata file it was read from is unchanged.
+ */
+public class OfflinePlayerSnapshot {
+
+    private final String name;
+    private final int selectedSlot;
+    private final boolean rightHanded;
+    private final int experienceLevel;
+    private final ItemStack[] inventory;
+    private final ItemStack[] enderchest;
+    private final long dataFileModified;
+
+    public OfflinePlayerSnapshot(String name, int selectedSlot, boolean rightHanded, int experienceLevel, ItemStack[] inventory, ItemStack[] enderchest, long dataFileModified) {
+        this.name = name;
+        this.selectedSlot = selectedSlot;
+        this.rightHanded = rightHanded;
+        this.experienceLevel = experienceLevel;
+        this.inventory = inventory;
+        this.enderchest = enderchest;
+        this.dataFileModified = dataFileModified;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSelectedSlot() {
+        return selectedSlot;
+    }
+
+    public boolean isRightHanded() {
+        return rightHanded;
+    }
+
+    public int getExperienceLevel() {
+        return experienceLevel;
+    }
+
+    public long getDataFileModified() {
+        return dataFileModified;
+    }
+
+    public boolean isValid(File dataFile) {
+        return (dataFile == null ? 0 : dataFile.lastModified()) == dataFileModified;
+    }
+
+    public Inventory createInventory() {
+        return createInventory(inventory);
+    }
+
+    public Inventory createEnderChest() {
+        return createInventory(enderchest);
+    }
+
+    private static Inventory createInventory(ItemStack[] contents) {
+        Inventory inventory = Bukkit.createInventory(ICInventoryHolder.INSTANCE, contents.length);
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack itemStack = contents[i];
+            if (itemStack != null) {
+                inventory.setItem(i, itemStack.clone());
+            }
+        }
+        return inventory;
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs plugin message handling on a fixed number of threads.
+ * Tasks are partitioned by their source, usually the backend server name. Tasks from the same source run one at a time
+ * and in submission order, while different sources run in parallel. Each partition has a bounded queue. Tasks submitted
+ * with a merge key replace a still pending task with the same key. When a queue is full, the oldest droppable mergeable
+ * task is evicted, and if there is none, a new droppable task is dropped. Tasks submitted as not droppable are always
+ * queued, even past the limit.
+ */
+public class PartitionedMessageExecutor implements AutoCloseable {
+
+    public static final int DRAIN_BATCH_SIZE = 64;
+
+    private final ExecutorService workers;
+    private final Map<String, Partition> partitions;
+    private final int queueLimit;
+    private final Consumer<String> overloadListener;
+
+    private final LongAdder submitted;
+    private final LongAdder completed;
+    private final LongAdder merged;
+    private final LongAdder dropped;
+    private final LongAdder totalLatencyNanos;
+    private final AtomicLong maxLatencyNanos;
+
+    public PartitionedMessageExecutor(int threads, int queueLimit, ThreadFactory threadFactory, Consumer<String> overloadListener) {
+        this.workers = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        ((ThreadPoolExecutor) workers).allowCoreThreadTimeOut(true);
+        this.partitions = new ConcurrentHashMap<>();
+        this.queueLimit = queueLimit;
+        this.overloadListener = overloadListener;
+        this.submitted = new LongAdder();
+        this.completed = new LongAdder();
+        this.merged = new LongAdder();
+        this.dropped = new LongAdder();
+        this.totalLatencyNanos = new LongAdder();
+        this.maxLatencyNanos = new AtomicLong();
+    }
+
+    public boolean submit(String source, Runnable task) {
+        return submit(source, null, task);
+    }
+
+    public boolean submit(String source, Object mergeKey, Runnable task) {
+        return submit(source, mergeKey, task, true);
+    }
+
+    /**
+     * @return false if the task was dropped because the queue is full or the executor has been closed
+     */
+    public boolean submit(String source, Object mergeKey, Runnable task, boolean droppable) {
+        if (workers.isShutdown()) {
+            return false;
+        }
+        submitted.increment();
+        Partition partition = partitions.computeIfAbsent(source, k -> new Partition());
+        boolean schedule;
+        synchronized (partition) {
+            if (mergeKey != null) {
+                PendingTask pending = partition.mergeable.get(mergeKey);
+                if (pending != null) {
+                    pending.task = task;
+                    merged.increment();
+                    return true;
+                }
+            }
+            if (droppable && partition.queue.size() >= queueLimit && !partition.evictMergeable()) {
+                dropped.increment();
+                if (!partition.overloaded) {
+                    partition.overloaded = true;
+                    overloadListener.accept(source);
+                }
+                return false;
+            }
+            PendingTask pending = new PendingTask(mergeKey, droppable, task, System.nanoTime());
+            partition.queue.add(pending);
+            if (mergeKey != null) {
+                partition.mergeable.put(mergeKey, pending);
+            }
+            schedule = !partition.scheduled;
+            partition.scheduled = true;
+        }
+        if (schedule) {
+            workers.execute(partition);
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Partition partition : partitions.values()) {
+            synchronized (partition) {
+                depth += partition.queue.size();
+            }
+        }
+        return depth;
+    }
+
+    public int getQueueDepth(String source) {
+        Partition partition = partitions.get(source);
+        if (partition == null) {
+            return 0;
+        }
+        synchronized (partition) {
+            return partition.queue.size();
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getMergedCount() {
+        return merged.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public double getAverageLatencyMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / (double) count / 1000000.0;
+    }
+
+    /**
+     * @return the longest wait since the last call, the maximum is reset by reading it
+     */
+    public double drainMaxLatencyMillis() {
+        return maxLatencyNanos.getAndSet(0) / 1000000.0;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    private class Partition implements Runnable {
+
+        private final Deque<PendingTask> queue;
+        private final Map<Object, PendingTask> mergeable;
+        private boolean scheduled;
+        private boolean overloaded;
+
+        private Partition() {
+            this.queue = new ArrayDeque<>();
+            this.mergeable = new HashMap<>();
+            this.scheduled = false;
+            this.overloaded = false;
+        }
+
+        private boolean evictMergeable() {
+            Iterator<PendingTask> itr = queue.iterator();
+            while (itr.hasNext()) {
+                PendingTask pending = itr.next();
+                if (pending.mergeKey != null && pending.droppable) {
+                    itr.remove();
+                    mergeable.remove(pending.mergeKey);
+                    dropped.increment();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+                PendingTask pending;
+                synchronized (this) {
+                    pending = queue.poll();
+                    if (pending == null) {
+                        scheduled = false;
+                        overloaded = false;
+                        return;
+                    }
+                    if (pending.mergeKey != null) {
+                        mergeable.remove(pending.mergeKey);
+                    }
+                }
+                long latency = System.nanoTime() - pending.enqueuedAt;
+                totalLatencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                try {
+                    pending.task.run();
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
+                completed.increment();
+            }
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    scheduled = false;
+                    overloaded = false;
+                    return;
+                }
+            }
+            if (!workers.isShutdown()) {
+                workers.execute(this);
+            }
+        }
+
+    }
+
+    private static class PendingTask {
+
+        private final Object mergeKey;
+        private final boolean droppable;
+        private final long enqueuedAt;
+        private Runnable task;
+
+        private PendingTask(Object mergeKey, boolean droppable, Runnable task, long enqueuedAt) {
+            this.mergeKey = mergeKey;
+            this.droppable = droppable;
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Last forwarded placeholder values of a local player.
+ * <p>
+ * Every update that changes at least one value bumps the version, so receivers applying the
+ * deltas in order can tell when they have missed one and ask for a keyframe instead.
+ */
+public class PlaceholderValueTable {
+
+    private final Map<String, String> values;
+    private int version;
+
+    public PlaceholderValueTable() {
+        this.values = new HashMap<>();
+        this.version = 0;
+    }
+
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * Records the given values and returns the ones that differ from what was last recorded.
+     * The version is bumped only if something changed.
+     */
+    public synchronized Map<String, String> update(Map<String, String> current) {
+        Map<String, String> changes = new HashMap<>();
+        for (Map.Entry<String, String> entry : current.entrySet()) {
+            if (!Objects.equals(values.put(entry.getKey(), entry.getValue()), entry.getValue())) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!changes.isEmpty()) {
+            version++;
+        }
+        return changes;
+    }
+
+    public synchronized Map<String, String> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(values));
+    }
+
+}
@@ -0,0 +1,283 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteStreams;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A read-only view over the chunks of a reassembled plugin message.
+ * <p>
+ * Chunks are slices of the original frames, so no bytes are copied unless a contiguous array is
+ * explicitly requested with {@link #toByteArray()} or the payload has to be inflated.
+ */
+public class PluginMessagePayload {
+
+    public static PluginMessagePayload wrap(byte[] data) {
+        return new PluginMessagePayload(0, Collections.singletonList(new Slice(data, 0, data.length)));
+    }
+
+    private final int flags;
+    private final List<Slice> slices;
+    private final int length;
+
+    protected PluginMessagePayload(int flags, List<Slice> slices) {
+        this.flags = flags;
+        this.slices = slices;
+        this.length = slices.stream().mapToInt(each -> each.getLength()).sum();
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public PluginMessagePayload decode() throws IOException {
+        if ((flags & PluginMessageFrameUtils.FLAG_DEFLATE) == 0) {
+            return this;
+        }
+        return wrap(PluginMessageFrameUtils.inflate(toByteArray()));
+    }
+
+    public ByteArrayDataInput newDataInput() {
+        if (slices.size() == 1) {
+            Slice slice = slices.get(0);
+            if (slice.getOffset() + slice.getLength() == slice.getArray().length) {
+                return ByteStreams.newDataInput(slice.getArray(), slice.getOffset());
+            }
+        }
+        return new CompositeDataInput(new DataInputStream(newInputStream()));
+    }
+
+    public InputStream newInputStream() {
+        if (slices.size() == 1) {
+            return slices.get(0).newInputStream();
+        }
+        return new SequenceInputStream(Collections.enumeration(slices.stream().map(each -> each.newInputStream()).collect(Collectors.toList())));
+    }
+
+    public byte[] toByteArray() {
+        if (slices.size() == 1) {
+            Slice slice = slices.get(0);
+            if (slice.getOffset() == 0 && slice.getLength() == slice.getArray().length) {
+                return slice.getArray();
+            }
+        }
+        byte[] data = new byte[length];
+        int pos = 0;
+        for (Slice slice : slices) {
+            System.arraycopy(slice.getArray(), slice.getOffset(), data, pos, slice.getLength());
+            pos += slice.getLength();
+        }
+        return data;
+    }
+
+    public static class Slice {
+
+        private final byte[] array;
+        private final int offset;
+        private final int length;
+
+        public Slice(byte[] array, int offset, int length) {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public byte[] getArray() {
+            return array;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public InputStream newInputStream() {
+            return new ByteArrayInputStream(array, offset, length);
+        }
+
+    }
+
+    private static class CompositeDataInput implements ByteArrayDataInput {
+
+        private final DataInput input;
+
+        private CompositeDataInput(DataInput input) {
+            this.input = input;
+        }
+
+        @Override
+        public void readFully(byte[] b) {
+            try {
+                input.readFully(b);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void readFully(byte[] b, int off, int len) {
+            try {
+                input.readFully(b, off, len);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int skipBytes(int n) {
+            try {
+                return input.skipBytes(n);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean readBoolean() {
+            try {
+                return input.readBoolean();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public byte readByte() {
+            try {
+                return input.readByte();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int readUnsignedByte() {
+            try {
+                return input.readUnsignedByte();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public short readShort() {
+            try {
+                return input.readShort();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int readUnsignedShort() {
+            try {
+                return input.readUnsignedShort();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public char readChar() {
+            try {
+                return input.readChar();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int readInt() {
+            try {
+                return input.readInt();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public long readLong() {
+            try {
+                return input.readLong();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public float readFloat() {
+            try {
+                return input.readFloat();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public double readDouble() {
+            try {
+                return input.readDouble();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public String readLine() {
+            try {
+                return input.readLine();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String readUTF() {
+            try {
+                return input.readUTF();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import com.loohp.interactivechat.objectholders.PluginMessagePayload.Slice;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils.FrameHeader;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the chunks of multi-frame plugin messages per (source, packet number) without copying them.
+ * <p>
+ * Incomplete messages expire after {@link #EXPIRY} milliseconds, and the total size of pending
+ * chunks is capped; once the cap is exceeded the oldest incomplete messages are dropped.
+ * <p>
+ * Whichever path removes a message marks it dead under its monitor and takes its bytes off the total,
+ * so a chunk racing with an expiry or eviction is never counted for a message that is already gone.
+ */
+public class PluginMessageReassembler {
+
+    public static final long EXPIRY = 10000;
+    public static final long DEFAULT_MEMORY_CAP = 32 * 1024 * 1024;
+
+    private final Map<Key, PendingMessage> pending;
+    private final AtomicLong pendingBytes;
+    private final long memoryCap;
+    private volatile long lastSweep;
+
+    public PluginMessageReassembler() {
+        this(DEFAULT_MEMORY_CAP);
+    }
+
+    public PluginMessageReassembler(long memoryCap) {
+        this.pending = new ConcurrentHashMap<>();
+        this.pendingBytes = new AtomicLong();
+        this.memoryCap = memoryCap;
+        this.lastSweep = System.currentTimeMillis();
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * @return the completed payload, or null if more chunks are still required
+     */
+    public PluginMessagePayload accept(String source, FrameHeader header, byte[] frame) {
+        Slice slice = new Slice(frame, header.getLength(), frame.length - header.getLength());
+        int chunkSize = header.getPacketChunkSize();
+        int chunkIndex = header.getPacketChunkIndex();
+        if (chunkSize <= 1) {
+            return new PluginMessagePayload(header.getFlags(), Arrays.asList(slice));
+        }
+        if ((long) chunkSize * PluginMessageFrameUtils.CHUNK_SIZE > PluginMessageFrameUtils.MAX_PAYLOAD_SIZE || chunkIndex < 0 || chunkIndex >= chunkSize) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastSweep > EXPIRY) {
+            lastSweep = now;
+            removeExpired();
+        }
+        Key key = new Key(source, header.getPacketNumber());
+        PendingMessage message = pending.computeIfAbsent(key, k -> new PendingMessage(chunkSize, now));
+        Slice[] completed;
+        synchronized (message) {
+            if (message.isDead() || message.getChunks().length != chunkSize || message.getChunks()[chunkIndex] != null) {
+                return null;
+            }
+            message.getChunks()[chunkIndex] = slice;
+            message.addBytes(slice.getLength());
+            pendingBytes.addAndGet(slice.getLength());
+            if (message.getRemaining() > 0) {
+                completed = null;
+            } else {
+                completed = message.getChunks();
+                pendingBytes.addAndGet(-message.kill());
+            }
+        }
+
+        if (completed == null) {
+            if (pendingBytes.get() > memoryCap) {
+                evict(now);
+            }
+            return null;
+        }
+        pending.remove(key, message);
+        return new PluginMessagePayload(header.getFlags(), Arrays.asList(completed));
+    }
+
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        pending.entrySet().removeIf(entry -> {
+            if (now - entry.getValue().getCreatedTime() > EXPIRY) {
+                pendingBytes.addAndGet(-entry.getValue().kill());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private synchronized void evict(long now) {
+        removeExpired();
+        if (pendingBytes.get() <= memoryCap) {
+            return;
+        }
+        pending.entrySet().stream().sorted(Comparator.comparingLong(entry -> entry.getValue().getCreatedTime())).map(entry -> entry.getKey()).forEachOrdered(key -> {
+            if (pendingBytes.get() > memoryCap) {
+                PendingMessage message = pending.remove(key);
+                if (message != null) {
+                    pendingBytes.addAndGet(-message.kill());
+                }
+            }
+        });
+    }
+
+    public void clear() {
+        pending.values().removeIf(message -> {
+            pendingBytes.addAndGet(-message.kill());
+            return true;
+        });
+    }
+
+    private static class PendingMessage {
+
+        private final Slice[] chunks;
+        private final long createdTime;
+        private int remaining;
+        private long bytes;
+        private boolean dead;
+
+        private PendingMessage(int chunkSize, long createdTime) {
+            this.chunks = new Slice[chunkSize];
+            this.createdTime = createdTime;
+            this.remaining = chunkSize;
+            this.bytes = 0;
+            this.dead = false;
+        }
+
+        public Slice[] getChunks() {
+            return chunks;
+        }
+
+        public long getCreatedTime() {
+            return createdTime;
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        public synchronized long getBytes() {
+            return bytes;
+        }
+
+        public synchronized void addBytes(int length) {
+            remaining--;
+            bytes += length;
+        }
+
+        public synchronized boolean isDead() {
+            return dead;
+        }
+
+        /**
+         * Marks the message as removed.
+         *
+         * @return the bytes still counted for it, or 0 if it was already removed by another path
+         */
+        public synchronized long kill() {
+            if (dead) {
+                return 0;
+            }
+            dead = true;
+            return bytes;
+        }
+
+    }
+
+    private static class Key {
+
+        private final String source;
+        private final int packetNumber;
+
+        private Key(String source, int packetNumber) {
+            this.source = source;
+            this.packetNumber = packetNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return packetNumber == key.packetNumber && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, packetNumber);
+        }
+
+    }
+
+}
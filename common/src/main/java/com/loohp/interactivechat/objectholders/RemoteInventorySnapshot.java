@@ -0,0 +1,126 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Last forwarded equipment, inventory or ender chest contents of a local player.
+ * <p>
+ * Every update that changes a slot or the header bumps the generation, receivers patch their copy slot by
+ * slot and ask for a keyframe once they notice a skipped generation.
+ */
+public class RemoteInventorySnapshot {
+
+    private ItemStack[] slots;
+    private boolean rightHanded;
+    private int selectedSlot;
+    private int level;
+    private String title;
+    private int generation;
+
+    public RemoteInventorySnapshot() {
+        this.slots = null;
+        this.generation = 0;
+    }
+
+    public synchronized int getGeneration() {
+        return generation;
+    }
+
+    public synchronized boolean isRightHanded() {
+        return rightHanded;
+    }
+
+    public synchronized int getSelectedSlot() {
+        return selectedSlot;
+    }
+
+    public synchronized int getLevel() {
+        return level;
+    }
+
+    public synchronized String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return true if the title differs from the one last recorded, in which case receivers need a keyframe to rebuild their copy
+     */
+    public synchronized boolean updateTitle(String title) {
+        boolean changed = !Objects.equals(this.title, title);
+        this.title = title;
+        return changed;
+    }
+
+    public synchronized int getSize() {
+        return slots == null ? 0 : slots.length;
+    }
+
+    /**
+     * Records the given contents and returns the slots that differ from what was last recorded.
+     * A change in size resets the snapshot, in which case every slot is returned.
+     * The generation is bumped only if something changed, otherwise null is returned.
+     */
+    public synchronized SortedMap<Integer, ItemStack> update(boolean rightHanded, int selectedSlot, int level, ItemStack[] contents) {
+        SortedMap<Integer, ItemStack> changes = new TreeMap<>();
+        boolean resized = slots == null || slots.length != contents.length;
+        if (resized) {
+            slots = new ItemStack[contents.length];
+        }
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack itemStack = normalize(contents[i]);
+            if (resized || !Objects.equals(slots[i], itemStack)) {
+                slots[i] = itemStack == null ? null : itemStack.clone();
+                changes.put(i, itemStack);
+            }
+        }
+        boolean headerChanged = this.rightHanded != rightHanded || this.selectedSlot != selectedSlot || this.level != level;
+        this.rightHanded = rightHanded;
+        this.selectedSlot = selectedSlot;
+        this.level = level;
+        if (changes.isEmpty() && !headerChanged && !resized) {
+            return null;
+        }
+        generation++;
+        return changes;
+    }
+
+    public synchronized SortedMap<Integer, ItemStack> snapshot() {
+        SortedMap<Integer, ItemStack> contents = new TreeMap<>();
+        if (slots != null) {
+            for (int i = 0; i < slots.length; i++) {
+                contents.put(i, slots[i]);
+            }
+        }
+        return contents;
+    }
+
+    private static ItemStack normalize(ItemStack itemStack) {
+        return itemStack == null || itemStack.getType().equals(Material.AIR) ? null : itemStack;
+    }
+
+}
@@ -0,0 +1,318 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.objectholders;
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.loohp.interactivechat.utils.DataTypeIO;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sequence numbered mirror of the network wide player list shared by the proxy and the backends.
+ * <p>
+ * The checksum is an order independent sum of per entry hashes so that it can be maintained
+ * incrementally while applying deltas.
+ */
+public class SyncedPlayerList {
+
+    public static final int MODE_SNAPSHOT = 0;
+    public static final int MODE_DELTA = 1;
+
+    public static final int OP_UPSERT = 0;
+    public static final int OP_REMOVE = 1;
+    public static final int OP_VANISH = 2;
+
+    private final Map<UUID, Entry> entries;
+    private long checksum;
+    private int sequence;
+
+    public SyncedPlayerList() {
+        this.entries = new HashMap<>();
+        this.checksum = 0;
+        this.sequence = 0;
+    }
+
+    public synchronized int getSequence() {
+        return sequence;
+    }
+
+    public synchronized void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    public synchronized int nextSequence() {
+        return ++sequence;
+    }
+
+    public synchronized long getChecksum() {
+        return checksum;
+    }
+
+    public synchronized Entry get(UUID uuid) {
+        return entries.get(uuid);
+    }
+
+    public synchronized Map<UUID, Entry> getEntries() {
+        return Collections.unmodifiableMap(new HashMap<>(entries));
+    }
+
+    public synchronized boolean upsert(UUID uuid, String server, String name) {
+        Entry previous = entries.get(uuid);
+        boolean vanished = previous != null && previous.isVanished();
+        return put(uuid, new Entry(server, name, vanished));
+    }
+
+    public synchronized boolean put(UUID uuid, Entry entry) {
+        Entry previous = entries.put(uuid, entry);
+        if (entry.equals(previous)) {
+            return false;
+        }
+        if (previous != null) {
+            checksum -= hash(uuid, previous);
+        }
+        checksum += hash(uuid, entry);
+        return true;
+    }
+
+    public synchronized boolean remove(UUID uuid) {
+        Entry previous = entries.remove(uuid);
+        if (previous == null) {
+            return false;
+        }
+        checksum -= hash(uuid, previous);
+        return true;
+    }
+
+    public synchronized boolean setVanished(UUID uuid, boolean vanished) {
+        Entry previous = entries.get(uuid);
+        if (previous == null || previous.isVanished() == vanished) {
+            return false;
+        }
+        return put(uuid, new Entry(previous.getServer(), previous.getName(), vanished));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        checksum = 0;
+    }
+
+    /**
+     * Replaces the current entries with the given ones, keeping vanish states of players already present.
+     *
+     * @return the changes that were applied, in wire order
+     */
+    public synchronized List<Change> update(Map<UUID, ValuePairs<String, String>> current) {
+        List<Change> changes = new ArrayList<>();
+        for (UUID uuid : new HashSet<>(entries.keySet())) {
+            if (!current.containsKey(uuid)) {
+                remove(uuid);
+                changes.add(Change.remove(uuid));
+            }
+        }
+        for (Map.Entry<UUID, ValuePairs<String, String>> entry : current.entrySet()) {
+            UUID uuid = entry.getKey();
+            String server = entry.getValue().getFirst();
+            String name = entry.getValue().getSecond();
+            if (upsert(uuid, server, name)) {
+                changes.add(Change.upsert(uuid, server, name));
+            }
+        }
+        return changes;
+    }
+
+    public synchronized List<Change> updateVanished(Map<UUID, Boolean> vanishStates) {
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<UUID, Boolean> entry : vanishStates.entrySet()) {
+            if (setVanished(entry.getKey(), entry.getValue())) {
+                changes.add(Change.vanish(entry.getKey(), entry.getValue()));
+            }
+        }
+        return changes;
+    }
+
+    public synchronized void apply(Change change) {
+        switch (change.getOperation()) {
+            case OP_UPSERT:
+                upsert(change.getUniqueId(), change.getServer(), change.getName());
+                break;
+            case OP_REMOVE:
+                remove(change.getUniqueId());
+                break;
+            case OP_VANISH:
+                setVanished(change.getUniqueId(), change.isVanished());
+                break;
+        }
+    }
+
+    public synchronized Set<UUID> getUniqueIds() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    public synchronized void writeSnapshot(ByteArrayDataOutput out) throws IOException {
+        out.writeByte(MODE_SNAPSHOT);
+        out.writeInt(sequence);
+        out.writeInt(entries.size());
+        for (Map.Entry<UUID, Entry> entry : entries.entrySet()) {
+            DataTypeIO.writeUUID(out, entry.getKey());
+            DataTypeIO.writeString(out, entry.getValue().getServer(), StandardCharsets.UTF_8);
+            DataTypeIO.writeString(out, entry.getValue().getName(), StandardCharsets.UTF_8);
+            out.writeBoolean(entry.getValue().isVanished());
+        }
+        out.writeLong(checksum);
+    }
+
+    public synchronized void writeDelta(ByteArrayDataOutput out, List<Change> changes) throws IOException {
+        out.writeByte(MODE_DELTA);
+        out.writeInt(sequence);
+        out.writeInt(changes.size());
+        for (Change change : changes) {
+            out.writeByte(change.getOperation());
+            DataTypeIO.writeUUID(out, change.getUniqueId());
+            switch (change.getOperation()) {
+                case OP_UPSERT:
+                    DataTypeIO.writeString(out, change.getServer(), StandardCharsets.UTF_8);
+                    DataTypeIO.writeString(out, change.getName(), StandardCharsets.UTF_8);
+                    break;
+                case OP_VANISH:
+                    out.writeBoolean(change.isVanished());
+                    break;
+            }
+        }
+        out.writeLong(checksum);
+    }
+
+    private static long hash(UUID uuid, Entry entry) {
+        long h = uuid.getMostSignificantBits() * 31 + uuid.getLeastSignificantBits();
+        h = h * 31 + entry.getServer().hashCode();
+        h = h * 31 + entry.getName().hashCode();
+        h = h * 31 + (entry.isVanished() ? 1 : 0);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public static class Entry {
+
+        private final String server;
+        private final String name;
+        private final boolean vanished;
+
+        public Entry(String server, String name, boolean vanished) {
+            this.server = server;
+            this.name = name;
+            this.vanished = vanished;
+        }
+
+        public String getServer() {
+            return server;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isVanished() {
+            return vanished;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Entry entry = (Entry) o;
+            return vanished == entry.vanished && server.equals(entry.server) && name.equals(entry.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(server, name, vanished);
+        }
+
+    }
+
+    public static class Change {
+
+        public static Change upsert(UUID uuid, String server, String name) {
+            return new Change(OP_UPSERT, uuid, server, name, false);
+        }
+
+        public static Change remove(UUID uuid) {
+            return new Change(OP_REMOVE, uuid, null, null, false);
+        }
+
+        public static Change vanish(UUID uuid, boolean vanished) {
+            return new Change(OP_VANISH, uuid, null, null, vanished);
+        }
+
+        private final int operation;
+        private final UUID uuid;
+        private final String server;
+        private final String name;
+        private final boolean vanished;
+
+        private Change(int operation, UUID uuid, String server, String name, boolean vanished) {
+            this.operation = operation;
+            this.uuid = uuid;
+            this.server = server;
+            this.name = name;
+            this.vanished = vanished;
+        }
+
+        public int getOperation() {
+            return operation;
+        }
+
+        public UUID getUniqueId() {
+            return uuid;
+        }
+
+        public String getServer() {
+            return server;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isVanished() {
+            return vanished;
+        }
+
+    }
+
+}
@@ -22,9 +22,10 @@ package com.loohp.interactivechat.objectholders;
 
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.*;
 import com.loohp.interactivechat.utils.HTTPRequestUtils;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -78,9 +79,9 @@ public class WebData {
     }
 
     private void run() {
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("web-data-reload", Execution.BLOCKING, 18000, 18000, () -> {
             reload();
-        }, 18000, 18000);
+        });
     }
 
     public void reload() {
@@ -6,8 +6,6 @@ import com.loohp.interactivechat.objectholders.AsyncChatSendingExecutor;
 import com.loohp.interactivechat.objectholders.OutboundPacket;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
-import org.tjdev.util.tjpluginutil.spigot.scheduler.universalscheduler.scheduling.tasks.MyScheduledTask;
 
 import java.util.Map;
 import java.util.Queue;
@@ -20,19 +18,17 @@ public class ProtocolLibAsyncChatSendingExecutor extends AsyncChatSendingExecuto
         super(executionWaitTime, killThreadAfter);
     }
 
+    /**
+     * Sends straight from the releasing thread, ProtocolLib hands the write over to the receiver's own channel event loop.
+     */
     @Override
-    public MyScheduledTask packetSender() {
-        return FoliaUtil.scheduler.runTaskTimer(() -> {
-            while (!sendingQueue.isEmpty()) {
-                OutboundPacket out = sendingQueue.poll();
-                try {
-                    if (out.getReciever().isOnline()) {
-                        ProtocolLibPlatform.protocolManager.sendServerPacket(out.getReciever(), (PacketContainer) out.getPacket(), false);
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+    protected void deliver(OutboundPacket outboundPacket) {
+        try {
+            if (outboundPacket.getReciever().isOnline()) {
+                ProtocolLibPlatform.protocolManager.sendServerPacket(outboundPacket.getReciever(), (PacketContainer) outboundPacket.getPacket(), false);
             }
-        }, 0, 1);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
     }
 }
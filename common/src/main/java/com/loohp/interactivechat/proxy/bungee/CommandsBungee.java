@@ -20,6 +20,7 @@
 
 package com.loohp.interactivechat.proxy.bungee;
 
+import com.loohp.interactivechat.objectholders.PartitionedMessageExecutor;
 import com.loohp.interactivechat.proxy.objectholders.BackendInteractiveChatData;
 import com.loohp.interactivechat.registry.Registry;
 import net.kyori.adventure.text.Component;
@@ -55,6 +56,8 @@ public class CommandsBungee extends Command implements TabExecutor {
                 if (args[0].equalsIgnoreCase("backendinfo") && InteractiveChatBungee.hasPermission(sender, "interactivechat.backendinfo").get()) {
                     InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.AQUA + "Proxy -> InteractiveChat: " + InteractiveChatBungee.plugin.getDescription().getVersion() + " (PM Protocol: " + Registry.PLUGIN_MESSAGING_PROTOCOL_VERSION + ")"));
                     InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.AQUA + "Expected latency: " + InteractiveChatBungee.delay + " ms"));
+                    PartitionedMessageExecutor executor = InteractiveChatBungee.pluginMessageHandlingExecutor;
+                    InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.AQUA + "Plugin message queue: " + executor.getQueueDepth() + " pending | Avg wait: " + String.format("%.2f", executor.getAverageLatencyMillis()) + " ms | Max wait since last check: " + String.format("%.2f", executor.drainMaxLatencyMillis()) + " ms | Merged: " + executor.getMergedCount() + " | Dropped: " + executor.getDroppedCount()));
                     InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.AQUA + "Backends under this proxy:"));
                     ProxyServer.getInstance().getServers().values().stream().sorted(Comparator.comparing(each -> each.getName())).forEach(server -> {
                         String name = server.getName();
@@ -67,7 +70,7 @@ public class CommandsBungee extends Command implements TabExecutor {
                                 if (!data.hasInteractiveChat()) {
                                     InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.YELLOW + name + " -> InteractiveChat: NOT INSTALLED (PM Protocol: -1) | Minecraft: " + minecraftVersion + " | Ping: " + (data.getPing() < 0 ? "N/A" : (data.getPing() + " ms"))));
                                 } else {
-                                    InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.GREEN + name + " -> InteractiveChat: " + data.getVersion() + " (PM Protocol: " + data.getProtocolVersion() + ") | Minecraft: " + minecraftVersion + " | Ping: " + (data.getPing() < 0 ? "N/A" : (data.getPing() + " ms"))));
+                                    InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.GREEN + name + " -> InteractiveChat: " + data.getVersion() + " (PM Protocol: " + data.getProtocolVersion() + ") | Minecraft: " + minecraftVersion + " | Ping: " + (data.getPing() < 0 ? "N/A" : (data.getPing() + " ms")) + " | Queue: " + InteractiveChatBungee.pluginMessageHandlingExecutor.getQueueDepth(name)));
                                 }
                             } else {
                                 InteractiveChatBungee.sendMessage(sender, LegacyComponentSerializer.legacySection().deserialize(ChatColor.RED + name + " -> Status: OFFLINE"));
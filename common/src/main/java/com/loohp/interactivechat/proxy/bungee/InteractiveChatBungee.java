@@ -20,12 +20,10 @@
 
 package com.loohp.interactivechat.proxy.bungee;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.io.ByteArrayDataInput;
-import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.loohp.interactivechat.bungeemessaging.PluginMessageTransport;
 import com.loohp.interactivechat.config.Config;
 import com.loohp.interactivechat.objectholders.BuiltInPlaceholder;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder;
@@ -35,6 +33,11 @@ import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlacehold
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderReplaceText;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.ParsePlayer;
 import com.loohp.interactivechat.objectholders.ICPlaceholder;
+import com.loohp.interactivechat.objectholders.PartitionedMessageExecutor;
+import com.loohp.interactivechat.objectholders.PluginMessagePayload;
+import com.loohp.interactivechat.objectholders.PluginMessageReassembler;
+import com.loohp.interactivechat.objectholders.SyncedPlayerList;
+import com.loohp.interactivechat.objectholders.ValuePairs;
 import com.loohp.interactivechat.proxy.bungee.metrics.Charts;
 import com.loohp.interactivechat.proxy.bungee.metrics.Metrics;
 import com.loohp.interactivechat.proxy.objectholders.BackendInteractiveChatData;
@@ -43,10 +46,13 @@ import com.loohp.interactivechat.proxy.objectholders.ForwardedMessageData;
 import com.loohp.interactivechat.proxy.objectholders.ProxyHandlePacketTypes;
 import com.loohp.interactivechat.proxy.objectholders.ProxyMessageForwardingHandler;
 import com.loohp.interactivechat.proxy.objectholders.ProxyPlayerCooldownManager;
+import com.loohp.interactivechat.proxy.objectholders.ProxyRemoteDataCache;
 import com.loohp.interactivechat.registry.Registry;
-import com.loohp.interactivechat.utils.CustomArrayUtils;
+import com.loohp.interactivechat.registry.Registry.PluginMessagingFeature;
 import com.loohp.interactivechat.utils.DataTypeIO;
 import com.loohp.interactivechat.utils.InteractiveChatComponentSerializer;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils.FrameHeader;
 import com.viaversion.viaversion.api.Via;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
@@ -90,10 +96,8 @@ import net.md_5.bungee.protocol.packet.Title.Action;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
-import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -106,9 +110,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Filter;
@@ -122,7 +124,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
 
     public static final int BSTATS_PLUGIN_ID = 8839;
     public static final String CONFIG_ID = "config";
-    private static final Map<Integer, byte[][]> incoming;
+    private static final PluginMessageReassembler reassembler = new PluginMessageReassembler();
     private static final Map<Integer, Boolean> permissionChecks = new ConcurrentHashMap<>();
     public static boolean viaVersionHook = false;
     public static InteractiveChatBungee plugin;
@@ -140,19 +142,41 @@ public class InteractiveChatBungee extends Plugin implements Listener {
     protected static Random random = new Random();
     protected static Map<UUID, Set<ForwardedMessageData>> forwardedMessages = new ConcurrentHashMap<>();
     protected static Map<String, BackendInteractiveChatData> serverInteractiveChatInfo = new ConcurrentHashMap<>();
+    protected static ProxyRemoteDataCache remoteDataCache = new ProxyRemoteDataCache();
+    protected static SyncedPlayerList playerList = new SyncedPlayerList();
     private static volatile boolean filtersAdded = false;
     private static ProxyMessageForwardingHandler messageForwardingHandler;
-    private static ThreadPoolExecutor pluginMessageHandlingExecutor;
-
-    static {
-        Cache<Integer, byte[][]> incomingCache = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.SECONDS).build();
-        incoming = incomingCache.asMap();
-    }
+    protected static PartitionedMessageExecutor pluginMessageHandlingExecutor;
+    private static final Map<String, PluginMessageTransport> transports = new ConcurrentHashMap<>();
 
     public static Map<String, BackendInteractiveChatData> getBackendInteractiveChatInfo() {
         return Collections.unmodifiableMap(serverInteractiveChatInfo);
     }
 
+    public static boolean supports(String server, PluginMessagingFeature feature) {
+        BackendInteractiveChatData data = serverInteractiveChatInfo.get(server);
+        return data != null && data.supports(feature);
+    }
+
+    public static boolean isNegotiated(PluginMessagingFeature feature) {
+        return BackendInteractiveChatData.isNegotiated(serverInteractiveChatInfo.values(), feature);
+    }
+
+    public static PluginMessageTransport getTransport(String server) {
+        return transports.get(server);
+    }
+
+    /**
+     * Replaces the connection path for frames sent to a backend server, or restores it when given null.
+     */
+    public static void setTransport(String server, PluginMessageTransport transport) {
+        if (transport == null) {
+            transports.remove(server);
+        } else {
+            transports.put(server, transport);
+        }
+    }
+
     public static CompletableFuture<Boolean> hasPermission(CommandSender sender, String permission) {
         CompletableFuture<Boolean> future = new CompletableFuture<>();
         if (!(sender instanceof ProxiedPlayer)) {
@@ -282,14 +306,18 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                 }
             }, delay + 50, TimeUnit.MILLISECONDS);
         }, (info, component) -> {
-            BaseComponent baseComponent = new TextComponent("<QUxSRUFEWVBST0NFU1NFRA==>");
+            BaseComponent baseComponent = new TextComponent("");
             for (BaseComponent part : ComponentSerializer.parse(component)) {
+                if (part instanceof TextComponent) {
+                    TextComponent textPart = (TextComponent) part;
+                    textPart.setText(ProxyMessageForwardingHandler.stripMessageIds(textPart.getText()));
+                }
                 baseComponent.addExtra(part);
             }
             DefinedPacket definedPacket;
             switch (info.getType()) {
                 case LEGACY_CHAT:
-                    definedPacket = new Chat(component + "<QUxSRUFEWVBST0NFU1NFRA==>", (byte) info.getPosition());
+                    definedPacket = new Chat(ProxyMessageForwardingHandler.stripMessageIds(component), (byte) info.getPosition());
                     break;
                 case SYSTEM_CHAT:
                     definedPacket = new SystemChat(baseComponent, info.getPosition());
@@ -297,7 +325,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                 /*
                 case PLAYER_CHAT:
                     PlayerChat originalChat = (PlayerChat) info.getOriginalPacket();
-                    definedPacket = new PlayerChat(originalChat.getSignedContent(), component + "<QUxSRUFEWVBST0NFU1NFRA==>", originalChat.getSender(), info.getPosition(), originalChat.getDisplayName(), originalChat.getTeamName(), originalChat.getTimestamp(), originalChat.getSalt(), originalChat.getSignature());
+                    definedPacket = new PlayerChat(originalChat.getSignedContent(), ProxyMessageForwardingHandler.stripMessageIds(component), originalChat.getSender(), info.getPosition(), originalChat.getDisplayName(), originalChat.getTeamName(), originalChat.getTimestamp(), originalChat.getSalt(), originalChat.getSignature());
                     break;
                 */
                 case TITLE:
@@ -318,31 +346,22 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                     throw new IllegalStateException("Unable to send packet of type " + info.getType());
             }
             UserConnection userConnection = (UserConnection) ProxyServer.getInstance().getPlayer(info.getPlayer());
-            ChannelWrapper channelWrapper;
-            Field channelField = null;
             if (userConnection == null) {
                 return;
             }
-            try {
-                channelField = userConnection.getClass().getDeclaredField("ch");
-                channelField.setAccessible(true);
-                channelWrapper = (ChannelWrapper) channelField.get(userConnection);
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                throw new RuntimeException(e);
-            } finally {
-                if (channelField != null) {
-                    channelField.setAccessible(false);
-                }
-            }
-            channelWrapper.write(definedPacket);
+            messageForwardingHandler.markProcessed(definedPacket);
+            getChannelWrapper(userConnection).write(definedPacket);
         }, uuid -> {
             return ProxyServer.getInstance().getPlayer(uuid) != null;
         }, uuid -> {
             return hasInteractiveChat(ProxyServer.getInstance().getPlayer(uuid).getServer());
+        }, uuid -> {
+            UserConnection userConnection = (UserConnection) ProxyServer.getInstance().getPlayer(uuid);
+            return userConnection == null ? null : getChannelWrapper(userConnection).getHandle().eventLoop();
         }, () -> (long) delay + 2000);
 
         ThreadFactory factory = new ThreadFactoryBuilder().setNameFormat("InteractiveChatProxy Async PluginMessage Processing Thread #%d").build();
-        pluginMessageHandlingExecutor = new ThreadPoolExecutor(8, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(true), factory);
+        pluginMessageHandlingExecutor = new PartitionedMessageExecutor(8, 4096, factory, source -> ProxyServer.getInstance().getLogger().warning(ChatColor.YELLOW + "[InteractiveChat] Plugin message queue for " + source + " is full, messages from it are being dropped until it drains"));
 
         ProxyServer.getInstance().getLogger().info(ChatColor.GREEN + "[InteractiveChat] InteractiveChat (Bungeecord) has been enabled!");
 
@@ -353,7 +372,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
     public void onDisable() {
         try {
             messageForwardingHandler.close();
-            pluginMessageHandlingExecutor.shutdown();
+            pluginMessageHandlingExecutor.close();
             ServerPingBungee.shutdown();
         } catch (Exception e) {
             e.printStackTrace();
@@ -413,172 +432,46 @@ public class InteractiveChatBungee extends Plugin implements Listener {
 
         event.setCancelled(true);
 
-        try {
-            Connection source = event.getSender();
+        Connection source = event.getSender();
 
-            if (!(source instanceof Server)) {
-                if (source instanceof ProxiedPlayer) {
-                    ProxyServer.getInstance().getLogger().info(ChatColor.RED + "[InteractiveChat] Suspicious client to server plugin message recieved from " + ((ProxiedPlayer) source).getName() + ", they might be using a modified client for exploits.");
-                }
-                return;
+        if (!(source instanceof Server)) {
+            if (source instanceof ProxiedPlayer) {
+                ProxyServer.getInstance().getLogger().info(ChatColor.RED + "[InteractiveChat] Suspicious client to server plugin message recieved from " + ((ProxiedPlayer) source).getName() + ", they might be using a modified client for exploits.");
             }
+            return;
+        }
 
-            Server senderServer = (Server) source;
-            SocketAddress senderServerAddress = event.getSender().getSocketAddress();
+        receiveFrame(event.getData(), (Server) source);
+    }
 
-            byte[] packet = Arrays.copyOf(event.getData(), event.getData().length);
-            ByteArrayDataInput in = ByteStreams.newDataInput(packet);
-            int packetNumber = in.readInt();
-            int packetChunkIndex = in.readInt();
-            int packetChunkSize = in.readInt();
-            int packetId = in.readShort();
+    /**
+     * Accepts an inbound interchat:main frame sent by a backend server, either from its connection or from a {@link PluginMessageTransport}.
+     */
+    public void receiveFrame(byte[] packet, Server senderServer) {
+        try {
+            String senderServerName = senderServer.getInfo().getName();
 
-            if (!Registry.PROXY_PASSTHROUGH_RELAY_PACKETS.contains(packetId)) {
-                byte[] data = new byte[packet.length - 14];
-                in.readFully(data);
+            FrameHeader header = PluginMessageFrameUtils.readHeader(ByteStreams.newDataInput(packet));
+            int packetId = header.getPacketId();
 
-                byte[][] chunks = incoming.remove(packetNumber);
-                if (chunks == null) {
-                    chunks = new byte[packetChunkSize][];
-                }
-                if (chunks.length != packetChunkSize) {
-                    byte[][] adjusted = new byte[packetChunkSize][];
-                    System.arraycopy(chunks, 0, adjusted, 0, adjusted.length);
-                    chunks = adjusted;
-                }
-                if (packetChunkIndex >= 0 && packetChunkIndex < chunks.length) {
-                    chunks[packetChunkIndex] = data;
-                }
-                if (CustomArrayUtils.anyNull(chunks)) {
-                    incoming.put(packetNumber, chunks);
+            if (!Registry.PROXY_PASSTHROUGH_RELAY_PACKETS.contains(packetId)) {
+                PluginMessagePayload payload = reassembler.accept(senderServerName, header, packet);
+                if (payload == null) {
                     return;
                 }
-                data = new byte[Arrays.stream(chunks).mapToInt(a -> a.length).sum()];
-                for (int i = 0, pos = 0; i < chunks.length; i++) {
-                    byte[] chunk = chunks[i];
-                    System.arraycopy(chunk, 0, data, pos, chunk.length);
-                    pos += chunk.length;
-                }
-
-                byte[] finalData = data;
-                byte[][] finalChunks = chunks;
-                pluginMessageHandlingExecutor.submit(() -> {
+                PluginMessagePayload finalPayload = payload.decode();
+                pluginMessageHandlingExecutor.submit(senderServerName, Registry.PROXY_MERGEABLE_PACKETS.contains(packetId) ? packetId : null, () -> {
                     try {
-                        ByteArrayDataInput input = ByteStreams.newDataInput(finalData);
-                        switch (packetId) {
-                            case 0x07:
-                                int cooldownType = input.readByte();
-                                switch (cooldownType) {
-                                    case 0:
-                                        UUID uuid = DataTypeIO.readUUID(input);
-                                        long time = input.readLong();
-                                        playerCooldownManager.setPlayerUniversalLastTimestamp(uuid, time);
-                                        break;
-                                    case 1:
-                                        uuid = DataTypeIO.readUUID(input);
-                                        UUID internalId = DataTypeIO.readUUID(input);
-                                        time = input.readLong();
-                                        playerCooldownManager.setPlayerPlaceholderLastTimestamp(uuid, internalId, time);
-                                        break;
-                                }
-                                List<ServerInfo> servers = getProxy().getServers().values().stream().filter(e -> !e.getSocketAddress().equals(senderServerAddress) && !e.getPlayers().isEmpty()).collect(Collectors.toList());
-                                for (int i = 0; i < finalChunks.length; i++) {
-                                    byte[] chunk = finalChunks[i];
-                                    ByteArrayDataOutput out = ByteStreams.newDataOutput();
-                                    out.writeInt(packetNumber); //random packet number
-                                    out.writeInt(i); //packet chunk index
-                                    out.writeInt(finalChunks.length); //packet total chunks
-                                    out.writeShort(packetId); //packet id
-                                    out.write(chunk);
-                                    for (ServerInfo eachServer : servers) {
-                                        eachServer.sendData("interchat:main", out.toByteArray());
-                                        pluginMessagesCounter.incrementAndGet();
-                                    }
-                                }
-                                break;
-                            case 0x08:
-                                UUID messageId = DataTypeIO.readUUID(input);
-                                String component = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                messageForwardingHandler.receivedProcessedMessage(messageId, component);
-                                break;
-                            case 0x09:
-                                loadConfig();
-                                break;
-                            case 0x0B:
-                                int id = input.readInt();
-                                boolean permissionValue = input.readBoolean();
-                                permissionChecks.put(id, permissionValue);
-                                break;
-                            case 0x0C:
-                                int size1 = input.readInt();
-                                List<ICPlaceholder> list = new ArrayList<>(size1);
-                                for (int i = 0; i < size1; i++) {
-                                    boolean isBulitIn = input.readBoolean();
-                                    if (isBulitIn) {
-                                        String keyword = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        long cooldown = input.readLong();
-                                        list.add(new BuiltInPlaceholder(Pattern.compile(keyword), name, description, permission, cooldown));
-                                    } else {
-                                        String key = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        ParsePlayer parseplayer = ParsePlayer.fromOrder(input.readByte());
-                                        String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        boolean parseKeyword = input.readBoolean();
-                                        long cooldown = input.readLong();
-                                        boolean hoverEnabled = input.readBoolean();
-                                        String hoverText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        boolean clickEnabled = input.readBoolean();
-                                        String clickAction = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String clickValue = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        boolean replaceEnabled = input.readBoolean();
-                                        String replaceText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-
-                                        list.add(new CustomPlaceholder(key, parseplayer, Pattern.compile(placeholder), parseKeyword, cooldown, new CustomPlaceholderHoverEvent(hoverEnabled, hoverText), new CustomPlaceholderClickEvent(clickEnabled, clickEnabled ? ClickEventAction.valueOf(clickAction) : null, clickValue), new CustomPlaceholderReplaceText(replaceEnabled, replaceText), name, description));
-                                    }
-                                }
-                                placeholderList.put(senderServer.getInfo().getName(), list);
-                                playerCooldownManager.reloadPlaceholders(placeholderList.values().stream().flatMap(each -> each.stream()).distinct().collect(Collectors.toList()));
-                                PluginMessageSendingBungee.forwardPlaceholderList(list, senderServer.getInfo());
-                                break;
-                            case 0x0D:
-                                UUID uuid2 = DataTypeIO.readUUID(input);
-                                PluginMessageSendingBungee.reloadPlayerData(uuid2, senderServer.getInfo());
-                                break;
-                            case 0x10:
-                                UUID requestUUID = DataTypeIO.readUUID(input);
-                                int requestType = input.readByte();
-                                switch (requestType) {
-                                    case 0:
-                                        PluginMessageSendingBungee.respondPlayerListRequest(requestUUID, senderServer.getInfo());
-                                        break;
-                                    default:
-                                        break;
-                                }
-                            case 0x15:
-                                UUID playerUUID = DataTypeIO.readUUID(input);
-                                String command = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                ProxiedPlayer proxiedPlayer = ProxyServer.getInstance().getPlayer(playerUUID);
-                                if (proxiedPlayer != null) {
-                                    if (!ProxyServer.getInstance().getPluginManager().dispatchCommand(proxiedPlayer, command)) {
-                                        PluginMessageSendingBungee.executeBackendCommand(playerUUID, command, senderServer.getInfo());
-                                    }
-                                }
-                                break;
-                        }
+                        handlePacket(packetId, finalPayload, senderServer);
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
                 });
             } else {
-                pluginMessageHandlingExecutor.submit(() -> {
+                pluginMessageHandlingExecutor.submit(senderServerName, () -> {
                     for (ServerInfo server : getProxy().getServers().values()) {
-                        if (!server.getSocketAddress().equals(senderServerAddress) && !server.getPlayers().isEmpty()) {
-                            server.sendData("interchat:main", event.getData());
-                            pluginMessagesCounter.incrementAndGet();
+                        if (!server.getName().equals(senderServerName) && !server.getPlayers().isEmpty()) {
+                            PluginMessageSendingBungee.sendFrame(server, packet);
                         }
                     }
                 });
@@ -588,6 +481,180 @@ public class InteractiveChatBungee extends Plugin implements Listener {
         }
     }
 
+    private void handlePacket(int packetId, PluginMessagePayload payload, Server senderServer) throws IOException {
+        handlePacket(packetId, payload, senderServer, null);
+    }
+
+    /**
+     * @param batchRelay if not null, records to relay are appended to it instead of being sent on their own
+     */
+    private void handlePacket(int packetId, PluginMessagePayload payload, Server senderServer, List<ValuePairs<Integer, byte[]>> batchRelay) throws IOException {
+        ByteArrayDataInput input = payload.newDataInput();
+        switch (packetId) {
+            case 0x07:
+                int cooldownType = input.readByte();
+                switch (cooldownType) {
+                    case 0:
+                        UUID uuid = DataTypeIO.readUUID(input);
+                        long time = input.readLong();
+                        playerCooldownManager.setPlayerUniversalLastTimestamp(uuid, time);
+                        break;
+                    case 1:
+                        uuid = DataTypeIO.readUUID(input);
+                        UUID internalId = DataTypeIO.readUUID(input);
+                        time = input.readLong();
+                        playerCooldownManager.setPlayerPlaceholderLastTimestamp(uuid, internalId, time);
+                        break;
+                }
+                if (batchRelay == null) {
+                    PluginMessageSendingBungee.relayData(packetId, payload.toByteArray(), senderServer.getInfo());
+                } else {
+                    batchRelay.add(new ValuePairs<>(packetId, payload.toByteArray()));
+                }
+                break;
+            case 0x08:
+                UUID messageId = DataTypeIO.readUUID(input);
+                String component = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                messageForwardingHandler.receivedProcessedMessage(messageId, component);
+                break;
+            case 0x09:
+                loadConfig();
+                break;
+            case 0x0B:
+                int id = input.readInt();
+                boolean permissionValue = input.readBoolean();
+                permissionChecks.put(id, permissionValue);
+                break;
+            case 0x0C:
+                int size1 = input.readInt();
+                List<ICPlaceholder> list = new ArrayList<>(size1);
+                for (int i = 0; i < size1; i++) {
+                    boolean isBulitIn = input.readBoolean();
+                    if (isBulitIn) {
+                        String keyword = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        long cooldown = input.readLong();
+                        list.add(new BuiltInPlaceholder(Pattern.compile(keyword), name, description, permission, cooldown));
+                    } else {
+                        String key = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        ParsePlayer parseplayer = ParsePlayer.fromOrder(input.readByte());
+                        String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean parseKeyword = input.readBoolean();
+                        long cooldown = input.readLong();
+                        boolean hoverEnabled = input.readBoolean();
+                        String hoverText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean clickEnabled = input.readBoolean();
+                        String clickAction = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String clickValue = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean replaceEnabled = input.readBoolean();
+                        String replaceText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+
+                        list.add(new CustomPlaceholder(key, parseplayer, Pattern.compile(placeholder), parseKeyword, cooldown, new CustomPlaceholderHoverEvent(hoverEnabled, hoverText), new CustomPlaceholderClickEvent(clickEnabled, clickEnabled ? ClickEventAction.valueOf(clickAction) : null, clickValue), new CustomPlaceholderReplaceText(replaceEnabled, replaceText), name, description));
+                    }
+                }
+                placeholderList.put(senderServer.getInfo().getName(), list);
+                playerCooldownManager.reloadPlaceholders(placeholderList.values().stream().flatMap(each -> each.stream()).distinct().collect(Collectors.toList()));
+                PluginMessageSendingBungee.forwardPlaceholderList(list, senderServer.getInfo());
+                break;
+            case 0x0D:
+                UUID uuid2 = DataTypeIO.readUUID(input);
+                PluginMessageSendingBungee.reloadPlayerData(uuid2, senderServer.getInfo());
+                break;
+            case 0x10:
+                UUID requestUUID = DataTypeIO.readUUID(input);
+                int requestType = input.readByte();
+                switch (requestType) {
+                    case 0:
+                        PluginMessageSendingBungee.respondPlayerListRequest(requestUUID, senderServer.getInfo());
+                        break;
+                    default:
+                        break;
+                }
+            case 0x15:
+                UUID playerUUID = DataTypeIO.readUUID(input);
+                String command = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                ProxiedPlayer proxiedPlayer = ProxyServer.getInstance().getPlayer(playerUUID);
+                if (proxiedPlayer != null) {
+                    if (!ProxyServer.getInstance().getPluginManager().dispatchCommand(proxiedPlayer, command)) {
+                        PluginMessageSendingBungee.executeBackendCommand(playerUUID, command, senderServer.getInfo());
+                    }
+                }
+                break;
+            case 0x14:
+                int vanishSize = input.readInt();
+                Map<UUID, Boolean> vanishStates = new HashMap<>(vanishSize);
+                for (int i = 0; i < vanishSize; i++) {
+                    vanishStates.put(DataTypeIO.readUUID(input), input.readBoolean());
+                }
+                PluginMessageSendingBungee.updatePlayersVanished(vanishStates, payload.toByteArray(), senderServer.getInfo());
+                break;
+            case 0x17:
+                UUID dataOwner = DataTypeIO.readUUID(input);
+                int dataType = input.readByte();
+                int dataVersion = input.readInt();
+                byte[] cachedPayload = remoteDataCache.getPayload(dataOwner, dataType, dataVersion);
+                if (cachedPayload != null) {
+                    PluginMessageSendingBungee.respondRemoteData(dataOwner, dataType, dataVersion, cachedPayload, Collections.singletonList(senderServer.getInfo()));
+                    break;
+                }
+                ProxiedPlayer dataOwnerPlayer = ProxyServer.getInstance().getPlayer(dataOwner);
+                if (dataOwnerPlayer == null || dataOwnerPlayer.getServer() == null || dataOwnerPlayer.getServer().getInfo().equals(senderServer.getInfo())) {
+                    PluginMessageSendingBungee.respondRemoteDataMiss(dataOwner, dataType, Collections.singletonList(senderServer.getInfo()));
+                    break;
+                }
+                if (remoteDataCache.addRequester(dataOwner, dataType, senderServer.getInfo().getName())) {
+                    PluginMessageSendingBungee.requestRemoteData(dataOwner, dataType, dataVersion, dataOwnerPlayer.getServer().getInfo());
+                }
+                break;
+            case 0x18:
+                UUID dataOwner1 = DataTypeIO.readUUID(input);
+                int dataType1 = input.readByte();
+                int dataVersion1 = input.readInt();
+                byte[] remotePayload = new byte[input.readInt()];
+                input.readFully(remotePayload);
+                List<ServerInfo> requesters = remoteDataCache.complete(dataOwner1, dataType1, dataVersion1, remotePayload).stream().map(each -> getProxy().getServerInfo(each)).filter(each -> each != null).collect(Collectors.toList());
+                PluginMessageSendingBungee.respondRemoteData(dataOwner1, dataType1, dataVersion1, remotePayload, requesters);
+                break;
+            case 0x1A:
+                PluginMessageSendingBungee.sendPlayerListSnapshot(senderServer.getInfo());
+                break;
+            case 0x1D:
+                UUID keyframePlayerUUID = DataTypeIO.readUUID(input);
+                ProxiedPlayer keyframePlayer = ProxyServer.getInstance().getPlayer(keyframePlayerUUID);
+                if (keyframePlayer != null && keyframePlayer.getServer() != null && !keyframePlayer.getServer().getInfo().equals(senderServer.getInfo())) {
+                    PluginMessageSendingBungee.requestPlaceholderKeyframe(keyframePlayerUUID, keyframePlayer.getServer().getInfo());
+                }
+                break;
+            case 0x1F:
+                UUID keyframeOwnerUUID = DataTypeIO.readUUID(input);
+                int keyframeType = input.readByte();
+                ProxiedPlayer keyframeOwner = ProxyServer.getInstance().getPlayer(keyframeOwnerUUID);
+                if (keyframeOwner != null && keyframeOwner.getServer() != null && !keyframeOwner.getServer().getInfo().equals(senderServer.getInfo())) {
+                    PluginMessageSendingBungee.requestRemoteDataKeyframe(keyframeOwnerUUID, keyframeType, keyframeOwner.getServer().getInfo());
+                }
+                break;
+            case 0x1B:
+                List<ValuePairs<Integer, byte[]>> relayRecords = new ArrayList<>();
+                for (ValuePairs<Integer, byte[]> record : PluginMessageFrameUtils.readBatch(input)) {
+                    if (Registry.PROXY_PASSTHROUGH_RELAY_PACKETS.contains(record.getFirst())) {
+                        relayRecords.add(record);
+                    } else if (Registry.PROXY_HANDLE_AND_RELAY_PACKETS.contains(record.getFirst())) {
+                        handlePacket(record.getFirst(), PluginMessagePayload.wrap(record.getSecond()), senderServer, relayRecords);
+                    } else {
+                        PluginMessageSendingBungee.relayBatch(relayRecords, senderServer.getInfo());
+                        relayRecords.clear();
+                        handlePacket(record.getFirst(), PluginMessagePayload.wrap(record.getSecond()), senderServer);
+                    }
+                }
+                PluginMessageSendingBungee.relayBatch(relayRecords, senderServer.getInfo());
+                break;
+        }
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onBungeeChatLowest(ChatEvent event) {
         if (chatEventPriority == EventPriority.LOWEST) {
@@ -831,20 +898,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
         }
 
         UserConnection userConnection = (UserConnection) player;
-        ChannelWrapper channelWrapper;
-        Field channelField = null;
-
-        try {
-            channelField = userConnection.getClass().getDeclaredField("ch");
-            channelField.setAccessible(true);
-            channelWrapper = (ChannelWrapper) channelField.get(userConnection);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } finally {
-            if (channelField != null) {
-                channelField.setAccessible(false);
-            }
-        }
+        ChannelWrapper channelWrapper = getChannelWrapper(userConnection);
 
         if (!handleProxyMessage) return;
         ChannelPipeline pipeline = channelWrapper.getHandle().pipeline();
@@ -859,13 +913,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                         byte position = packet.getPosition();
                         if ((position != 2 && proxyHandlePacketTypesType.hasType(ProxyHandlePacketTypes.ProxyPacketType.CHAT)) || (position == 2 && proxyHandlePacketTypesType.hasType(ProxyHandlePacketTypes.ProxyPacketType.ACTIONBAR))) {
                             if (message != null) {
-                                if (message.contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                    message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                    if (Registry.ID_PATTERN.matcher(message).find()) {
-                                        message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                    }
-                                    packet.setMessage(message);
-                                } else if (hasInteractiveChat(player.getServer())) {
+                                if (!messageForwardingHandler.consumeProcessed(packet) && hasInteractiveChat(player.getServer())) {
                                     messageForwardingHandler.processMessage(player.getUniqueId(), message, position, ChatPacketType.LEGACY_CHAT, packet);
                                     return;
                                 }
@@ -876,18 +924,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                         BaseComponent baseComponent = packet.getMessage();
                         int position = packet.getPosition();
                         if (baseComponent != null) {
-                            if (baseComponent instanceof TextComponent && ((TextComponent) baseComponent).getText().equals("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                ((TextComponent) baseComponent).setText("");
-                                if (baseComponent.getExtra() != null) {
-                                    for (BaseComponent part : baseComponent.getExtra()) {
-                                        if (part instanceof TextComponent) {
-                                            TextComponent textPart = (TextComponent) part;
-                                            textPart.setText(Registry.ID_PATTERN.matcher(textPart.getText()).replaceAll("").trim());
-                                        }
-                                    }
-                                }
-                                packet.setMessage(baseComponent);
-                            } else if (hasInteractiveChat(player.getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && hasInteractiveChat(player.getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), ComponentSerializer.toString(baseComponent), position, ChatPacketType.SYSTEM_CHAT, packet);
                                 return;
                             }
@@ -898,13 +935,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                         String message = packet.getUnsignedContent();
                         int position = packet.getTypeId();
                         if (message != null) {
-                            if (message.contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                if (Registry.ID_PATTERN.matcher(message).find()) {
-                                    message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                }
-                                packet.setUnsignedContent(message);
-                            } else if (hasInteractiveChat(player.getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && hasInteractiveChat(player.getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), message, position, ChatPacketType.PLAYER_CHAT, packet);
                                 return;
                             }
@@ -915,18 +946,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                         BaseComponent baseComponent = packet.getText();
                         if (packet.getAction() == null || packet.getAction().equals(Action.TITLE) || packet.getAction().equals(Action.SUBTITLE) || packet.getAction().equals(Action.ACTIONBAR)) {
                             if (baseComponent != null) {
-                                if (baseComponent instanceof TextComponent && ((TextComponent) baseComponent).getText().equals("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                    ((TextComponent) baseComponent).setText("");
-                                    if (baseComponent.getExtra() != null) {
-                                        for (BaseComponent part : baseComponent.getExtra()) {
-                                            if (part instanceof TextComponent) {
-                                                TextComponent textPart = (TextComponent) part;
-                                                textPart.setText(Registry.ID_PATTERN.matcher(textPart.getText()).replaceAll("").trim());
-                                            }
-                                        }
-                                    }
-                                    packet.setText(baseComponent);
-                                } else if (hasInteractiveChat(player.getServer())) {
+                                if (!messageForwardingHandler.consumeProcessed(packet) && hasInteractiveChat(player.getServer())) {
                                     messageForwardingHandler.processMessage(player.getUniqueId(), ComponentSerializer.toString(baseComponent), 0, ChatPacketType.TITLE, packet);
                                     return;
                                 }
@@ -936,18 +956,7 @@ public class InteractiveChatBungee extends Plugin implements Listener {
                         Subtitle packet = (Subtitle) obj;
                         BaseComponent baseComponent = packet.getText();
                         if (baseComponent != null) {
-                            if (baseComponent instanceof TextComponent && ((TextComponent) baseComponent).getText().equals("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                ((TextComponent) baseComponent).setText("");
-                                if (baseComponent.getExtra() != null) {
-                                    for (BaseComponent part : baseComponent.getExtra()) {
-                                        if (part instanceof TextComponent) {
-                                            TextComponent textPart = (TextComponent) part;
-                                            textPart.setText(Registry.ID_PATTERN.matcher(textPart.getText()).replaceAll("").trim());
-                                        }
-                                    }
-                                }
-                                packet.setText(baseComponent);
-                            } else if (hasInteractiveChat(player.getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && hasInteractiveChat(player.getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), ComponentSerializer.toString(baseComponent), 0, ChatPacketType.SUBTITLE, packet);
                                 return;
                             }
@@ -1012,6 +1021,8 @@ public class InteractiveChatBungee extends Plugin implements Listener {
     @EventHandler
     public void onLeave(PlayerDisconnectEvent event) {
         forwardedMessages.remove(event.getPlayer().getUniqueId());
+        remoteDataCache.invalidate(event.getPlayer().getUniqueId());
+        messageForwardingHandler.clearPlayer(event.getPlayer().getUniqueId());
         ProxyServer.getInstance().getScheduler().schedule(plugin, () -> {
             try {
                 PluginMessageSendingBungee.sendPlayerListData();
@@ -1021,6 +1032,21 @@ public class InteractiveChatBungee extends Plugin implements Listener {
         }, 1000, TimeUnit.MILLISECONDS);
     }
 
+    private static ChannelWrapper getChannelWrapper(UserConnection userConnection) {
+        Field channelField = null;
+        try {
+            channelField = userConnection.getClass().getDeclaredField("ch");
+            channelField.setAccessible(true);
+            return (ChannelWrapper) channelField.get(userConnection);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (channelField != null) {
+                channelField.setAccessible(false);
+            }
+        }
+    }
+
     private boolean hasInteractiveChat(Server server) {
         if (server == null || server.getInfo() == null) {
             return false;
@@ -22,14 +22,19 @@ package com.loohp.interactivechat.proxy.bungee;
 
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import com.loohp.interactivechat.bungeemessaging.PluginMessageTransport;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderClickEvent;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderHoverEvent;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderReplaceText;
 import com.loohp.interactivechat.objectholders.ICPlaceholder;
+import com.loohp.interactivechat.objectholders.SyncedPlayerList;
+import com.loohp.interactivechat.objectholders.SyncedPlayerList.Change;
+import com.loohp.interactivechat.objectholders.ValuePairs;
 import com.loohp.interactivechat.proxy.objectholders.BackendInteractiveChatData;
-import com.loohp.interactivechat.utils.CustomArrayUtils;
+import com.loohp.interactivechat.registry.Registry.PluginMessagingFeature;
 import com.loohp.interactivechat.utils.DataTypeIO;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
 import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
@@ -38,11 +43,15 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 @SuppressWarnings("UnstableApiUsage")
 public class PluginMessageSendingBungee {
@@ -51,51 +60,90 @@ public class PluginMessageSendingBungee {
     private static long lastServerPing = 0;
 
     public static void sendPlayerListData() throws IOException {
-        ByteArrayDataOutput output = ByteStreams.newDataOutput();
         Collection<ProxiedPlayer> players = ProxyServer.getInstance().getPlayers();
 
         List<PlayerListPlayerData> dataList = new ArrayList<>();
+        Map<UUID, ValuePairs<String, String>> current = new HashMap<>();
         for (ProxiedPlayer player : players) {
             if (player.getServer() != null) {
                 String server = player.getServer().getInfo().getName();
                 BackendInteractiveChatData info = InteractiveChatBungee.serverInteractiveChatInfo.get(server);
                 if (info != null && info.hasInteractiveChat()) {
                     dataList.add(new PlayerListPlayerData(server, player.getUniqueId(), player.getName()));
+                    current.put(player.getUniqueId(), new ValuePairs<>(server, player.getName()));
                 }
             }
         }
 
-        output.writeInt(dataList.size());
-        for (PlayerListPlayerData data : dataList) {
-            DataTypeIO.writeString(output, data.getServer(), StandardCharsets.UTF_8);
-            DataTypeIO.writeUUID(output, data.getUniqueId());
-            DataTypeIO.writeString(output, data.getName(), StandardCharsets.UTF_8);
+        List<ServerInfo> deltaServers = new ArrayList<>();
+        List<ServerInfo> legacyServers = new ArrayList<>();
+        for (ServerInfo server : serversWithPlayers()) {
+            if (InteractiveChatBungee.supports(server.getName(), PluginMessagingFeature.PLAYER_LIST_DELTA)) {
+                deltaServers.add(server);
+            } else {
+                legacyServers.add(server);
+            }
         }
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x00;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
+        SyncedPlayerList playerList = InteractiveChatBungee.playerList;
+        synchronized (playerList) {
+            List<Change> changes = playerList.update(current);
+            if (!changes.isEmpty()) {
+                playerList.nextSequence();
+            }
+            if (!deltaServers.isEmpty()) {
+                ByteArrayDataOutput output = ByteStreams.newDataOutput();
+                playerList.writeDelta(output, changes);
+                sendData(0x19, output.toByteArray(), deltaServers);
+            }
+        }
 
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
+        if (!legacyServers.isEmpty()) {
+            ByteArrayDataOutput output = ByteStreams.newDataOutput();
+            output.writeInt(dataList.size());
+            for (PlayerListPlayerData data : dataList) {
+                DataTypeIO.writeString(output, data.getServer(), StandardCharsets.UTF_8);
+                DataTypeIO.writeUUID(output, data.getUniqueId());
+                DataTypeIO.writeString(output, data.getName(), StandardCharsets.UTF_8);
+            }
+            sendData(0x00, output.toByteArray(), legacyServers);
+        }
+    }
 
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
+    public static void sendPlayerListSnapshot(ServerInfo server) throws IOException {
+        SyncedPlayerList playerList = InteractiveChatBungee.playerList;
+        synchronized (playerList) {
+            ByteArrayDataOutput output = ByteStreams.newDataOutput();
+            playerList.writeSnapshot(output);
+            sendData(0x19, output.toByteArray(), Collections.singletonList(server));
+        }
+    }
 
-            out.write(chunk);
+    public static void updatePlayersVanished(Map<UUID, Boolean> vanishStates, byte[] data, ServerInfo serverFrom) throws IOException {
+        List<ServerInfo> deltaServers = new ArrayList<>();
+        List<ServerInfo> legacyServers = new ArrayList<>();
+        for (ServerInfo server : serversWithPlayers()) {
+            if (InteractiveChatBungee.supports(server.getName(), PluginMessagingFeature.PLAYER_LIST_DELTA)) {
+                deltaServers.add(server);
+            } else if (!server.equals(serverFrom)) {
+                legacyServers.add(server);
+            }
+        }
 
-            for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
-                if (!server.getPlayers().isEmpty()) {
-                    server.sendData("interchat:main", out.toByteArray());
-                    InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-                }
+        SyncedPlayerList playerList = InteractiveChatBungee.playerList;
+        synchronized (playerList) {
+            List<Change> changes = playerList.updateVanished(vanishStates);
+            if (!changes.isEmpty()) {
+                playerList.nextSequence();
+                ByteArrayDataOutput output = ByteStreams.newDataOutput();
+                playerList.writeDelta(output, changes);
+                sendData(0x19, output.toByteArray(), deltaServers);
             }
         }
+
+        if (!legacyServers.isEmpty()) {
+            sendData(0x14, data, legacyServers);
+        }
     }
 
     public static void sendDelayAndScheme() {
@@ -140,37 +188,24 @@ public class PluginMessageSendingBungee {
 
         boolean hasDifferentMCVersions = InteractiveChatBungee.serverInteractiveChatInfo.values().stream().map(each -> each.getExactMinecraftVersion()).distinct().count() > 1;
         if (hasDifferentMCVersions) {
+            //prototypes carry version specific item data, so mixed versions stay on the portable scheme
             output.writeShort(1);
             output.writeShort(1);
+        } else if (InteractiveChatBungee.isNegotiated(PluginMessagingFeature.ITEM_DICTIONARY)) {
+            output.writeShort(2);
+            output.writeShort(2);
         } else {
             output.writeShort(0);
             output.writeShort(0);
         }
-
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x01;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
-                if (!server.getPlayers().isEmpty()) {
-                    server.sendData("interchat:main", out.toByteArray());
-                    InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        output.writeBoolean(InteractiveChatBungee.isNegotiated(PluginMessagingFeature.PAYLOAD_FLAGS));
+        output.writeBoolean(InteractiveChatBungee.isNegotiated(PluginMessagingFeature.DEMAND_RELAY));
+        output.writeBoolean(InteractiveChatBungee.isNegotiated(PluginMessagingFeature.PLAYER_LIST_DELTA));
+        output.writeBoolean(true); //accepts batched frames
+        output.writeBoolean(InteractiveChatBungee.isNegotiated(PluginMessagingFeature.PLACEHOLDER_DELTA));
+        output.writeBoolean(InteractiveChatBungee.isNegotiated(PluginMessagingFeature.INVENTORY_DELTA));
+
+        sendData(0x01, output.toByteArray(), serversWithPlayers());
     }
 
     public static void sendMessagePair(UUID uuid, String message) throws IOException {
@@ -179,30 +214,7 @@ public class PluginMessageSendingBungee {
         DataTypeIO.writeString(output, message, StandardCharsets.UTF_8);
         DataTypeIO.writeUUID(output, uuid);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x06;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
-                if (!server.getPlayers().isEmpty()) {
-                    server.sendData("interchat:main", out.toByteArray());
-                    InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        sendData(0x06, output.toByteArray(), serversWithPlayers());
     }
 
     public static void sendPlayerUniversalCooldown(ServerInfo server, UUID player, long time) throws IOException {
@@ -212,26 +224,7 @@ public class PluginMessageSendingBungee {
         DataTypeIO.writeUUID(output, player);
         output.writeLong(time);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x07;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendData("interchat:main", out.toByteArray());
-            InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x07, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void sendPlayerPlaceholderCooldown(ServerInfo server, UUID player, ICPlaceholder placeholder, long time) throws IOException {
@@ -242,26 +235,7 @@ public class PluginMessageSendingBungee {
         DataTypeIO.writeUUID(output, placeholder.getInternalId());
         output.writeLong(time);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x07;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendData("interchat:main", out.toByteArray());
-            InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x07, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void requestMessageProcess(ProxiedPlayer player, ServerInfo server, String component, UUID messageId, boolean preview) throws IOException {
@@ -272,26 +246,7 @@ public class PluginMessageSendingBungee {
         DataTypeIO.writeString(output, component, StandardCharsets.UTF_8);
         output.writeBoolean(preview);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x08;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendData("interchat:main", out.toByteArray());
-            InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x08, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void forwardPlaceholderList(List<ICPlaceholder> serverPlaceholderList, ServerInfo serverFrom) throws IOException {
@@ -334,55 +289,13 @@ public class PluginMessageSendingBungee {
             }
         }
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x09;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
-                if (!server.getName().equals(serverFrom.getName())) {
-                    server.sendData("interchat:main", out.toByteArray());
-                    InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        sendData(0x09, output.toByteArray(), serversExcept(serverFrom));
     }
 
     public static void requestPlaceholderList(ServerInfo server) throws IOException {
         ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x0A;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendData("interchat:main", out.toByteArray());
-            InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x0A, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void checkPermission(ProxiedPlayer player, String permission, int id) throws IOException {
@@ -392,27 +305,8 @@ public class PluginMessageSendingBungee {
         DataTypeIO.writeUUID(output, player.getUniqueId());
         DataTypeIO.writeString(output, permission, StandardCharsets.UTF_8);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x0B;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            if (player.getServer() != null) {
-                player.getServer().getInfo().sendData("interchat:main", out.toByteArray());
-                InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-            }
+        if (player.getServer() != null) {
+            sendData(0x0B, output.toByteArray(), Collections.singletonList(player.getServer().getInfo()));
         }
     }
 
@@ -421,30 +315,7 @@ public class PluginMessageSendingBungee {
 
         DataTypeIO.writeUUID(output, uuid);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x0D;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
-                if (!server.getName().equals(serverFrom.getName())) {
-                    server.sendData("interchat:main", out.toByteArray());
-                    InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        sendData(0x0D, output.toByteArray(), serversExcept(serverFrom));
     }
 
     public static void respondPlayerListRequest(UUID requestId, ServerInfo server) throws IOException {
@@ -460,26 +331,7 @@ public class PluginMessageSendingBungee {
             output.writeInt(player.getPing());
         }
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x10;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendData("interchat:main", out.toByteArray());
-            InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x10, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void forwardSignedChatEventChange(UUID sender, String originalMessage, String modifiedMessage, long time) throws IOException {
@@ -490,56 +342,142 @@ public class PluginMessageSendingBungee {
         DataTypeIO.writeString(output, modifiedMessage, StandardCharsets.UTF_8);
         output.writeLong(time);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x13;
-        byte[] data = output.toByteArray();
+        sendData(0x13, output.toByteArray(), ProxyServer.getInstance().getServers().values());
+    }
 
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
+    public static void executeBackendCommand(UUID player, String command, ServerInfo server) throws IOException {
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
+        DataTypeIO.writeUUID(output, player);
+        DataTypeIO.writeString(output, command, StandardCharsets.UTF_8);
 
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
+        sendData(0x15, output.toByteArray(), Collections.singletonList(server));
+    }
 
-            out.write(chunk);
+    private static Collection<ServerInfo> serversWithPlayers() {
+        return ProxyServer.getInstance().getServers().values().stream().filter(server -> !server.getPlayers().isEmpty()).collect(Collectors.toList());
+    }
 
-            for (ServerInfo server : ProxyServer.getInstance().getServers().values()) {
-                server.sendData("interchat:main", out.toByteArray());
-                InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
+    private static Collection<ServerInfo> serversWithPlayersExcept(ServerInfo serverFrom) {
+        return ProxyServer.getInstance().getServers().values().stream().filter(server -> !server.getName().equals(serverFrom.getName()) && !server.getPlayers().isEmpty()).collect(Collectors.toList());
+    }
+
+    private static Collection<ServerInfo> serversExcept(ServerInfo serverFrom) {
+        return ProxyServer.getInstance().getServers().values().stream().filter(server -> !server.getName().equals(serverFrom.getName())).collect(Collectors.toList());
+    }
+
+    public static void relayData(int packetId, byte[] data, ServerInfo serverFrom) throws IOException {
+        sendData(packetId, data, serversWithPlayersExcept(serverFrom));
+    }
+
+    public static void relayBatch(List<ValuePairs<Integer, byte[]>> records, ServerInfo serverFrom) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<ServerInfo> batchServers = new ArrayList<>();
+        List<ServerInfo> legacyServers = new ArrayList<>();
+        for (ServerInfo server : serversWithPlayersExcept(serverFrom)) {
+            if (InteractiveChatBungee.supports(server.getName(), PluginMessagingFeature.BATCHING)) {
+                batchServers.add(server);
+            } else {
+                legacyServers.add(server);
+            }
+        }
+        if (!batchServers.isEmpty()) {
+            sendData(PluginMessageFrameUtils.BATCH_PACKET_ID, PluginMessageFrameUtils.createBatch(records), batchServers);
+        }
+        if (!legacyServers.isEmpty()) {
+            for (ValuePairs<Integer, byte[]> record : records) {
+                sendData(record.getFirst(), record.getSecond(), legacyServers);
             }
         }
     }
 
-    public static void executeBackendCommand(UUID player, String command, ServerInfo server) throws IOException {
+    public static void requestPlaceholderKeyframe(UUID player, ServerInfo server) throws IOException {
         ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
         DataTypeIO.writeUUID(output, player);
-        DataTypeIO.writeString(output, command, StandardCharsets.UTF_8);
 
-        int packetNumber = InteractiveChatBungee.random.nextInt();
-        int packetId = 0x15;
-        byte[] data = output.toByteArray();
+        sendData(0x1D, output.toByteArray(), Collections.singletonList(server));
+    }
+
+    public static void requestRemoteDataKeyframe(UUID player, int type, ServerInfo server) throws IOException {
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
+
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
+
+        sendData(0x1F, output.toByteArray(), Collections.singletonList(server));
+    }
+
+    public static void requestRemoteData(UUID player, int type, int version, ServerInfo server) throws IOException {
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
+
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
+        output.writeInt(version);
+
+        sendData(0x17, output.toByteArray(), Collections.singletonList(server));
+    }
+
+    public static void respondRemoteData(UUID player, int type, int version, byte[] payload, Collection<ServerInfo> servers) throws IOException {
+        if (servers.isEmpty()) {
+            return;
+        }
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
+        output.writeInt(version);
+        output.writeInt(payload.length);
+        output.write(payload);
+
+        sendData(0x18, output.toByteArray(), servers);
+    }
 
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
+    public static void respondRemoteDataMiss(UUID player, int type, Collection<ServerInfo> servers) throws IOException {
+        if (servers.isEmpty()) {
+            return;
+        }
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
 
-            out.write(chunk);
+        sendData(0x20, output.toByteArray(), servers);
+    }
 
-            server.sendData("interchat:main", out.toByteArray());
-            InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
+    private static void sendData(int packetId, byte[] data, Collection<ServerInfo> servers) {
+        int packetNumber = InteractiveChatBungee.random.nextInt();
+        byte[][] frames = null;
+        byte[][] compressedFrames = null;
+        for (ServerInfo server : servers) {
+            byte[][] serverFrames;
+            if (InteractiveChatBungee.supports(server.getName(), PluginMessagingFeature.PAYLOAD_FLAGS)) {
+                if (compressedFrames == null) {
+                    compressedFrames = PluginMessageFrameUtils.createFrames(packetNumber, packetId, data, true);
+                }
+                serverFrames = compressedFrames;
+            } else {
+                if (frames == null) {
+                    frames = PluginMessageFrameUtils.createFrames(packetNumber, packetId, data, false);
+                }
+                serverFrames = frames;
+            }
+            for (byte[] frame : serverFrames) {
+                sendFrame(server, frame);
+            }
+        }
+    }
+
+    static void sendFrame(ServerInfo server, byte[] frame) {
+        PluginMessageTransport transport = InteractiveChatBungee.getTransport(server.getName());
+        if (transport == null) {
+            server.sendData("interchat:main", frame);
+        } else {
+            transport.send(frame);
         }
+        InteractiveChatBungee.pluginMessagesCounter.incrementAndGet();
     }
 
     private static class PlayerListPlayerData {
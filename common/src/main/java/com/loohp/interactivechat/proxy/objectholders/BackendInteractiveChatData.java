@@ -20,10 +20,20 @@
 
 package com.loohp.interactivechat.proxy.objectholders;
 
+import com.loohp.interactivechat.registry.Registry.PluginMessagingFeature;
 import com.loohp.interactivechat.utils.MCVersion;
 
+import java.util.Collection;
+
 public class BackendInteractiveChatData {
 
+    /**
+     * A feature is negotiated when every online backend that has InteractiveChat supports it.
+     */
+    public static boolean isNegotiated(Collection<BackendInteractiveChatData> backends, PluginMessagingFeature feature) {
+        return backends.stream().filter(each -> each.isOnline() && each.hasInteractiveChat()).allMatch(each -> each.supports(feature));
+    }
+
     private final String server;
     private boolean isOnline;
 
@@ -113,4 +123,8 @@ public class BackendInteractiveChatData {
         this.protocol = protocol;
     }
 
+    public boolean supports(PluginMessagingFeature feature) {
+        return hasInteractiveChat && feature.isSupportedBy(protocol);
+    }
+
 }
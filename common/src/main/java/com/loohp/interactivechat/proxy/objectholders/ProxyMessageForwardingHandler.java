@@ -20,186 +20,189 @@
 
 package com.loohp.interactivechat.proxy.objectholders;
 
-import java.util.Iterator;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.loohp.interactivechat.registry.Registry;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Queue;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
 
+/**
+ * Keeps processed chat packets in the order they were intercepted, per player.
+ * Each player has their own lane, completions are released as soon as every message before them has either
+ * been processed or timed out, and are written on the player's own event loop.
+ */
 public class ProxyMessageForwardingHandler implements AutoCloseable {
 
-    private final Map<UUID, Queue<ForwardMessageInfo>> messageOrder;
-    private final Map<UUID, ForwardMessageInfo> messageData;
-    private final Queue<OutboundMessage> sendingQueue;
+    private final Map<UUID, Lane> lanes;
+    private final Map<UUID, PendingMessage> messageData;
+    private final Set<Object> processedPackets;
     private final BiConsumer<ForwardMessageInfo, String> forwardForProcessing;
     private final BiConsumer<ForwardMessageInfo, String> sendToPlayer;
     private final Predicate<UUID> isPlayerOnline;
     private final Predicate<UUID> hasInteractiveChatOnConnectedServer;
+    private final Function<UUID, Executor> playerEventLoop;
     private final LongSupplier executionWaitTime;
-    private final Map<UUID, Map<UUID, OutboundMessage>> waitingPackets;
-    private final Map<UUID, Long> lastSuccessfulCheck;
+    private final HashedWheelTimer timer;
 
     private final AtomicBoolean isValid;
 
-    public ProxyMessageForwardingHandler(BiConsumer<ForwardMessageInfo, String> forwardForProcessing, BiConsumer<ForwardMessageInfo, String> sendToPlayer, Predicate<UUID> isPlayerOnline, Predicate<UUID> hasInteractiveChatOnConnectedServer, LongSupplier executionWaitTime) {
+    public ProxyMessageForwardingHandler(BiConsumer<ForwardMessageInfo, String> forwardForProcessing, BiConsumer<ForwardMessageInfo, String> sendToPlayer, Predicate<UUID> isPlayerOnline, Predicate<UUID> hasInteractiveChatOnConnectedServer, Function<UUID, Executor> playerEventLoop, LongSupplier executionWaitTime) {
         this.isValid = new AtomicBoolean(true);
-        this.messageOrder = new ConcurrentHashMap<>();
+        this.lanes = new ConcurrentHashMap<>();
         this.messageData = new ConcurrentHashMap<>();
-        this.sendingQueue = new ConcurrentLinkedQueue<>();
+        this.processedPackets = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
         this.forwardForProcessing = forwardForProcessing;
         this.sendToPlayer = sendToPlayer;
         this.isPlayerOnline = isPlayerOnline;
         this.hasInteractiveChatOnConnectedServer = hasInteractiveChatOnConnectedServer;
+        this.playerEventLoop = playerEventLoop;
         this.executionWaitTime = executionWaitTime;
-        this.waitingPackets = new ConcurrentHashMap<>();
-        this.lastSuccessfulCheck = new ConcurrentHashMap<>();
-
-        packetSender();
-        packetOrderSender();
-        monitor();
+        this.timer = new HashedWheelTimer(new ThreadFactoryBuilder().setNameFormat("InteractiveChatProxy ChatPacket Ordering Timer").setDaemon(true).build(), 10, TimeUnit.MILLISECONDS, 512);
     }
 
-    public synchronized void processMessage(UUID player, String message, int position, ChatPacketType type, Object originalPacket) {
+    public void processMessage(UUID player, String message, int position, ChatPacketType type, Object originalPacket) {
         UUID messageId = UUID.randomUUID();
-        if (hasInteractiveChatOnConnectedServer.test(player)) {
-            messageOrder.putIfAbsent(player, new ConcurrentLinkedQueue<>());
-            Queue<ForwardMessageInfo> queue = messageOrder.get(player);
-            ForwardMessageInfo forwardMessageInfo = new ForwardMessageInfo(messageId, player, position, type, System.currentTimeMillis(), originalPacket);
-            messageData.put(messageId, forwardMessageInfo);
-            queue.add(forwardMessageInfo);
+        ForwardMessageInfo forwardMessageInfo = new ForwardMessageInfo(messageId, player, position, type, System.currentTimeMillis(), originalPacket);
+        if (isValid() && hasInteractiveChatOnConnectedServer.test(player)) {
+            PendingMessage pending = new PendingMessage(forwardMessageInfo);
+            while (true) {
+                Lane lane = lanes.computeIfAbsent(player, Lane::new);
+                synchronized (lane) {
+                    if (!lane.retired) {
+                        pending.lane = lane;
+                        lane.pending.add(pending);
+                        break;
+                    }
+                }
+            }
+            messageData.put(messageId, pending);
+            pending.timeout = timer.newTimeout(t -> expire(pending), executionWaitTime.getAsLong(), TimeUnit.MILLISECONDS);
             forwardForProcessing.accept(forwardMessageInfo, message);
         } else {
-            ForwardMessageInfo forwardMessageInfo = new ForwardMessageInfo(messageId, player, position, type, System.currentTimeMillis(), originalPacket);
             sendToPlayer.accept(forwardMessageInfo, message);
         }
     }
 
     public void receivedProcessedMessage(UUID messageId, String message) {
-        ForwardMessageInfo info = messageData.remove(messageId);
-        if (info != null) {
-            Queue<ForwardMessageInfo> queue = messageOrder.get(info.getPlayer());
-            OutboundMessage outboundMessage = new OutboundMessage(info, message);
-            if (queue != null) {
-                if (queue.contains(info)) {
-                    waitingPackets.putIfAbsent(info.getPlayer(), new ConcurrentHashMap<>());
-                    Map<UUID, OutboundMessage> waitingMap = waitingPackets.get(info.getPlayer());
-                    waitingMap.put(messageId, outboundMessage);
-                } else {
-                    sendingQueue.add(outboundMessage);
-                    queue.remove(info);
-                }
+        PendingMessage pending = messageData.remove(messageId);
+        if (pending == null) {
+            return;
+        }
+        Timeout timeout = pending.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        Lane lane = pending.lane;
+        synchronized (lane) {
+            if (pending.state == PendingMessage.PENDING) {
+                pending.message = message;
+                pending.state = PendingMessage.COMPLETED;
             }
+            drain(lane);
         }
     }
 
-    public void clearPlayer(UUID player) {
-        Queue<ForwardMessageInfo> messages = messageOrder.remove(player);
-        if (messages != null) {
-            for (ForwardMessageInfo info : messages) {
-                messageData.remove(info.getId());
-            }
-        }
+    /**
+     * Marks a packet built from a processed message, so the interceptor lets it through untouched.
+     * Packets are tracked by identity and are never tagged in their content.
+     */
+    public void markProcessed(Object packet) {
+        processedPackets.add(packet);
     }
 
-    private void packetSender() {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                while (!sendingQueue.isEmpty()) {
-                    OutboundMessage out = sendingQueue.poll();
-                    if (isPlayerOnline.test(out.getInfo().getPlayer())) {
-                        sendToPlayer.accept(out.getInfo(), out.getMessage());
-                    }
-                }
-            }
-        }, 0, 50);
+    public boolean consumeProcessed(Object packet) {
+        return processedPackets.remove(packet);
     }
 
-    private void monitor() {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                long time = System.currentTimeMillis();
-                for (Queue<ForwardMessageInfo> queue : messageOrder.values()) {
-                    queue.removeIf(each -> each.getTime() + executionWaitTime.getAsLong() < time);
-                }
-                messageData.values().removeIf(id -> id.getTime() + executionWaitTime.getAsLong() < time);
+    public static String stripMessageIds(String message) {
+        Matcher matcher = Registry.ID_PATTERN.matcher(message);
+        return matcher.find() ? matcher.replaceAll("").trim() : message;
+    }
 
-                for (UUID player : messageOrder.keySet()) {
-                    if (!isPlayerOnline.test(player)) {
-                        clearPlayer(player);
-                    }
+    public void clearPlayer(UUID player) {
+        Lane lane = lanes.remove(player);
+        if (lane == null) {
+            return;
+        }
+        synchronized (lane) {
+            lane.retired = true;
+            for (PendingMessage pending : lane.pending) {
+                messageData.remove(pending.info.getId());
+                Timeout timeout = pending.timeout;
+                if (timeout != null) {
+                    timeout.cancel();
                 }
             }
-        }, 0, 1000);
+            lane.pending.clear();
+        }
     }
 
-    private void packetOrderSender() {
-        new Thread(() -> {
-            while (true) {
-                for (Entry<UUID, Map<UUID, OutboundMessage>> entry : waitingPackets.entrySet()) {
-                    long time = System.currentTimeMillis();
-                    UUID playerUUID = entry.getKey();
-                    Queue<ForwardMessageInfo> orderingQueue = messageOrder.get(playerUUID);
-                    Map<UUID, OutboundMessage> playerWaitingPackets = entry.getValue();
-                    ForwardMessageInfo forwardMessageInfo;
-                    if (orderingQueue != null) {
-                        if ((forwardMessageInfo = orderingQueue.peek()) == null) {
-                            Iterator<Entry<UUID, OutboundMessage>> itr = playerWaitingPackets.entrySet().iterator();
-                            while (itr.hasNext()) {
-                                sendingQueue.add(itr.next().getValue());
-                                itr.remove();
-                            }
-                        } else {
-                            UUID id = forwardMessageInfo.getId();
-                            OutboundMessage outboundPacket = playerWaitingPackets.get(id);
-                            if (outboundPacket != null) {
-                                sendingQueue.add(outboundPacket);
-                                playerWaitingPackets.remove(id);
-                                orderingQueue.remove(forwardMessageInfo);
-                                lastSuccessfulCheck.put(playerUUID, time);
-                            } else {
-                                if (playerWaitingPackets.isEmpty()) {
-                                    lastSuccessfulCheck.put(playerUUID, time);
-                                } else {
-                                    Long lastSuccessful = lastSuccessfulCheck.get(playerUUID);
-                                    if (lastSuccessful == null) {
-                                        lastSuccessfulCheck.put(playerUUID, time);
-                                    } else if ((lastSuccessful + executionWaitTime.getAsLong()) < time) {
-                                        orderingQueue.poll();
-                                        lastSuccessfulCheck.put(playerUUID, time);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
+    private void expire(PendingMessage pending) {
+        UUID player = pending.info.getPlayer();
+        if (!isPlayerOnline.test(player)) {
+            clearPlayer(player);
+            return;
+        }
+        messageData.remove(pending.info.getId(), pending);
+        Lane lane = pending.lane;
+        synchronized (lane) {
+            if (pending.state == PendingMessage.PENDING) {
+                pending.state = PendingMessage.EXPIRED;
+            }
+            drain(lane);
+        }
+    }
 
-                if (!isValid()) {
-                    break;
-                }
-                try {
-                    TimeUnit.NANOSECONDS.sleep(5000);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    break;
+    private void drain(Lane lane) {
+        if (lane.retired) {
+            return;
+        }
+        Executor executor = null;
+        PendingMessage head;
+        while ((head = lane.pending.peek()) != null && head.state != PendingMessage.PENDING) {
+            lane.pending.poll();
+            if (head.state == PendingMessage.COMPLETED) {
+                if (executor == null) {
+                    executor = isPlayerOnline.test(lane.player) ? playerEventLoop.apply(lane.player) : null;
+                    if (executor == null) {
+                        continue;
+                    }
                 }
+                ForwardMessageInfo info = head.info;
+                String message = head.message;
+                executor.execute(() -> sendToPlayer.accept(info, message));
             }
-        }, "InteractiveChatProxy Async ChatPacket Ordered Sending Thread").start();
+        }
+        if (lane.pending.isEmpty()) {
+            lane.retired = true;
+            lanes.remove(lane.player, lane);
+        }
     }
 
     @Override
-    public synchronized void close() throws Exception {
-        isValid.set(false);
+    public void close() throws Exception {
+        if (isValid.compareAndSet(true, false)) {
+            timer.stop();
+            for (UUID player : lanes.keySet()) {
+                clearPlayer(player);
+            }
+        }
     }
 
     public boolean isValid() {
@@ -250,22 +253,35 @@ public class ProxyMessageForwardingHandler implements AutoCloseable {
 
     }
 
-    private static class OutboundMessage {
+    private static class Lane {
 
-        private final ForwardMessageInfo info;
-        private final String message;
+        private final UUID player;
+        private final Deque<PendingMessage> pending;
+        private boolean retired;
 
-        public OutboundMessage(ForwardMessageInfo info, String message) {
-            this.info = info;
-            this.message = message;
+        public Lane(UUID player) {
+            this.player = player;
+            this.pending = new ArrayDeque<>();
+            this.retired = false;
         }
 
-        public ForwardMessageInfo getInfo() {
-            return info;
-        }
+    }
 
-        public String getMessage() {
-            return message;
+    private static class PendingMessage {
+
+        public static final int PENDING = 0;
+        public static final int COMPLETED = 1;
+        public static final int EXPIRED = 2;
+
+        private final ForwardMessageInfo info;
+        private volatile Timeout timeout;
+        private Lane lane;
+        private String message;
+        private int state;
+
+        public PendingMessage(ForwardMessageInfo info) {
+            this.info = info;
+            this.state = PENDING;
         }
 
     }
@@ -0,0 +1,160 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.proxy.objectholders;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class ProxyRemoteDataCache {
+
+    private final Cache<DataKey, CachedData> cache;
+    private final Cache<DataKey, Requesters> pendingRequesters;
+
+    public ProxyRemoteDataCache() {
+        this.cache = CacheBuilder.newBuilder().maximumSize(512).expireAfterWrite(5, TimeUnit.MINUTES).build();
+        this.pendingRequesters = CacheBuilder.newBuilder().expireAfterWrite(5, TimeUnit.SECONDS).build();
+    }
+
+    public byte[] getPayload(UUID player, int type, int version) {
+        CachedData data = cache.getIfPresent(new DataKey(player, type));
+        if (data == null || data.getVersion() != version) {
+            return null;
+        }
+        return data.getPayload();
+    }
+
+    /**
+     * @return true if this is the first pending request for the data, in which case it should be forwarded to the owning server
+     */
+    public boolean addRequester(UUID player, int type, String server) {
+        DataKey key = new DataKey(player, type);
+        while (true) {
+            Requesters requesters = pendingRequesters.asMap().computeIfAbsent(key, k -> new Requesters());
+            synchronized (requesters) {
+                if (requesters.closed) {
+                    continue;
+                }
+                boolean first = requesters.servers.isEmpty();
+                requesters.servers.add(server);
+                return first;
+            }
+        }
+    }
+
+    /**
+     * @return the servers that were waiting for the data, none of which will be returned again
+     */
+    public Set<String> complete(UUID player, int type, int version, byte[] payload) {
+        DataKey key = new DataKey(player, type);
+        cache.put(key, new CachedData(version, payload));
+        return takeRequesters(key);
+    }
+
+    /**
+     * @return the servers that were waiting for the data of a player that can no longer be fetched
+     */
+    public Set<String> fail(UUID player, int type) {
+        return takeRequesters(new DataKey(player, type));
+    }
+
+    private Set<String> takeRequesters(DataKey key) {
+        Requesters requesters = pendingRequesters.asMap().remove(key);
+        if (requesters == null) {
+            return Collections.emptySet();
+        }
+        synchronized (requesters) {
+            requesters.closed = true;
+            return new HashSet<>(requesters.servers);
+        }
+    }
+
+    public void invalidate(UUID player) {
+        cache.asMap().keySet().removeIf(key -> key.getPlayer().equals(player));
+    }
+
+    public static class CachedData {
+
+        private final int version;
+        private final byte[] payload;
+
+        public CachedData(int version, byte[] payload) {
+            this.version = version;
+            this.payload = payload;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+    }
+
+    private static class Requesters {
+
+        private final Set<String> servers = new HashSet<>();
+        private boolean closed = false;
+
+    }
+
+    private static class DataKey {
+
+        private final UUID player;
+        private final int type;
+
+        private DataKey(UUID player, int type) {
+            this.player = player;
+            this.type = type;
+        }
+
+        public UUID getPlayer() {
+            return player;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DataKey dataKey = (DataKey) o;
+            return type == dataKey.type && player.equals(dataKey.player);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(player, type);
+        }
+
+    }
+
+}
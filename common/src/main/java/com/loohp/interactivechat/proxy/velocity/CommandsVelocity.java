@@ -20,6 +20,7 @@
 
 package com.loohp.interactivechat.proxy.velocity;
 
+import com.loohp.interactivechat.objectholders.PartitionedMessageExecutor;
 import com.loohp.interactivechat.proxy.objectholders.BackendInteractiveChatData;
 import com.loohp.interactivechat.registry.Registry;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
@@ -49,6 +50,8 @@ public class CommandsVelocity {
                         if (InteractiveChatVelocity.hasPermission(sender, "interactivechat.backendinfo").get()) {
                             InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.AQUA + "Proxy -> InteractiveChat: " + InteractiveChatVelocity.plugin.getDescription().getVersion() + " (PM Protocol: " + Registry.PLUGIN_MESSAGING_PROTOCOL_VERSION + ")"));
                             InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.AQUA + "Expected latency: " + InteractiveChatVelocity.delay + " ms"));
+                            PartitionedMessageExecutor executor = InteractiveChatVelocity.pluginMessageHandlingExecutor;
+                            InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.AQUA + "Plugin message queue: " + executor.getQueueDepth() + " pending | Avg wait: " + String.format("%.2f", executor.getAverageLatencyMillis()) + " ms | Max wait since last check: " + String.format("%.2f", executor.drainMaxLatencyMillis()) + " ms | Merged: " + executor.getMergedCount() + " | Dropped: " + executor.getDroppedCount()));
                             InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.AQUA + "Backends under this proxy:"));
                             InteractiveChatVelocity.plugin.getServer().getAllServers().stream().sorted(Comparator.comparing(each -> each.getServerInfo().getName())).forEach(server -> {
                                 String name = server.getServerInfo().getName();
@@ -61,7 +64,7 @@ public class CommandsVelocity {
                                         if (!data.hasInteractiveChat()) {
                                             InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.YELLOW + name + " -> InteractiveChat: NOT INSTALLED (PM Protocol: -1) | Minecraft: " + minecraftVersion + " | Ping: " + (data.getPing() < 0 ? "N/A" : (data.getPing() + " ms"))));
                                         } else {
-                                            InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.GREEN + name + " -> InteractiveChat: " + data.getVersion() + " (PM Protocol: " + data.getProtocolVersion() + ") | Minecraft: " + minecraftVersion + " | Ping: " + (data.getPing() < 0 ? "N/A" : (data.getPing() + " ms"))));
+                                            InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.GREEN + name + " -> InteractiveChat: " + data.getVersion() + " (PM Protocol: " + data.getProtocolVersion() + ") | Minecraft: " + minecraftVersion + " | Ping: " + (data.getPing() < 0 ? "N/A" : (data.getPing() + " ms")) + " | Queue: " + InteractiveChatVelocity.pluginMessageHandlingExecutor.getQueueDepth(name)));
                                         }
                                     } else {
                                         InteractiveChatVelocity.sendMessage(sender, Component.text(TextColor.RED + name + " -> Status: OFFLINE"));
@@ -20,13 +20,11 @@
 
 package com.loohp.interactivechat.proxy.velocity;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.io.ByteArrayDataInput;
-import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
+import com.loohp.interactivechat.bungeemessaging.PluginMessageTransport;
 import com.loohp.interactivechat.config.Config;
 import com.loohp.interactivechat.objectholders.BuiltInPlaceholder;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder;
@@ -36,20 +34,28 @@ import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlacehold
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderReplaceText;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.ParsePlayer;
 import com.loohp.interactivechat.objectholders.ICPlaceholder;
+import com.loohp.interactivechat.objectholders.PartitionedMessageExecutor;
+import com.loohp.interactivechat.objectholders.PluginMessagePayload;
+import com.loohp.interactivechat.objectholders.PluginMessageReassembler;
 import com.loohp.interactivechat.objectholders.LogFilter;
+import com.loohp.interactivechat.objectholders.SyncedPlayerList;
+import com.loohp.interactivechat.objectholders.ValuePairs;
 import com.loohp.interactivechat.proxy.objectholders.BackendInteractiveChatData;
 import com.loohp.interactivechat.proxy.objectholders.ChatPacketType;
 import com.loohp.interactivechat.proxy.objectholders.ForwardedMessageData;
 import com.loohp.interactivechat.proxy.objectholders.ProxyHandlePacketTypes;
 import com.loohp.interactivechat.proxy.objectholders.ProxyMessageForwardingHandler;
 import com.loohp.interactivechat.proxy.objectholders.ProxyPlayerCooldownManager;
+import com.loohp.interactivechat.proxy.objectholders.ProxyRemoteDataCache;
 import com.loohp.interactivechat.proxy.velocity.metrics.Charts;
 import com.loohp.interactivechat.proxy.velocity.metrics.Metrics;
 import com.loohp.interactivechat.registry.Registry;
-import com.loohp.interactivechat.utils.CustomArrayUtils;
+import com.loohp.interactivechat.registry.Registry.PluginMessagingFeature;
 import com.loohp.interactivechat.utils.CustomStringUtils;
 import com.loohp.interactivechat.utils.DataTypeIO;
 import com.loohp.interactivechat.utils.NativeAdventureConverter;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils.FrameHeader;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.event.PostOrder;
 import com.velocitypowered.api.event.ResultedEvent;
@@ -106,6 +112,8 @@ import org.slf4j.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
@@ -124,9 +132,7 @@ import java.util.UUID;
 import java.util.WeakHashMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -139,7 +145,7 @@ public class InteractiveChatVelocity {
     public static final int BSTATS_PLUGIN_ID = 10945;
     public static final String CONFIG_ID = "config";
     private static final boolean filtersAdded = false;
-    private static final Map<Integer, byte[][]> incoming;
+    private static final PluginMessageReassembler reassembler = new PluginMessageReassembler();
     private static final Map<Integer, Boolean> permissionChecks = new ConcurrentHashMap<>();
     public static InteractiveChatVelocity plugin = null;
     public static AtomicLong pluginMessagesCounter = new AtomicLong(0);
@@ -156,26 +162,37 @@ public class InteractiveChatVelocity {
     protected static Random random = new Random();
     protected static Map<UUID, Set<ForwardedMessageData>> forwardedMessages = new ConcurrentHashMap<>();
     protected static Map<String, BackendInteractiveChatData> serverInteractiveChatInfo = new ConcurrentHashMap<>();
+    protected static ProxyRemoteDataCache remoteDataCache = new ProxyRemoteDataCache();
+    protected static SyncedPlayerList playerList = new SyncedPlayerList();
     private static ProxyMessageForwardingHandler messageForwardingHandler;
-    private static ThreadPoolExecutor pluginMessageHandlingExecutor;
-    private static Field componentHolderProtocolField;
+    protected static PartitionedMessageExecutor pluginMessageHandlingExecutor;
+    private static final Map<String, PluginMessageTransport> transports = new ConcurrentHashMap<>();
+    private static final MethodHandle COMPONENT_HOLDER_VERSION_GETTER;
+    private static final MethodHandle SYSTEM_CHAT_COMPONENT_SETTER;
+    private static final MethodHandle SYSTEM_CHAT_TYPE_SETTER;
     private static Map<ResultedEvent<?>, String> eventOriginalMessage = Collections.synchronizedMap(new WeakHashMap<>());
 
     static {
-        Cache<Integer, byte[][]> incomingCache = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.SECONDS).build();
-        incoming = incomingCache.asMap();
         try {
-            componentHolderProtocolField = ComponentHolder.class.getDeclaredField("version");
-        } catch (NoSuchFieldException e) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Field versionField = ComponentHolder.class.getDeclaredField("version");
+            versionField.setAccessible(true);
+            COMPONENT_HOLDER_VERSION_GETTER = lookup.unreflectGetter(versionField);
+            Field componentField = SystemChatPacket.class.getDeclaredField("component");
+            componentField.setAccessible(true);
+            SYSTEM_CHAT_COMPONENT_SETTER = lookup.unreflectSetter(componentField);
+            Field typeField = Arrays.stream(SystemChatPacket.class.getDeclaredFields()).filter(each -> each.getType().equals(ChatType.class)).findFirst().orElseThrow(() -> new NoSuchFieldException("type"));
+            typeField.setAccessible(true);
+            SYSTEM_CHAT_TYPE_SETTER = lookup.unreflectSetter(typeField);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
             throw new RuntimeException(e);
         }
     }
 
     private static ProtocolVersion getProtocolVersion(ComponentHolder componentHolder) {
         try {
-            componentHolderProtocolField.setAccessible(true);
-            return (ProtocolVersion) componentHolderProtocolField.get(componentHolder);
-        } catch (IllegalAccessException e) {
+            return (ProtocolVersion) COMPONENT_HOLDER_VERSION_GETTER.invoke(componentHolder);
+        } catch (Throwable e) {
             e.printStackTrace();
         }
         return null;
@@ -185,6 +202,40 @@ public class InteractiveChatVelocity {
         return Collections.unmodifiableMap(serverInteractiveChatInfo);
     }
 
+    public static boolean supports(String server, PluginMessagingFeature feature) {
+        BackendInteractiveChatData data = serverInteractiveChatInfo.get(server);
+        return data != null && data.supports(feature);
+    }
+
+    public static boolean isNegotiated(PluginMessagingFeature feature) {
+        return BackendInteractiveChatData.isNegotiated(serverInteractiveChatInfo.values(), feature);
+    }
+
+    public static PluginMessageTransport getTransport(String server) {
+        return transports.get(server);
+    }
+
+    /**
+     * Replaces the connection path for frames sent to a backend server, or restores it when given null.
+     */
+    public static void setTransport(String server, PluginMessageTransport transport) {
+        if (transport == null) {
+            transports.remove(server);
+        } else {
+            transports.put(server, transport);
+        }
+    }
+
+    /**
+     * Sets up plugin message handling on its own, {@link #onProxyInitialization(ProxyInitializeEvent)} does the same
+     * with handlers that write to the real player connections. Together with {@link #setTransport(String, PluginMessageTransport)}
+     * and {@link #receiveFrame(byte[], RegisteredServer)} this drives the proxy without a running Velocity server.
+     */
+    public static void setupPluginMessaging(ProxyMessageForwardingHandler messageForwardingHandler, PartitionedMessageExecutor pluginMessageHandlingExecutor) {
+        InteractiveChatVelocity.messageForwardingHandler = messageForwardingHandler;
+        InteractiveChatVelocity.pluginMessageHandlingExecutor = pluginMessageHandlingExecutor;
+    }
+
     public static CompletableFuture<Boolean> hasPermission(CommandSource sender, String permission) {
         CompletableFuture<Boolean> future = new CompletableFuture<>();
         if (!(sender instanceof Player)) {
@@ -287,23 +338,21 @@ public class InteractiveChatVelocity {
             }).delay(delay + 50, TimeUnit.MILLISECONDS).schedule();
         }, (info, component) -> {
             Player player = proxyServer.getPlayer(info.getPlayer()).get();
+            String message = ProxyMessageForwardingHandler.stripMessageIds(CustomStringUtils.unescapeUnicode(component));
             boolean legacyRGB = player.getProtocolVersion().getProtocol() < Registry.MINECRAFT_1_16_PROTOCOL_VERSION;
             MinecraftPacket packet;
             switch (info.getType()) {
                 case LEGACY_CHAT:
-                    packet = new LegacyChatPacket(component + "<QUxSRUFEWVBST0NFU1NFRA==>", (byte) info.getPosition(), null);
+                    packet = new LegacyChatPacket(message, (byte) info.getPosition(), null);
                     break;
                 case SYSTEM_CHAT:
                     SystemChatPacket originalSystemChatPacket = (SystemChatPacket) info.getOriginalPacket();
                     packet = new SystemChatPacket();
                     ChatType chatType = Arrays.stream(ChatType.values()).filter(c -> c.getId() == info.getPosition()).findFirst().orElse(ChatType.CHAT);
                     try {
-                        Field[] fields = packet.getClass().getDeclaredFields();
-                        fields[0].setAccessible(true);
-                        fields[0].set(packet, new ComponentHolder(getProtocolVersion(originalSystemChatPacket.getComponent()), component + "<QUxSRUFEWVBST0NFU1NFRA==>"));
-                        fields[1].setAccessible(true);
-                        fields[1].set(packet, chatType);
-                    } catch (IllegalAccessException e) {
+                        SYSTEM_CHAT_COMPONENT_SETTER.invoke((SystemChatPacket) packet, new ComponentHolder(getProtocolVersion(originalSystemChatPacket.getComponent()), message));
+                        SYSTEM_CHAT_TYPE_SETTER.invoke((SystemChatPacket) packet, chatType);
+                    } catch (Throwable e) {
                         throw new RuntimeException(e);
                     }
                     break;
@@ -316,7 +365,7 @@ public class InteractiveChatVelocity {
                             field.setAccessible(true);
                             field.set(packet, field.get(info.getOriginalPacket()));
                         }
-                        fields[1].set(packet, NativeAdventureConverter.componentToNative(GsonComponentSerializer.gson().deserialize(component).append(Component.text("<QUxSRUFEWVBST0NFU1NFRA==>")), legacyRGB));
+                        fields[1].set(packet, NativeAdventureConverter.componentToNative(GsonComponentSerializer.gson().deserialize(message), legacyRGB));
                     } catch (IllegalAccessException e) {
                         throw new RuntimeException(e);
                     }
@@ -328,26 +377,26 @@ public class InteractiveChatVelocity {
                 case LEGACY_TITLE:
                     LegacyTitlePacket originalTitlePacket = (LegacyTitlePacket) info.getOriginalPacket();
                     LegacyTitlePacket legacyTitlePacket = new LegacyTitlePacket();
-                    legacyTitlePacket.setComponent(new ComponentHolder(getProtocolVersion(originalTitlePacket.getComponent()), component + "<QUxSRUFEWVBST0NFU1NFRA==>"));
+                    legacyTitlePacket.setComponent(new ComponentHolder(getProtocolVersion(originalTitlePacket.getComponent()), message));
                     legacyTitlePacket.setAction(originalTitlePacket.getAction());
                     packet = legacyTitlePacket;
                     break;
                 case TITLE:
                     TitleTextPacket originalTitleTextPacket = (TitleTextPacket) info.getOriginalPacket();
                     TitleTextPacket titleTextPacket = new TitleTextPacket();
-                    titleTextPacket.setComponent(new ComponentHolder(getProtocolVersion(originalTitleTextPacket.getComponent()), component + "<QUxSRUFEWVBST0NFU1NFRA==>"));
+                    titleTextPacket.setComponent(new ComponentHolder(getProtocolVersion(originalTitleTextPacket.getComponent()), message));
                     packet = titleTextPacket;
                     break;
                 case SUBTITLE:
                     TitleSubtitlePacket originalSubtitleTextPacket = (TitleSubtitlePacket) info.getOriginalPacket();
                     TitleSubtitlePacket titleSubtitlePacket = new TitleSubtitlePacket();
-                    titleSubtitlePacket.setComponent(new ComponentHolder(getProtocolVersion(originalSubtitleTextPacket.getComponent()), component + "<QUxSRUFEWVBST0NFU1NFRA==>"));
+                    titleSubtitlePacket.setComponent(new ComponentHolder(getProtocolVersion(originalSubtitleTextPacket.getComponent()), message));
                     packet = titleSubtitlePacket;
                     break;
                 case ACTION_BAR:
                     TitleActionbarPacket originalActionbarPacket = (TitleActionbarPacket) info.getOriginalPacket();
                     TitleActionbarPacket titleActionbarPacket = new TitleActionbarPacket();
-                    titleActionbarPacket.setComponent(new ComponentHolder(getProtocolVersion(originalActionbarPacket.getComponent()), component + "<QUxSRUFEWVBST0NFU1NFRA==>"));
+                    titleActionbarPacket.setComponent(new ComponentHolder(getProtocolVersion(originalActionbarPacket.getComponent()), message));
                     packet = titleActionbarPacket;
                     break;
                 default:
@@ -356,6 +405,7 @@ public class InteractiveChatVelocity {
             Optional<Player> optplayer = getServer().getPlayer(info.getPlayer());
             if (optplayer.isPresent()) {
                 ConnectedPlayer userConnection = (ConnectedPlayer) optplayer.get();
+                messageForwardingHandler.markProcessed(packet);
                 userConnection.getConnection().getChannel().write(packet);
             }
         }, uuid -> {
@@ -363,10 +413,13 @@ public class InteractiveChatVelocity {
         }, uuid -> {
             Optional<ServerConnection> optCurrentServer = proxyServer.getPlayer(uuid).get().getCurrentServer();
             return optCurrentServer.isPresent() && hasInteractiveChat(optCurrentServer.get().getServer());
+        }, uuid -> {
+            Optional<Player> optplayer = proxyServer.getPlayer(uuid);
+            return optplayer.map(each -> ((ConnectedPlayer) each).getConnection().getChannel().eventLoop()).orElse(null);
         }, () -> (long) delay + 2000);
 
         ThreadFactory factory = new ThreadFactoryBuilder().setNameFormat("InteractiveChatProxy Async PluginMessage Processing Thread #%d").build();
-        pluginMessageHandlingExecutor = new ThreadPoolExecutor(8, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(true), factory);
+        setupPluginMessaging(messageForwardingHandler, new PartitionedMessageExecutor(8, 4096, factory, source -> getLogger().warn(TextColor.YELLOW + "[InteractiveChat] Plugin message queue for " + source + " is full, messages from it are being dropped until it drains")));
 
         getLogger().info(TextColor.GREEN + "[InteractiveChat] InteractiveChat (Velocity) has been enabled!");
 
@@ -377,7 +430,7 @@ public class InteractiveChatVelocity {
     public void onProxyShutdown(ProxyShutdownEvent event) {
         try {
             messageForwardingHandler.close();
-            pluginMessageHandlingExecutor.shutdown();
+            pluginMessageHandlingExecutor.close();
             ServerPingVelocity.shutdown();
         } catch (Exception e) {
             e.printStackTrace();
@@ -458,172 +511,46 @@ public class InteractiveChatVelocity {
 
         event.setResult(ForwardResult.handled());
 
-        try {
-            ChannelMessageSource source = event.getSource();
+        ChannelMessageSource source = event.getSource();
 
-            if (!(source instanceof ServerConnection)) {
-                if (source instanceof Player) {
-                    getLogger().info(TextColor.RED + "[InteractiveChat] Suspicious client to server plugin message recieved from " + ((Player) source).getGameProfile().getName() + ", they might be using a modified client for exploits.");
-                }
-                return;
+        if (!(source instanceof ServerConnection)) {
+            if (source instanceof Player) {
+                getLogger().info(TextColor.RED + "[InteractiveChat] Suspicious client to server plugin message recieved from " + ((Player) source).getGameProfile().getName() + ", they might be using a modified client for exploits.");
             }
+            return;
+        }
 
-            RegisteredServer server = ((ServerConnection) source).getServer();
+        receiveFrame(event.getData(), ((ServerConnection) source).getServer());
+    }
+
+    /**
+     * Accepts an inbound interchat:main frame sent by a backend server, either from its connection or from a {@link PluginMessageTransport}.
+     */
+    public void receiveFrame(byte[] packet, RegisteredServer server) {
+        try {
             String senderServer = server.getServerInfo().getName();
 
-            byte[] packet = Arrays.copyOf(event.getData(), event.getData().length);
-            ByteArrayDataInput in = ByteStreams.newDataInput(packet);
-            int packetNumber = in.readInt();
-            int packetChunkIndex = in.readInt();
-            int packetChunkSize = in.readInt();
-            int packetId = in.readShort();
+            FrameHeader header = PluginMessageFrameUtils.readHeader(ByteStreams.newDataInput(packet));
+            int packetId = header.getPacketId();
 
             if (!Registry.PROXY_PASSTHROUGH_RELAY_PACKETS.contains(packetId)) {
-                byte[] data = new byte[packet.length - 14];
-                in.readFully(data);
-
-                byte[][] chunks = incoming.remove(packetNumber);
-                if (chunks == null) {
-                    chunks = new byte[packetChunkSize][];
-                }
-                if (chunks.length != packetChunkSize) {
-                    byte[][] adjusted = new byte[packetChunkSize][];
-                    System.arraycopy(chunks, 0, adjusted, 0, adjusted.length);
-                    chunks = adjusted;
-                }
-                if (packetChunkIndex >= 0 && packetChunkIndex < chunks.length) {
-                    chunks[packetChunkIndex] = data;
-                }
-                if (CustomArrayUtils.anyNull(chunks)) {
-                    incoming.put(packetNumber, chunks);
+                PluginMessagePayload payload = reassembler.accept(senderServer, header, packet);
+                if (payload == null) {
                     return;
                 }
-                data = new byte[Arrays.stream(chunks).mapToInt(a -> a.length).sum()];
-                for (int i = 0, pos = 0; i < chunks.length; i++) {
-                    byte[] chunk = chunks[i];
-                    System.arraycopy(chunk, 0, data, pos, chunk.length);
-                    pos += chunk.length;
-                }
-
-                byte[] finalData = data;
-                byte[][] finalChunks = chunks;
-                pluginMessageHandlingExecutor.submit(() -> {
+                PluginMessagePayload finalPayload = payload.decode();
+                pluginMessageHandlingExecutor.submit(senderServer, Registry.PROXY_MERGEABLE_PACKETS.contains(packetId) ? packetId : null, () -> {
                     try {
-                        ByteArrayDataInput input = ByteStreams.newDataInput(finalData);
-                        switch (packetId) {
-                            case 0x07:
-                                int cooldownType = input.readByte();
-                                switch (cooldownType) {
-                                    case 0:
-                                        UUID uuid = DataTypeIO.readUUID(input);
-                                        long time = input.readLong();
-                                        playerCooldownManager.setPlayerUniversalLastTimestamp(uuid, time);
-                                        break;
-                                    case 1:
-                                        uuid = DataTypeIO.readUUID(input);
-                                        UUID internalId = DataTypeIO.readUUID(input);
-                                        time = input.readLong();
-                                        playerCooldownManager.setPlayerPlaceholderLastTimestamp(uuid, internalId, time);
-                                        break;
-                                }
-                                List<RegisteredServer> servers = getServer().getAllServers().stream().filter(e -> !e.getServerInfo().getName().equals(senderServer) && !e.getPlayersConnected().isEmpty()).collect(Collectors.toList());
-                                for (int i = 0; i < finalChunks.length; i++) {
-                                    byte[] chunk = finalChunks[i];
-                                    ByteArrayDataOutput out = ByteStreams.newDataOutput();
-                                    out.writeInt(packetNumber); //random packet number
-                                    out.writeInt(i); //packet chunk index
-                                    out.writeInt(finalChunks.length); //packet total chunks
-                                    out.writeShort(packetId); //packet id
-                                    out.write(chunk);
-                                    for (RegisteredServer eachServer : servers) {
-                                        eachServer.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                                        pluginMessagesCounter.incrementAndGet();
-                                    }
-                                }
-                                break;
-                            case 0x08:
-                                UUID messageId = DataTypeIO.readUUID(input);
-                                String component = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                messageForwardingHandler.receivedProcessedMessage(messageId, component);
-                                break;
-                            case 0x09:
-                                loadConfig();
-                                break;
-                            case 0x0B:
-                                int id = input.readInt();
-                                boolean permissionValue = input.readBoolean();
-                                permissionChecks.put(id, permissionValue);
-                                break;
-                            case 0x0C:
-                                int size1 = input.readInt();
-                                List<ICPlaceholder> list = new ArrayList<>(size1);
-                                for (int i = 0; i < size1; i++) {
-                                    boolean isBuiltIn = input.readBoolean();
-                                    if (isBuiltIn) {
-                                        String keyword = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        long cooldown = input.readLong();
-                                        list.add(new BuiltInPlaceholder(Pattern.compile(keyword), name, description, permission, cooldown));
-                                    } else {
-                                        String key = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        ParsePlayer parseplayer = ParsePlayer.fromOrder(input.readByte());
-                                        String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        boolean parseKeyword = input.readBoolean();
-                                        long cooldown = input.readLong();
-                                        boolean hoverEnabled = input.readBoolean();
-                                        String hoverText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        boolean clickEnabled = input.readBoolean();
-                                        String clickAction = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String clickValue = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        boolean replaceEnabled = input.readBoolean();
-                                        String replaceText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-
-                                        list.add(new CustomPlaceholder(key, parseplayer, Pattern.compile(placeholder), parseKeyword, cooldown, new CustomPlaceholderHoverEvent(hoverEnabled, hoverText), new CustomPlaceholderClickEvent(clickEnabled, clickEnabled ? ClickEventAction.valueOf(clickAction) : null, clickValue), new CustomPlaceholderReplaceText(replaceEnabled, replaceText), name, description));
-                                    }
-                                }
-                                placeholderList.put(server.getServerInfo().getName(), list);
-                                playerCooldownManager.reloadPlaceholders(placeholderList.values().stream().flatMap(each -> each.stream()).distinct().collect(Collectors.toList()));
-                                PluginMessageSendingVelocity.forwardPlaceholderList(list, server);
-                                break;
-                            case 0x0D:
-                                UUID uuid2 = DataTypeIO.readUUID(input);
-                                PluginMessageSendingVelocity.reloadPlayerData(uuid2, server);
-                                break;
-                            case 0x10:
-                                UUID requestUUID = DataTypeIO.readUUID(input);
-                                int requestType = input.readByte();
-                                switch (requestType) {
-                                    case 0:
-                                        PluginMessageSendingVelocity.respondPlayerListRequest(requestUUID, server);
-                                        break;
-                                    default:
-                                        break;
-                                }
-                            case 0x15:
-                                UUID playerUUID = DataTypeIO.readUUID(input);
-                                String command = DataTypeIO.readString(input, StandardCharsets.UTF_8);
-                                Optional<Player> optPlayer = proxyServer.getPlayer(playerUUID);
-                                if (optPlayer.isPresent()) {
-                                    if (!proxyServer.getCommandManager().executeImmediatelyAsync(optPlayer.get(), command).get()) {
-                                        PluginMessageSendingVelocity.executeBackendCommand(playerUUID, command, server);
-                                    }
-                                }
-                                break;
-                        }
+                        handlePacket(packetId, finalPayload, server);
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
                 });
             } else {
-                pluginMessageHandlingExecutor.submit(() -> {
+                pluginMessageHandlingExecutor.submit(senderServer, () -> {
                     for (RegisteredServer eachServer : getServer().getAllServers()) {
                         if (!eachServer.getServerInfo().getName().equals(senderServer) && !eachServer.getPlayersConnected().isEmpty()) {
-                            eachServer.sendPluginMessage(ICChannelIdentifier.INSTANCE, event.getData());
-                            pluginMessagesCounter.incrementAndGet();
+                            PluginMessageSendingVelocity.sendFrame(eachServer, packet);
                         }
                     }
                 });
@@ -633,6 +560,181 @@ public class InteractiveChatVelocity {
         }
     }
 
+    private void handlePacket(int packetId, PluginMessagePayload payload, RegisteredServer server) throws Exception {
+        handlePacket(packetId, payload, server, null);
+    }
+
+    /**
+     * @param batchRelay if not null, records to relay are appended to it instead of being sent on their own
+     */
+    private void handlePacket(int packetId, PluginMessagePayload payload, RegisteredServer server, List<ValuePairs<Integer, byte[]>> batchRelay) throws Exception {
+        String senderServer = server.getServerInfo().getName();
+        ByteArrayDataInput input = payload.newDataInput();
+        switch (packetId) {
+            case 0x07:
+                int cooldownType = input.readByte();
+                switch (cooldownType) {
+                    case 0:
+                        UUID uuid = DataTypeIO.readUUID(input);
+                        long time = input.readLong();
+                        playerCooldownManager.setPlayerUniversalLastTimestamp(uuid, time);
+                        break;
+                    case 1:
+                        uuid = DataTypeIO.readUUID(input);
+                        UUID internalId = DataTypeIO.readUUID(input);
+                        time = input.readLong();
+                        playerCooldownManager.setPlayerPlaceholderLastTimestamp(uuid, internalId, time);
+                        break;
+                }
+                if (batchRelay == null) {
+                    PluginMessageSendingVelocity.relayData(packetId, payload.toByteArray(), server);
+                } else {
+                    batchRelay.add(new ValuePairs<>(packetId, payload.toByteArray()));
+                }
+                break;
+            case 0x08:
+                UUID messageId = DataTypeIO.readUUID(input);
+                String component = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                messageForwardingHandler.receivedProcessedMessage(messageId, component);
+                break;
+            case 0x09:
+                loadConfig();
+                break;
+            case 0x0B:
+                int id = input.readInt();
+                boolean permissionValue = input.readBoolean();
+                permissionChecks.put(id, permissionValue);
+                break;
+            case 0x0C:
+                int size1 = input.readInt();
+                List<ICPlaceholder> list = new ArrayList<>(size1);
+                for (int i = 0; i < size1; i++) {
+                    boolean isBuiltIn = input.readBoolean();
+                    if (isBuiltIn) {
+                        String keyword = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String permission = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        long cooldown = input.readLong();
+                        list.add(new BuiltInPlaceholder(Pattern.compile(keyword), name, description, permission, cooldown));
+                    } else {
+                        String key = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        ParsePlayer parseplayer = ParsePlayer.fromOrder(input.readByte());
+                        String placeholder = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean parseKeyword = input.readBoolean();
+                        long cooldown = input.readLong();
+                        boolean hoverEnabled = input.readBoolean();
+                        String hoverText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean clickEnabled = input.readBoolean();
+                        String clickAction = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String clickValue = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        boolean replaceEnabled = input.readBoolean();
+                        String replaceText = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String name = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                        String description = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+
+                        list.add(new CustomPlaceholder(key, parseplayer, Pattern.compile(placeholder), parseKeyword, cooldown, new CustomPlaceholderHoverEvent(hoverEnabled, hoverText), new CustomPlaceholderClickEvent(clickEnabled, clickEnabled ? ClickEventAction.valueOf(clickAction) : null, clickValue), new CustomPlaceholderReplaceText(replaceEnabled, replaceText), name, description));
+                    }
+                }
+                placeholderList.put(server.getServerInfo().getName(), list);
+                playerCooldownManager.reloadPlaceholders(placeholderList.values().stream().flatMap(each -> each.stream()).distinct().collect(Collectors.toList()));
+                PluginMessageSendingVelocity.forwardPlaceholderList(list, server);
+                break;
+            case 0x0D:
+                UUID uuid2 = DataTypeIO.readUUID(input);
+                PluginMessageSendingVelocity.reloadPlayerData(uuid2, server);
+                break;
+            case 0x10:
+                UUID requestUUID = DataTypeIO.readUUID(input);
+                int requestType = input.readByte();
+                switch (requestType) {
+                    case 0:
+                        PluginMessageSendingVelocity.respondPlayerListRequest(requestUUID, server);
+                        break;
+                    default:
+                        break;
+                }
+            case 0x15:
+                UUID playerUUID = DataTypeIO.readUUID(input);
+                String command = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                Optional<Player> optPlayer = proxyServer.getPlayer(playerUUID);
+                if (optPlayer.isPresent()) {
+                    if (!proxyServer.getCommandManager().executeImmediatelyAsync(optPlayer.get(), command).get()) {
+                        PluginMessageSendingVelocity.executeBackendCommand(playerUUID, command, server);
+                    }
+                }
+                break;
+            case 0x14:
+                int vanishSize = input.readInt();
+                Map<UUID, Boolean> vanishStates = new HashMap<>(vanishSize);
+                for (int i = 0; i < vanishSize; i++) {
+                    vanishStates.put(DataTypeIO.readUUID(input), input.readBoolean());
+                }
+                PluginMessageSendingVelocity.updatePlayersVanished(vanishStates, payload.toByteArray(), server);
+                break;
+            case 0x17:
+                UUID dataOwner = DataTypeIO.readUUID(input);
+                int dataType = input.readByte();
+                int dataVersion = input.readInt();
+                byte[] cachedPayload = remoteDataCache.getPayload(dataOwner, dataType, dataVersion);
+                if (cachedPayload != null) {
+                    PluginMessageSendingVelocity.respondRemoteData(dataOwner, dataType, dataVersion, cachedPayload, Collections.singletonList(server));
+                    break;
+                }
+                Optional<ServerConnection> dataOwnerServer = proxyServer.getPlayer(dataOwner).flatMap(each -> each.getCurrentServer());
+                if (!dataOwnerServer.isPresent() || dataOwnerServer.get().getServerInfo().getName().equals(senderServer)) {
+                    PluginMessageSendingVelocity.respondRemoteDataMiss(dataOwner, dataType, Collections.singletonList(server));
+                    break;
+                }
+                if (remoteDataCache.addRequester(dataOwner, dataType, senderServer)) {
+                    PluginMessageSendingVelocity.requestRemoteData(dataOwner, dataType, dataVersion, dataOwnerServer.get().getServer());
+                }
+                break;
+            case 0x18:
+                UUID dataOwner1 = DataTypeIO.readUUID(input);
+                int dataType1 = input.readByte();
+                int dataVersion1 = input.readInt();
+                byte[] remotePayload = new byte[input.readInt()];
+                input.readFully(remotePayload);
+                List<RegisteredServer> requesters = remoteDataCache.complete(dataOwner1, dataType1, dataVersion1, remotePayload).stream().map(each -> proxyServer.getServer(each)).filter(each -> each.isPresent()).map(each -> each.get()).collect(Collectors.toList());
+                PluginMessageSendingVelocity.respondRemoteData(dataOwner1, dataType1, dataVersion1, remotePayload, requesters);
+                break;
+            case 0x1A:
+                PluginMessageSendingVelocity.sendPlayerListSnapshot(server);
+                break;
+            case 0x1D:
+                UUID keyframePlayerUUID = DataTypeIO.readUUID(input);
+                Optional<ServerConnection> keyframePlayerServer = getServer().getPlayer(keyframePlayerUUID).flatMap(each -> each.getCurrentServer());
+                if (keyframePlayerServer.isPresent() && !keyframePlayerServer.get().getServer().equals(server)) {
+                    PluginMessageSendingVelocity.requestPlaceholderKeyframe(keyframePlayerUUID, keyframePlayerServer.get().getServer());
+                }
+                break;
+            case 0x1F:
+                UUID keyframeOwnerUUID = DataTypeIO.readUUID(input);
+                int keyframeType = input.readByte();
+                Optional<ServerConnection> keyframeOwnerServer = getServer().getPlayer(keyframeOwnerUUID).flatMap(each -> each.getCurrentServer());
+                if (keyframeOwnerServer.isPresent() && !keyframeOwnerServer.get().getServer().equals(server)) {
+                    PluginMessageSendingVelocity.requestRemoteDataKeyframe(keyframeOwnerUUID, keyframeType, keyframeOwnerServer.get().getServer());
+                }
+                break;
+            case 0x1B:
+                List<ValuePairs<Integer, byte[]>> relayRecords = new ArrayList<>();
+                for (ValuePairs<Integer, byte[]> record : PluginMessageFrameUtils.readBatch(input)) {
+                    if (Registry.PROXY_PASSTHROUGH_RELAY_PACKETS.contains(record.getFirst())) {
+                        relayRecords.add(record);
+                    } else if (Registry.PROXY_HANDLE_AND_RELAY_PACKETS.contains(record.getFirst())) {
+                        handlePacket(record.getFirst(), PluginMessagePayload.wrap(record.getSecond()), server, relayRecords);
+                    } else {
+                        PluginMessageSendingVelocity.relayBatch(relayRecords, server);
+                        relayRecords.clear();
+                        handlePacket(record.getFirst(), PluginMessagePayload.wrap(record.getSecond()), server);
+                    }
+                }
+                PluginMessageSendingVelocity.relayBatch(relayRecords, server);
+                break;
+        }
+    }
+
     @Subscribe(order = PostOrder.FIRST)
     public void onVelocityChatFirst(PlayerChatEvent event) {
         if (chatEventPostOrder.equals(PostOrder.FIRST)) {
@@ -991,13 +1093,7 @@ public class InteractiveChatVelocity {
                         byte position = packet.getType();
                         if ((position != 2 && proxyHandlePacketTypesType.hasType(ProxyHandlePacketTypes.ProxyPacketType.CHAT)) || (position == 2 && proxyHandlePacketTypesType.hasType(ProxyHandlePacketTypes.ProxyPacketType.ACTIONBAR))) {
                             if ((position == 0 || position == 1) && message != null) {
-                                if ((message = CustomStringUtils.unescapeUnicode(message)).contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                    message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                    if (Registry.ID_PATTERN.matcher(message).find()) {
-                                        message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                    }
-                                    packet.setMessage(message);
-                                } else if (player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
+                                if (!messageForwardingHandler.consumeProcessed(packet) && player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
                                     messageForwardingHandler.processMessage(player.getUniqueId(), message, position, ChatPacketType.LEGACY_CHAT, packet);
                                     return;
                                 }
@@ -1009,15 +1105,7 @@ public class InteractiveChatVelocity {
                         String message = holder == null ? null : holder.getJson();
                         int position = packet.getType().getId();
                         if (message != null) {
-                            if ((message = CustomStringUtils.unescapeUnicode(message)).contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                if (Registry.ID_PATTERN.matcher(message).find()) {
-                                    message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                }
-                                Field messageField = packet.getClass().getDeclaredField("component");
-                                messageField.setAccessible(true);
-                                messageField.set(packet, new ComponentHolder(getProtocolVersion(holder), message));
-                            } else if (player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), message, position, ChatPacketType.SYSTEM_CHAT, packet);
                                 return;
                             }
@@ -1031,13 +1119,7 @@ public class InteractiveChatVelocity {
                         String message = unsignedContent == null ? null : NativeAdventureConverter.jsonStringFromNative(unsignedContent);
                         int position = packet.getType();
                         if (message != null) {
-                            if ((message = CustomStringUtils.unescapeUnicode(message)).contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                if (Registry.ID_PATTERN.matcher(message).find()) {
-                                    message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                }
-                                unsignedContentField.set(packet, new ComponentHolder(getProtocolVersion(holder), message));
-                            } else if (player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), message, position, ChatPacketType.PLAYER_CHAT, packet);
                                 return;
                             }
@@ -1049,13 +1131,7 @@ public class InteractiveChatVelocity {
                         String message = holder == null ? null : holder.getJson();
                         if (packet.getAction().equals(ActionType.SET_TITLE) || packet.getAction().equals(ActionType.SET_SUBTITLE) || packet.getAction().equals(ActionType.SET_ACTION_BAR)) {
                             if (message != null) {
-                                if ((message = CustomStringUtils.unescapeUnicode(message)).contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                    message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                    if (Registry.ID_PATTERN.matcher(message).find()) {
-                                        message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                    }
-                                    packet.setComponent(new ComponentHolder(getProtocolVersion(holder), message));
-                                } else if (player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
+                                if (!messageForwardingHandler.consumeProcessed(packet) && player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
                                     messageForwardingHandler.processMessage(player.getUniqueId(), message, 0, ChatPacketType.LEGACY_TITLE, packet);
                                     return;
                                 }
@@ -1066,13 +1142,7 @@ public class InteractiveChatVelocity {
                         ComponentHolder holder = packet.getComponent();
                         String message = holder == null ? null : holder.getJson();
                         if (message != null) {
-                            if ((message = CustomStringUtils.unescapeUnicode(message)).contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                if (Registry.ID_PATTERN.matcher(message).find()) {
-                                    message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                }
-                                packet.setComponent(new ComponentHolder(getProtocolVersion(holder), message));
-                            } else if (player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), message, 0, ChatPacketType.TITLE, packet);
                                 return;
                             }
@@ -1082,13 +1152,7 @@ public class InteractiveChatVelocity {
                         ComponentHolder holder = packet.getComponent();
                         String message = holder == null ? null : holder.getJson();
                         if (message != null) {
-                            if ((message = CustomStringUtils.unescapeUnicode(message)).contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                if (Registry.ID_PATTERN.matcher(message).find()) {
-                                    message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                }
-                                packet.setComponent(new ComponentHolder(getProtocolVersion(holder), message));
-                            } else if (player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), message, 0, ChatPacketType.SUBTITLE, packet);
                                 return;
                             }
@@ -1098,13 +1162,7 @@ public class InteractiveChatVelocity {
                         ComponentHolder holder = packet.getComponent();
                         String message = holder == null ? null : holder.getJson();
                         if (message != null) {
-                            if ((message = CustomStringUtils.unescapeUnicode(message)).contains("<QUxSRUFEWVBST0NFU1NFRA==>")) {
-                                message = message.replace("<QUxSRUFEWVBST0NFU1NFRA==>", "");
-                                if (Registry.ID_PATTERN.matcher(message).find()) {
-                                    message = Registry.ID_PATTERN.matcher(message).replaceAll("").trim();
-                                }
-                                packet.setComponent(new ComponentHolder(getProtocolVersion(holder), message));
-                            } else if (player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
+                            if (!messageForwardingHandler.consumeProcessed(packet) && player.getCurrentServer().isPresent() && hasInteractiveChat(player.getCurrentServer().get().getServer())) {
                                 messageForwardingHandler.processMessage(player.getUniqueId(), message, 0, ChatPacketType.ACTION_BAR, packet);
                                 return;
                             }
@@ -1121,6 +1179,8 @@ public class InteractiveChatVelocity {
     @Subscribe
     public void onLeave(DisconnectEvent event) {
         forwardedMessages.remove(event.getPlayer().getUniqueId());
+        remoteDataCache.invalidate(event.getPlayer().getUniqueId());
+        messageForwardingHandler.clearPlayer(event.getPlayer().getUniqueId());
         proxyServer.getScheduler().buildTask(plugin, () -> {
             try {
                 PluginMessageSendingVelocity.sendPlayerListData();
@@ -22,14 +22,19 @@ package com.loohp.interactivechat.proxy.velocity;
 
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
+import com.loohp.interactivechat.bungeemessaging.PluginMessageTransport;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderClickEvent;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderHoverEvent;
 import com.loohp.interactivechat.objectholders.CustomPlaceholder.CustomPlaceholderReplaceText;
 import com.loohp.interactivechat.objectholders.ICPlaceholder;
+import com.loohp.interactivechat.objectholders.SyncedPlayerList;
+import com.loohp.interactivechat.objectholders.SyncedPlayerList.Change;
+import com.loohp.interactivechat.objectholders.ValuePairs;
 import com.loohp.interactivechat.proxy.objectholders.BackendInteractiveChatData;
-import com.loohp.interactivechat.utils.CustomArrayUtils;
+import com.loohp.interactivechat.registry.Registry.PluginMessagingFeature;
 import com.loohp.interactivechat.utils.DataTypeIO;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
@@ -38,11 +43,15 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 @SuppressWarnings("UnstableApiUsage")
 public class PluginMessageSendingVelocity {
@@ -55,51 +64,90 @@ public class PluginMessageSendingVelocity {
     }
 
     public static void sendPlayerListData() throws IOException {
-        ByteArrayDataOutput output = ByteStreams.newDataOutput();
         Collection<Player> players = getServer().getAllPlayers();
 
         List<PlayerListPlayerData> dataList = new ArrayList<>();
+        Map<UUID, ValuePairs<String, String>> current = new HashMap<>();
         for (Player player : players) {
             if (player.getCurrentServer().isPresent()) {
                 String server = player.getCurrentServer().get().getServer().getServerInfo().getName();
                 BackendInteractiveChatData info = InteractiveChatVelocity.serverInteractiveChatInfo.get(server);
                 if (info != null && info.hasInteractiveChat()) {
                     dataList.add(new PlayerListPlayerData(server, player.getUniqueId(), player.getUsername()));
+                    current.put(player.getUniqueId(), new ValuePairs<>(server, player.getUsername()));
                 }
             }
         }
 
-        output.writeInt(dataList.size());
-        for (PlayerListPlayerData data : dataList) {
-            DataTypeIO.writeString(output, data.getServer(), StandardCharsets.UTF_8);
-            DataTypeIO.writeUUID(output, data.getUniqueId());
-            DataTypeIO.writeString(output, data.getName(), StandardCharsets.UTF_8);
+        List<RegisteredServer> deltaServers = new ArrayList<>();
+        List<RegisteredServer> legacyServers = new ArrayList<>();
+        for (RegisteredServer server : serversWithPlayers()) {
+            if (InteractiveChatVelocity.supports(server.getServerInfo().getName(), PluginMessagingFeature.PLAYER_LIST_DELTA)) {
+                deltaServers.add(server);
+            } else {
+                legacyServers.add(server);
+            }
         }
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x00;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
+        SyncedPlayerList playerList = InteractiveChatVelocity.playerList;
+        synchronized (playerList) {
+            List<Change> changes = playerList.update(current);
+            if (!changes.isEmpty()) {
+                playerList.nextSequence();
+            }
+            if (!deltaServers.isEmpty()) {
+                ByteArrayDataOutput output = ByteStreams.newDataOutput();
+                playerList.writeDelta(output, changes);
+                sendData(0x19, output.toByteArray(), deltaServers);
+            }
+        }
 
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
+        if (!legacyServers.isEmpty()) {
+            ByteArrayDataOutput output = ByteStreams.newDataOutput();
+            output.writeInt(dataList.size());
+            for (PlayerListPlayerData data : dataList) {
+                DataTypeIO.writeString(output, data.getServer(), StandardCharsets.UTF_8);
+                DataTypeIO.writeUUID(output, data.getUniqueId());
+                DataTypeIO.writeString(output, data.getName(), StandardCharsets.UTF_8);
+            }
+            sendData(0x00, output.toByteArray(), legacyServers);
+        }
+    }
 
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
+    public static void sendPlayerListSnapshot(RegisteredServer server) throws IOException {
+        SyncedPlayerList playerList = InteractiveChatVelocity.playerList;
+        synchronized (playerList) {
+            ByteArrayDataOutput output = ByteStreams.newDataOutput();
+            playerList.writeSnapshot(output);
+            sendData(0x19, output.toByteArray(), Collections.singletonList(server));
+        }
+    }
 
-            out.write(chunk);
+    public static void updatePlayersVanished(Map<UUID, Boolean> vanishStates, byte[] data, RegisteredServer serverFrom) throws IOException {
+        List<RegisteredServer> deltaServers = new ArrayList<>();
+        List<RegisteredServer> legacyServers = new ArrayList<>();
+        for (RegisteredServer server : serversWithPlayers()) {
+            if (InteractiveChatVelocity.supports(server.getServerInfo().getName(), PluginMessagingFeature.PLAYER_LIST_DELTA)) {
+                deltaServers.add(server);
+            } else if (!server.getServerInfo().getName().equals(serverFrom.getServerInfo().getName())) {
+                legacyServers.add(server);
+            }
+        }
 
-            for (RegisteredServer server : getServer().getAllServers()) {
-                if (!server.getPlayersConnected().isEmpty()) {
-                    server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                    InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-                }
+        SyncedPlayerList playerList = InteractiveChatVelocity.playerList;
+        synchronized (playerList) {
+            List<Change> changes = playerList.updateVanished(vanishStates);
+            if (!changes.isEmpty()) {
+                playerList.nextSequence();
+                ByteArrayDataOutput output = ByteStreams.newDataOutput();
+                playerList.writeDelta(output, changes);
+                sendData(0x19, output.toByteArray(), deltaServers);
             }
         }
+
+        if (!legacyServers.isEmpty()) {
+            sendData(0x14, data, legacyServers);
+        }
     }
 
     public static void sendDelayAndScheme() {
@@ -144,37 +192,24 @@ public class PluginMessageSendingVelocity {
 
         boolean hasDifferentMCVersions = InteractiveChatVelocity.serverInteractiveChatInfo.values().stream().map(each -> each.getExactMinecraftVersion()).distinct().count() > 1;
         if (hasDifferentMCVersions) {
+            //prototypes carry version specific item data, so mixed versions stay on the portable scheme
             output.writeShort(1);
             output.writeShort(1);
+        } else if (InteractiveChatVelocity.isNegotiated(PluginMessagingFeature.ITEM_DICTIONARY)) {
+            output.writeShort(2);
+            output.writeShort(2);
         } else {
             output.writeShort(0);
             output.writeShort(0);
         }
-
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x01;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (RegisteredServer server : getServer().getAllServers()) {
-                if (!server.getPlayersConnected().isEmpty()) {
-                    server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                    InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        output.writeBoolean(InteractiveChatVelocity.isNegotiated(PluginMessagingFeature.PAYLOAD_FLAGS));
+        output.writeBoolean(InteractiveChatVelocity.isNegotiated(PluginMessagingFeature.DEMAND_RELAY));
+        output.writeBoolean(InteractiveChatVelocity.isNegotiated(PluginMessagingFeature.PLAYER_LIST_DELTA));
+        output.writeBoolean(true); //accepts batched frames
+        output.writeBoolean(InteractiveChatVelocity.isNegotiated(PluginMessagingFeature.PLACEHOLDER_DELTA));
+        output.writeBoolean(InteractiveChatVelocity.isNegotiated(PluginMessagingFeature.INVENTORY_DELTA));
+
+        sendData(0x01, output.toByteArray(), serversWithPlayers());
     }
 
     public static void sendMessagePair(UUID uuid, String message) throws IOException {
@@ -183,30 +218,7 @@ public class PluginMessageSendingVelocity {
         DataTypeIO.writeString(output, message, StandardCharsets.UTF_8);
         DataTypeIO.writeUUID(output, uuid);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x06;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (RegisteredServer server : getServer().getAllServers()) {
-                if (!server.getPlayersConnected().isEmpty()) {
-                    server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                    InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        sendData(0x06, output.toByteArray(), serversWithPlayers());
     }
 
     public static void sendPlayerUniversalCooldown(RegisteredServer server, UUID player, long time) throws IOException {
@@ -216,26 +228,7 @@ public class PluginMessageSendingVelocity {
         DataTypeIO.writeUUID(output, player);
         output.writeLong(time);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x07;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-            InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x07, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void sendPlayerPlaceholderCooldown(RegisteredServer server, UUID player, ICPlaceholder placeholder, long time) throws IOException {
@@ -246,26 +239,7 @@ public class PluginMessageSendingVelocity {
         DataTypeIO.writeUUID(output, placeholder.getInternalId());
         output.writeLong(time);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x07;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-            InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x07, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void requestMessageProcess(Player player, RegisteredServer server, String component, UUID messageId, boolean preview) throws IOException {
@@ -276,26 +250,7 @@ public class PluginMessageSendingVelocity {
         DataTypeIO.writeString(output, component, StandardCharsets.UTF_8);
         output.writeBoolean(preview);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x08;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-            InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x08, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void forwardPlaceholderList(List<ICPlaceholder> serverPlaceholderList, RegisteredServer serverFrom) throws IOException {
@@ -338,55 +293,13 @@ public class PluginMessageSendingVelocity {
             }
         }
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x09;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (RegisteredServer server : getServer().getAllServers()) {
-                if (!server.getServerInfo().getName().equals(serverFrom.getServerInfo().getName())) {
-                    server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                    InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        sendData(0x09, output.toByteArray(), serversExcept(serverFrom));
     }
 
     public static void requestPlaceholderList(RegisteredServer server) throws IOException {
         ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x0A;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-            InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x0A, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void checkPermission(Player player, String permission, int id) throws IOException {
@@ -396,27 +309,8 @@ public class PluginMessageSendingVelocity {
         DataTypeIO.writeUUID(output, player.getUniqueId());
         DataTypeIO.writeString(output, permission, StandardCharsets.UTF_8);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x0B;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            if (player.getCurrentServer().isPresent()) {
-                player.getCurrentServer().get().sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-            }
+        if (player.getCurrentServer().isPresent()) {
+            sendData(0x0B, output.toByteArray(), Collections.singletonList(player.getCurrentServer().get().getServer()));
         }
     }
 
@@ -425,30 +319,7 @@ public class PluginMessageSendingVelocity {
 
         DataTypeIO.writeUUID(output, uuid);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x0D;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            for (RegisteredServer server : getServer().getAllServers()) {
-                if (!server.getServerInfo().getName().equals(serverFrom.getServerInfo().getName())) {
-                    server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                    InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-                }
-            }
-        }
+        sendData(0x0D, output.toByteArray(), serversExcept(serverFrom));
     }
 
     public static void respondPlayerListRequest(UUID requestId, RegisteredServer server) throws IOException {
@@ -464,26 +335,7 @@ public class PluginMessageSendingVelocity {
             output.writeInt((int) player.getPing());
         }
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x10;
-        byte[] data = output.toByteArray();
-
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
-
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
-
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
-
-            out.write(chunk);
-
-            server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-            InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
-        }
+        sendData(0x10, output.toByteArray(), Collections.singletonList(server));
     }
 
     public static void forwardSignedChatEventChange(UUID sender, String originalMessage, String modifiedMessage, long time) throws IOException {
@@ -494,56 +346,142 @@ public class PluginMessageSendingVelocity {
         DataTypeIO.writeString(output, modifiedMessage, StandardCharsets.UTF_8);
         output.writeLong(time);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x13;
-        byte[] data = output.toByteArray();
+        sendData(0x13, output.toByteArray(), getServer().getAllServers());
+    }
 
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
+    public static void executeBackendCommand(UUID player, String command, RegisteredServer server) throws IOException {
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
+        DataTypeIO.writeUUID(output, player);
+        DataTypeIO.writeString(output, command, StandardCharsets.UTF_8);
 
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
+        sendData(0x15, output.toByteArray(), Collections.singletonList(server));
+    }
 
-            out.write(chunk);
+    private static Collection<RegisteredServer> serversWithPlayers() {
+        return getServer().getAllServers().stream().filter(server -> !server.getPlayersConnected().isEmpty()).collect(Collectors.toList());
+    }
 
-            for (RegisteredServer server : getServer().getAllServers()) {
-                server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-                InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
+    private static Collection<RegisteredServer> serversWithPlayersExcept(RegisteredServer serverFrom) {
+        return getServer().getAllServers().stream().filter(server -> !server.getServerInfo().getName().equals(serverFrom.getServerInfo().getName()) && !server.getPlayersConnected().isEmpty()).collect(Collectors.toList());
+    }
+
+    private static Collection<RegisteredServer> serversExcept(RegisteredServer serverFrom) {
+        return getServer().getAllServers().stream().filter(server -> !server.getServerInfo().getName().equals(serverFrom.getServerInfo().getName())).collect(Collectors.toList());
+    }
+
+    public static void relayData(int packetId, byte[] data, RegisteredServer serverFrom) throws IOException {
+        sendData(packetId, data, serversWithPlayersExcept(serverFrom));
+    }
+
+    public static void relayBatch(List<ValuePairs<Integer, byte[]>> records, RegisteredServer serverFrom) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        List<RegisteredServer> batchServers = new ArrayList<>();
+        List<RegisteredServer> legacyServers = new ArrayList<>();
+        for (RegisteredServer server : serversWithPlayersExcept(serverFrom)) {
+            if (InteractiveChatVelocity.supports(server.getServerInfo().getName(), PluginMessagingFeature.BATCHING)) {
+                batchServers.add(server);
+            } else {
+                legacyServers.add(server);
+            }
+        }
+        if (!batchServers.isEmpty()) {
+            sendData(PluginMessageFrameUtils.BATCH_PACKET_ID, PluginMessageFrameUtils.createBatch(records), batchServers);
+        }
+        if (!legacyServers.isEmpty()) {
+            for (ValuePairs<Integer, byte[]> record : records) {
+                sendData(record.getFirst(), record.getSecond(), legacyServers);
             }
         }
     }
 
-    public static void executeBackendCommand(UUID player, String command, RegisteredServer server) throws IOException {
+    public static void requestPlaceholderKeyframe(UUID player, RegisteredServer server) throws IOException {
         ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
         DataTypeIO.writeUUID(output, player);
-        DataTypeIO.writeString(output, command, StandardCharsets.UTF_8);
 
-        int packetNumber = InteractiveChatVelocity.random.nextInt();
-        int packetId = 0x15;
-        byte[] data = output.toByteArray();
+        sendData(0x1D, output.toByteArray(), Collections.singletonList(server));
+    }
+
+    public static void requestRemoteDataKeyframe(UUID player, int type, RegisteredServer server) throws IOException {
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
+
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
+
+        sendData(0x1F, output.toByteArray(), Collections.singletonList(server));
+    }
+
+    public static void requestRemoteData(UUID player, int type, int version, RegisteredServer server) throws IOException {
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
+
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
+        output.writeInt(version);
+
+        sendData(0x17, output.toByteArray(), Collections.singletonList(server));
+    }
+
+    public static void respondRemoteData(UUID player, int type, int version, byte[] payload, Collection<RegisteredServer> servers) throws IOException {
+        if (servers.isEmpty()) {
+            return;
+        }
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-        byte[][] dataArray = CustomArrayUtils.divideArray(data, 32700);
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
+        output.writeInt(version);
+        output.writeInt(payload.length);
+        output.write(payload);
+
+        sendData(0x18, output.toByteArray(), servers);
+    }
 
-        for (int i = 0; i < dataArray.length; i++) {
-            byte[] chunk = dataArray[i];
+    public static void respondRemoteDataMiss(UUID player, int type, Collection<RegisteredServer> servers) throws IOException {
+        if (servers.isEmpty()) {
+            return;
+        }
+        ByteArrayDataOutput output = ByteStreams.newDataOutput();
 
-            ByteArrayDataOutput out = ByteStreams.newDataOutput();
-            out.writeInt(packetNumber); //random packet number
-            out.writeInt(i); //packet chunk index
-            out.writeInt(dataArray.length); //packet total chunks
-            out.writeShort(packetId); //packet id
+        DataTypeIO.writeUUID(output, player);
+        output.writeByte(type);
 
-            out.write(chunk);
+        sendData(0x20, output.toByteArray(), servers);
+    }
 
-            server.sendPluginMessage(ICChannelIdentifier.INSTANCE, out.toByteArray());
-            InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
+    private static void sendData(int packetId, byte[] data, Collection<RegisteredServer> servers) {
+        int packetNumber = InteractiveChatVelocity.random.nextInt();
+        byte[][] frames = null;
+        byte[][] compressedFrames = null;
+        for (RegisteredServer server : servers) {
+            byte[][] serverFrames;
+            if (InteractiveChatVelocity.supports(server.getServerInfo().getName(), PluginMessagingFeature.PAYLOAD_FLAGS)) {
+                if (compressedFrames == null) {
+                    compressedFrames = PluginMessageFrameUtils.createFrames(packetNumber, packetId, data, true);
+                }
+                serverFrames = compressedFrames;
+            } else {
+                if (frames == null) {
+                    frames = PluginMessageFrameUtils.createFrames(packetNumber, packetId, data, false);
+                }
+                serverFrames = frames;
+            }
+            for (byte[] frame : serverFrames) {
+                sendFrame(server, frame);
+            }
+        }
+    }
+
+    static void sendFrame(RegisteredServer server, byte[] frame) {
+        PluginMessageTransport transport = InteractiveChatVelocity.getTransport(server.getServerInfo().getName());
+        if (transport == null) {
+            server.sendPluginMessage(ICChannelIdentifier.INSTANCE, frame);
+        } else {
+            transport.send(frame);
         }
+        InteractiveChatVelocity.pluginMessagesCounter.incrementAndGet();
     }
 
     private static class PlayerListPlayerData {
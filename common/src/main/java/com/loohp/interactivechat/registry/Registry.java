@@ -34,7 +34,41 @@ import java.util.regex.Pattern;
 public class Registry {
 
     public static final String PLUGIN_MESSAGING_PROTOCOL_IDENTIFIER = "InteractiveChatBungeePing";
-    public static final int PLUGIN_MESSAGING_PROTOCOL_VERSION = 20;
+    public static final int PLUGIN_MESSAGING_PROTOCOL_VERSION = 27;
+
+    /**
+     * Optional plugin messaging features and the protocol version each was introduced in.
+     * The proxy only turns a feature on once every backend with InteractiveChat announces that version or above.
+     */
+    public enum PluginMessagingFeature {
+
+        PAYLOAD_FLAGS(21),
+        DEMAND_RELAY(22),
+        PLAYER_LIST_DELTA(23),
+        BATCHING(24),
+        PLACEHOLDER_DELTA(25),
+        /**
+         * Item encoding scheme 2, each distinct item of a payload is written once into a dictionary as binary NBT
+         * and slots only reference the dictionary index and carry a varint amount.
+         */
+        ITEM_DICTIONARY(26),
+        INVENTORY_DELTA(27);
+
+        private final int protocolVersion;
+
+        PluginMessagingFeature(int protocolVersion) {
+            this.protocolVersion = protocolVersion;
+        }
+
+        public int getProtocolVersion() {
+            return protocolVersion;
+        }
+
+        public boolean isSupportedBy(int protocolVersion) {
+            return protocolVersion >= this.protocolVersion;
+        }
+
+    }
 
     public static final int INTERACTIVE_CHAT_DISCORD_SRV_ADDON_COMPATIBLE_VERSION = 47;
 
@@ -61,8 +95,23 @@ public class Registry {
             0x0F,
             0x11,
             0x12,
-            0x14,
+            0x16,
+            0x1C,
+            0x1E,
             0xFF
     )));
 
+    /**
+     * Packets the proxy handles itself and then relays unchanged, so inside a batch they are re-batched with the passthrough records.
+     */
+    public static final Set<Integer> PROXY_HANDLE_AND_RELAY_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            0x07
+    )));
+
+    public static final Set<Integer> PROXY_MERGEABLE_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            0x09,
+            0x0C,
+            0x1A
+    )));
+
 }
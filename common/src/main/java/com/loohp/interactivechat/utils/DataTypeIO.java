@@ -38,6 +38,10 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class DataTypeIO {
@@ -63,6 +67,36 @@ public class DataTypeIO {
                     inventory.setItem(i, readItemStack(in, charset));
                 }
                 return inventory;
+            case 2:
+                int size2 = in.readInt();
+                Inventory inventory2;
+                if (type.equals(InventoryType.CHEST)) {
+                    inventory2 = hasTitle ? Bukkit.createInventory(holder, InventoryUtils.toMultipleOf9(size2), title) : Bukkit.createInventory(holder, InventoryUtils.toMultipleOf9(size2));
+                } else {
+                    inventory2 = hasTitle ? Bukkit.createInventory(holder, type, title) : Bukkit.createInventory(holder, type);
+                }
+                int dictionarySize = readVarInt(in);
+                if (size2 < 0 || dictionarySize < 0 || dictionarySize > size2) {
+                    throw new IOException("Item dictionary of " + dictionarySize + " entries does not fit an inventory of " + size2 + " slots");
+                }
+                ItemStack[] dictionary = new ItemStack[dictionarySize];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = readItemPrototype(in, charset);
+                }
+                for (int i = 0; i < size2; i++) {
+                    int reference = readVarInt(in);
+                    if (reference < 0 || reference > dictionary.length) {
+                        throw new IOException("Item dictionary reference " + reference + " is out of range of " + dictionary.length + " entries");
+                    }
+                    if (reference > 0) {
+                        ItemStack itemStack = dictionary[reference - 1].clone();
+                        itemStack.setAmount(readVarInt(in));
+                        if (i < inventory2.getSize()) {
+                            inventory2.setItem(i, itemStack);
+                        }
+                    }
+                }
+                return inventory2;
             default:
                 throw new IllegalArgumentException("Unknown encodingScheme version " + encodingScheme);
         }
@@ -87,6 +121,40 @@ public class DataTypeIO {
                     writeItemStack(out, 1, inventory.getItem(i), charset);
                 }
                 break;
+            case 2:
+                int size = inventory.getSize();
+                out.writeInt(size);
+                List<ItemStack> dictionary = new ArrayList<>();
+                Map<ItemStack, Integer> dictionaryIndex = new HashMap<>();
+                int[] references = new int[size];
+                int[] amounts = new int[size];
+                for (int i = 0; i < size; i++) {
+                    ItemStack itemStack = inventory.getItem(i);
+                    if (itemStack == null || itemStack.getType().equals(Material.AIR)) {
+                        continue;
+                    }
+                    ItemStack prototype = itemStack.clone();
+                    prototype.setAmount(1);
+                    Integer index = dictionaryIndex.get(prototype);
+                    if (index == null) {
+                        index = dictionary.size();
+                        dictionary.add(prototype);
+                        dictionaryIndex.put(prototype, index);
+                    }
+                    references[i] = index + 1;
+                    amounts[i] = itemStack.getAmount();
+                }
+                writeVarInt(out, dictionary.size());
+                for (ItemStack prototype : dictionary) {
+                    writeItemPrototype(out, prototype, charset);
+                }
+                for (int i = 0; i < size; i++) {
+                    writeVarInt(out, references[i]);
+                    if (references[i] > 0) {
+                        writeVarInt(out, amounts[i]);
+                    }
+                }
+                break;
             default:
                 throw new IllegalArgumentException("Unknown encodingScheme version " + encodingScheme);
         }
@@ -133,19 +201,21 @@ public class DataTypeIO {
                         } catch (Exception ignore) {
                         }
                         if (setDurability) {
-                            if (InteractiveChat.version.isLegacy()) {
-                                itemStack.setDurability((short) durability);
-                            } else {
-                                ItemMeta meta = itemStack.getItemMeta();
-                                ((Damageable) meta).setDamage(durability);
-                                itemStack.setItemMeta(meta);
-                            }
+                            setDamage(itemStack, durability);
                         }
                     }
                     return itemStack;
                 } else {
                     return null;
                 }
+            case 2:
+                if (in.readBoolean()) {
+                    ItemStack itemStack = readItemPrototype(in, charset);
+                    itemStack.setAmount(readVarInt(in));
+                    return itemStack;
+                } else {
+                    return null;
+                }
             default:
                 throw new IllegalArgumentException("Unknown encodingScheme version " + encodingScheme);
         }
@@ -186,6 +256,15 @@ public class DataTypeIO {
                     writeString(itemByte, nbt, charset);
                 }
                 break;
+            case 2:
+                if (itemStack == null || itemStack.getType().equals(Material.AIR)) {
+                    itemByte.writeBoolean(false);
+                } else {
+                    itemByte.writeBoolean(true);
+                    writeItemPrototype(itemByte, itemStack, charset);
+                    writeVarInt(itemByte, itemStack.getAmount());
+                }
+                break;
             default:
                 throw new IllegalArgumentException("Unknown encodingScheme version " + encodingScheme);
         }
@@ -193,6 +272,84 @@ public class DataTypeIO {
         out.write(itemByte.toByteArray());
     }
 
+    private static ItemStack readItemPrototype(ByteArrayDataInput in, Charset charset) throws IOException {
+        ICMaterial material = ICMaterial.from(readString(in, charset));
+        int damage = readVarInt(in) - 1;
+        int nbtLength = readVarInt(in);
+        if (nbtLength < 0 || nbtLength > PluginMessageFrameUtils.MAX_PAYLOAD_SIZE) {
+            throw new IOException("Item prototype tag length " + nbtLength + " is out of range");
+        }
+        byte[] nbt = new byte[nbtLength];
+        in.readFully(nbt);
+        ItemStack itemStack = material.parseItem();
+        if (itemStack == null) {
+            itemStack = InteractiveChat.unknownReplaceItem.clone();
+            ItemMeta meta = itemStack.getItemMeta();
+            meta.setDisplayName(meta.getDisplayName().replace("{Type}", material.toString()));
+            itemStack.setItemMeta(meta);
+            return itemStack;
+        }
+        try {
+            ItemStack fromTag = ItemNBTUtils.getItemFromNBTBytes(nbt);
+            if (fromTag != null && fromTag.getType().equals(itemStack.getType())) {
+                itemStack = fromTag;
+            }
+        } catch (Exception ignore) {
+        }
+        if (damage >= 0) {
+            setDamage(itemStack, damage);
+        }
+        return itemStack;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void writeItemPrototype(ByteArrayDataOutput out, ItemStack itemStack, Charset charset) throws IOException {
+        ICMaterial material = FilledMapUtils.isFilledMap(itemStack) ? ICMaterial.of(XMaterial.FILLED_MAP) : ICMaterial.from(itemStack);
+        writeString(out, material.name(), charset);
+        if (itemStack.getType().getMaxDurability() > 0) {
+            writeVarInt(out, (InteractiveChat.version.isLegacy() ? itemStack.getDurability() : ((Damageable) itemStack.getItemMeta()).getDamage()) + 1);
+        } else {
+            writeVarInt(out, 0);
+        }
+        byte[] nbt = ItemNBTUtils.getNMSItemStackBytes(itemStack);
+        writeVarInt(out, nbt.length);
+        out.write(nbt);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void setDamage(ItemStack itemStack, int damage) {
+        if (InteractiveChat.version.isLegacy()) {
+            itemStack.setDurability((short) damage);
+        } else {
+            ItemMeta meta = itemStack.getItemMeta();
+            ((Damageable) meta).setDamage(damage);
+            itemStack.setItemMeta(meta);
+        }
+    }
+
+    public static int readVarInt(ByteArrayDataInput in) {
+        int value = 0;
+        int position = 0;
+        byte current;
+        do {
+            current = in.readByte();
+            value |= (current & 0x7F) << position;
+            position += 7;
+            if (position > 35) {
+                throw new IllegalStateException("VarInt is too big");
+            }
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+
+    public static void writeVarInt(ByteArrayDataOutput out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
     public static UUID readUUID(ByteArrayDataInput in) throws IOException {
         return new UUID(in.readLong(), in.readLong());
     }
@@ -127,6 +127,16 @@ public class HTTPRequestUtils {
         }
     }
 
+    public static InputStream openStream(String link) throws IOException {
+        URLConnection connection = new URL(link).openConnection();
+        connection.setUseCaches(false);
+        connection.setDefaultUseCaches(false);
+        connection.addRequestProperty("User-Agent", "Mozilla/5.0");
+        connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
+        connection.addRequestProperty("Pragma", "no-cache");
+        return connection.getInputStream();
+    }
+
     public static long getContentSize(String link) {
         try {
             URLConnection connection = new URL(link).openConnection();
@@ -55,21 +55,19 @@ public class HashUtils {
     }
 
     public static String createSha1String(File file) throws Exception {
-        byte[] b = createSha1(file);
-        String result = "";
-        for (int i = 0; i < b.length; i++) {
-            result += Integer.toString((b[i] & 0xff) + 0x100, 16).substring(1);
-        }
-        return result;
+        return toHexString(createSha1(file));
     }
 
     public static String createSha1String(InputStream fis) throws Exception {
-        byte[] b = createSha1(fis);
-        String result = "";
+        return toHexString(createSha1(fis));
+    }
+
+    public static String toHexString(byte[] b) {
+        StringBuilder sb = new StringBuilder(b.length * 2);
         for (int i = 0; i < b.length; i++) {
-            result += Integer.toString((b[i] & 0xff) + 0x100, 16).substring(1);
+            sb.append(Integer.toString((b[i] & 0xff) + 0x100, 16).substring(1));
         }
-        return result;
+        return sb.toString();
     }
 
     public static String createSha1(boolean rightHanded, int selectedSlot, int level, String title, Inventory inventory) throws Exception {
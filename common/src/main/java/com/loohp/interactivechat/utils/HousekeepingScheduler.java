@@ -0,0 +1,399 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Runs the plugin's periodic and delayed housekeeping jobs from a single hierarchical timing wheel.
+ * <p>
+ * One timer thread owns the wheel and only wakes up when a slot is due, so jobs falling on the same tick share a
+ * wakeup, and periodic jobs are aligned to a common grid to make that happen as often as possible. Jobs run on a
+ * small fixed pool of worker threads, on the server's async pool when they may block, or on the global region when
+ * they need the server thread. Async jobs that run every tick get a worker thread of their own, so a slow sweep on
+ * the shared pool never delays them. Runtime of every job is accounted for by name.
+ */
+public class HousekeepingScheduler {
+
+    public static final long TICK_MILLIS = 50;
+    public static final int WORKER_THREADS = 2;
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+    private static final long ALIGNMENT = 20;
+
+    private static final Object LOCK = new Object();
+    private static final Queue<Job> INCOMING = new ConcurrentLinkedQueue<>();
+    private static final Map<String, JobStatistics> STATISTICS = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private static final Deque<Job>[][] WHEELS = new Deque[LEVELS][WHEEL_SIZE];
+
+    private static volatile Thread timerThread = null;
+    private static volatile boolean shutdown = false;
+    private static ExecutorService workers;
+    private static ExecutorService tickWorker;
+    private static long startNanos;
+    private static long currentTick;
+
+    static {
+        for (Deque<Job>[] wheel : WHEELS) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    public static Job schedule(String name, Execution execution, long delayTicks, Runnable task) {
+        return schedule(name, execution, delayTicks, 0, job -> task.run());
+    }
+
+    public static Job schedule(String name, Execution execution, long delayTicks, long periodTicks, Runnable task) {
+        return schedule(name, execution, delayTicks, periodTicks, job -> task.run());
+    }
+
+    /**
+     * Schedules a job, which runs once after the delay when the period is zero and repeatedly otherwise.
+     * A periodic job that is still running when it is due again skips that run instead of queuing up behind itself.
+     */
+    public static Job schedule(String name, Execution execution, long delayTicks, long periodTicks, Consumer<Job> task) {
+        if (periodTicks < 0) {
+            throw new IllegalArgumentException("periodTicks cannot be negative");
+        }
+        Job job = new Job(name, execution, periodTicks, task, STATISTICS.computeIfAbsent(name, k -> new JobStatistics(k)));
+        if (!start()) {
+            job.cancel();
+            return job;
+        }
+        long deadline = clockTick() + Math.max(1, delayTicks);
+        if (periodTicks > 1) {
+            long alignment = Math.min(periodTicks, ALIGNMENT);
+            deadline = (deadline + alignment - 1) / alignment * alignment;
+        }
+        job.deadline = deadline;
+        INCOMING.add(job);
+        Thread thread = timerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        return job;
+    }
+
+    public static Map<String, JobStatistics> getStatistics() {
+        return Collections.unmodifiableMap(STATISTICS);
+    }
+
+    public static void shutdown() {
+        Thread thread;
+        synchronized (LOCK) {
+            shutdown = true;
+            thread = timerThread;
+            timerThread = null;
+            if (workers != null) {
+                workers.shutdown();
+            }
+            if (tickWorker != null) {
+                tickWorker.shutdown();
+            }
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private static boolean start() {
+        if (timerThread != null) {
+            return true;
+        }
+        synchronized (LOCK) {
+            if (shutdown) {
+                return false;
+            }
+            if (timerThread == null) {
+                startNanos = System.nanoTime();
+                currentTick = 0;
+                workers = Executors.newFixedThreadPool(WORKER_THREADS, new ThreadFactoryBuilder().setNameFormat("InteractiveChat Housekeeping Worker #%d").setDaemon(true).build());
+                tickWorker = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("InteractiveChat Housekeeping Tick Worker").setDaemon(true).build());
+                Thread thread = new Thread(() -> loop(), "InteractiveChat Housekeeping Timer");
+                thread.setDaemon(true);
+                timerThread = thread;
+                thread.start();
+            }
+            return true;
+        }
+    }
+
+    private static long clockTick() {
+        return (System.nanoTime() - startNanos) / TICK_NANOS;
+    }
+
+    private static void loop() {
+        while (!shutdown) {
+            long now = clockTick();
+            while (currentTick < now) {
+                currentTick++;
+                drainIncoming();
+                advance();
+            }
+            drainIncoming();
+            long wait = startNanos + nextDueTick() * TICK_NANOS - System.nanoTime();
+            if (wait > 0 && INCOMING.isEmpty()) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        INCOMING.clear();
+        for (Deque<Job>[] wheel : WHEELS) {
+            for (Deque<Job> slot : wheel) {
+                slot.clear();
+            }
+        }
+    }
+
+    private static void drainIncoming() {
+        Job job;
+        while ((job = INCOMING.poll()) != null) {
+            if (!job.isCancelled()) {
+                insert(job);
+            }
+        }
+    }
+
+    private static void insert(Job job) {
+        if (job.deadline <= currentTick) {
+            job.deadline = currentTick + 1;
+        }
+        long placement = Math.min(job.deadline, currentTick + MAX_DELAY);
+        long delta = placement - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        WHEELS[level][(int) ((placement >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(job);
+    }
+
+    private static void advance() {
+        long tick = currentTick;
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                Deque<Job> slot = WHEELS[level][(int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+                Job job;
+                while ((job = slot.poll()) != null) {
+                    if (!job.isCancelled()) {
+                        insert(job);
+                    }
+                }
+            }
+        }
+        Deque<Job> slot = WHEELS[0][(int) (tick & WHEEL_MASK)];
+        int size = slot.size();
+        for (int i = 0; i < size; i++) {
+            Job job = slot.poll();
+            if (job.isCancelled()) {
+                continue;
+            }
+            if (job.deadline > tick) {
+                insert(job);
+                continue;
+            }
+            if (job.period > 0) {
+                job.deadline += job.period;
+                insert(job);
+            }
+            fire(job);
+        }
+    }
+
+    private static long nextDueTick() {
+        long boundary = ((currentTick >>> WHEEL_BITS) + 1) << WHEEL_BITS;
+        for (long tick = currentTick + 1; tick < boundary; tick++) {
+            if (!WHEELS[0][(int) (tick & WHEEL_MASK)].isEmpty()) {
+                return tick;
+            }
+        }
+        return boundary;
+    }
+
+    private static void fire(Job job) {
+        JobStatistics statistics = job.statistics;
+        if (!job.running.compareAndSet(false, true)) {
+            statistics.overruns.increment();
+            return;
+        }
+        Runnable runnable = () -> {
+            long start = System.nanoTime();
+            try {
+                if (!job.isCancelled()) {
+                    job.task.accept(job);
+                }
+            } catch (Throwable e) {
+                e.printStackTrace();
+            } finally {
+                statistics.record(System.nanoTime() - start);
+                job.running.set(false);
+            }
+        };
+        try {
+            switch (job.execution) {
+                case ASYNC:
+                    if (job.period == 1) {
+                        tickWorker.execute(runnable);
+                    } else {
+                        workers.execute(runnable);
+                    }
+                    break;
+                case BLOCKING:
+                    FoliaUtil.scheduler.runTaskAsynchronously(runnable);
+                    break;
+                case GLOBAL:
+                    FoliaUtil.scheduler.runTask(runnable);
+                    break;
+            }
+        } catch (Throwable e) {
+            job.running.set(false);
+        }
+    }
+
+    public enum Execution {
+
+        /**
+         * Runs on the scheduler's own worker threads, for short jobs that do not touch world or entity state.
+         * Jobs with a period of one tick run on a dedicated thread apart from the other async jobs.
+         */
+        ASYNC,
+        /**
+         * Runs on the server's async pool, for jobs that may block on I/O or wait for the server thread.
+         */
+        BLOCKING,
+        /**
+         * Runs on the server thread, or the global region on Folia, for jobs that touch world or entity state.
+         */
+        GLOBAL
+
+    }
+
+    public static class Job {
+
+        private final String name;
+        private final Execution execution;
+        private final long period;
+        private final Consumer<Job> task;
+        private final JobStatistics statistics;
+        private final AtomicBoolean running;
+        private volatile boolean cancelled;
+        private long deadline;
+
+        private Job(String name, Execution execution, long period, Consumer<Job> task, JobStatistics statistics) {
+            this.name = name;
+            this.execution = execution;
+            this.period = period;
+            this.task = task;
+            this.statistics = statistics;
+            this.running = new AtomicBoolean(false);
+            this.cancelled = false;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Execution getExecution() {
+            return execution;
+        }
+
+        public long getPeriod() {
+            return period;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+    }
+
+    public static class JobStatistics {
+
+        private final String name;
+        private final LongAdder runs;
+        private final LongAdder totalNanos;
+        private final LongAccumulator maxNanos;
+        private final LongAdder overruns;
+
+        private JobStatistics(String name) {
+            this.name = name;
+            this.runs = new LongAdder();
+            this.totalNanos = new LongAdder();
+            this.maxNanos = new LongAccumulator(Math::max, 0);
+            this.overruns = new LongAdder();
+        }
+
+        private void record(long nanos) {
+            runs.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRuns() {
+            return runs.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getOverruns() {
+            return overruns.sum();
+        }
+
+    }
+
+}
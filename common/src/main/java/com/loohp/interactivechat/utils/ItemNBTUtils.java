@@ -43,6 +43,14 @@ public class ItemNBTUtils {
         return NMS.getInstance().getNMSItemStackJson(itemStack);
     }
 
+    public static ItemStack getItemFromNBTBytes(byte[] bytes) {
+        return NMS.getInstance().getItemFromNBTBytes(bytes);
+    }
+
+    public static byte[] getNMSItemStackBytes(ItemStack itemStack) {
+        return NMS.getInstance().getNMSItemStackBytes(itemStack);
+    }
+
     public static String getNMSItemStackCommandComponent(ItemStack itemStack) {
         Map<Key, DataComponentValue> components = getNMSItemStackDataComponents(itemStack);
         List<String> componentStrings = new ArrayList<>(components.size());
@@ -28,6 +28,9 @@ import net.kyori.adventure.text.Component;
 import net.md_5.bungee.api.ChatColor;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.TeeInputStream;
 import org.bukkit.Bukkit;
 import org.bukkit.DyeColor;
 import org.bukkit.Material;
@@ -45,14 +48,18 @@ import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,164 +67,113 @@ public class LanguageUtils {
 
     public static final String VERSION_MANIFEST_URL = "https://launchermeta.mojang.com/mc/game/version_manifest.json";
     public static final String RESOURCES_URL = "https://resources.download.minecraft.net/";
-    private static final Map<String, Map<String, String>> translations = new HashMap<>();
+    private static final Map<String, Map<String, String>> translations = new ConcurrentHashMap<>();
     private static final Map<Plugin, Map<String, Map<String, String>>> pluginTranslations = new ConcurrentHashMap<>();
-    private static final AtomicBoolean lock = new AtomicBoolean(false);
+    private static final Pattern CLIENT_EN_US_ENTRY_PATTERN = Pattern.compile("^.*assets/minecraft/lang/en_us.(json|lang)$");
+    private static final Object LOADING_LOCK = new Object();
+    private static CompletableFuture<Void> loadingFuture = CompletableFuture.completedFuture(null);
+    private static String loadingLanguage = null;
+
+    public static CompletableFuture<Void> loadTranslations(String language) {
+        return loadTranslations(language, command -> FoliaUtil.scheduler.runTaskAsynchronously(command), () -> loadTranslations0(language));
+    }
+
+    /**
+     * Runs the loader after any load already in flight, unless a load of the same language is still in flight,
+     * in which case its future is shared instead.
+     */
+    static CompletableFuture<Void> loadTranslations(String language, Executor executor, Runnable loader) {
+        synchronized (LOADING_LOCK) {
+            if (!loadingFuture.isDone() && language.equals(loadingLanguage)) {
+                return loadingFuture;
+            }
+            loadingLanguage = language;
+            loadingFuture = loadingFuture.handle((r, e) -> null).thenRunAsync(loader, executor);
+            return loadingFuture;
+        }
+    }
 
     @SuppressWarnings("unchecked")
-    public static void loadTranslations(String language) {
+    private static void loadTranslations0(String language) {
         Bukkit.getConsoleSender().sendMessage(ChatColor.GREEN + "[InteractiveChat] Loading languages...");
-        FoliaUtil.scheduler.runTaskAsynchronously(() -> {
-            while (lock.get()) {
-                try {
-                    TimeUnit.MILLISECONDS.sleep(1);
-                } catch (InterruptedException ignored) {
-                }
+        try {
+            File langFolder = new File(InteractiveChat.plugin.getDataFolder(), "lang");
+            langFolder.mkdirs();
+            File langFileFolder = new File(langFolder, "languages");
+            langFileFolder.mkdirs();
+            File hashFile = new File(langFolder, "hashes.json");
+            if (!hashFile.exists()) {
+                PrintWriter pw = new PrintWriter(hashFile, "UTF-8");
+                pw.print("{");
+                pw.print("}");
+                pw.flush();
+                pw.close();
             }
-            lock.set(true);
-            try {
-                File langFolder = new File(InteractiveChat.plugin.getDataFolder(), "lang");
-                langFolder.mkdirs();
-                File langFileFolder = new File(langFolder, "languages");
-                langFileFolder.mkdirs();
-                File hashFile = new File(langFolder, "hashes.json");
-                if (!hashFile.exists()) {
-                    PrintWriter pw = new PrintWriter(hashFile, "UTF-8");
-                    pw.print("{");
-                    pw.print("}");
-                    pw.flush();
-                    pw.close();
-                }
-                InputStreamReader hashStream = new InputStreamReader(
-                        new FileInputStream(hashFile),
-                        StandardCharsets.UTF_8
-                );
-                JSONObject data = (JSONObject) new JSONParser().parse(hashStream);
-                hashStream.close();
+            InputStreamReader hashStream = new InputStreamReader(
+                    new FileInputStream(hashFile),
+                    StandardCharsets.UTF_8
+            );
+            JSONObject data = (JSONObject) new JSONParser().parse(hashStream);
+            hashStream.close();
+            Map<String, String> clientLanguage = null;
 
-                try {
-                    JSONObject manifest = HTTPRequestUtils.getJSONResponse(VERSION_MANIFEST_URL);
-                    if (manifest == null) {
+            try {
+                JSONObject manifest = HTTPRequestUtils.getJSONResponse(VERSION_MANIFEST_URL);
+                if (manifest == null) {
+                    Bukkit.getConsoleSender()
+                          .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to fetch version_manifest from " + VERSION_MANIFEST_URL);
+                } else {
+                    String mcVersion = InteractiveChat.exactMinecraftVersion;
+                    Object urlObj = ((JSONArray) manifest.get("versions")).stream()
+                                                                          .filter(each -> ((JSONObject) each).get(
+                                                                                                                     "id")
+                                                                                                             .toString()
+                                                                                                             .equalsIgnoreCase(
+                                                                                                                     mcVersion))
+                                                                          .map(each -> ((JSONObject) each).get("url")
+                                                                                                          .toString())
+                                                                          .findFirst()
+                                                                          .orElse(null);
+                    if (urlObj == null) {
                         Bukkit.getConsoleSender()
-                              .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to fetch version_manifest from " + VERSION_MANIFEST_URL);
+                              .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to find " + mcVersion + " from version_manifest");
                     } else {
-                        String mcVersion = InteractiveChat.exactMinecraftVersion;
-                        Object urlObj = ((JSONArray) manifest.get("versions")).stream()
-                                                                              .filter(each -> ((JSONObject) each).get(
-                                                                                                                         "id")
-                                                                                                                 .toString()
-                                                                                                                 .equalsIgnoreCase(
-                                                                                                                         mcVersion))
-                                                                              .map(each -> ((JSONObject) each).get("url")
-                                                                                                              .toString())
-                                                                              .findFirst()
-                                                                              .orElse(null);
-                        if (urlObj == null) {
+                        JSONObject versionData = HTTPRequestUtils.getJSONResponse(urlObj.toString());
+                        if (versionData == null) {
                             Bukkit.getConsoleSender()
-                                  .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to find " + mcVersion + " from version_manifest");
+                                  .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to fetch version data from " + urlObj);
                         } else {
-                            JSONObject versionData = HTTPRequestUtils.getJSONResponse(urlObj.toString());
-                            if (versionData == null) {
+                            JSONObject client = (JSONObject) ((JSONObject) versionData.get("downloads")).get("client");
+                            String clientUrl = client.get("url").toString();
+                            Object clientHash = client.get("sha1");
+                            try {
+                                clientLanguage = updateClientLanguage(clientUrl, clientHash, langFileFolder, data);
+                            } catch (Exception e) {
+                                e.printStackTrace();
+                            }
+
+                            String indexUrl = ((JSONObject) versionData.get("assetIndex")).get("url").toString();
+                            JSONObject assets = HTTPRequestUtils.getJSONResponse(indexUrl);
+                            if (assets == null) {
                                 Bukkit.getConsoleSender()
-                                      .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to fetch version data from " + urlObj);
+                                      .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to fetch assets data from " + indexUrl);
                             } else {
-                                String clientUrl = ((JSONObject) ((JSONObject) versionData.get("downloads")).get(
-                                        "client")).get("url").toString();
-                                try (ZipArchiveInputStream zip = new ZipArchiveInputStream(
-                                        new ByteArrayInputStream(HTTPRequestUtils.download(clientUrl)),
-                                        StandardCharsets.UTF_8.toString(),
-                                        false,
-                                        true,
-                                        true
-                                )) {
-                                    while (true) {
-                                        ZipArchiveEntry entry = zip.getNextZipEntry();
-                                        if (entry == null) {
-                                            break;
-                                        }
-                                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                                        byte[] byteChunk = new byte[4096];
-                                        int n;
-                                        while ((n = zip.read(byteChunk)) > 0) {
-                                            baos.write(byteChunk, 0, n);
-                                        }
-                                        byte[] currentEntry = baos.toByteArray();
-
-                                        String name = entry.getName().toLowerCase();
-                                        if (name.matches("^.*assets/minecraft/lang/en_us.(json|lang)$")) {
-                                            String enUsFileHash = HashUtils.createSha1String(new ByteArrayInputStream(
-                                                    currentEntry));
-                                            String enUsExtension = name.substring(name.indexOf(".") + 1);
-                                            if (data.containsKey("en_us")) {
-                                                JSONObject values = (JSONObject) data.get("en_us");
-                                                File fileToSave = new File(
-                                                        langFileFolder,
-                                                        "en_us" + "." + enUsExtension
-                                                );
-                                                if (!values.get("hash")
-                                                           .toString()
-                                                           .equals(enUsFileHash) || !fileToSave.exists()) {
-                                                    values.put("hash", enUsFileHash);
-                                                    if (fileToSave.exists()) {
-                                                        fileToSave.delete();
-                                                    }
-                                                    FileUtils.copy(new ByteArrayInputStream(currentEntry), fileToSave);
-                                                }
-                                            } else {
-                                                JSONObject values = new JSONObject();
-                                                values.put("hash", enUsFileHash);
-                                                File fileToSave = new File(
-                                                        langFileFolder,
-                                                        "en_us" + "." + enUsExtension
-                                                );
-                                                if (fileToSave.exists()) {
-                                                    fileToSave.delete();
-                                                }
-                                                FileUtils.copy(new ByteArrayInputStream(currentEntry), fileToSave);
-                                                data.put("en_us", values);
-                                            }
-                                            zip.close();
-                                            break;
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    e.printStackTrace();
-                                }
-
-                                String indexUrl = ((JSONObject) versionData.get("assetIndex")).get("url").toString();
-                                JSONObject assets = HTTPRequestUtils.getJSONResponse(indexUrl);
-                                if (assets == null) {
-                                    Bukkit.getConsoleSender()
-                                          .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to fetch assets data from " + indexUrl);
-                                } else {
-                                    JSONObject objects = (JSONObject) assets.get("objects");
-                                    for (Object obj : objects.keySet()) {
-                                        String key = obj.toString().toLowerCase();
-                                        if (key.matches("^minecraft\\/lang\\/" + language + ".(json|lang)$")) {
-                                            String lang = key.substring(key.lastIndexOf("/") + 1, key.indexOf("."));
-                                            String extension = key.substring(key.indexOf(".") + 1);
-                                            String hash = ((JSONObject) objects.get(obj.toString())).get("hash")
-                                                                                                    .toString();
-                                            String fileUrl = RESOURCES_URL + hash.substring(0, 2) + "/" + hash;
-                                            if (data.containsKey(lang)) {
-                                                JSONObject values = (JSONObject) data.get(lang);
-                                                File fileToSave = new File(langFileFolder, lang + "." + extension);
-                                                if (!values.get("hash")
-                                                           .toString()
-                                                           .equals(hash) || !fileToSave.exists()) {
-                                                    values.put("hash", hash);
-                                                    if (fileToSave.exists()) {
-                                                        fileToSave.delete();
-                                                    }
-                                                    if (!HTTPRequestUtils.download(fileToSave, fileUrl)) {
-                                                        Bukkit.getConsoleSender()
-                                                              .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to download " + key + " from " + fileUrl);
-                                                    }
-                                                }
-                                            } else {
-                                                JSONObject values = new JSONObject();
+                                JSONObject objects = (JSONObject) assets.get("objects");
+                                for (Object obj : objects.keySet()) {
+                                    String key = obj.toString().toLowerCase();
+                                    if (key.matches("^minecraft\\/lang\\/" + language + ".(json|lang)$")) {
+                                        String lang = key.substring(key.lastIndexOf("/") + 1, key.indexOf("."));
+                                        String extension = key.substring(key.indexOf(".") + 1);
+                                        String hash = ((JSONObject) objects.get(obj.toString())).get("hash")
+                                                                                                .toString();
+                                        String fileUrl = RESOURCES_URL + hash.substring(0, 2) + "/" + hash;
+                                        if (data.containsKey(lang)) {
+                                            JSONObject values = (JSONObject) data.get(lang);
+                                            File fileToSave = new File(langFileFolder, lang + "." + extension);
+                                            if (!values.get("hash")
+                                                       .toString()
+                                                       .equals(hash) || !fileToSave.exists()) {
                                                 values.put("hash", hash);
-                                                File fileToSave = new File(langFileFolder, lang + "." + extension);
                                                 if (fileToSave.exists()) {
                                                     fileToSave.delete();
                                                 }
@@ -225,87 +181,170 @@ public class LanguageUtils {
                                                     Bukkit.getConsoleSender()
                                                           .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to download " + key + " from " + fileUrl);
                                                 }
-                                                data.put(lang, values);
                                             }
+                                        } else {
+                                            JSONObject values = new JSONObject();
+                                            values.put("hash", hash);
+                                            File fileToSave = new File(langFileFolder, lang + "." + extension);
+                                            if (fileToSave.exists()) {
+                                                fileToSave.delete();
+                                            }
+                                            if (!HTTPRequestUtils.download(fileToSave, fileUrl)) {
+                                                Bukkit.getConsoleSender()
+                                                      .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to download " + key + " from " + fileUrl);
+                                            }
+                                            data.put(lang, values);
                                         }
                                     }
                                 }
                             }
                         }
                     }
-                    JsonUtils.saveToFilePretty(data, hashFile);
+                }
+                JsonUtils.saveToFilePretty(data, hashFile);
+            } catch (Exception e) {
+                Bukkit.getConsoleSender()
+                      .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to download latest languages files from Mojang");
+                e.printStackTrace();
+            }
+
+            String langRegex = "(en_us|" + language + ")";
+
+            if (clientLanguage != null) {
+                translations.put("en_us", clientLanguage);
+            }
+            for (File file : langFileFolder.listFiles()) {
+                try {
+                    if (!file.getName().matches("^" + langRegex + ".(json|lang)$")) {
+                        continue;
+                    }
+                    String lang = file.getName().substring(0, file.getName().lastIndexOf("."));
+                    if (clientLanguage != null && lang.equals("en_us")) {
+                        continue;
+                    }
+                    String extension = file.getName().substring(file.getName().lastIndexOf(".") + 1);
+                    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                        translations.put(lang, parseLanguage(in, extension));
+                    }
                 } catch (Exception e) {
                     Bukkit.getConsoleSender()
-                          .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to download latest languages files from Mojang");
+                          .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to load " + file.getName());
                     e.printStackTrace();
                 }
-
-                String langRegex = "(en_us|" + language + ")";
-
-                for (File file : langFileFolder.listFiles()) {
-                    try {
-                        if (file.getName().matches("^" + langRegex + ".json$")) {
-                            InputStreamReader reader = new InputStreamReader(
-                                    new FileInputStream(file),
-                                    StandardCharsets.UTF_8
-                            );
-                            JSONObject json = (JSONObject) new JSONParser().parse(reader);
-                            reader.close();
-                            Map<String, String> mapping = new HashMap<>();
-                            for (Object obj : json.keySet()) {
-                                try {
-                                    String key = (String) obj;
-                                    mapping.put(key, (String) json.get(key));
-                                } catch (Exception e) {
-                                }
-                            }
-                            translations.put(file.getName().substring(0, file.getName().lastIndexOf(".")), mapping);
-                        } else if (file.getName().matches("^" + langRegex + ".lang$")) {
-                            BufferedReader br = new BufferedReader(new InputStreamReader(
-                                    new FileInputStream(file),
-                                    StandardCharsets.UTF_8
-                            ));
-                            Map<String, String> mapping = new HashMap<>();
-                            br.lines().forEach(line -> {
-                                if (line.contains("=")) {
-                                    mapping.put(
-                                            line.substring(0, line.indexOf("=")),
-                                            line.substring(line.indexOf("=") + 1)
-                                    );
-                                }
-                            });
-                            br.close();
-                            translations.put(file.getName().substring(0, file.getName().lastIndexOf(".")), mapping);
-                        }
-                    } catch (Exception e) {
-                        Bukkit.getConsoleSender()
-                              .sendMessage(ChatColor.RED + "[InteractiveChat] Unable to load " + file.getName());
-                        e.printStackTrace();
+            }
+            if (translations.isEmpty()) {
+                throw new RuntimeException();
+            }
+            for (Map<String, Map<String, String>> pluginLanguageMapping : pluginTranslations.values()) {
+                for (Entry<String, Map<String, String>> entry : pluginLanguageMapping.entrySet()) {
+                    String lang = entry.getKey();
+                    Map<String, String> mapping = entry.getValue();
+                    Map<String, String> existingMapping = translations.get(lang);
+                    if (existingMapping == null) {
+                        translations.put(lang, new HashMap<>(mapping));
+                    } else {
+                        existingMapping.putAll(mapping);
                     }
                 }
-                if (translations.isEmpty()) {
-                    throw new RuntimeException();
+            }
+            Bukkit.getConsoleSender()
+                  .sendMessage(ChatColor.GREEN + "[InteractiveChat] Loaded all " + translations.size() + " languages!");
+        } catch (Exception e) {
+            Bukkit.getConsoleSender().sendMessage(ChatColor.RED + "[InteractiveChat] Unable to setup languages");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Extracts en_us from the client jar, unless hashes.json shows this exact jar was extracted before and its copy is still cached.
+     *
+     * @return the extracted translations, or null if the cached copy is current or the jar has no en_us entry
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, String> updateClientLanguage(String clientUrl, Object clientHash, File langFileFolder, JSONObject data) throws Exception {
+        JSONObject enUsValues = (JSONObject) data.get("en_us");
+        boolean upToDate = clientHash != null && enUsValues != null && clientHash.toString().equals(enUsValues.get("client"))
+                && (new File(langFileFolder, "en_us.json").exists() || new File(langFileFolder, "en_us.lang").exists());
+        if (upToDate) {
+            return null;
+        }
+        Map<String, String> mapping = extractClientLanguage(clientUrl, langFileFolder, data);
+        if (mapping != null && clientHash != null) {
+            ((JSONObject) data.get("en_us")).put("client", clientHash.toString());
+        }
+        return mapping;
+    }
+
+    /**
+     * Parses the en_us entry straight off the client jar download. The entry is copied into the language folder on
+     * the way through, only as a cache for reloads that find the client jar unchanged.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> extractClientLanguage(String clientUrl, File langFileFolder, JSONObject data) throws Exception {
+        try (ZipArchiveInputStream zip = new ZipArchiveInputStream(
+                new BufferedInputStream(HTTPRequestUtils.openStream(clientUrl)),
+                StandardCharsets.UTF_8.toString(),
+                false,
+                true,
+                true
+        )) {
+            ZipArchiveEntry entry;
+            while ((entry = zip.getNextZipEntry()) != null) {
+                String name = entry.getName().toLowerCase();
+                if (!CLIENT_EN_US_ENTRY_PATTERN.matcher(name).matches()) {
+                    continue;
+                }
+                String extension = name.substring(name.indexOf(".") + 1);
+                File fileToSave = new File(langFileFolder, "en_us." + extension);
+                File tempFile = new File(langFileFolder, "en_us." + extension + ".tmp");
+                MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                Map<String, String> mapping;
+                try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)), digest)) {
+                    InputStream in = new TeeInputStream(zip, out, false);
+                    mapping = parseLanguage(in, extension);
+                    IOUtils.consume(in);
                 }
-                for (Map<String, Map<String, String>> pluginLanguageMapping : pluginTranslations.values()) {
-                    for (Entry<String, Map<String, String>> entry : pluginLanguageMapping.entrySet()) {
-                        String lang = entry.getKey();
-                        Map<String, String> mapping = entry.getValue();
-                        Map<String, String> existingMapping = translations.get(lang);
-                        if (existingMapping == null) {
-                            translations.put(lang, new HashMap<>(mapping));
-                        } else {
-                            existingMapping.putAll(mapping);
-                        }
-                    }
+                String hash = HashUtils.toHexString(digest.digest());
+                JSONObject values = (JSONObject) data.get("en_us");
+                if (values == null) {
+                    values = new JSONObject();
+                    data.put("en_us", values);
                 }
-                Bukkit.getConsoleSender()
-                      .sendMessage(ChatColor.GREEN + "[InteractiveChat] Loaded all " + translations.size() + " languages!");
-            } catch (Exception e) {
-                Bukkit.getConsoleSender().sendMessage(ChatColor.RED + "[InteractiveChat] Unable to setup languages");
-                e.printStackTrace();
+                if (!hash.equals(values.get("hash")) || !fileToSave.exists()) {
+                    Files.move(tempFile.toPath(), fileToSave.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    values.put("hash", hash);
+                } else {
+                    tempFile.delete();
+                }
+                return mapping;
             }
-            lock.set(false);
-        });
+        }
+        return null;
+    }
+
+    private static Map<String, String> parseLanguage(InputStream in, String extension) throws Exception {
+        Reader reader = new InputStreamReader(CloseShieldInputStream.wrap(in), StandardCharsets.UTF_8);
+        Map<String, String> mapping = new HashMap<>();
+        if (extension.equals("json")) {
+            JSONObject json = (JSONObject) new JSONParser().parse(reader);
+            for (Object obj : json.keySet()) {
+                try {
+                    String key = (String) obj;
+                    mapping.put(key, (String) json.get(key));
+                } catch (Exception e) {
+                }
+            }
+        } else {
+            new BufferedReader(reader).lines().forEach(line -> {
+                if (line.contains("=")) {
+                    mapping.put(
+                            line.substring(0, line.indexOf("=")),
+                            line.substring(line.indexOf("=") + 1)
+                    );
+                }
+            });
+        }
+        return mapping;
     }
 
     public synchronized static void clearPluginTranslations(Plugin plugin) {
@@ -25,15 +25,13 @@ import com.loohp.interactivechat.bungeemessaging.BungeeMessageSender;
 import com.loohp.interactivechat.objectholders.ICPlayer;
 import com.loohp.interactivechat.objectholders.ICPlayerFactory;
 import com.loohp.interactivechat.objectholders.OfflineICPlayer;
-import com.loohp.interactivechat.objectholders.ValuePairs;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import me.clip.placeholderapi.PlaceholderAPI;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
@@ -48,7 +46,7 @@ public class PlaceholderParser {
     private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("[%]([^%]+)[%]");
 
     static {
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("tab-tooltip-placeholder-warmer", Execution.BLOCKING, 100, 100, () -> {
             if (InteractiveChat.bungeecordMode) {
                 if (InteractiveChat.useTooltipOnTab) {
                     for (Player player : Bukkit.getOnlinePlayers()) {
@@ -56,7 +54,7 @@ public class PlaceholderParser {
                     }
                 }
             }
-        }, 100, 100);
+        });
     }
 
     public static String parse(OfflineICPlayer offlineICPlayer, String str) {
@@ -95,22 +93,7 @@ public class PlaceholderParser {
         } else {
             if (player.isLocal()) {
                 if (InteractiveChat.bungeecordMode) {
-                    List<ValuePairs<String, String>> pairs = new ArrayList<>();
-                    for (Entry<String, String> entry : getAllPlaceholdersContained(
-                            player.getLocalPlayer(),
-                            str
-                    ).entrySet()) {
-                        pairs.add(new ValuePairs<>(entry.getKey(), entry.getValue()));
-                    }
-                    try {
-                        BungeeMessageSender.forwardPlaceholders(
-                                System.currentTimeMillis(),
-                                player.getUniqueId(),
-                                pairs
-                        );
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+                    BungeeMessageSender.queuePlaceholders(player.getUniqueId(), getAllPlaceholdersContained(player.getLocalPlayer(), str));
                 }
                 return PlaceholderAPI.setPlaceholders(player.getLocalPlayer(), str);
             } else {
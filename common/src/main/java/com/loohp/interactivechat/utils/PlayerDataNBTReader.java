@@ -0,0 +1,284 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the few tags needed for an offline player straight from a playerdata file, without building an entity.
+ * Only DataVersion, SelectedItemSlot, XpLevel, Inventory and EnderItems are kept, every other tag is skipped
+ * as it streams past. Items are kept as standalone NBT compounds so they can be turned into item stacks later.
+ */
+public class PlayerDataNBTReader {
+
+    public static final byte TAG_END = 0;
+    public static final byte TAG_BYTE = 1;
+    public static final byte TAG_SHORT = 2;
+    public static final byte TAG_INT = 3;
+    public static final byte TAG_LONG = 4;
+    public static final byte TAG_FLOAT = 5;
+    public static final byte TAG_DOUBLE = 6;
+    public static final byte TAG_BYTE_ARRAY = 7;
+    public static final byte TAG_STRING = 8;
+    public static final byte TAG_LIST = 9;
+    public static final byte TAG_COMPOUND = 10;
+    public static final byte TAG_INT_ARRAY = 11;
+    public static final byte TAG_LONG_ARRAY = 12;
+
+    private static final int MAXIMUM_DEPTH = 512;
+
+    public static PlayerDataNBT read(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return read(in);
+        }
+    }
+
+    public static PlayerDataNBT read(InputStream compressed) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(compressed)));
+        if (in.readByte() != TAG_COMPOUND) {
+            throw new IOException("Root tag is not a compound");
+        }
+        in.readUTF();
+
+        int dataVersion = -1;
+        int selectedSlot = 0;
+        int xpLevel = 0;
+        Map<Integer, byte[]> inventory = Collections.emptyMap();
+        Map<Integer, byte[]> enderItems = Collections.emptyMap();
+        byte type;
+        while ((type = in.readByte()) != TAG_END) {
+            String name = in.readUTF();
+            if (type == TAG_INT && name.equals("DataVersion")) {
+                dataVersion = in.readInt();
+            } else if (type == TAG_INT && name.equals("SelectedItemSlot")) {
+                selectedSlot = in.readInt();
+            } else if (type == TAG_INT && name.equals("XpLevel")) {
+                xpLevel = in.readInt();
+            } else if (type == TAG_LIST && name.equals("Inventory")) {
+                inventory = readItems(in);
+            } else if (type == TAG_LIST && name.equals("EnderItems")) {
+                enderItems = readItems(in);
+            } else {
+                copyPayload(type, in, null, 0);
+            }
+        }
+        return new PlayerDataNBT(dataVersion, selectedSlot, xpLevel, inventory, enderItems);
+    }
+
+    private static Map<Integer, byte[]> readItems(DataInputStream in) throws IOException {
+        byte elementType = in.readByte();
+        int length = in.readInt();
+        if (elementType != TAG_COMPOUND) {
+            for (int i = 0; i < length; i++) {
+                copyPayload(elementType, in, null, 1);
+            }
+            return Collections.emptyMap();
+        }
+        Map<Integer, byte[]> items = new HashMap<>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (int i = 0; i < length; i++) {
+            buffer.reset();
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeByte(TAG_COMPOUND);
+            out.writeUTF("");
+            Integer slot = null;
+            byte type;
+            while ((type = in.readByte()) != TAG_END) {
+                String name = in.readUTF();
+                out.writeByte(type);
+                out.writeUTF(name);
+                if (type == TAG_BYTE && name.equals("Slot")) {
+                    byte value = in.readByte();
+                    out.writeByte(value);
+                    slot = (int) value;
+                } else {
+                    copyPayload(type, in, out, 2);
+                }
+            }
+            out.writeByte(TAG_END);
+            out.flush();
+            if (slot != null) {
+                items.put(slot, buffer.toByteArray());
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Reads the payload of a tag, writing it to out unchanged if out is not null.
+     */
+    private static void copyPayload(byte type, DataInputStream in, DataOutputStream out, int depth) throws IOException {
+        if (depth > MAXIMUM_DEPTH) {
+            throw new IOException("NBT is nested too deeply");
+        }
+        switch (type) {
+            case TAG_BYTE:
+                copy(in, out, 1);
+                break;
+            case TAG_SHORT:
+                copy(in, out, 2);
+                break;
+            case TAG_INT:
+            case TAG_FLOAT:
+                copy(in, out, 4);
+                break;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                copy(in, out, 8);
+                break;
+            case TAG_BYTE_ARRAY:
+                copy(in, out, (long) copyLength(in, out));
+                break;
+            case TAG_STRING: {
+                int length = in.readUnsignedShort();
+                if (out != null) {
+                    out.writeShort(length);
+                }
+                copy(in, out, length);
+                break;
+            }
+            case TAG_LIST: {
+                byte elementType = in.readByte();
+                if (out != null) {
+                    out.writeByte(elementType);
+                }
+                int length = copyLength(in, out);
+                for (int i = 0; i < length; i++) {
+                    copyPayload(elementType, in, out, depth + 1);
+                }
+                break;
+            }
+            case TAG_COMPOUND: {
+                byte childType;
+                while ((childType = in.readByte()) != TAG_END) {
+                    if (out != null) {
+                        out.writeByte(childType);
+                    }
+                    copyPayload(TAG_STRING, in, out, depth);
+                    copyPayload(childType, in, out, depth + 1);
+                }
+                if (out != null) {
+                    out.writeByte(TAG_END);
+                }
+                break;
+            }
+            case TAG_INT_ARRAY:
+                copy(in, out, (long) copyLength(in, out) * 4);
+                break;
+            case TAG_LONG_ARRAY:
+                copy(in, out, (long) copyLength(in, out) * 8);
+                break;
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    private static int copyLength(DataInputStream in, DataOutputStream out) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative NBT length " + length);
+        }
+        if (out != null) {
+            out.writeInt(length);
+        }
+        return length;
+    }
+
+    private static void copy(DataInputStream in, DataOutputStream out, long length) throws IOException {
+        if (out == null) {
+            while (length > 0) {
+                int skipped = in.skipBytes((int) Math.min(length, Integer.MAX_VALUE));
+                if (skipped <= 0) {
+                    in.readByte();
+                    skipped = 1;
+                }
+                length -= skipped;
+            }
+            return;
+        }
+        byte[] buffer = new byte[(int) Math.min(length, 8192)];
+        while (length > 0) {
+            int read = (int) Math.min(length, buffer.length);
+            in.readFully(buffer, 0, read);
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+
+    public static class PlayerDataNBT {
+
+        private final int dataVersion;
+        private final int selectedSlot;
+        private final int xpLevel;
+        private final Map<Integer, byte[]> inventory;
+        private final Map<Integer, byte[]> enderItems;
+
+        public PlayerDataNBT(int dataVersion, int selectedSlot, int xpLevel, Map<Integer, byte[]> inventory, Map<Integer, byte[]> enderItems) {
+            this.dataVersion = dataVersion;
+            this.selectedSlot = selectedSlot;
+            this.xpLevel = xpLevel;
+            this.inventory = inventory;
+            this.enderItems = enderItems;
+        }
+
+        /**
+         * The data version the file was written with, or -1 if it has none.
+         */
+        public int getDataVersion() {
+            return dataVersion;
+        }
+
+        public int getSelectedSlot() {
+            return selectedSlot;
+        }
+
+        public int getXpLevel() {
+            return xpLevel;
+        }
+
+        /**
+         * Items of the Inventory list by their Slot byte, each as an uncompressed unnamed root compound.
+         */
+        public Map<Integer, byte[]> getInventory() {
+            return inventory;
+        }
+
+        /**
+         * Items of the EnderItems list by their Slot byte, each as an uncompressed unnamed root compound.
+         */
+        public Map<Integer, byte[]> getEnderItems() {
+            return enderItems;
+        }
+
+    }
+
+}
@@ -25,6 +25,7 @@ import com.loohp.interactivechat.nms.NMS;
 import com.loohp.interactivechat.objectholders.ICPlayer;
 import com.loohp.interactivechat.objectholders.ICPlayerFactory;
 import com.loohp.interactivechat.objectholders.PermissionCache;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import com.viaversion.viaversion.api.Via;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -46,7 +47,7 @@ public class PlayerUtils implements Listener {
     private static final Map<UUID, Map<String, PermissionCache>> PERMISSION_CACHE = new ConcurrentHashMap<>();
 
     static {
-        FoliaUtil.scheduler.runTaskTimerAsynchronously(() -> {
+        HousekeepingScheduler.schedule("permission-cache-sweep", Execution.ASYNC, 0, 600, () -> {
             long now = System.currentTimeMillis();
             Iterator<Entry<UUID, Map<String, PermissionCache>>> itr0 = PERMISSION_CACHE.entrySet().iterator();
             while (itr0.hasNext()) {
@@ -58,7 +59,7 @@ public class PlayerUtils implements Listener {
                     map.values().removeIf(permissionCache -> permissionCache.getTime() + 180000 < now);
                 }
             }
-        }, 0, 600);
+        });
     }
 
     public static void chatAsPlayer(Player player, String message) {
@@ -0,0 +1,234 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.utils;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.loohp.interactivechat.objectholders.ValuePairs;
+import com.loohp.interactivechat.registry.Registry.PluginMessagingFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Framing of the interchat:main plugin messaging channel.
+ * <p>
+ * Each frame starts with a 14 byte header (packet number, chunk index, total chunks, packet id).
+ * If the highest bit of the packet id is set, a flags byte follows the header. Flags apply to the
+ * whole payload before it was divided into chunks. Receivers that predate the flags byte see an
+ * unknown packet id and ignore the frame, which is why flagged frames are only sent to peers that
+ * announced {@link PluginMessagingFeature#PAYLOAD_FLAGS} support.
+ * <p>
+ * A batch packet ({@link #BATCH_PACKET_ID}) carries several small packets as (packet id, length, payload) records.
+ */
+public class PluginMessageFrameUtils {
+
+    public static final int CHUNK_SIZE = 32700;
+    public static final int HEADER_SIZE = 14;
+    /**
+     * Upper bound of chunks per packet, which caps a payload before and after inflating at about 4 MB.
+     * The largest legitimate packets, full inventories with heavy item NBT, stay well below that.
+     */
+    public static final int MAX_CHUNKS = 128;
+    public static final int MAX_PAYLOAD_SIZE = CHUNK_SIZE * MAX_CHUNKS;
+
+    public static final int FLAGGED_PACKET_ID = 0x8000;
+    public static final int PACKET_ID_MASK = 0x7FFF;
+
+    public static final int FLAG_DEFLATE = 0x01;
+
+    public static final int COMPRESSION_THRESHOLD = 256;
+
+    public static final int BATCH_PACKET_ID = 0x1B;
+
+    public static byte[] createBatch(List<ValuePairs<Integer, byte[]>> records) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeInt(records.size());
+        for (ValuePairs<Integer, byte[]> record : records) {
+            out.writeShort(record.getFirst());
+            out.writeInt(record.getSecond().length);
+            out.write(record.getSecond());
+        }
+        return out.toByteArray();
+    }
+
+    public static List<ValuePairs<Integer, byte[]>> readBatch(byte[] data) {
+        return readBatch(ByteStreams.newDataInput(data));
+    }
+
+    public static List<ValuePairs<Integer, byte[]>> readBatch(ByteArrayDataInput in) {
+        int size = in.readInt();
+        List<ValuePairs<Integer, byte[]>> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int packetId = in.readUnsignedShort();
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            records.add(new ValuePairs<>(packetId, payload));
+        }
+        return records;
+    }
+
+    public static byte[][] createFrames(int packetNumber, int packetId, byte[] data, boolean compression) {
+        int flags = 0;
+        if (compression && data.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = deflate(data);
+            if (compressed.length < data.length) {
+                data = compressed;
+                flags |= FLAG_DEFLATE;
+            }
+        }
+        byte[][] dataArray = CustomArrayUtils.divideArray(data, CHUNK_SIZE);
+        byte[][] frames = new byte[dataArray.length][];
+        for (int i = 0; i < dataArray.length; i++) {
+            frames[i] = writeFrame(packetNumber, i, dataArray.length, packetId, flags, dataArray[i]);
+        }
+        return frames;
+    }
+
+    public static byte[] writeFrame(int packetNumber, int packetChunkIndex, int packetChunkSize, int packetId, int flags, byte[] chunk) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput(HEADER_SIZE + 1 + chunk.length);
+        out.writeInt(packetNumber); //random packet number
+        out.writeInt(packetChunkIndex); //packet chunk index
+        out.writeInt(packetChunkSize); //packet total chunks
+        if (flags == 0) {
+            out.writeShort(packetId); //packet id
+        } else {
+            out.writeShort(packetId | FLAGGED_PACKET_ID); //packet id
+            out.writeByte(flags); //payload flags
+        }
+        out.write(chunk);
+        return out.toByteArray();
+    }
+
+    public static FrameHeader readHeader(ByteArrayDataInput in) {
+        int packetNumber = in.readInt();
+        int packetChunkIndex = in.readInt();
+        int packetChunkSize = in.readInt();
+        int rawPacketId = in.readUnsignedShort();
+        if ((rawPacketId & FLAGGED_PACKET_ID) == 0) {
+            return new FrameHeader(packetNumber, packetChunkIndex, packetChunkSize, rawPacketId, 0, HEADER_SIZE);
+        }
+        int flags = in.readUnsignedByte();
+        return new FrameHeader(packetNumber, packetChunkIndex, packetChunkSize, rawPacketId & PACKET_ID_MASK, flags, HEADER_SIZE + 1);
+    }
+
+    public static byte[] decodePayload(int flags, byte[] data) throws IOException {
+        if ((flags & FLAG_DEFLATE) != 0) {
+            data = inflate(data);
+        }
+        return data;
+    }
+
+    public static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates a payload, refusing to produce more than {@link #MAX_PAYLOAD_SIZE} bytes so a small frame cannot expand without bound.
+     */
+    public static byte[] inflate(byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min((long) data.length * 4, MAX_PAYLOAD_SIZE));
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed plugin message payload");
+                }
+                if (out.size() + n > MAX_PAYLOAD_SIZE) {
+                    throw new IOException("Compressed plugin message payload inflates beyond " + MAX_PAYLOAD_SIZE + " bytes");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public static class FrameHeader {
+
+        private final int packetNumber;
+        private final int packetChunkIndex;
+        private final int packetChunkSize;
+        private final int packetId;
+        private final int flags;
+        private final int length;
+
+        public FrameHeader(int packetNumber, int packetChunkIndex, int packetChunkSize, int packetId, int flags, int length) {
+            this.packetNumber = packetNumber;
+            this.packetChunkIndex = packetChunkIndex;
+            this.packetChunkSize = packetChunkSize;
+            this.packetId = packetId;
+            this.flags = flags;
+            this.length = length;
+        }
+
+        public int getPacketNumber() {
+            return packetNumber;
+        }
+
+        public int getPacketChunkIndex() {
+            return packetChunkIndex;
+        }
+
+        public int getPacketChunkSize() {
+            return packetChunkSize;
+        }
+
+        public int getPacketId() {
+            return packetId;
+        }
+
+        public int getFlags() {
+            return flags;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+    }
+
+}
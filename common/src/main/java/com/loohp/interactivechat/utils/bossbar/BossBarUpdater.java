@@ -21,6 +21,8 @@
 package com.loohp.interactivechat.utils.bossbar;
 
 import com.loohp.interactivechat.InteractiveChat;
+import com.loohp.interactivechat.utils.HousekeepingScheduler;
+import com.loohp.interactivechat.utils.HousekeepingScheduler.Execution;
 import com.loohp.interactivechat.utils.MCVersion;
 import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.bossbar.BossBar.Color;
@@ -28,29 +30,23 @@ import net.kyori.adventure.bossbar.BossBar.Flag;
 import net.kyori.adventure.bossbar.BossBar.Overlay;
 import net.kyori.adventure.text.Component;
 import org.bukkit.entity.Player;
-import org.tjdev.util.tjpluginutil.spigot.FoliaUtil;
-import org.tjdev.util.tjpluginutil.spigot.scheduler.universalscheduler.UniversalRunnable;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class BossBarUpdater implements BossBar.Listener, AutoCloseable {
 
     public static void countdownBossBar(BossBarUpdater updater, int ticks, int removeDelay) {
-        new UniversalRunnable() {
-            int tick = 0;
-
-            @Override
-            public void run() {
-                tick++;
-                BossBar bossbar = updater.getBossBar();
-                float current = 1 - (float) tick / (float) ticks;
-                bossbar.progress(Math.max(current, 0));
-                if (current < 0) {
-                    this.cancel();
-                    FoliaUtil.scheduler.runTaskLaterAsynchronously(() -> updater.close(), removeDelay);
-                }
+        AtomicInteger tick = new AtomicInteger(0);
+        HousekeepingScheduler.schedule("bossbar-countdown", Execution.ASYNC, 1, 1, job -> {
+            BossBar bossbar = updater.getBossBar();
+            float current = 1 - (float) tick.incrementAndGet() / (float) ticks;
+            bossbar.progress(Math.max(current, 0));
+            if (current < 0) {
+                job.cancel();
+                HousekeepingScheduler.schedule("bossbar-removal", Execution.ASYNC, removeDelay, () -> updater.close());
             }
-        }.runTaskTimerAsynchronously(InteractiveChat.plugin, 0, 1);
+        });
     }
 
     public static BossBarUpdater update(BossBar bossbar, Player... players) {
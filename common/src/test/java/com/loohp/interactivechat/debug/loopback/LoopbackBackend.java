@@ -0,0 +1,615 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.debug.loopback;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.loohp.interactivechat.bungeemessaging.PluginMessageTransport;
+import com.loohp.interactivechat.objectholders.PlaceholderValueTable;
+import com.loohp.interactivechat.objectholders.PluginMessagePayload;
+import com.loohp.interactivechat.objectholders.PluginMessageReassembler;
+import com.loohp.interactivechat.objectholders.ValuePairs;
+import com.loohp.interactivechat.registry.Registry;
+import com.loohp.interactivechat.utils.DataStreamIO;
+import com.loohp.interactivechat.utils.DataTypeIO;
+import com.loohp.interactivechat.utils.MCVersion;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils;
+import com.loohp.interactivechat.utils.PluginMessageFrameUtils.FrameHeader;
+import org.json.simple.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A stand-in for a backend server with InteractiveChat, installed on the proxy as the {@link PluginMessageTransport} of one server.
+ * <p>
+ * It answers the proxy's status ping with the plugin messaging protocol version under test and follows the flags of the 0x01
+ * handshake the way the backend sender does: placeholders go out as 0x05 or 0x1C deltas, inventories as 0x04, 0x1E deltas or
+ * 0x16 announcements fetched on demand, and batchable packets are batched. The encoders mirror {@code BungeeMessageSender}
+ * byte for byte except for items, which are written as plain strings so no Bukkit server is needed.
+ */
+public class LoopbackBackend implements PluginMessageTransport, AutoCloseable {
+
+    public static final long TICK = 50;
+
+    private static final int BATCH_BYTE_BUDGET = 16384;
+    private static final int BATCH_RECORD_OVERHEAD = 6;
+    private static final Set<Integer> BATCHED_PACKETS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(0x02, 0x05, 0x06, 0x07, 0x0B, 0x11, 0x14, 0x1C)));
+    private static final int INVENTORY = 1;
+
+    private final String name;
+    private final LoopbackMetrics metrics;
+    private final Consumer<byte[]> upstream;
+    private final String status;
+    private final ServerSocket statusSocket;
+    private final ScheduledExecutorService scheduler;
+    private final PluginMessageReassembler reassembler;
+    private final AtomicBoolean open;
+    private final AtomicLong pendingTasks;
+    private volatile long lastActivity;
+
+    private volatile boolean payloadCompression;
+    private volatile boolean demandRelay;
+    private volatile boolean batching;
+    private volatile boolean placeholderDelta;
+    private volatile boolean inventoryDelta;
+
+    private final Queue<ValuePairs<Integer, byte[]>> batchQueue;
+    private final AtomicInteger batchSize;
+    private final AtomicBoolean batchFlushScheduled;
+    private final Map<UUID, Map<String, String>> pendingPlaceholders;
+    private final AtomicBoolean placeholderFlushScheduled;
+    private final Map<UUID, PlaceholderValueTable> placeholderTables;
+    private final Map<UUID, InventorySnapshot> inventorySnapshots;
+    private final Map<UUID, byte[]> publishedInventories;
+    private final Map<UUID, Integer> publishedVersions;
+    private final Map<UUID, Integer> announcedVersions;
+    private final Map<UUID, Integer> appliedPlaceholderVersions;
+    private final Map<UUID, Integer> appliedInventoryGenerations;
+    private final Map<UUID, Long> pendingFetches;
+
+    public LoopbackBackend(String name, int protocolVersion, LoopbackMetrics metrics, Consumer<byte[]> upstream) throws IOException {
+        this.name = name;
+        this.metrics = metrics;
+        this.upstream = upstream;
+        this.status = createStatus(protocolVersion);
+        this.statusSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("InteractiveChat Loopback Backend " + name).setDaemon(true).build());
+        this.reassembler = new PluginMessageReassembler();
+        this.open = new AtomicBoolean(true);
+        this.pendingTasks = new AtomicLong();
+        this.lastActivity = System.nanoTime();
+        this.batchQueue = new ConcurrentLinkedQueue<>();
+        this.batchSize = new AtomicInteger();
+        this.batchFlushScheduled = new AtomicBoolean();
+        this.pendingPlaceholders = new ConcurrentHashMap<>();
+        this.placeholderFlushScheduled = new AtomicBoolean();
+        this.placeholderTables = new ConcurrentHashMap<>();
+        this.inventorySnapshots = new ConcurrentHashMap<>();
+        this.publishedInventories = new ConcurrentHashMap<>();
+        this.publishedVersions = new ConcurrentHashMap<>();
+        this.announcedVersions = new ConcurrentHashMap<>();
+        this.appliedPlaceholderVersions = new ConcurrentHashMap<>();
+        this.appliedInventoryGenerations = new ConcurrentHashMap<>();
+        this.pendingFetches = new ConcurrentHashMap<>();
+
+        Thread statusThread = new Thread(() -> {
+            while (open.get()) {
+                try (Socket socket = statusSocket.accept()) {
+                    respondToPing(socket);
+                } catch (IOException e) {
+                    if (open.get()) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }, "InteractiveChat Loopback Status " + name);
+        statusThread.setDaemon(true);
+        statusThread.start();
+    }
+
+    private static String createStatus(int protocolVersion) {
+        JSONObject data = new JSONObject();
+        data.put("present", true);
+        data.put("version", "loopback");
+        data.put("minecraftVersion", MCVersion.V1_21_4.getNumber());
+        data.put("exactMinecraftVersion", MCVersion.V1_21_4.getMinecraftVersion());
+        data.put("protocol", protocolVersion);
+        JSONObject json = new JSONObject();
+        json.put("description", data.toJSONString());
+        return json.toJSONString();
+    }
+
+    /**
+     * Answers a status handshake the way a backend with InteractiveChat does, with the plugin data in place of the MOTD.
+     */
+    private void respondToPing(Socket socket) throws IOException {
+        DataInputStream input = new DataInputStream(socket.getInputStream());
+        DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+        input.readFully(new byte[DataStreamIO.readVarInt(input)]);
+        input.readFully(new byte[DataStreamIO.readVarInt(input)]);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        DataStreamIO.writeVarInt(out, 0x00);
+        DataStreamIO.writeString(out, status, StandardCharsets.UTF_8);
+        byte[] response = buffer.toByteArray();
+        DataStreamIO.writeVarInt(output, response.length);
+        output.write(response);
+
+        byte[] ping = new byte[DataStreamIO.readVarInt(input)];
+        input.readFully(ping);
+        DataStreamIO.writeVarInt(output, ping.length);
+        output.write(ping);
+        output.flush();
+    }
+
+    public InetSocketAddress getStatusAddress() {
+        return (InetSocketAddress) statusSocket.getLocalSocketAddress();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return open.get();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Receives a frame written by the proxy to this server.
+     */
+    @Override
+    public void send(byte[] frame) {
+        lastActivity = System.nanoTime();
+        FrameHeader header = PluginMessageFrameUtils.readHeader(ByteStreams.newDataInput(frame));
+        metrics.recordFrame(LoopbackMetrics.DOWNSTREAM, header.getPacketId(), frame.length);
+        metrics.recordRelayed(String.format("relay 0x%02X", header.getPacketId()), header.getPacketNumber());
+        execute(() -> {
+            PluginMessagePayload payload = reassembler.accept("proxy", header, frame);
+            if (payload != null) {
+                handlePacket(header.getPacketId(), payload.decode());
+            }
+        }, 0);
+    }
+
+    /**
+     * Whether nothing is queued on this backend, no fetch is outstanding and no frame passed in either direction for the given period.
+     */
+    public boolean isIdle(long quietNanos) {
+        return pendingTasks.get() == 0 && batchQueue.isEmpty() && pendingPlaceholders.isEmpty() && pendingFetches.isEmpty() && System.nanoTime() - lastActivity >= quietNanos;
+    }
+
+    public void mention(UUID sender, UUID receiver) throws IOException {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, sender);
+        DataTypeIO.writeUUID(out, receiver);
+        forwardData(0x02, out.toByteArray());
+    }
+
+    /**
+     * Queues placeholder values and sends them one tick later, values set again before then replace the queued ones.
+     */
+    public void updatePlaceholders(UUID player, Map<String, String> values) {
+        pendingPlaceholders.merge(player, new HashMap<>(values), (pending, added) -> {
+            pending.putAll(added);
+            return pending;
+        });
+        if (placeholderFlushScheduled.compareAndSet(false, true)) {
+            execute(() -> flushPlaceholders(), TICK);
+        }
+    }
+
+    /**
+     * Shares an inventory, each slot is an item written as a string or null when empty.
+     */
+    public void shareInventory(UUID player, String[] contents) throws IOException {
+        if (inventoryDelta && !demandRelay) {
+            forwardInventoryDelta(player, contents, false);
+            return;
+        }
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeBoolean(true);
+        out.writeByte(0);
+        out.writeInt(0);
+        out.writeByte(0);
+        writeInventory(out, contents);
+        byte[] payload = out.toByteArray();
+        if (demandRelay) {
+            publishInventory(player, payload);
+            return;
+        }
+        ByteArrayDataOutput packet = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(packet, player);
+        packet.write(payload);
+        forwardData(0x04, packet.toByteArray());
+    }
+
+    /**
+     * Opens a player's inventory shared from another server, on demand relay this fetches the latest announced version.
+     */
+    public void viewInventory(UUID player) throws IOException {
+        Integer version = announcedVersions.get(player);
+        if (!demandRelay || version == null || pendingFetches.putIfAbsent(player, System.nanoTime()) != null) {
+            return;
+        }
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        out.writeByte(INVENTORY);
+        out.writeInt(version);
+        forwardData(0x17, out.toByteArray());
+    }
+
+    private void handlePacket(int packetId, PluginMessagePayload payload) throws IOException {
+        ByteArrayDataInput input = payload.newDataInput();
+        switch (packetId) {
+            case 0x01:
+                input.readInt();
+                input.readShort();
+                input.readShort();
+                payloadCompression = payload.length() > 8 && input.readBoolean();
+                demandRelay = payload.length() > 9 && input.readBoolean();
+                if (payload.length() > 10) {
+                    input.readBoolean();
+                }
+                batching = payload.length() > 11 && input.readBoolean();
+                placeholderDelta = payload.length() > 12 && input.readBoolean();
+                inventoryDelta = payload.length() > 13 && input.readBoolean();
+                break;
+            case 0x08:
+                UUID messageId = DataTypeIO.readUUID(input);
+                DataTypeIO.readUUID(input);
+                String component = DataTypeIO.readString(input, StandardCharsets.UTF_8);
+                ByteArrayDataOutput out = ByteStreams.newDataOutput();
+                DataTypeIO.writeUUID(out, messageId);
+                DataTypeIO.writeString(out, component.replace("[item]", "[Diamond Sword]"), StandardCharsets.UTF_8);
+                forwardData(0x08, out.toByteArray());
+                break;
+            case 0x16:
+                UUID announced = DataTypeIO.readUUID(input);
+                input.readByte();
+                announcedVersions.put(announced, input.readInt());
+                break;
+            case 0x17:
+                UUID requested = DataTypeIO.readUUID(input);
+                int requestedType = input.readByte();
+                input.readInt();
+                byte[] published = publishedInventories.get(requested);
+                if (published != null) {
+                    ByteArrayDataOutput response = ByteStreams.newDataOutput();
+                    DataTypeIO.writeUUID(response, requested);
+                    response.writeByte(requestedType);
+                    response.writeInt(publishedVersions.get(requested));
+                    response.writeInt(published.length);
+                    response.write(published);
+                    forwardData(0x18, response.toByteArray());
+                }
+                break;
+            case 0x18:
+            case 0x20:
+                Long fetchStart = pendingFetches.remove(DataTypeIO.readUUID(input));
+                if (fetchStart != null) {
+                    metrics.recordLatency(packetId == 0x18 ? "inventory fetch" : "inventory fetch miss", System.nanoTime() - fetchStart);
+                }
+                break;
+            case 0x1B:
+                for (ValuePairs<Integer, byte[]> record : PluginMessageFrameUtils.readBatch(input)) {
+                    handlePacket(record.getFirst(), PluginMessagePayload.wrap(record.getSecond()));
+                }
+                break;
+            case 0x1C:
+                UUID placeholderOwner = DataTypeIO.readUUID(input);
+                int version = input.readInt();
+                boolean placeholderKeyframe = input.readBoolean();
+                Integer appliedVersion = appliedPlaceholderVersions.get(placeholderOwner);
+                if (placeholderKeyframe || (appliedVersion != null && appliedVersion + 1 == version)) {
+                    appliedPlaceholderVersions.put(placeholderOwner, version);
+                } else {
+                    ByteArrayDataOutput request = ByteStreams.newDataOutput();
+                    DataTypeIO.writeUUID(request, placeholderOwner);
+                    forwardData(0x1D, request.toByteArray());
+                }
+                break;
+            case 0x1D:
+                sendPlaceholderKeyframe(DataTypeIO.readUUID(input));
+                break;
+            case 0x1E:
+                UUID inventoryOwner = DataTypeIO.readUUID(input);
+                int inventoryType = input.readByte();
+                int generation = input.readInt();
+                boolean inventoryKeyframe = input.readBoolean();
+                Integer appliedGeneration = appliedInventoryGenerations.get(inventoryOwner);
+                if (inventoryKeyframe || (appliedGeneration != null && appliedGeneration + 1 == generation)) {
+                    appliedInventoryGenerations.put(inventoryOwner, generation);
+                } else {
+                    ByteArrayDataOutput request = ByteStreams.newDataOutput();
+                    DataTypeIO.writeUUID(request, inventoryOwner);
+                    request.writeByte(inventoryType);
+                    forwardData(0x1F, request.toByteArray());
+                }
+                break;
+            case 0x1F:
+                UUID keyframeOwner = DataTypeIO.readUUID(input);
+                InventorySnapshot snapshot = inventorySnapshots.get(keyframeOwner);
+                if (input.readByte() == INVENTORY && snapshot != null) {
+                    forwardInventoryDelta(keyframeOwner, snapshot.contents, true);
+                }
+                break;
+        }
+    }
+
+    private void flushPlaceholders() throws IOException {
+        placeholderFlushScheduled.set(false);
+        for (UUID player : new ArrayList<>(pendingPlaceholders.keySet())) {
+            Map<String, String> values = pendingPlaceholders.remove(player);
+            if (values == null) {
+                continue;
+            }
+            if (!placeholderDelta) {
+                ByteArrayDataOutput out = ByteStreams.newDataOutput();
+                DataTypeIO.writeUUID(out, player);
+                out.writeInt(values.size());
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    DataTypeIO.writeString(out, entry.getKey(), StandardCharsets.UTF_8);
+                    DataTypeIO.writeString(out, entry.getValue(), StandardCharsets.UTF_8);
+                }
+                forwardData(0x05, out.toByteArray());
+                continue;
+            }
+            PlaceholderValueTable table = placeholderTables.computeIfAbsent(player, k -> new PlaceholderValueTable());
+            synchronized (table) {
+                Map<String, String> changes = table.update(values);
+                if (!changes.isEmpty()) {
+                    int version = table.getVersion();
+                    forwardPlaceholderDelta(player, version, version == 1, changes);
+                }
+            }
+        }
+    }
+
+    private void sendPlaceholderKeyframe(UUID player) throws IOException {
+        PlaceholderValueTable table = placeholderTables.get(player);
+        if (table == null) {
+            return;
+        }
+        synchronized (table) {
+            forwardPlaceholderDelta(player, table.getVersion(), true, table.snapshot());
+        }
+    }
+
+    private void forwardPlaceholderDelta(UUID player, int version, boolean keyframe, Map<String, String> values) throws IOException {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        out.writeInt(version);
+        out.writeBoolean(keyframe);
+        out.writeInt(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            DataTypeIO.writeString(out, entry.getKey(), StandardCharsets.UTF_8);
+            DataTypeIO.writeString(out, entry.getValue(), StandardCharsets.UTF_8);
+        }
+        forwardData(0x1C, out.toByteArray());
+    }
+
+    private void forwardInventoryDelta(UUID player, String[] contents, boolean forceKeyframe) throws IOException {
+        InventorySnapshot snapshot = inventorySnapshots.computeIfAbsent(player, k -> new InventorySnapshot());
+        synchronized (snapshot) {
+            SortedMap<Integer, String> changes = snapshot.update(contents);
+            boolean keyframe = forceKeyframe || snapshot.generation == 1;
+            if (keyframe) {
+                changes = snapshot.snapshot();
+            } else if (changes == null) {
+                return;
+            }
+            ByteArrayDataOutput out = ByteStreams.newDataOutput();
+            DataTypeIO.writeUUID(out, player);
+            out.writeByte(INVENTORY);
+            out.writeInt(snapshot.generation);
+            out.writeBoolean(keyframe);
+            out.writeBoolean(true);
+            out.writeByte(0);
+            out.writeInt(0);
+            out.writeInt(contents.length);
+            if (keyframe) {
+                out.writeBoolean(false);
+            }
+            DataTypeIO.writeVarInt(out, changes.size());
+            for (Map.Entry<Integer, String> entry : changes.entrySet()) {
+                DataTypeIO.writeVarInt(out, entry.getKey());
+                writeItem(out, entry.getValue());
+            }
+            forwardData(0x1E, out.toByteArray());
+        }
+    }
+
+    private void publishInventory(UUID player, byte[] payload) throws IOException {
+        int version;
+        synchronized (publishedInventories) {
+            if (Arrays.equals(publishedInventories.get(player), payload)) {
+                return;
+            }
+            version = publishedVersions.merge(player, 1, Integer::sum);
+            publishedInventories.put(player, payload);
+        }
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        DataTypeIO.writeUUID(out, player);
+        out.writeByte(INVENTORY);
+        out.writeInt(version);
+        forwardData(0x16, out.toByteArray());
+    }
+
+    private static void writeInventory(ByteArrayDataOutput out, String[] contents) throws IOException {
+        out.writeBoolean(false);
+        out.writeInt(contents.length);
+        for (String item : contents) {
+            out.writeBoolean(item != null);
+            if (item != null) {
+                writeItem(out, item);
+            }
+        }
+    }
+
+    private static void writeItem(ByteArrayDataOutput out, String item) throws IOException {
+        DataTypeIO.writeString(out, item == null ? "" : item, StandardCharsets.UTF_8);
+    }
+
+    private void forwardData(int packetId, byte[] data) {
+        if (batching && BATCHED_PACKETS.contains(packetId) && data.length < BATCH_BYTE_BUDGET) {
+            batchQueue.add(new ValuePairs<>(packetId, data));
+            if (batchSize.addAndGet(data.length + BATCH_RECORD_OVERHEAD) >= BATCH_BYTE_BUDGET) {
+                flushBatch();
+            } else if (batchFlushScheduled.compareAndSet(false, true)) {
+                execute(() -> flushBatch(), TICK);
+            }
+            return;
+        }
+        flushBatch();
+        sendData(packetId, data);
+    }
+
+    private void flushBatch() {
+        batchFlushScheduled.set(false);
+        List<ValuePairs<Integer, byte[]>> records = new ArrayList<>();
+        synchronized (batchQueue) {
+            ValuePairs<Integer, byte[]> record;
+            while ((record = batchQueue.poll()) != null) {
+                records.add(record);
+                batchSize.addAndGet(-(record.getSecond().length + BATCH_RECORD_OVERHEAD));
+            }
+            if (records.isEmpty()) {
+                return;
+            }
+            if (records.size() == 1) {
+                sendData(records.get(0).getFirst(), records.get(0).getSecond());
+            } else {
+                sendData(PluginMessageFrameUtils.BATCH_PACKET_ID, PluginMessageFrameUtils.createBatch(records));
+            }
+        }
+    }
+
+    private void sendData(int packetId, byte[] data) {
+        int packetNumber = ThreadLocalRandom.current().nextInt();
+        if (Registry.PROXY_PASSTHROUGH_RELAY_PACKETS.contains(packetId)) {
+            metrics.recordSent(packetNumber);
+        }
+        for (byte[] frame : PluginMessageFrameUtils.createFrames(packetNumber, packetId, data, payloadCompression)) {
+            lastActivity = System.nanoTime();
+            metrics.recordFrame(LoopbackMetrics.UPSTREAM, packetId, frame.length);
+            upstream.accept(frame);
+        }
+    }
+
+    private void execute(Task task, long delayMillis) {
+        pendingTasks.incrementAndGet();
+        scheduler.schedule(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                pendingTasks.decrementAndGet();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        open.set(false);
+        statusSocket.close();
+        scheduler.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Task {
+
+        void run() throws Exception;
+
+    }
+
+    private static class InventorySnapshot {
+
+        private String[] contents;
+        private int generation;
+
+        /**
+         * @return the changed slots, or null if nothing changed since the last update
+         */
+        private SortedMap<Integer, String> update(String[] contents) {
+            SortedMap<Integer, String> changes = new TreeMap<>();
+            for (int i = 0; i < contents.length; i++) {
+                if (this.contents == null || i >= this.contents.length || !Objects.equals(this.contents[i], contents[i])) {
+                    changes.put(i, contents[i]);
+                }
+            }
+            if (this.contents != null && changes.isEmpty()) {
+                return null;
+            }
+            this.contents = contents.clone();
+            generation++;
+            return changes;
+        }
+
+        private SortedMap<Integer, String> snapshot() {
+            SortedMap<Integer, String> snapshot = new TreeMap<>();
+            for (int i = 0; i < contents.length; i++) {
+                if (contents[i] != null) {
+                    snapshot.put(i, contents[i]);
+                }
+            }
+            return snapshot;
+        }
+
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.debug.loopback;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters collected by a loopback run: wire frames and bytes per direction and packet id,
+ * delivery latencies per packet id and the bytes allocated by the JVM over the run.
+ */
+public class LoopbackMetrics {
+
+    public static final String UPSTREAM = "backend->proxy";
+    public static final String DOWNSTREAM = "proxy->backend";
+
+    private final Map<String, Map<Integer, Counter>> traffic;
+    private final Map<String, Queue<Long>> latencies;
+    private final Map<Integer, Long> sentTimes;
+    private long allocatedBytesAtStart;
+    private long allocatedBytes;
+
+    public LoopbackMetrics() {
+        this.traffic = new ConcurrentHashMap<>();
+        this.latencies = new ConcurrentHashMap<>();
+        this.sentTimes = new ConcurrentHashMap<>();
+        this.allocatedBytesAtStart = -1;
+        this.allocatedBytes = -1;
+    }
+
+    public void recordFrame(String direction, int packetId, int length) {
+        Counter counter = traffic.computeIfAbsent(direction, k -> new ConcurrentHashMap<>()).computeIfAbsent(packetId, k -> new Counter());
+        counter.frames.increment();
+        counter.bytes.add(length);
+    }
+
+    public void recordLatency(String name, long nanos) {
+        latencies.computeIfAbsent(name, k -> new ConcurrentLinkedQueue<>()).add(nanos);
+    }
+
+    /**
+     * Records when a backend sent a packet the proxy relays unchanged, so its arrival on other backends can be timed by packet number.
+     */
+    public void recordSent(int packetNumber) {
+        sentTimes.put(packetNumber, System.nanoTime());
+    }
+
+    public void recordRelayed(String name, int packetNumber) {
+        Long sentTime = sentTimes.get(packetNumber);
+        if (sentTime != null) {
+            recordLatency(name, System.nanoTime() - sentTime);
+        }
+    }
+
+    public void startAllocationTracking() {
+        allocatedBytesAtStart = getTotalAllocatedBytes();
+    }
+
+    public void stopAllocationTracking() {
+        long now = getTotalAllocatedBytes();
+        allocatedBytes = allocatedBytesAtStart < 0 || now < 0 ? -1 : now - allocatedBytesAtStart;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getFrames(String direction) {
+        return traffic.getOrDefault(direction, Collections.emptyMap()).values().stream().mapToLong(each -> each.frames.sum()).sum();
+    }
+
+    public long getBytes(String direction) {
+        return traffic.getOrDefault(direction, Collections.emptyMap()).values().stream().mapToLong(each -> each.bytes.sum()).sum();
+    }
+
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (String direction : new String[] {UPSTREAM, DOWNSTREAM}) {
+            lines.add(direction + ": " + getFrames(direction) + " frames, " + getBytes(direction) + " bytes");
+            for (Map.Entry<Integer, Counter> entry : new TreeMap<>(traffic.getOrDefault(direction, Collections.emptyMap())).entrySet()) {
+                lines.add(String.format("  0x%02X %8d frames %12d bytes", entry.getKey(), entry.getValue().frames.sum(), entry.getValue().bytes.sum()));
+            }
+        }
+        for (Map.Entry<String, Queue<Long>> entry : new TreeMap<>(latencies).entrySet()) {
+            List<Long> samples = new ArrayList<>(entry.getValue());
+            if (samples.isEmpty()) {
+                continue;
+            }
+            Collections.sort(samples);
+            double average = samples.stream().mapToLong(each -> each).average().orElse(0) / 1000000.0;
+            lines.add(String.format("latency %s: n=%d avg=%.3fms p50=%.3fms p99=%.3fms max=%.3fms", entry.getKey(), samples.size(), average, percentile(samples, 0.5), percentile(samples, 0.99), samples.get(samples.size() - 1) / 1000000.0));
+        }
+        lines.add("allocated: " + (allocatedBytes < 0 ? "unsupported" : allocatedBytes + " bytes"));
+        return lines;
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1000000.0;
+    }
+
+    @SuppressWarnings("restriction")
+    private static long getTotalAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long allocated : sunBean.getThreadAllocatedBytes(sunBean.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+    private static class Counter {
+
+        private final LongAdder frames = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.debug.loopback;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.loohp.interactivechat.bungeemessaging.PluginMessageTransport;
+import com.loohp.interactivechat.objectholders.PartitionedMessageExecutor;
+import com.loohp.interactivechat.proxy.objectholders.ChatPacketType;
+import com.loohp.interactivechat.proxy.objectholders.ProxyMessageForwardingHandler;
+import com.loohp.interactivechat.proxy.objectholders.ProxyMessageForwardingHandler.ForwardMessageInfo;
+import com.loohp.interactivechat.proxy.objectholders.ProxyPlayerCooldownManager;
+import com.loohp.interactivechat.proxy.velocity.InteractiveChatVelocity;
+import com.loohp.interactivechat.proxy.velocity.PluginMessageSendingVelocity;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the real {@link InteractiveChatVelocity} plugin message handling in this JVM, without a Velocity server.
+ * <p>
+ * The Velocity API objects the handler reads from, the proxy, its registered servers, players and their connections,
+ * are interface stubs backed by this class. Every backend server is a {@link LoopbackBackend} installed as that server's
+ * {@link PluginMessageTransport}, so frames leave through the real {@link PluginMessageSendingVelocity} and come back in through
+ * {@link InteractiveChatVelocity#receiveFrame(byte[], RegisteredServer)}. Features are negotiated by the real status ping
+ * against each backend, and chat runs through a real {@link ProxyMessageForwardingHandler}.
+ * <p>
+ * The proxy's plugin state is static, so only one loopback proxy may be open at a time.
+ */
+public class LoopbackProxy implements AutoCloseable {
+
+    public static final long CHAT_PROCESSING_TIMEOUT = 5000;
+    public static final long QUIET_PERIOD = 250;
+
+    private final long runId;
+    private final LoopbackMetrics metrics;
+    private final Map<String, LoopbackBackend> backends;
+    private final Map<String, RegisteredServer> servers;
+    private final Map<UUID, Player> players;
+    private final Map<UUID, String> playerServers;
+    private final ProxyServer proxyServer;
+    private final PartitionedMessageExecutor executor;
+    private final ProxyMessageForwardingHandler messageForwardingHandler;
+    private final AtomicLong pendingChats;
+
+    public LoopbackProxy(int protocolVersion, int backends, LoopbackMetrics metrics) throws IOException {
+        this.runId = ThreadLocalRandom.current().nextLong();
+        this.metrics = metrics;
+        this.backends = new LinkedHashMap<>();
+        this.servers = new LinkedHashMap<>();
+        this.players = new ConcurrentHashMap<>();
+        this.playerServers = new ConcurrentHashMap<>();
+        this.pendingChats = new AtomicLong();
+        for (int i = 0; i < backends; i++) {
+            String name = "loopback-" + i;
+            LoopbackBackend backend = new LoopbackBackend(name, protocolVersion, metrics, frame -> InteractiveChatVelocity.plugin.receiveFrame(frame, servers.get(name)));
+            ServerInfo serverInfo = new ServerInfo(name, backend.getStatusAddress());
+            Map<String, Function<Object[], Object>> methods = new HashMap<>();
+            methods.put("getServerInfo", args -> serverInfo);
+            methods.put("getPlayersConnected", args -> getPlayersOn(name));
+            this.backends.put(name, backend);
+            this.servers.put(name, stub(RegisteredServer.class, name, methods));
+        }
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("getAllPlayers", args -> Collections.unmodifiableCollection(players.values()));
+        methods.put("getPlayerCount", args -> players.size());
+        methods.put("getAllServers", args -> Collections.unmodifiableCollection(servers.values()));
+        methods.put("getServer", args -> Optional.ofNullable(servers.get((String) args[0])));
+        methods.put("getPlayer", args -> args[0] instanceof UUID ? Optional.ofNullable(players.get(args[0])) : players.values().stream().filter(each -> each.getUsername().equals(args[0])).findFirst());
+        this.proxyServer = stub(ProxyServer.class, "proxy", methods);
+        this.executor = new PartitionedMessageExecutor(8, 4096, new ThreadFactoryBuilder().setNameFormat("InteractiveChat Loopback Proxy Thread #%d").setDaemon(true).build(), source -> System.err.println("Plugin message queue for " + source + " is full"));
+        this.messageForwardingHandler = new ProxyMessageForwardingHandler((info, component) -> requestMessageProcess(info, component), (info, component) -> deliverChat(info), players::containsKey, playerServers::containsKey, uuid -> Runnable::run, () -> CHAT_PROCESSING_TIMEOUT);
+    }
+
+    /**
+     * Installs this proxy as the Velocity plugin and lets it ping every backend, which negotiates the protocol features.
+     */
+    public void start() {
+        InteractiveChatVelocity.plugin = new InteractiveChatVelocity(proxyServer, LoggerFactory.getLogger("InteractiveChat Loopback"), null, Paths.get("loopback"));
+        InteractiveChatVelocity.playerCooldownManager = new ProxyPlayerCooldownManager(Collections.emptyList());
+        InteractiveChatVelocity.setupPluginMessaging(messageForwardingHandler, executor);
+        for (LoopbackBackend backend : backends.values()) {
+            InteractiveChatVelocity.setTransport(backend.getName(), backend);
+        }
+        PluginMessageSendingVelocity.sendDelayAndScheme(true);
+    }
+
+    public long getRunId() {
+        return runId;
+    }
+
+    public LoopbackMetrics getMetrics() {
+        return metrics;
+    }
+
+    public List<String> getBackendNames() {
+        return new ArrayList<>(backends.keySet());
+    }
+
+    public LoopbackBackend getBackend(String name) {
+        return backends.get(name);
+    }
+
+    public Map<UUID, String> getPlayers() {
+        return Collections.unmodifiableMap(playerServers);
+    }
+
+    /**
+     * Connects a player to a backend, as the proxy's connect handler does this sends the player list and
+     * negotiates with a server that just got its first player.
+     */
+    public void join(UUID uuid, String server) throws IOException {
+        boolean firstPlayer = getPlayersOn(server).isEmpty();
+        String name = uuid.toString().substring(0, 16);
+        ServerConnection[] connection = new ServerConnection[1];
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("getUniqueId", args -> uuid);
+        methods.put("getUsername", args -> name);
+        methods.put("getCurrentServer", args -> Optional.of(connection[0]));
+        methods.put("getPing", args -> 0L);
+        Player player = stub(Player.class, name, methods);
+        Map<String, Function<Object[], Object>> connectionMethods = new HashMap<>();
+        connectionMethods.put("getServer", args -> servers.get(server));
+        connectionMethods.put("getServerInfo", args -> servers.get(server).getServerInfo());
+        connectionMethods.put("getPlayer", args -> player);
+        connection[0] = stub(ServerConnection.class, name + "@" + server, connectionMethods);
+
+        playerServers.put(uuid, server);
+        if (players.put(uuid, player) != null) {
+            messageForwardingHandler.clearPlayer(uuid);
+        }
+        PluginMessageSendingVelocity.sendPlayerListData();
+        if (firstPlayer) {
+            PluginMessageSendingVelocity.sendDelayAndScheme(true);
+        }
+    }
+
+    public void chat(UUID player, String message) {
+        pendingChats.incrementAndGet();
+        messageForwardingHandler.processMessage(player, message, 0, ChatPacketType.SYSTEM_CHAT, System.nanoTime());
+    }
+
+    /**
+     * Flushes the backends' pending batches and waits until every chat message has come back from processing
+     * and every backend has been idle for {@link #QUIET_PERIOD}.
+     */
+    public boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long quietNanos = TimeUnit.MILLISECONDS.toNanos(QUIET_PERIOD);
+        while (System.nanoTime() < deadline) {
+            if (pendingChats.get() == 0 && backends.values().stream().allMatch(each -> each.isIdle(quietNanos))) {
+                return true;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return false;
+    }
+
+    private Collection<Player> getPlayersOn(String server) {
+        return playerServers.entrySet().stream().filter(entry -> entry.getValue().equals(server)).map(entry -> players.get(entry.getKey())).filter(each -> each != null).collect(Collectors.toList());
+    }
+
+    private void requestMessageProcess(ForwardMessageInfo info, String component) {
+        Player player = players.get(info.getPlayer());
+        RegisteredServer server = servers.get(playerServers.get(info.getPlayer()));
+        if (player == null || server == null) {
+            return;
+        }
+        try {
+            PluginMessageSendingVelocity.requestMessageProcess(player, server, component, info.getId(), info.getType().isPreview());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void deliverChat(ForwardMessageInfo info) {
+        metrics.recordLatency("chat", System.nanoTime() - (Long) info.getOriginalPacket());
+        pendingChats.decrementAndGet();
+    }
+
+    /**
+     * Stubs a Velocity API interface with the given methods, any other method throws so a handler path
+     * this proxy does not model fails loudly instead of reading a default.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, String name, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(LoopbackProxy.class.getClassLoader(), new Class<?>[] {type}, (instance, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return instance == args[0];
+                case "hashCode":
+                    return System.identityHashCode(instance);
+                case "toString":
+                    return type.getSimpleName() + "[" + name + "]";
+            }
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed by the loopback proxy");
+            }
+            return implementation.apply(args);
+        });
+    }
+
+    /**
+     * Disconnects every player, restores the default transports and shuts the backends down.
+     */
+    @Override
+    public void close() throws Exception {
+        players.clear();
+        playerServers.clear();
+        PluginMessageSendingVelocity.sendPlayerListData();
+        for (LoopbackBackend backend : backends.values()) {
+            InteractiveChatVelocity.setTransport(backend.getName(), null);
+            backend.close();
+        }
+        messageForwardingHandler.close();
+        executor.close();
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.debug.loopback;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scripted sequence of joins, chat bursts, inventory shares, mentions and placeholder updates.
+ * Every step is driven from a seeded random so runs with different protocol versions see the same traffic,
+ * and the network is drained after each step. Inventory views only cause traffic where inventories are relayed on demand.
+ */
+public class LoopbackWorkload {
+
+    public static final long STEP_TIMEOUT = 30000;
+
+    private static final String[] ITEMS = {"diamond_sword", "iron_pickaxe", "bow", "golden_apple", "oak_log", "cobblestone", "torch", "shield", "elytra", "firework_rocket"};
+
+    public static LoopbackWorkload standard(long seed) {
+        return new LoopbackWorkload(seed)
+                .joins(25)
+                .placeholderUpdates(20, 30, 3)
+                .inventoryShares(20, 2)
+                .inventoryViews(200)
+                .chatBurst(10)
+                .mentions(500);
+    }
+
+    private final long seed;
+    private final List<Step> steps;
+
+    public LoopbackWorkload(long seed) {
+        this.seed = seed;
+        this.steps = new ArrayList<>();
+    }
+
+    public LoopbackWorkload joins(int playersPerBackend) {
+        steps.add((proxy, random) -> {
+            for (String backend : proxy.getBackendNames()) {
+                for (int i = 0; i < playersPerBackend; i++) {
+                    //salted per run, so the proxy's caches from an earlier run do not carry over
+                    proxy.join(new UUID(random.nextLong() ^ proxy.getRunId(), random.nextLong()), backend);
+                }
+            }
+        });
+        return this;
+    }
+
+    public LoopbackWorkload chatBurst(int messagesPerPlayer) {
+        steps.add((proxy, random) -> {
+            List<UUID> players = new ArrayList<>(proxy.getPlayers().keySet());
+            for (int i = 0; i < messagesPerPlayer; i++) {
+                for (UUID player : players) {
+                    proxy.chat(player, "{\"text\":\"message " + i + " [item] from " + player + "\"}");
+                }
+            }
+        });
+        return this;
+    }
+
+    public LoopbackWorkload mentions(int count) {
+        steps.add((proxy, random) -> {
+            List<UUID> players = new ArrayList<>(proxy.getPlayers().keySet());
+            for (int i = 0; i < count; i++) {
+                UUID sender = players.get(random.nextInt(players.size()));
+                UUID receiver = players.get(random.nextInt(players.size()));
+                proxy.getBackend(proxy.getPlayers().get(sender)).mention(sender, receiver);
+            }
+        });
+        return this;
+    }
+
+    public LoopbackWorkload inventoryShares(int rounds, int changedSlotsPerRound) {
+        steps.add((proxy, random) -> {
+            Map<UUID, String[]> inventories = new HashMap<>();
+            for (int round = 0; round < rounds; round++) {
+                for (Map.Entry<UUID, String> entry : proxy.getPlayers().entrySet()) {
+                    String[] inventory = inventories.get(entry.getKey());
+                    if (inventory == null) {
+                        inventory = new String[45];
+                        for (int i = 0; i < inventory.length; i++) {
+                            inventory[i] = random.nextInt(3) == 0 ? null : randomItem(random);
+                        }
+                        inventories.put(entry.getKey(), inventory);
+                    } else {
+                        for (int i = 0; i < changedSlotsPerRound; i++) {
+                            inventory[random.nextInt(inventory.length)] = randomItem(random);
+                        }
+                    }
+                    proxy.getBackend(entry.getValue()).shareInventory(entry.getKey(), inventory);
+                }
+                proxy.awaitQuiescence(STEP_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+        });
+        return this;
+    }
+
+    public LoopbackWorkload inventoryViews(int count) {
+        steps.add((proxy, random) -> {
+            List<UUID> players = new ArrayList<>(proxy.getPlayers().keySet());
+            List<String> backends = proxy.getBackendNames();
+            for (int i = 0; i < count; i++) {
+                UUID owner = players.get(random.nextInt(players.size()));
+                String viewer = backends.get(random.nextInt(backends.size()));
+                if (!viewer.equals(proxy.getPlayers().get(owner))) {
+                    proxy.getBackend(viewer).viewInventory(owner);
+                }
+            }
+        });
+        return this;
+    }
+
+    public LoopbackWorkload placeholderUpdates(int rounds, int placeholders, int changedPerRound) {
+        steps.add((proxy, random) -> {
+            Map<UUID, Map<String, String>> values = new HashMap<>();
+            for (int round = 0; round < rounds; round++) {
+                for (Map.Entry<UUID, String> entry : proxy.getPlayers().entrySet()) {
+                    Map<String, String> current = values.computeIfAbsent(entry.getKey(), k -> {
+                        Map<String, String> initial = new HashMap<>();
+                        for (int i = 0; i < placeholders; i++) {
+                            initial.put("%placeholder_" + i + "%", "value " + random.nextInt(1000));
+                        }
+                        return initial;
+                    });
+                    for (int i = 0; i < changedPerRound; i++) {
+                        current.put("%placeholder_" + random.nextInt(placeholders) + "%", "value " + random.nextInt(1000));
+                    }
+                    proxy.getBackend(entry.getValue()).updatePlaceholders(entry.getKey(), current);
+                }
+                proxy.awaitQuiescence(STEP_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+        });
+        return this;
+    }
+
+    public void run(LoopbackProxy proxy) throws Exception {
+        Random random = new Random(seed);
+        for (Step step : steps) {
+            step.run(proxy, random);
+            if (!proxy.awaitQuiescence(STEP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Loopback network did not drain within " + STEP_TIMEOUT + "ms");
+            }
+        }
+    }
+
+    private static String randomItem(Random random) {
+        String item = ITEMS[random.nextInt(ITEMS.length)];
+        return "{id:\"minecraft:" + item + "\",count:" + (1 + random.nextInt(64)) + ",components:{\"minecraft:custom_name\":\"" + item + " #" + random.nextInt(100) + "\"}}";
+    }
+
+    @FunctionalInterface
+    private interface Step {
+
+        void run(LoopbackProxy proxy, Random random) throws Exception;
+
+    }
+
+}
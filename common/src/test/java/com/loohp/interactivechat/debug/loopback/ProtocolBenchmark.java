@@ -0,0 +1,74 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.debug.loopback;
+
+import com.loohp.interactivechat.registry.Registry;
+import com.loohp.interactivechat.registry.Registry.PluginMessagingFeature;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Runs the standard {@link LoopbackWorkload} through a {@link LoopbackProxy} once for every plugin messaging protocol version,
+ * from one before the first optional feature up to the current one, and reports bytes, message counts, latencies and allocation per run.
+ * <p>
+ * It runs as a plain main with the Velocity jar on the classpath, {@code ProtocolBenchmark [backends] [seed]}. Inventories are relayed
+ * on demand from the version that negotiates it, so inventory deltas only show up in a run where demand relay is left out.
+ */
+public class ProtocolBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int backends = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        run(backends, seed, System.out::println);
+        System.exit(0);
+    }
+
+    public static void run(int backends, long seed, Consumer<String> output) throws Exception {
+        Map<Integer, String> runs = new LinkedHashMap<>();
+        runs.put(PluginMessagingFeature.values()[0].getProtocolVersion() - 1, "legacy");
+        for (PluginMessagingFeature feature : PluginMessagingFeature.values()) {
+            runs.merge(feature.getProtocolVersion(), feature.name(), (a, b) -> a + ", " + b);
+        }
+
+        run(Registry.PLUGIN_MESSAGING_PROTOCOL_VERSION, backends, seed);
+        for (Map.Entry<Integer, String> entry : runs.entrySet()) {
+            LoopbackMetrics metrics = run(entry.getKey(), backends, seed);
+            output.accept("== protocol " + entry.getKey() + " (" + entry.getValue() + ")");
+            for (String line : metrics.report()) {
+                output.accept(line);
+            }
+        }
+    }
+
+    public static LoopbackMetrics run(int protocolVersion, int backends, long seed) throws Exception {
+        LoopbackMetrics metrics = new LoopbackMetrics();
+        try (LoopbackProxy proxy = new LoopbackProxy(protocolVersion, backends, metrics)) {
+            proxy.start();
+            metrics.startAllocationTracking();
+            LoopbackWorkload.standard(seed).run(proxy);
+            metrics.stopAllocationTracking();
+        }
+        return metrics;
+    }
+
+}
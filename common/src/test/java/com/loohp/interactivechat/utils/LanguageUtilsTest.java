@@ -0,0 +1,167 @@
+/*
+ * This file is part of InteractiveChat.
+ *
+ * Copyright (C) 2020 - 2025. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2020 - 2025. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.interactivechat.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LanguageUtilsTest {
+
+    private static final String EN_US = "{\"block.minecraft.stone\":\"Stone\",\"item.minecraft.diamond\":\"Diamond\"}";
+
+    @TempDir
+    File langFileFolder;
+
+    private HttpServer server;
+    private AtomicInteger clientRequests;
+    private String clientUrl;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        byte[] clientJar = createClientJar();
+        clientRequests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/client.jar", exchange -> {
+            clientRequests.incrementAndGet();
+            exchange.sendResponseHeaders(200, clientJar.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(clientJar);
+            }
+        });
+        server.start();
+        clientUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/client.jar";
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void extractsClientLanguageWithoutReadingTheCache() throws Exception {
+        JSONObject data = new JSONObject();
+        Map<String, String> mapping = LanguageUtils.updateClientLanguage(clientUrl, "aaaa", langFileFolder, data);
+
+        assertEquals("Stone", mapping.get("block.minecraft.stone"));
+        assertEquals("Diamond", mapping.get("item.minecraft.diamond"));
+        assertEquals(1, clientRequests.get());
+        File cache = new File(langFileFolder, "en_us.json");
+        assertTrue(cache.exists());
+        assertEquals(EN_US, new String(Files.readAllBytes(cache.toPath()), StandardCharsets.UTF_8));
+        assertEquals("aaaa", ((JSONObject) data.get("en_us")).get("client"));
+        assertEquals(1, langFileFolder.listFiles().length);
+    }
+
+    @Test
+    public void skipsUnchangedClientJar() throws Exception {
+        JSONObject data = new JSONObject();
+        LanguageUtils.updateClientLanguage(clientUrl, "aaaa", langFileFolder, data);
+
+        assertNull(LanguageUtils.updateClientLanguage(clientUrl, "aaaa", langFileFolder, data));
+        assertEquals(1, clientRequests.get());
+
+        assertEquals("Stone", LanguageUtils.updateClientLanguage(clientUrl, "bbbb", langFileFolder, data).get("block.minecraft.stone"));
+        assertEquals(2, clientRequests.get());
+    }
+
+    @Test
+    public void refetchesWhenCacheIsMissing() throws Exception {
+        JSONObject data = new JSONObject();
+        LanguageUtils.updateClientLanguage(clientUrl, "aaaa", langFileFolder, data);
+        assertTrue(new File(langFileFolder, "en_us.json").delete());
+
+        assertEquals("Stone", LanguageUtils.updateClientLanguage(clientUrl, "aaaa", langFileFolder, data).get("block.minecraft.stone"));
+        assertEquals(2, clientRequests.get());
+    }
+
+    @Test
+    public void sharesInFlightLoadOfTheSameLanguage() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger runs = new AtomicInteger();
+            Runnable loader = () -> {
+                runs.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            CompletableFuture<Void> first = LanguageUtils.loadTranslations("en_us", executor, loader);
+            CompletableFuture<Void> second = LanguageUtils.loadTranslations("en_us", executor, loader);
+            CompletableFuture<Void> other = LanguageUtils.loadTranslations("de_de", executor, loader);
+            assertSame(first, second);
+            assertNotSame(first, other);
+
+            release.countDown();
+            other.get(5, TimeUnit.SECONDS);
+            assertTrue(first.isDone());
+            assertEquals(2, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] createClientJar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("net/minecraft/client/Main.class"));
+            zip.write(new byte[64]);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("assets/minecraft/lang/en_us.json"));
+            zip.write(EN_US.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("assets/minecraft/textures/block/stone.png"));
+            zip.write(new byte[64]);
+            zip.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
+}